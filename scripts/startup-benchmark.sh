@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: time-to-first-request and RSS of QuattroTech.
+#
+# Compares the plain fat jar with the startup-optimized build
+# (Spring AOT + AppCDS, see the 'startup' Maven profile).
+# Needs MongoDB on localhost:27017 (docker compose up -d mongodb).
+#
+# Usage:
+#   mvn package -Pstartup -DskipTests
+#   scripts/startup-benchmark.sh [runs] [mode...]
+#
+# Modes: jar (java -jar on the fat jar), aot-cds (extracted jar with AOT and the CDS archive)
+# PORT, URL and TIMEOUT_SECONDS can be overridden from the environment.
+# Results are printed and appended to target/startup-benchmark.csv.
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+shift || true
+if (( $# > 0 )); then
+  MODES=("$@")
+else
+  MODES=(jar aot-cds)
+fi
+
+PORT="${PORT:-18080}"
+URL="${URL:-http://localhost:${PORT}/items}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-60}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CSV="${ROOT}/target/startup-benchmark.csv"
+
+command_for() {
+  case "$1" in
+    jar)
+      local jar
+      jar="$(ls "${ROOT}"/target/QuattroTech-*.jar | grep -v original | head -n 1)"
+      echo "java -jar ${jar}"
+      ;;
+    aot-cds)
+      echo "java -XX:SharedArchiveFile=${ROOT}/target/application/application.jsa -Xlog:cds=error" \
+           "-Dspring.aot.enabled=true -jar ${ROOT}/target/application/application.jar"
+      ;;
+    *)
+      echo "Unknown mode: $1" >&2
+      exit 1
+      ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+# Prints "<time-to-first-request ms> <rss kB>" for one cold start
+measure() {
+  local cmd="$1" start pid elapsed rss
+  start="$(now_ms)"
+  ${cmd} --server.port="${PORT}" > /dev/null 2>&1 &
+  pid=$!
+
+  until curl -s -o /dev/null -f "${URL}"; do
+    if ! kill -0 "${pid}" 2> /dev/null; then
+      echo "Application exited before serving ${URL}" >&2
+      exit 1
+    fi
+    if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+      kill "${pid}"
+      echo "No response from ${URL} within ${TIMEOUT_SECONDS}s" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+  rss="$(awk '/VmRSS/ { print $2 }' "/proc/${pid}/status")"
+
+  kill "${pid}"
+  wait "${pid}" 2> /dev/null || true
+  echo "${elapsed} ${rss}"
+}
+
+mkdir -p "$(dirname "${CSV}")"
+[[ -f "${CSV}" ]] || echo "timestamp,commit,mode,run,first_request_ms,rss_kb" > "${CSV}"
+commit="$(git -C "${ROOT}" rev-parse --short HEAD 2> /dev/null || echo unknown)"
+
+printf "%-8s %5s %18s %12s\n" mode run first_request_ms rss_kb
+for mode in "${MODES[@]}"; do
+  cmd="$(command_for "${mode}")"
+  total_ms=0
+  total_rss=0
+  for run in $(seq 1 "${RUNS}"); do
+    read -r ms rss < <(measure "${cmd}")
+    printf "%-8s %5d %18d %12d\n" "${mode}" "${run}" "${ms}" "${rss}"
+    echo "$(date -u +%FT%TZ),${commit},${mode},${run},${ms},${rss}" >> "${CSV}"
+    total_ms=$(( total_ms + ms ))
+    total_rss=$(( total_rss + rss ))
+  done
+  printf "%-8s %5s %18d %12d\n" "${mode}" avg $(( total_ms / RUNS )) $(( total_rss / RUNS ))
+done
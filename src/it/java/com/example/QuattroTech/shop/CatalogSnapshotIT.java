@@ -0,0 +1,95 @@
+package com.example.QuattroTech.shop;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.service.CatalogSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog snapshot against a real change stream (single-member replica set):
+ * the first start builds the snapshot from a scan, a restart maps it, serves
+ * right away and catches up on what changed while the instance was down.
+ * The snapshots are created by hand so two "instances" can share one file.
+ */
+@SpringBootTest
+@Testcontainers
+class CatalogSnapshotIT {
+
+    @SuppressWarnings("resource")
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ShopItemRepository repository;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll();
+    }
+
+    private CatalogSnapshot snapshot() {
+        return new CatalogSnapshot(repository, new SimpleMeterRegistry(), dir.resolve("catalog.snapshot").toString(),
+                60_000, 100);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within 10 s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void restart_servesMappedSnapshotAndCatchesUp() throws Exception {
+        ShopItem laptop = repository.save(new ShopItem("Laptop", "Gaming", new BigDecimal("1500.00"), 5));
+        ShopItem mouse = repository.save(new ShopItem("Mouse", "Wireless", new BigDecimal("25.00"), 10));
+
+        CatalogSnapshot first = snapshot();
+        assertThat(first.isServing()).isFalse();
+        first.start();
+        await(first::isServing);
+        assertThat(first.findAll()).extracting(ShopItem::getName).containsExactlyInAnyOrder("Laptop", "Mouse");
+
+        laptop.setQuantity(4);
+        laptop.setLastModified(1);
+        repository.save(laptop);
+        repository.deleteById(mouse.getId());
+        await(() -> first.find(mouse.getId()).isEmpty()
+                && first.find(laptop.getId()).map(ShopItem::getQuantity).orElse(0) == 4);
+        first.stop();
+
+        ShopItem cable = repository.save(new ShopItem("Cable", "USB-C", new BigDecimal("9.99"), 50));
+
+        CatalogSnapshot restarted = snapshot();
+        assertThat(restarted.isServing()).isTrue();
+        assertThat(restarted.findAll()).extracting(ShopItem::getName).containsExactly("Laptop");
+        restarted.start();
+        await(() -> restarted.find(cable.getId()).isPresent());
+        restarted.stop();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.QuattroTech.shop;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saturates a two-connection pool with slow queries and checks that
+ * the excess callers fail within the checkout budget instead of queueing.
+ */
+@SpringBootTest(properties = {
+        "shop.items.mongo.pool.max-size=2",
+        "shop.items.mongo.pool.max-wait-ms=50",
+        "shop.items.bulkhead.enabled=false"
+})
+@Testcontainers
+class MongoPoolBackpressureIT {
+
+    private static final int CALLERS = 8;
+
+    @SuppressWarnings("resource")
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void saturatedPool_failsFastAndRecordsTimeouts() throws Exception {
+        mongoTemplate.save(new ShopItem("slow", null, new BigDecimal("1.00"), 1));
+        // Each query holds its connection for about 300 ms
+        BasicQuery slowQuery = new BasicQuery("{ $where: 'sleep(300) || true' }");
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        List<Future<Long>> failedAfterMillis = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                failedAfterMillis.add(callers.submit(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        mongoTemplate.find(slowQuery, ShopItem.class);
+                        return -1L;
+                    } catch (DataAccessResourceFailureException e) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                }));
+            }
+
+            List<Long> failures = new ArrayList<>();
+            for (Future<Long> result : failedAfterMillis) {
+                long millis = result.get(10, TimeUnit.SECONDS);
+                if (millis >= 0) {
+                    failures.add(millis);
+                }
+            }
+
+            assertThat(failures).isNotEmpty();
+            // Well under the 300 ms a queued caller would have waited
+            assertThat(failures).allSatisfy(millis -> assertThat(millis).isLessThan(250));
+            assertThat(meterRegistry.get("shop.items.mongo.pool.checkout.failed")
+                    .tag("reason", "timeout").counter().count())
+                    .isEqualTo(failures.size());
+            assertThat(meterRegistry.get("shop.items.mongo.pool.checkout")
+                    .tag("outcome", "success").timer().count()).isPositive();
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
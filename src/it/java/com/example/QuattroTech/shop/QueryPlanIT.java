@@ -0,0 +1,430 @@
+package com.example.QuattroTech.shop;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemQuery.SortField;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.example.QuattroTech.shop.repository.ShopItemQueryPlan;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.ShopItemRepositoryCustom;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Query-plan regression harness. Seeds a realistic catalog, runs every read of
+ * ShopItemRepository and ShopItemService, captures the commands they send through
+ * a driver CommandListener and replays each one through explain (executionStats).
+ *
+ * Every captured command must use the index its case declares, examine at most
+ * maxDocsPerReturned documents per document returned, and have no blocking SORT stage.
+ * A COLLSCAN passes only where a case declares it, for reads that return the whole
+ * catalog or stop at a limit.
+ *
+ * everyQuery_hasAPlanCase fails when a read is added to either interface without a case
+ * here, so a new query cannot reach Mongo without its plan being checked.
+ */
+@SpringBootTest
+@Testcontainers
+class QueryPlanIT {
+
+    private static final int ITEMS = 20_000;
+    private static final int TOMBSTONES = 2_000;
+    private static final String[] PRODUCTS = {
+            "Adapter", "Cable", "Charger", "Dock", "Drive", "Headset", "Keyboard", "Lamp", "Laptop", "Microphone",
+            "Monitor", "Mouse", "Phone", "Printer", "Router", "Scanner", "Speaker", "Stand", "Tablet", "Webcam"};
+
+    private static final String COLLSCAN = "COLLSCAN";
+    private static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "aggregate", "count", "distinct");
+    // Session, routing and cluster fields the driver adds, which explain does not accept inside its command
+    private static final Set<String> SESSION_FIELDS = Set.of("lsid", "txnNumber", "readConcern");
+
+    // Writes, keyed by _id, and operations without a query plan
+    private static final Map<String, String> NOT_QUERIES = Map.ofEntries(
+            Map.entry("repository.recordCausalWrite", "reads the sequence counter by _id"),
+            Map.entry("repository.writeInSequence", "findAndModify by _id, the caller's write, then an update by _id"),
+            Map.entry("repository.recordDeletion", "upsert by _id"),
+            Map.entry("repository.incrementQuantities", "updates by _id and quantity range, then a find of the refused by _id"),
+            Map.entry("repository.lockImport", "findAndModify upsert by _id"),
+            Map.entry("repository.saveImportCheckpoint", "findAndReplace by _id and owner"),
+            Map.entry("repository.watchItems", "change stream"),
+            Map.entry("service.insertNewItem", "write"),
+            Map.entry("service.insertItems", "write"),
+            Map.entry("service.updateItem", "write"),
+            Map.entry("service.deleteItem", "write"),
+            Map.entry("service.adjustQuantity", "write"),
+            Map.entry("service.getCatalogVersion", "local counter"));
+
+    // Reads no index covers yet; knownUncoveredQueries_stillFail keeps this list honest
+    private static final Map<String, String> KNOWN_UNCOVERED = Map.of(
+            "repository.findByPriceLessThanEqual", "price is stored as a string, so no index orders it numerically",
+            "repository.findByQuantityGreaterThanOrderByPrice", "sorts on the unindexed price in memory");
+
+    @SuppressWarnings("resource")
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoContainer::getReplicaSetUrl);
+    }
+
+    @TestConfiguration
+    static class CommandCaptureConfiguration {
+
+        @Bean
+        CommandCapture commandCapture() {
+            return new CommandCapture();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCaptureCustomizer(CommandCapture commandCapture) {
+            return builder -> builder.addCommandListener(commandCapture);
+        }
+    }
+
+    @Autowired
+    private ShopItemRepository repository;
+
+    @Autowired
+    private ShopItemService service;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommandCapture commandCapture;
+
+    // Seeded once for all tests, as the container is shared by the class
+    private static ShopItem knownItem;
+
+    @BeforeEach
+    void seed() {
+        if (knownItem != null) {
+            return;
+        }
+        repository.deleteAll();
+        mongoTemplate.remove(new Query(), ShopItemTombstone.class);
+        Random random = new Random(42);
+        List<ShopItem> batch = new ArrayList<>(1_000);
+        for (int i = 0; i < ITEMS; i++) {
+            ShopItem item = new ShopItem(
+                    PRODUCTS[random.nextInt(PRODUCTS.length)] + " " + (char) ('A' + random.nextInt(26)) + i,
+                    "Seeded item " + i,
+                    BigDecimal.valueOf(50 + random.nextInt(200_000), 2),
+                    random.nextInt(20) == 0 ? random.nextInt(10) : random.nextInt(500));
+            item.setLastModified(i + 1);
+            batch.add(item);
+            if (batch.size() == 1_000) {
+                repository.insert(batch);
+                batch.clear();
+            }
+        }
+        List<ShopItemTombstone> tombstones = new ArrayList<>(TOMBSTONES);
+        for (int i = 0; i < TOMBSTONES; i++) {
+            tombstones.add(new ShopItemTombstone("deleted-" + i, random.nextInt(ITEMS) + 1));
+        }
+        mongoTemplate.insertAll(tombstones);
+        mongoTemplate.save(new ImportCheckpoint("supplier-1"));
+        // The counter the seeded sequences were allocated from
+        mongoTemplate.getCollection("sequences").insertOne(new Document("_id", "shop_items").append("value", (long) ITEMS));
+        knownItem = repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen((long) ITEMS - 1, (long) ITEMS))
+                .get(0);
+    }
+
+    private List<PlanCase> cases() {
+        String knownId = knownItem.getId();
+        return List.of(
+                // ========== Repository ==========
+                new PlanCase("repository.findAll", "whole catalog", List.of(COLLSCAN), 1,
+                        () -> repository.findAll()),
+                new PlanCase("repository.streamAll", "whole catalog", List.of(COLLSCAN), 1,
+                        () -> drain(repository.streamAll())),
+                new PlanCase("repository.findById", "point read", List.of("_id"), 1,
+                        () -> repository.findById(knownId)),
+                new PlanCase("repository.findByName", "exact name", List.of("name"), 1,
+                        () -> repository.findByName(knownItem.getName())),
+                // Unanchored: every name key is read, but only matching documents are fetched
+                new PlanCase("repository.findByNameContainingIgnoreCase", "substring", List.of("name"), 1,
+                        () -> repository.findByNameContainingIgnoreCase("ouse")),
+                new PlanCase("repository.streamByNameContainingIgnoreCase", "substring", List.of("name"), 1,
+                        () -> drain(repository.streamByNameContainingIgnoreCase("ouse"))),
+                new PlanCase("repository.findItemsWithLowStock", "quantity below", List.of("quantity"), 1,
+                        () -> repository.findItemsWithLowStock(5)),
+                new PlanCase("repository.streamItemsWithLowStock", "quantity below", List.of("quantity"), 1,
+                        () -> drain(repository.streamItemsWithLowStock(5))),
+                new PlanCase("repository.findByLastModifiedBetweenOrderByLastModified", "changes since",
+                        List.of("lastModified"), 1,
+                        () -> repository.findByLastModifiedBetweenOrderByLastModified(
+                                Range.leftOpen((long) ITEMS - 200, (long) ITEMS))),
+                new PlanCase("repository.findDeletionsSince", "tombstones since", List.of("sequence"), 1,
+                        () -> repository.findDeletionsSince(ITEMS - 2_000, ITEMS)),
+                new PlanCase("repository.currentChangeSequence", "counter by id", List.of("_id"), 1,
+                        () -> repository.currentChangeSequence()),
+                new PlanCase("repository.findImportCheckpoint", "checkpoint by id", List.of("_id"), 1,
+                        () -> repository.findImportCheckpoint("supplier-1")),
+                new PlanCase("repository.query", "name prefix", List.of("name"), 1,
+                        () -> query(new ShopItemQuery("Mouse", null, null, null, null, null, false, 1_000))),
+                new PlanCase("repository.query", "quantity range sorted descending", List.of("quantity"), 1,
+                        () -> query(new ShopItemQuery(null, null, null, 100, 200, SortField.QUANTITY, true, 50))),
+                // About 45% of prices fall in the range, the rest are fetched and dropped
+                new PlanCase("repository.query", "name prefix with price residual", List.of("name"), 3,
+                        () -> query(new ShopItemQuery("Mouse", new BigDecimal("100"), new BigDecimal("1000"),
+                                null, null, null, false, 1_000))),
+                // The quantity range bounds the sorted scan, about 45% of the prices in it match
+                new PlanCase("repository.query", "quantity range sorted with price residual", List.of("quantity"), 3,
+                        () -> query(new ShopItemQuery(null, new BigDecimal("100"), new BigDecimal("1000"),
+                                100, 200, SortField.QUANTITY, false, 50))),
+                new PlanCase("repository.query", "unfiltered, stops at the limit", List.of(COLLSCAN), 1,
+                        () -> query(new ShopItemQuery(null, null, null, null, null, null, false, 20))),
+
+                // ========== Service ==========
+                new PlanCase("service.getAllItems", "whole catalog", List.of(COLLSCAN), 1,
+                        () -> service.getAllItems()),
+                new PlanCase("service.streamAllItems", "whole catalog", List.of(COLLSCAN), 1,
+                        () -> drain(service.streamAllItems())),
+                new PlanCase("service.getItemById", "point read", List.of("_id"), 1,
+                        () -> service.getItemById(knownId)),
+                new PlanCase("service.getItemsByIds", "multi-get", List.of("_id"), 1,
+                        () -> service.getItemsByIds(List.of(knownId, "65f1c0ffee00000000000001"))),
+                new PlanCase("service.searchByName", "substring", List.of("name"), 1,
+                        () -> service.searchByName("ouse")),
+                new PlanCase("service.streamByName", "substring", List.of("name"), 1,
+                        () -> drain(service.streamByName("ouse"))),
+                new PlanCase("service.findLowStockItems", "quantity below", List.of("quantity"), 1,
+                        () -> service.findLowStockItems(5)),
+                new PlanCase("service.streamLowStockItems", "quantity below", List.of("quantity"), 1,
+                        () -> drain(service.streamLowStockItems(5))),
+                new PlanCase("service.getChangesSince", "delta sync", List.of("_id", "lastModified", "sequence"), 1,
+                        () -> service.getChangesSince(ITEMS - 200)),
+                new PlanCase("service.queryItems", "name prefix sorted by name", List.of("name"), 1,
+                        () -> service.queryItems(new ShopItemQuery("Key", null, null, null, null, SortField.NAME,
+                                true, 100))));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyQuery_usesItsIndexWithoutSortingInMemory() {
+        return cases().stream().map(planCase -> DynamicTest.dynamicTest(
+                planCase.method() + " (" + planCase.description() + ")", () -> {
+                    List<Plan> plans = explain(planCase.call());
+                    assertThat(plans).extracting(Plan::index)
+                            .as("indexes used by %s, plans %s", planCase.method(), plans)
+                            .containsExactlyElementsOf(planCase.indexes());
+                    for (Plan plan : plans) {
+                        assertThat(plan.stages()).as("blocking sort in %s", plan).doesNotContain("SORT");
+                        assertThat(plan.docsExamined())
+                                .as("documents examined per document returned in %s", plan)
+                                .isLessThanOrEqualTo((long) Math.ceil(
+                                        Math.max(plan.returned(), 1) * planCase.maxDocsPerReturned()));
+                    }
+                }));
+    }
+
+    @Test
+    void knownUncoveredQueries_stillFail() {
+        List<Plan> byPrice = explain(() -> repository.findByPriceLessThanEqual(new BigDecimal("100")));
+        List<Plan> byQuantityOrderByPrice = explain(() -> repository.findByQuantityGreaterThanOrderByPrice(490));
+
+        // Once one of these is covered, move it from KNOWN_UNCOVERED to a plan case
+        assertThat(byPrice).extracting(Plan::index).containsExactly(COLLSCAN);
+        assertThat(byQuantityOrderByPrice).flatExtracting(Plan::stages).contains("SORT");
+        assertThat(KNOWN_UNCOVERED).hasSize(2);
+    }
+
+    @Test
+    void sortOnUnboundIndexWithOtherFilters_isRejectedBeforeReachingMongo() {
+        // Given - 490..499 holds about 2% of the quantities, the kind of residual a sort used to let through
+        Query loophole = new Query(Criteria.where("quantity").gte(490).lte(499))
+                .with(Sort.by("name"))
+                .withHint(new Document("name", 1))
+                .limit(50);
+        List<ShopItemQuery> rejected = List.of(
+                new ShopItemQuery(null, null, null, 490, 499, SortField.NAME, false, 50),
+                new ShopItemQuery(null, null, null, 0, 250, SortField.NAME, false, 50),
+                new ShopItemQuery("Zz", null, null, null, null, SortField.QUANTITY, false, 50),
+                new ShopItemQuery(null, null, new BigDecimal("5"), 490, null, SortField.NAME, false, 50));
+
+        // When
+        List<Plan> loopholePlans = explain(() -> mongoTemplate.find(loophole, ShopItem.class));
+
+        // Then - the plan such a query would get reads far more than the harness allows
+        assertThat(loopholePlans).singleElement().satisfies(plan ->
+                assertThat(plan.docsExamined()).as("documents examined in %s", plan)
+                        .isGreaterThan(plan.returned() * 10));
+        for (ShopItemQuery query : rejected) {
+            List<BsonDocument> sent = commandCapture.record(() -> assertThatThrownBy(() -> service.queryItems(query))
+                    .isInstanceOf(IllegalArgumentException.class));
+            assertThat(sent).as("commands sent for %s", query).isEmpty();
+        }
+    }
+
+    @Test
+    void everyQuery_hasAPlanCase() {
+        Set<String> reads = new TreeSet<>();
+        for (Class<?> type : List.of(ShopItemRepository.class, ShopItemRepositoryCustom.class)) {
+            reads.addAll(declaredMethods("repository", type));
+        }
+        reads.addAll(declaredMethods("service", ShopItemService.class));
+        reads.removeAll(NOT_QUERIES.keySet());
+        reads.removeAll(KNOWN_UNCOVERED.keySet());
+
+        Set<String> covered = new TreeSet<>();
+        cases().forEach(planCase -> covered.add(planCase.method()));
+
+        assertThat(covered).as("reads without a plan case in QueryPlanIT").containsAll(reads);
+    }
+
+    private static Set<String> declaredMethods(String prefix, Class<?> type) {
+        Set<String> names = new TreeSet<>();
+        for (Method method : type.getDeclaredMethods()) {
+            if (Modifier.isAbstract(method.getModifiers()) && !method.isSynthetic()) {
+                names.add(prefix + "." + method.getName());
+            }
+        }
+        return names;
+    }
+
+    private List<ShopItem> query(ShopItemQuery query) {
+        return repository.query(ShopItemQueryPlan.of(query));
+    }
+
+    private static void drain(Stream<ShopItem> stream) {
+        try (stream) {
+            stream.forEach(item -> { });
+        }
+    }
+
+    // Runs the call, then explains every command it sent
+    private List<Plan> explain(Runnable call) {
+        List<BsonDocument> commands = commandCapture.record(call);
+        assertThat(commands).as("commands sent").isNotEmpty();
+        List<Plan> plans = new ArrayList<>(commands.size());
+        for (BsonDocument command : commands) {
+            Document explain = mongoTemplate.getDb().runCommand(new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("executionStats")));
+            plans.add(Plan.of(command, explain));
+        }
+        return plans;
+    }
+
+    record PlanCase(String method, String description, List<String> indexes, double maxDocsPerReturned,
+                    Runnable call) {
+    }
+
+    /**
+     * The winning plan of one command: its stages, root first, the index it scans
+     * (the first key of an IXSCAN, _id for IDHACK, COLLSCAN for a collection scan)
+     * and the documents it examined and returned.
+     */
+    record Plan(String command, List<String> stages, String index, long docsExamined, long returned) {
+
+        static Plan of(BsonDocument command, Document explain) {
+            // Pipelines that were not pushed down into the query layer keep their plan in a $cursor stage
+            Document source = explain;
+            if (!explain.containsKey("queryPlanner") && explain.containsKey("stages")) {
+                source = explain.getList("stages", Document.class).get(0).get("$cursor", Document.class);
+            }
+            List<String> stages = new ArrayList<>();
+            List<String> indexes = new ArrayList<>();
+            collectStages(source.get("queryPlanner", Document.class).get("winningPlan", Document.class), stages, indexes);
+            Document stats = source.get("executionStats", Document.class);
+            String index = indexes.isEmpty() ? "none" : indexes.get(0);
+            return new Plan(command.toJson(), stages, index,
+                    stats.get("totalDocsExamined", Number.class).longValue(),
+                    stats.get("nReturned", Number.class).longValue());
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void collectStages(Document stage, List<String> stages, List<String> indexes) {
+            // Slot based plans nest the classic plan under queryPlan
+            Document plan = stage.containsKey("queryPlan") ? stage.get("queryPlan", Document.class) : stage;
+            String name = plan.getString("stage");
+            stages.add(name);
+            switch (name) {
+                case "IXSCAN", "COUNT_SCAN", "DISTINCT_SCAN" ->
+                        indexes.add(plan.get("keyPattern", Document.class).keySet().iterator().next());
+                case "IDHACK", "EXPRESS_IDHACK" -> indexes.add("_id");
+                case "COLLSCAN" -> indexes.add(COLLSCAN);
+                default -> {
+                }
+            }
+            if (plan.containsKey("inputStage")) {
+                collectStages(plan.get("inputStage", Document.class), stages, indexes);
+            }
+            if (plan.containsKey("inputStages")) {
+                for (Document input : (List<Document>) plan.get("inputStages")) {
+                    collectStages(input, stages, indexes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the read commands sent while recording, without the fields explain rejects.
+     */
+    static class CommandCapture implements CommandListener {
+
+        private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        synchronized List<BsonDocument> record(Runnable call) {
+            commands.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return List.copyOf(commands);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (!recording || !EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+                return;
+            }
+            // The event's document is only valid during the callback
+            BsonDocument command = event.getCommand().clone();
+            command.keySet().removeIf(key -> key.startsWith("$") || SESSION_FIELDS.contains(key));
+            commands.add(command);
+        }
+    }
+}
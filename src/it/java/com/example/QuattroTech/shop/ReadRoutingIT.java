@@ -0,0 +1,99 @@
+package com.example.QuattroTech.shop;
+
+import com.example.QuattroTech.shop.controller.RequestCausalReadContext;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CausalToken;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Read routing against a single-member replica set: secondaryPreferred falls back
+ * to the primary, but the causal token round trip runs for real, including
+ * the signed cluster time and afterClusterTime reads.
+ * For a set with actual secondaries use the replica-set profile in docker-compose.yml.
+ */
+@SpringBootTest(properties = "shop.items.read-routing.enabled=true")
+@AutoConfigureMockMvc
+@Testcontainers
+class ReadRoutingIT {
+
+    @SuppressWarnings("resource")
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShopItemRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void write_returnsCausalToken_thatLaterReadsCanPresent() throws Exception {
+        ShopItem item = new ShopItem("Routed laptop", "Gaming", new BigDecimal("1500.00"), 2);
+
+        String token = mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(RequestCausalReadContext.HEADER))
+                .andExpect(cookie().exists(RequestCausalReadContext.COOKIE))
+                .andReturn().getResponse().getHeader(RequestCausalReadContext.HEADER);
+        assertThat(CausalToken.decode(token).clusterTime()).isNotNull();
+        String id = repository.findAll().get(0).getId();
+
+        mockMvc.perform(get("/api/items/{id}", id).header(RequestCausalReadContext.HEADER, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Routed laptop")));
+        mockMvc.perform(get("/api/items/search").param("name", "routed")
+                        .header(RequestCausalReadContext.HEADER, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(id)));
+        mockMvc.perform(get("/api/items/low-stock").param("threshold", "5")
+                        .header(RequestCausalReadContext.HEADER, token))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(id)));
+    }
+
+    @Test
+    void reads_withoutToken_areRoutedWithoutSessions() throws Exception {
+        repository.save(new ShopItem("Plain mouse", null, new BigDecimal("25.00"), 9));
+
+        mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(RequestCausalReadContext.HEADER))
+                .andExpect(content().string(containsString("Plain mouse")));
+    }
+}
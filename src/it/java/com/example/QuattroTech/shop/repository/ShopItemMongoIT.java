@@ -1,10 +1,12 @@
 package com.example.QuattroTech.shop.repository;
 
+import com.example.QuattroTech.shop.model.QuantityUpdates;
 import com.example.QuattroTech.shop.model.ShopItem;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -14,8 +16,15 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Testcontainers
 class ShopItemMongoIT {
@@ -58,4 +67,125 @@ class ShopItemMongoIT {
             assertThat(count).isEqualTo(1);
         }
     }
+
+    @Test
+    void changeSequence_isMonotonic_andTombstonesAreReturnedSinceToken() {
+        try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+            MongoTemplate template = new MongoTemplate(client, "test");
+            template.getDb().drop();
+            ShopItemRepositoryCustomImpl custom = new ShopItemRepositoryCustomImpl(template);
+
+            long first = custom.writeInSequence(sequence -> {
+                custom.recordDeletion("a", sequence);
+                return sequence;
+            });
+            long second = custom.writeInSequence(sequence -> {
+                custom.recordDeletion("b", sequence);
+                return sequence;
+            });
+
+            assertThat(second).isEqualTo(first + 1);
+            assertThat(custom.currentChangeSequence()).isEqualTo(second);
+            assertThat(custom.findDeletionsSince(first, second))
+                    .extracting("itemId")
+                    .containsExactly("b");
+        }
+    }
+
+    @Test
+    void writeInSequence_failedWrite_rollsBackItsChangeAndLeavesAGap() {
+        try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+            MongoTemplate template = new MongoTemplate(client, "test");
+            template.getDb().drop();
+            ShopItemRepositoryCustomImpl custom = new ShopItemRepositoryCustomImpl(template);
+            long before = custom.writeInSequence(sequence -> sequence);
+
+            assertThatThrownBy(() -> custom.writeInSequence(sequence -> {
+                custom.recordDeletion("a", sequence);
+                throw new IllegalStateException("write failed");
+            })).isInstanceOf(IllegalStateException.class);
+
+            // The tombstone was rolled back with its transaction, its sequence is released unused
+            assertThat(custom.currentChangeSequence()).isEqualTo(before + 1);
+            assertThat(custom.findDeletionsSince(0, Long.MAX_VALUE)).isEmpty();
+        }
+    }
+
+    @Test
+    void incrementQuantities_outOfRange_isRefusedAndLeavesItemUntouched() {
+        try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+            MongoTemplate template = new MongoTemplate(client, "test");
+            template.getDb().drop();
+            ShopItemRepositoryCustomImpl custom = new ShopItemRepositoryCustomImpl(template);
+            ShopItem laptop = template.insert(new ShopItem("Laptop", "Gaming", new BigDecimal("1500.00"), 5));
+            ShopItem mouse = template.insert(new ShopItem("Mouse", "Wireless", new BigDecimal("25.00"), 5));
+
+            QuantityUpdates updates = custom.incrementQuantities(
+                    Map.of(laptop.getId(), -3, mouse.getId(), -6, "missing", -1), 9L);
+
+            assertThat(updates.failed()).isEmpty();
+            assertThat(updates.refused()).containsExactly(mouse.getId());
+            assertThat(template.findById(laptop.getId(), ShopItem.class).getQuantity()).isEqualTo(2);
+            assertThat(template.findById(mouse.getId(), ShopItem.class))
+                    .extracting(ShopItem::getQuantity, ShopItem::getLastModified)
+                    .containsExactly(5, mouse.getLastModified());
+        }
+    }
+
+    @Test
+    void currentChangeSequence_stopsBelowTheOldestOpenWrite() throws Exception {
+        try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+            MongoTemplate template = new MongoTemplate(client, "test");
+            template.getDb().drop();
+            ShopItemRepositoryCustomImpl custom = new ShopItemRepositoryCustomImpl(template);
+            CountDownLatch opened = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<Long> slow = executor.submit(() -> custom.writeInSequence(sequence -> {
+                opened.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return sequence;
+            }));
+            assertThat(opened.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // A later writer does not wait for the open one, readers stop below it
+            long later = custom.writeInSequence(sequence -> sequence);
+            assertThat(custom.currentChangeSequence()).isEqualTo(later - 2);
+
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo(later - 1);
+            assertThat(custom.currentChangeSequence()).isEqualTo(later);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void codecReads_matchConverterReads() {
+        try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+            MongoTemplate template = new MongoTemplate(client, "test");
+            template.dropCollection(ShopItem.class);
+            template.save(new ShopItem("Laptop", "Gaming laptop", new BigDecimal("1500.00"), 5));
+            template.save(new ShopItem("Mouse", null, new BigDecimal("25.50"), 2));
+
+            ShopItemRepositoryCustomImpl viaConverter = new ShopItemRepositoryCustomImpl(template, false);
+            ShopItemRepositoryCustomImpl viaCodec = new ShopItemRepositoryCustomImpl(template, true);
+
+            assertThat(viaCodec.findAll()).containsExactlyElementsOf(viaConverter.findAll());
+            assertThat(viaCodec.findByNameContainingIgnoreCase("LAP"))
+                    .containsExactlyElementsOf(viaConverter.findByNameContainingIgnoreCase("LAP"));
+            assertThat(viaCodec.findItemsWithLowStock(3))
+                    .containsExactlyElementsOf(viaConverter.findItemsWithLowStock(3))
+                    .hasSize(1);
+            try (var streamed = viaCodec.streamAll()) {
+                assertThat(streamed).containsExactlyElementsOf(viaConverter.findAll());
+            }
+            try (var streamed = viaConverter.streamItemsWithLowStock(3)) {
+                assertThat(streamed).containsExactlyElementsOf(viaConverter.findItemsWithLowStock(3));
+            }
+        }
+    }
 }
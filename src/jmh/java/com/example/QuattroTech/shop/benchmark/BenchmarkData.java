@@ -0,0 +1,37 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic ShopItem fixtures shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<ShopItem> items(int count) {
+        Random random = new Random(42);
+        List<ShopItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(i, random));
+        }
+        return items;
+    }
+
+    static ShopItem item(int index, Random random) {
+        ShopItem item = new ShopItem(
+                String.format("%024x", index),
+                "Item " + index,
+                "Description for catalog item number " + index,
+                BigDecimal.valueOf(random.nextInt(1_000_000), 2),
+                random.nextInt(500));
+        item.setLastModified(index);
+        return item;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CatalogSnapshotFile;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog snapshot costs on a warm restart: writing the file, mapping it
+ * (what startup waits for before serving), a point read from the mapping,
+ * and decoding every item (the full list).
+ * write and load are single shots per iteration, the mapped file stays in the page cache.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="CatalogSnapshotBenchmark"
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CatalogSnapshotBenchmark {
+
+    private static final BsonDocument RESUME_TOKEN = new BsonDocument("_data", new BsonString("8266A1B2C3000000012B0229296E04"));
+
+    @Param({"100000", "1000000"})
+    public int items;
+
+    private List<ShopItem> catalog;
+    private Path directory;
+    private Path snapshotPath;
+    private CatalogSnapshotFile snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        catalog = BenchmarkData.items(items);
+        directory = Files.createTempDirectory("catalog-snapshot-benchmark");
+        snapshotPath = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(snapshotPath, RESUME_TOKEN, catalog.iterator());
+        snapshot = CatalogSnapshotFile.map(snapshotPath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int write() throws IOException {
+        return CatalogSnapshotFile.write(directory.resolve("written.snapshot"), RESUME_TOKEN, catalog.iterator());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public Optional<ShopItem> loadAndFirstRead() throws IOException {
+        return CatalogSnapshotFile.map(snapshotPath).find(catalog.get(items / 2).getId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<ShopItem> findById() {
+        return snapshot.find(catalog.get(ThreadLocalRandom.current().nextInt(items)).getId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void decodeAll(Blackhole blackhole) {
+        Iterator<ShopItem> iterator = snapshot.iterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and throughput of single-item inserts per durability tier,
+ * through a MongoTemplate with the tiered write concern resolver.
+ * STRICT waits for a journaled majority, so it needs a real replica set
+ * to show its cost; start the one from docker-compose.yml:
+ *   docker compose --profile replica-set up -d
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="DurabilityTierBenchmark"
+ * Latency percentiles: add "-bm sample -tu us"; override the set with
+ * -jvmArgs -Dbenchmark.mongo.uri=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class DurabilityTierBenchmark {
+
+    @Param({"FAST", "STANDARD", "STRICT"})
+    public DurabilityTier tier;
+
+    private MongoClient client;
+    private MongoTemplate template;
+    private TieredWriteConcernResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri",
+                "mongodb://localhost:27021,localhost:27022,localhost:27023/?replicaSet=rs0"));
+        template = new MongoTemplate(client, "durability_benchmark");
+        resolver = new TieredWriteConcernResolver();
+        template.setWriteConcernResolver(resolver);
+        template.dropCollection(ShopItem.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public ShopItem insert() {
+        return resolver.run(tier, () ->
+                template.insert(new ShopItem("Benchmark item", null, new BigDecimal("9.99"), 1)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.InMemoryShopItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory repository costs: a point read, the indexed range queries
+ * (low stock reads a narrow quantity range, price a wider one) against
+ * a full scan filter, and an indexed save, which moves the item in every index.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="InMemoryRepositoryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InMemoryRepositoryBenchmark {
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("1000.00");
+
+    @Param({"10000", "100000"})
+    public int items;
+
+    private List<ShopItem> catalog;
+    private InMemoryShopItemRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkData.items(items);
+        repository = new InMemoryShopItemRepository();
+        repository.saveAll(catalog);
+    }
+
+    @Benchmark
+    public Optional<ShopItem> findById() {
+        return repository.findById(randomItem().getId());
+    }
+
+    @Benchmark
+    public List<ShopItem> findItemsWithLowStock() {
+        return repository.findItemsWithLowStock(5);
+    }
+
+    @Benchmark
+    public List<ShopItem> findByPriceLessThanEqual() {
+        return repository.findByPriceLessThanEqual(MAX_PRICE);
+    }
+
+    // What the range queries would cost without secondary indexes
+    @Benchmark
+    public List<ShopItem> lowStockByScan() {
+        return repository.findAll().stream().filter(item -> item.getQuantity() < 5).toList();
+    }
+
+    @Benchmark
+    public ShopItem save() {
+        ShopItem item = randomItem();
+        item.setQuantity(ThreadLocalRandom.current().nextInt(100));
+        return repository.save(item);
+    }
+
+    private ShopItem randomItem() {
+        return catalog.get(ThreadLocalRandom.current().nextInt(items));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.controller.web.ItemsTableCache;
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing the /items table HTML with and without ItemsTableCache.
+ * The uncached case bumps the catalog version on every call, which forces
+ * a full template evaluation like a cache miss does.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args=ItemsTableRenderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemsTableRenderBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ItemsTableCache cache;
+    private List<ShopItem> items;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        cache = new ItemsTableCache(templateEngine, 16, Integer.MAX_VALUE, TimeUnit.HOURS.toMillis(1));
+        items = BenchmarkData.items(size);
+        request = new MockHttpServletRequest("GET", "/items");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public String uncached() {
+        return cache.render("all", ++version, () -> items, request, response);
+    }
+
+    @Benchmark
+    public String cached() {
+        return cache.render("all", 0, () -> items, request, response);
+    }
+}
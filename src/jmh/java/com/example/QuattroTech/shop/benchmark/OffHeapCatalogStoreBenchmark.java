@@ -0,0 +1,87 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.OffHeapCatalogStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A catalog held in an on-heap ConcurrentHashMap against OffHeapCatalogStore.
+ * Setup prints heap and direct memory occupied by the loaded catalog ([occupancy] lines);
+ * fullGc times a full collection with the catalog live, which is where millions
+ * of on-heap items hurt most; findById is the price paid per read for decoding.
+ * Use -prof gc for collection counts and times alongside.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="OffHeapCatalogStoreBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class OffHeapCatalogStoreBenchmark {
+
+    @Param({"1000000", "3000000"})
+    public int items;
+
+    @Param({"heap", "offheap"})
+    public String store;
+
+    private Map<String, ShopItem> heapCatalog;
+    private OffHeapCatalogStore offHeapCatalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long heapBefore = usedHeapAfterGc();
+        long directBefore = directMemory();
+        // Items are generated one at a time, so only the store under test keeps them
+        Random random = new Random(42);
+        if (store.equals("heap")) {
+            heapCatalog = new ConcurrentHashMap<>();
+            for (int i = 0; i < items; i++) {
+                ShopItem item = BenchmarkData.item(i, random);
+                heapCatalog.put(item.getId(), item);
+            }
+        } else {
+            offHeapCatalog = new OffHeapCatalogStore(OffHeapCatalogStore.DEFAULT_CHUNK_BYTES, items);
+            for (int i = 0; i < items; i++) {
+                offHeapCatalog.put(BenchmarkData.item(i, random));
+            }
+        }
+        System.out.printf("%n[occupancy] store=%s items=%d heapMb=%d directMb=%d%n", store, items,
+                (usedHeapAfterGc() - heapBefore) >> 20, (directMemory() - directBefore) >> 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void fullGc() {
+        System.gc();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ShopItem findById() {
+        String id = String.format("%024x", ThreadLocalRandom.current().nextInt(items));
+        return heapCatalog != null ? heapCatalog.get(id) : offHeapCatalog.find(id).orElse(null);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.MinorUnits;
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal prices against long minor units on the catalog's hot paths:
+ * the price range check behind findByPriceLessThanEqual, sorting by price
+ * (converting per comparison costs more than BigDecimal.compareTo saves, which is
+ * why comparators keep BigDecimal), and decoding a stored price in the long form
+ * (unscaled bytes) against the compact form (unscaled long and scale) used by
+ * the off-heap store and the catalog snapshot.
+ * Use -prof gc to compare allocation per operation.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="PriceRepresentationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceRepresentationBenchmark {
+
+    private static final int ITEMS = 10_000;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("5000.00");
+    private static final long MAX_UNITS = MinorUnits.floor(MAX_PRICE);
+
+    private List<ShopItem> items;
+    private long[] units;
+    private ByteBuffer longForm;
+    private ByteBuffer compactForm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = BenchmarkData.items(ITEMS);
+        units = new long[ITEMS];
+        longForm = ByteBuffer.allocate(ITEMS * 16);
+        compactForm = ByteBuffer.allocate(ITEMS * 12);
+        for (int i = 0; i < ITEMS; i++) {
+            BigDecimal price = items.get(i).getPrice();
+            units[i] = MinorUnits.floor(price);
+            byte[] unscaled = price.unscaledValue().toByteArray();
+            longForm.putInt(i * 16, unscaled.length).put(i * 16 + 4, unscaled).putInt(i * 16 + 12, price.scale());
+            compactForm.putLong(i * 12, price.scaleByPowerOfTen(price.scale()).longValueExact())
+                    .putInt(i * 12 + 8, price.scale());
+        }
+    }
+
+    @Benchmark
+    public List<ShopItem> sortByBigDecimal() {
+        List<ShopItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(ShopItem::getPrice));
+        return sorted;
+    }
+
+    @Benchmark
+    public List<ShopItem> sortByMinorUnits() {
+        List<ShopItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong(item -> MinorUnits.floor(item.getPrice())));
+        return sorted;
+    }
+
+    @Benchmark
+    public int rangeCheckBigDecimal() {
+        int matches = 0;
+        for (ShopItem item : items) {
+            if (item.getPrice().compareTo(MAX_PRICE) <= 0) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int rangeCheckMinorUnits() {
+        int matches = 0;
+        for (long price : units) {
+            if (price <= MAX_UNITS) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BigDecimal decodeLongForm() {
+        int offset = ThreadLocalRandom.current().nextInt(ITEMS) * 16;
+        byte[] unscaled = new byte[longForm.getInt(offset)];
+        longForm.get(offset + 4, unscaled);
+        return new BigDecimal(new BigInteger(unscaled), longForm.getInt(offset + 12));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BigDecimal decodeCompactForm() {
+        int offset = ThreadLocalRandom.current().nextInt(ITEMS) * 12;
+        return BigDecimal.valueOf(compactForm.getLong(offset), compactForm.getInt(offset + 8));
+    }
+}
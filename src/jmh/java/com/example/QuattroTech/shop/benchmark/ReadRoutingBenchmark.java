@@ -0,0 +1,97 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.CausalToken;
+import com.example.QuattroTech.shop.repository.ShopItemRepositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the routed list reads against a real replica set:
+ * primary only, secondaryPreferred, and secondaryPreferred inside a
+ * causally consistent session (a caller that just wrote).
+ * Needs the replica set from docker-compose.yml:
+ *   docker compose --profile replica-set up -d
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="ReadRoutingBenchmark"
+ * Override the set with -Djmh.args="ReadRoutingBenchmark -jvmArgs -Dbenchmark.mongo.uri=..."
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class ReadRoutingBenchmark {
+
+    private static final int ITEMS = 500;
+
+    @Param({"primary", "secondaryPreferred", "causal"})
+    public String routing;
+
+    private MongoClient client;
+    private ShopItemRepositoryCustomImpl repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri",
+                "mongodb://localhost:27021,localhost:27022,localhost:27023/?replicaSet=rs0"));
+        MongoTemplate template = new MongoTemplate(client, "read_routing_benchmark");
+        template.dropCollection(ShopItem.class);
+        List<ShopItem> items = BenchmarkData.items(ITEMS);
+        items.forEach(item -> item.setId(null));
+        template.insertAll(items);
+
+        FixedCausalReadContext causalReads = new FixedCausalReadContext();
+        repository = new ShopItemRepositoryCustomImpl(template, false, !routing.equals("primary"), 90,
+                routing.equals("causal") ? causalReads : null, null);
+        if (routing.equals("causal")) {
+            // Captures a real token once; every benchmark read then waits for that point in the oplog
+            causalReads.bound = true;
+            repository.recordCausalWrite();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public List<ShopItem> findLowStock() {
+        return repository.findItemsWithLowStock(100);
+    }
+
+    @Benchmark
+    public List<ShopItem> searchByName() {
+        return repository.findByNameContainingIgnoreCase("item 4");
+    }
+
+    private static final class FixedCausalReadContext implements CausalReadContext {
+
+        private volatile boolean bound;
+        private volatile CausalToken token;
+
+        @Override
+        public CausalToken current() {
+            return token;
+        }
+
+        @Override
+        public boolean isBound() {
+            return bound;
+        }
+
+        @Override
+        public void advance(CausalToken token) {
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemCodec;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShopItemCodec against the MappingMongoConverter path
+ * (BSON -> Document -> ShopItem and back) on the same raw BSON.
+ * Use -prof gc to compare allocation per operation.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args="ShopItemCodecBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShopItemCodecBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    private final ShopItemCodec codec = new ShopItemCodec();
+    private final Codec<Document> documentCodec =
+            MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    private MappingMongoConverter converter;
+    private List<ShopItem> items;
+    private List<byte[]> encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        items = BenchmarkData.items(ITEMS);
+        encoded = new ArrayList<>(ITEMS);
+        for (ShopItem item : items) {
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            codec.encode(new BsonBinaryWriter(buffer), item, EncoderContext.builder().build());
+            encoded.add(buffer.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public List<ShopItem> decodeWithCodec() {
+        List<ShopItem> result = new ArrayList<>(ITEMS);
+        for (byte[] bytes : encoded) {
+            result.add(codec.decode(reader(bytes), DecoderContext.builder().build()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ShopItem> decodeWithConverter() {
+        List<ShopItem> result = new ArrayList<>(ITEMS);
+        for (byte[] bytes : encoded) {
+            Document document = documentCodec.decode(reader(bytes), DecoderContext.builder().build());
+            result.add(converter.read(ShopItem.class, document));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int encodeWithCodec() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        for (ShopItem item : items) {
+            codec.encode(new BsonBinaryWriter(buffer), item, EncoderContext.builder().build());
+        }
+        return buffer.getPosition();
+    }
+
+    @Benchmark
+    public int encodeWithConverter() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        for (ShopItem item : items) {
+            Document document = new Document();
+            converter.write(item, document);
+            documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        }
+        return buffer.getPosition();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.QuattroTech.shop.benchmark;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode / decode cost of ShopItem lists in JSON, CBOR and Smile.
+ * Payload sizes are printed once per trial.
+ *
+ * Run with: mvn verify -Pbenchmark -Djmh.args=ShopItemSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShopItemSerializationBenchmark {
+
+    private static final TypeReference<List<ShopItem>> ITEM_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private List<ShopItem> items;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+        items = BenchmarkData.items(size);
+        encoded = mapper.writeValueAsBytes(items);
+        System.out.printf("%n[payload] format=%s items=%d bytes=%d%n", format, size, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public List<ShopItem> decode() throws IOException {
+        return mapper.readValue(encoded, ITEM_LIST);
+    }
+}
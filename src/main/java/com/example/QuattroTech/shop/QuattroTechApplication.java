@@ -2,12 +2,22 @@ package com.example.QuattroTech.shop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class QuattroTechApplication {
 
+	// Startup steps kept for the actuator 'startup' endpoint
+	static final int STARTUP_STEPS_CAPACITY = 4096;
+
 	public static void main(String[] args) {
-		SpringApplication.run(QuattroTechApplication.class, args);
+		application().run(args);
+	}
+
+	static SpringApplication application() {
+		SpringApplication application = new SpringApplication(QuattroTechApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+		return application;
 	}
 
 }
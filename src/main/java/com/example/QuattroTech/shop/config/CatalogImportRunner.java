@@ -0,0 +1,54 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.model.ImportReport;
+import com.example.QuattroTech.shop.service.CatalogImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Imports a CSV catalog file at startup, for batch runs without the web tier:
+ *
+ *   java -jar QuattroTech.jar --spring.main.web-application-type=none \
+ *        --shop.items.import.file=catalog.csv --shop.items.import.id=supplier-2024-06
+ *
+ * Re-running with the same id after a crash resumes from the last checkpoint.
+ * Without an id the file name is used.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.import", name = "file")
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportRunner.class);
+
+    private final CatalogImporter catalogImporter;
+    private final Path file;
+    private final String importId;
+
+    public CatalogImportRunner(
+            CatalogImporter catalogImporter,
+            @Value("${shop.items.import.file}") String file,
+            @Value("${shop.items.import.id:}") String importId) {
+        this.catalogImporter = catalogImporter;
+        this.file = Path.of(file);
+        this.importId = importId.isBlank() ? this.file.getFileName().toString() : importId;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Importing catalog {} as import {}", file, importId);
+        ImportReport report = catalogImporter.importFile(importId, file);
+        log.info("Import {} finished: {} rows imported, {} rejected, {} bytes in {} ms (resumed after row {})",
+                importId, report.importedRows(), report.rejectedRows(), report.bytesRead(),
+                report.durationMillis(), report.resumedFromRow());
+        for (ImportReport.Rejection rejection : report.rejections()) {
+            log.warn("Import {} rejected row {}: {}", importId, rejection.row(), rejection.reason());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the JIT and the Mongo working set before the instance takes traffic.
+ * Runs as an ApplicationRunner, i.e. after the web server started but before
+ * the readiness state becomes ACCEPTING_TRAFFIC. With the 'lazy' profile the
+ * DeferredMongoInitializer runs it instead, once Mongo is reachable.
+ *
+ * A bounded set of items is read through ShopItemService, then rounds of synthetic
+ * requests go through the real HTTP stack (Jackson for /api/items, Thymeleaf
+ * for /items) until a round adds less than the settle threshold of JIT time.
+ * Every request is bounded by hot-items, so the warm-up costs the same whatever
+ * the catalog size.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.warmup", name = "enabled", havingValue = "true")
+public class CatalogWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+
+    // One list request and one rendered page per this many point reads
+    static final int LIST_REQUEST_EVERY = 10;
+
+    private final ShopItemService shopItemService;
+    private final RestClient.Builder restClientBuilder;
+    private final Environment environment;
+    private final int hotItems;
+    private final int requestsPerRound;
+    private final long maxDurationNanos;
+    private final long settleThresholdMillis;
+    private final int stableRounds;
+    private final boolean deferred;
+
+    private final AtomicLong durationNanos = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    public CatalogWarmup(
+            ShopItemService shopItemService,
+            RestClient.Builder restClientBuilder,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${shop.items.warmup.hot-items:100}") int hotItems,
+            @Value("${shop.items.warmup.requests-per-round:200}") int requestsPerRound,
+            @Value("${shop.items.warmup.max-duration-ms:30000}") long maxDurationMillis,
+            @Value("${shop.items.warmup.settle-threshold-ms:20}") long settleThresholdMillis,
+            @Value("${shop.items.warmup.stable-rounds:3}") int stableRounds,
+            @Value("${shop.items.deferred-init.enabled:false}") boolean deferred) {
+        this.shopItemService = shopItemService;
+        this.restClientBuilder = restClientBuilder;
+        this.environment = environment;
+        this.hotItems = hotItems;
+        this.requestsPerRound = requestsPerRound;
+        this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        this.settleThresholdMillis = settleThresholdMillis;
+        this.stableRounds = stableRounds;
+        this.deferred = deferred;
+
+        TimeGauge.builder("shop.items.warmup.duration", durationNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .description("Duration of the last warm-up")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.warmup.requests", requests, AtomicLong::get)
+                .description("Synthetic requests sent by the last warm-up")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!deferred) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Runs the warm-up and returns its duration in milliseconds.
+     * Failures are logged, never thrown: a cold instance is better than none.
+     */
+    public long warmUp() {
+        long start = System.nanoTime();
+        int rounds = 0;
+        requests.set(0);
+        try {
+            List<String> hotIds = preloadHotItems();
+            RestClient client = restClientBuilder
+                    .baseUrl("http://localhost:" + environment.getProperty("local.server.port", "8080"))
+                    .build();
+
+            CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+            long jitMillis = compilationMillis(jit);
+            int stable = 0;
+            while (stable < stableRounds && System.nanoTime() - start < maxDurationNanos) {
+                runRound(client, hotIds);
+                rounds++;
+                long now = compilationMillis(jit);
+                stable = now - jitMillis <= settleThresholdMillis ? stable + 1 : 0;
+                jitMillis = now;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up aborted after {} rounds", rounds, e);
+        }
+
+        durationNanos.set(System.nanoTime() - start);
+        long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos.get());
+        log.info("Warm-up finished in {} ms: {} rounds, {} requests", millis, rounds, requests.get());
+        return millis;
+    }
+
+    public long lastDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos.get());
+    }
+
+    public long lastRequestCount() {
+        return requests.get();
+    }
+
+    // Reads the best-stocked hotItems items off the quantity index, then one by one,
+    // pulling them into Mongo's cache; there are no access statistics to pick hotter ones
+    private List<String> preloadHotItems() {
+        List<String> ids = shopItemService.queryItems(hotItemsQuery()).stream()
+                .map(ShopItem::getId)
+                .toList();
+        ids.forEach(shopItemService::getItemById);
+        return ids;
+    }
+
+    private ShopItemQuery hotItemsQuery() {
+        return new ShopItemQuery(null, null, null, null, null, ShopItemQuery.SortField.QUANTITY, true,
+                Math.min(hotItems, ShopItemQuery.MAX_LIMIT));
+    }
+
+    private void runRound(RestClient client, List<String> hotIds) {
+        for (int i = 0; i < requestsPerRound; i++) {
+            if (i % LIST_REQUEST_EVERY == 0 || hotIds.isEmpty()) {
+                send(client, "/api/items/query?sort=quantity,desc&limit=" + hotItemsQuery().limit());
+                if (!hotIds.isEmpty()) {
+                    send(client, "/items/" + hotIds.get(i % hotIds.size()));
+                }
+            } else {
+                send(client, "/api/items/" + hotIds.get(i % hotIds.size()));
+            }
+        }
+    }
+
+    private void send(RestClient client, String path) {
+        // Error responses (e.g. an item deleted meanwhile) still exercise the stack
+        client.get().uri(path).retrieve()
+                .onStatus(HttpStatusCode::isError, (request, response) -> { })
+                .toBodilessEntity();
+        requests.incrementAndGet();
+    }
+
+    // Without JIT time monitoring every round counts as settled
+    private static long compilationMillis(CompilationMXBean jit) {
+        if (jit == null || !jit.isCompilationTimeMonitoringSupported()) {
+            return 0;
+        }
+        return jit.getTotalCompilationTime();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.QuattroTech.shop.config;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the first blocking Mongo round trips out of startup.
+ * Once the application is ready it pings Mongo, reconciles the indexes
+ * declared on the @Document classes (instead of spring.data.mongodb.auto-index-creation)
+ * instantiates the controllers and runs the CatalogWarmup, if enabled. Until that succeeds this indicator reports
+ * OUT_OF_SERVICE, so a readiness group including it keeps traffic away.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "shop.items.deferred-init", name = "enabled", havingValue = "true")
+public class DeferredMongoInitializer implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredMongoInitializer.class);
+
+    private final ApplicationContext applicationContext;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final ObjectProvider<CatalogWarmup> warmup;
+    private final long retryDelayMillis;
+    private final ScheduledExecutorService initializer;
+
+    private volatile Health health = Health.outOfService().withDetail("phase", "starting").build();
+
+    public DeferredMongoInitializer(
+            ApplicationContext applicationContext,
+            ObjectProvider<MongoTemplate> mongoTemplate,
+            ObjectProvider<CatalogWarmup> warmup,
+            @Value("${shop.items.deferred-init.retry-delay-ms:5000}") long retryDelayMillis) {
+        this.applicationContext = applicationContext;
+        this.mongoTemplate = mongoTemplate;
+        this.warmup = warmup;
+        this.retryDelayMillis = retryDelayMillis;
+        this.initializer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "deferred-mongo-init");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        initializer.execute(this::initialize);
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    void initialize() {
+        long start = System.nanoTime();
+        try {
+            MongoTemplate template = mongoTemplate.getObject();
+            template.executeCommand(new Document("ping", 1));
+            int indexes = ensureIndexes(template);
+            int controllers = applicationContext.getBeansWithAnnotation(Controller.class).size();
+            CatalogWarmup catalogWarmup = warmup.getIfAvailable();
+            long warmupMillis = catalogWarmup != null ? catalogWarmup.warmUp() : 0;
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            health = Health.up()
+                    .withDetail("indexes", indexes)
+                    .withDetail("controllers", controllers)
+                    .withDetail("warmupMs", warmupMillis)
+                    .withDetail("durationMs", millis)
+                    .build();
+            log.info("Deferred Mongo initialization finished in {} ms ({} indexes)", millis, indexes);
+        } catch (RuntimeException e) {
+            health = Health.outOfService().withException(e).build();
+            log.warn("Deferred Mongo initialization failed, retrying in {} ms", retryDelayMillis, e);
+            if (!initializer.isShutdown()) {
+                initializer.schedule(this::initialize, retryDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Same indexes auto-index-creation would create, resolved from the mapping metadata
+    private static int ensureIndexes(MongoTemplate template) {
+        MongoMappingContext mappingContext = (MongoMappingContext) template.getConverter().getMappingContext();
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        int count = 0;
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = template.indexOps(entity.getType());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                indexOps.ensureIndex(index);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        initializer.shutdownNow();
+    }
+}
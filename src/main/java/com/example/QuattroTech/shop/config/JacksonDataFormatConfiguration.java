@@ -0,0 +1,48 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.controller.rest.ShopItemStreamHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registers CBOR (application/cbor) and Smile (application/x-jackson-smile)
+ * converters so REST clients can negotiate a binary encoding via Accept / Content-Type.
+ * Both reuse the application's Jackson settings, as does the streaming
+ * converter used by the list endpoints.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonDataFormatConfiguration {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public ShopItemStreamHttpMessageConverter shopItemStreamHttpMessageConverter(
+            ObjectMapper objectMapper,
+            MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+            MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        // JSON first, so it stays the default for Accept: */*
+        Map<MediaType, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put(MediaType.APPLICATION_JSON, objectMapper);
+        mappers.put(MediaType.APPLICATION_CBOR, cborHttpMessageConverter.getObjectMapper());
+        mappers.put(new MediaType("application", "x-jackson-smile"), smileHttpMessageConverter.getObjectMapper());
+        return new ShopItemStreamHttpMessageConverter(mappers);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.repository.InMemoryShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import com.example.QuattroTech.shop.service.DurabilityAdvisingPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Per-operation durability tiers (shop.items.durability.*):
+ * @Durability service methods pick a tier, and the MongoTemplate resolves
+ * each write's concern from the tier of the operation on the current thread.
+ * Left out with the in-memory repository, which has no MongoTemplate to build.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!" + InMemoryShopItemRepository.PROFILE)
+public class MongoDurabilityConfiguration {
+
+    // Same as Spring Boot's MongoTemplate, plus the tiered write concern resolver
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       ObjectProvider<TieredWriteConcernResolver> writeConcernResolver) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        writeConcernResolver.ifAvailable(template::setWriteConcernResolver);
+        return template;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shop.items.durability", name = "enabled", havingValue = "true")
+    public static DurabilityAdvisingPostProcessor durabilityAdvisingPostProcessor(
+            ObjectProvider<TieredWriteConcernResolver> writeConcernResolver) {
+        return new DurabilityAdvisingPostProcessor(writeConcernResolver);
+    }
+}
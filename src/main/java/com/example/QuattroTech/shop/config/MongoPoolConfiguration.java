@@ -0,0 +1,55 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.service.ShopItemBulkheads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo connection pool sizing and checkout policy (shop.items.mongo.pool.*).
+ * max-wait-ms is the checkout budget: a request thread that cannot get a
+ * connection within it fails fast (503) instead of blocking for the driver's
+ * default two minutes. These settings win over pool options in the connection URI.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MongoPoolConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoPoolConfiguration.class);
+
+    @Bean
+    public MongoPoolMetricsListener mongoPoolMetricsListener(MeterRegistry meterRegistry) {
+        return new MongoPoolMetricsListener(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolSettingsCustomizer(
+            MongoPoolMetricsListener mongoPoolMetricsListener,
+            ObjectProvider<ShopItemBulkheads> bulkheads,
+            @Value("${shop.items.mongo.pool.max-size:100}") int maxSize,
+            @Value("${shop.items.mongo.pool.min-size:0}") int minSize,
+            @Value("${shop.items.mongo.pool.max-wait-ms:500}") long maxWaitMillis,
+            @Value("${shop.items.mongo.pool.max-connecting:2}") int maxConnecting,
+            @Value("${shop.items.mongo.pool.max-idle-ms:0}") long maxIdleMillis) {
+        bulkheads.ifAvailable(b -> {
+            int budget = b.list().maxConcurrent() + b.pointRead().maxConcurrent() + b.write().maxConcurrent();
+            if (budget > maxSize) {
+                log.warn("Bulkheads allow {} concurrent Mongo calls but the pool holds {} connections; "
+                        + "workloads can still starve each other", budget, maxSize);
+            }
+        });
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS)
+                .maxConnecting(maxConnecting)
+                .maxConnectionIdleTime(maxIdleMillis, TimeUnit.MILLISECONDS)
+                .addConnectionPoolListener(mongoPoolMetricsListener));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.QuattroTech.shop.config;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the state of every Mongo connection pool (one per server):
+ * pool size, checked-out connections, threads waiting for a connection,
+ * and a checkout latency histogram tagged with the outcome.
+ * A "timeout" outcome means the checkout gave up after the pool's maxWaitTime.
+ */
+public class MongoPoolMetricsListener implements ConnectionPoolListener {
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<ServerId, PoolStats> pools = new ConcurrentHashMap<>();
+
+    public MongoPoolMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        stats(event.getServerId());
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolStats stats = pools.remove(event.getServerId());
+        if (stats != null) {
+            stats.meters.forEach(registry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        stats(event.getConnectionId().getServerId()).size.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        stats(event.getConnectionId().getServerId()).size.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        stats(event.getServerId()).waiting.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        PoolStats stats = stats(event.getConnectionId().getServerId());
+        stats.waiting.decrementAndGet();
+        stats.checkedOut.incrementAndGet();
+        stats.checkoutSucceeded.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        PoolStats stats = stats(event.getServerId());
+        stats.waiting.decrementAndGet();
+        String reason = event.getReason().name().toLowerCase(Locale.ROOT);
+        stats.register(checkoutTimer(stats.server, reason))
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        stats.register(Counter.builder("shop.items.mongo.pool.checkout.failed")
+                        .description("Connection checkouts that failed, by reason")
+                        .tag("server", stats.server)
+                        .tag("reason", reason)
+                        .register(registry))
+                .increment();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        stats(event.getConnectionId().getServerId()).checkedOut.decrementAndGet();
+    }
+
+    private PoolStats stats(ServerId serverId) {
+        return pools.computeIfAbsent(serverId, id -> new PoolStats(id.getAddress().toString()));
+    }
+
+    private Timer checkoutTimer(String server, String outcome) {
+        return Timer.builder("shop.items.mongo.pool.checkout")
+                .description("Time spent waiting for a pooled connection")
+                .tag("server", server)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private final class PoolStats {
+
+        final String server;
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicInteger checkedOut = new AtomicInteger();
+        final AtomicInteger waiting = new AtomicInteger();
+        final Timer checkoutSucceeded;
+        // Removed from the registry when the pool closes
+        final List<Meter> meters = new ArrayList<>();
+
+        PoolStats(String server) {
+            this.server = server;
+            register(Gauge.builder("shop.items.mongo.pool.size", size, AtomicInteger::get)
+                    .description("Open connections in the pool")
+                    .tag("server", server)
+                    .register(registry));
+            register(Gauge.builder("shop.items.mongo.pool.checked_out", checkedOut, AtomicInteger::get)
+                    .description("Connections currently checked out")
+                    .tag("server", server)
+                    .register(registry));
+            register(Gauge.builder("shop.items.mongo.pool.wait_queue", waiting, AtomicInteger::get)
+                    .description("Threads waiting to check out a connection")
+                    .tag("server", server)
+                    .register(registry));
+            this.checkoutSucceeded = register(checkoutTimer(server, "success"));
+        }
+
+        synchronized <M extends Meter> M register(M meter) {
+            if (!meters.contains(meter)) {
+                meters.add(meter);
+            }
+            return meter;
+        }
+    }
+}
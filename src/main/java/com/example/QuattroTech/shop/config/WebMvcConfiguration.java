@@ -0,0 +1,25 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.controller.ConcurrencyLimitInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the optional interceptors guarding the item endpoints.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WebMvcConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<ConcurrencyLimitInterceptor> concurrencyLimitInterceptor;
+
+    public WebMvcConfiguration(ObjectProvider<ConcurrencyLimitInterceptor> concurrencyLimitInterceptor) {
+        this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        concurrencyLimitInterceptor.ifAvailable(registry::addInterceptor);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.QuattroTech.shop.controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit driven by request latency.
+ * The limit is shared, but every route has its own baseline latency, so a stream
+ * is never judged against the baseline of the point reads next to it.
+ * A request slower than tolerance x its route's baseline (or a failed one)
+ * shrinks the limit by the backoff ratio, at most once per round trip: requests
+ * that started before the last decrease ran under the old limit and do not shrink
+ * it again. A fast request adds one while the limit is at least half used.
+ * Baselines follow drops in latency at once and rise only slowly, so a slow Mongo
+ * shows up as congestion. Acquire and release are CAS loops on atomics; nothing blocks.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // The baseline moves 1/BASELINE_DRIFT of the way towards a slower sample
+    static final int BASELINE_DRIFT = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, AtomicLong> baselineNanos = new ConcurrentHashMap<>();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "Limits must satisfy 1 <= min <= initial <= max, got " + minLimit + "/" + initialLimit + "/" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    /**
+     * Takes a slot if fewer than limit requests are in flight.
+     * Returns false, without waiting, when the limit is reached.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot taken by tryAcquire and adapts the limit to the sample,
+     * a request on the given route that ran from startNanos to endNanos (System.nanoTime).
+     */
+    public void release(String route, long startNanos, long endNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        long latencyNanos = endNanos - startNanos;
+        long baseline = baselineNanos.computeIfAbsent(route, r -> new AtomicLong(Long.MAX_VALUE))
+                .updateAndGet(b -> latencyNanos < b
+                        ? latencyNanos
+                        : b + (latencyNanos - b) / BASELINE_DRIFT);
+
+        if (failed || latencyNanos > baseline * tolerance) {
+            backOff(startNanos, endNanos);
+        } else if (inFlightBefore * 2 >= limit.get()) {
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    // Only a request admitted after the last decrease may decrease again
+    private void backOff(long startNanos, long endNanos) {
+        while (true) {
+            long last = lastDecreaseNanos.get();
+            if (startNanos < last) {
+                return;
+            }
+            if (lastDecreaseNanos.compareAndSet(last, Math.max(last, endNanos))) {
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+                return;
+            }
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
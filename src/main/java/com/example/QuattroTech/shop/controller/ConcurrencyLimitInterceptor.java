@@ -0,0 +1,117 @@
+package com.example.QuattroTech.shop.controller;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sheds load on the endpoints of @ConcurrencyLimited controllers before requests pile up in Tomcat.
+ * Each endpoint group (api/web x read/write) has its own AdaptiveConcurrencyLimiter,
+ * with a latency baseline per handler method; a request over the limit gets an
+ * immediate 503 with Retry-After.
+ * Other handlers (home page, static resources, actuator) are not limited.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.concurrency", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor, MeterBinder {
+
+    static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(
+            @Value("${shop.items.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${shop.items.concurrency.min-limit:4}") int minLimit,
+            @Value("${shop.items.concurrency.max-limit:200}") int maxLimit,
+            @Value("${shop.items.concurrency.tolerance:2.0}") double tolerance,
+            @Value("${shop.items.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${shop.items.concurrency.retry-after-seconds:1}") int retryAfterSeconds) {
+        for (String group : new String[] {"api.read", "api.write", "web.read", "web.write"}) {
+            limiters.put(group, new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio));
+        }
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request, handler);
+        if (limiter == null) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return false;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String route = handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, route, System.nanoTime()));
+        return true;
+    }
+
+    // Runs after the view or message converter wrote the response, so streaming is included
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            boolean failed = ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            permit.limiter().release(permit.route(), permit.startNanos(), System.nanoTime(), failed);
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String group) {
+        return limiters.get(group);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limiters.forEach((group, limiter) -> {
+            Gauge.builder("shop.items.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", group)
+                    .register(registry);
+            Gauge.builder("shop.items.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                    .tag("group", group)
+                    .register(registry);
+            FunctionCounter.builder("shop.items.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::rejectedCount)
+                    .description("Requests rejected with 503 because the limit was reached")
+                    .tag("group", group)
+                    .register(registry);
+        });
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return null;
+        }
+        ConcurrencyLimited limited = AnnotatedElementUtils.findMergedAnnotation(
+                handlerMethod.getBeanType(), ConcurrencyLimited.class);
+        if (limited == null) {
+            return null;
+        }
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        boolean read = (method == HttpMethod.GET || method == HttpMethod.HEAD)
+                && !handlerMethod.hasMethodAnnotation(Mutating.class);
+        return limiters.get(limited.value() + (read ? ".read" : ".write"));
+    }
+
+    private record Permit(AdaptiveConcurrencyLimiter limiter, String route, long startNanos) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.QuattroTech.shop.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller whose handlers are load-shed by ConcurrencyLimitInterceptor,
+ * in the endpoint group named by value ("api" or "web"), split into reads and writes.
+ */
+@Documented
+@Inherited
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+
+    String value();
+}
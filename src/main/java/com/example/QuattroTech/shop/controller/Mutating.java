@@ -0,0 +1,17 @@
+package com.example.QuattroTech.shop.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET handler that changes data (e.g. link-driven deletes in the web UI),
+ * so request classification treats it as a write.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Mutating {
+}
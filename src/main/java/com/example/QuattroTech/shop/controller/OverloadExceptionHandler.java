@@ -0,0 +1,53 @@
+package com.example.QuattroTech.shop.controller;
+
+import com.example.QuattroTech.shop.service.BulkheadFullException;
+import com.example.QuattroTech.shop.service.WriteBehindFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Turns overload signals into a 503 with Retry-After for the API and the web pages:
+ * a full bulkhead or write-behind buffer, or Mongo not handing out a connection in time
+ * (pool checkout over maxWaitTime, or no reachable server).
+ * Driver messages name hosts and pool settings, so they are logged, not returned.
+ */
+@ControllerAdvice
+public class OverloadExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(OverloadExceptionHandler.class);
+
+    private final String retryAfterSeconds;
+
+    public OverloadExceptionHandler(@Value("${shop.items.overload.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> handleBulkheadFull(BulkheadFullException e) {
+        return serviceUnavailable(e.getMessage());
+    }
+
+    @ExceptionHandler(WriteBehindFullException.class)
+    public ResponseEntity<String> handleWriteBehindFull(WriteBehindFullException e) {
+        return serviceUnavailable(e.getMessage());
+    }
+
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    public ResponseEntity<String> handleMongoUnavailable(DataAccessResourceFailureException e) {
+        log.warn("Database unavailable, answering 503: {}", e.getMostSpecificCause().toString());
+        return serviceUnavailable("Database unavailable");
+    }
+
+    private ResponseEntity<String> serviceUnavailable(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .body(message);
+    }
+}
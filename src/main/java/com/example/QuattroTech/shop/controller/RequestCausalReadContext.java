@@ -0,0 +1,112 @@
+package com.example.QuattroTech.shop.controller;
+
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.CausalToken;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Carries causal tokens in HTTP requests: a write returns its token in the
+ * X-Read-After header and a read-after cookie, and later requests that send
+ * either one back read their own writes, even from a secondary.
+ * Tokens older than the TTL are ignored: by then every secondary within
+ * the max staleness bound has applied the write anyway.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.read-routing", name = "enabled", havingValue = "true")
+public class RequestCausalReadContext implements CausalReadContext {
+
+    public static final String HEADER = "X-Read-After";
+    public static final String COOKIE = "read-after";
+    private static final String ATTRIBUTE = RequestCausalReadContext.class.getName() + ".token";
+
+    private final Duration tokenTtl;
+
+    public RequestCausalReadContext(@Value("${shop.items.read-routing.token-ttl-seconds:180}") long tokenTtlSeconds) {
+        this.tokenTtl = Duration.ofSeconds(tokenTtlSeconds);
+    }
+
+    @Override
+    @Nullable
+    public CausalToken current() {
+        ServletRequestAttributes attributes = attributes();
+        if (attributes == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Optional<CausalToken> token = (Optional<CausalToken>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (token == null) {
+            token = Optional.ofNullable(readToken(attributes.getRequest()));
+            attributes.setAttribute(ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+        }
+        return token.orElse(null);
+    }
+
+    @Override
+    public boolean isBound() {
+        ServletRequestAttributes attributes = attributes();
+        return attributes != null && attributes.getResponse() != null;
+    }
+
+    @Override
+    public void advance(CausalToken token) {
+        ServletRequestAttributes attributes = attributes();
+        if (attributes == null || attributes.getResponse() == null) {
+            return;
+        }
+        attributes.setAttribute(ATTRIBUTE, Optional.of(token), RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        String value = token.encode();
+        response.setHeader(HEADER, value);
+        response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, value)
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(tokenTtl)
+                .build()
+                .toString());
+    }
+
+    @Nullable
+    private CausalToken readToken(HttpServletRequest request) {
+        String value = request.getHeader(HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            CausalToken token = CausalToken.decode(value);
+            // A malformed or expired token only costs the caller its read-your-writes guarantee
+            return token.issuedAt().plus(tokenTtl).isAfter(Instant.now()) ? token : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static ServletRequestAttributes attributes() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes
+                : null;
+    }
+}
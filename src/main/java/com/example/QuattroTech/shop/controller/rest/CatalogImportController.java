@@ -0,0 +1,72 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.controller.ConcurrencyLimited;
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.service.CatalogImporter;
+import com.example.QuattroTech.shop.service.ImportConflictException;
+import com.example.QuattroTech.shop.service.ImportTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+@ConcurrencyLimited("api")
+@RestController
+@RequestMapping("/api/items/import")
+public class CatalogImportController {
+
+    private final CatalogImporter catalogImporter;
+
+    public CatalogImportController(CatalogImporter catalogImporter) {
+        this.catalogImporter = catalogImporter;
+    }
+
+    /**
+     * POST /api/items/import?importId={id} - Start importing a CSV catalog into the shop.
+     * Answers 202 once the upload is stored and the import locked; the Location header
+     * points at its progress. Sending the same file again with the same importId resumes
+     * an interrupted import. Uploads over shop.items.import.max-upload-bytes get 413.
+     */
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<Map<String, String>> importCsv(@RequestParam(required = false) String importId,
+                                                         HttpServletRequest request) throws IOException {
+        String id = importId != null && !importId.isBlank() ? importId : UUID.randomUUID().toString();
+        catalogImporter.startCsvImport(id, request.getInputStream(), request.getContentLengthLong());
+        URI progress = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{importId}").buildAndExpand(id).toUri();
+        return ResponseEntity.accepted().location(progress).body(Map.of("importId", id));
+    }
+
+    /**
+     * GET /api/items/import/{importId} - Progress of an import, updated after every chunk;
+     * running tells whether a run holds it, error why the last run stopped
+     */
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportCheckpoint> getProgress(@PathVariable String importId) {
+        return catalogImporter.progress(importId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Only a held or lost lock is a conflict; other failures are server errors
+    @ExceptionHandler(ImportConflictException.class)
+    public ResponseEntity<Map<String, String>> handleConflict(ImportConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ImportTooLargeException.class)
+    public ResponseEntity<Map<String, String>> handleTooLarge(ImportTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadInput(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.controller.ConcurrencyLimited;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@ConcurrencyLimited("api")
+@RestController
+@RequestMapping("/api/items/query")
+public class ShopItemQueryController {
+
+    static final int DEFAULT_LIMIT = 100;
+
+    private final ShopItemService shopItemService;
+
+    public ShopItemQueryController(ShopItemService shopItemService) {
+        this.shopItemService = shopItemService;
+    }
+
+    /**
+     * GET /api/items/query?name={prefix}&minPrice=&maxPrice=&minQuantity=&maxQuantity=&sort={field[,desc]}&limit={n}
+     * - Filtered, sorted and limited items. Filters are optional and combine with AND;
+     * sort is name or quantity, and queries no index covers are rejected with 400.
+     */
+    @GetMapping
+    public List<ShopItem> query(@RequestParam(required = false) String name,
+                                @RequestParam(required = false) BigDecimal minPrice,
+                                @RequestParam(required = false) BigDecimal maxPrice,
+                                @RequestParam(required = false) Integer minQuantity,
+                                @RequestParam(required = false) Integer maxQuantity,
+                                @RequestParam(required = false) String sort,
+                                @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        ShopItemQuery.SortField sortField = null;
+        boolean descending = false;
+        if (sort != null && !sort.isBlank()) {
+            String[] parts = sort.split(",", 2);
+            sortField = ShopItemQuery.SortField.of(parts[0].trim());
+            descending = parts.length == 2 && direction(parts[1].trim());
+        }
+        return shopItemService.queryItems(new ShopItemQuery(name, minPrice, maxPrice, minQuantity, maxQuantity,
+                sortField, descending, limit));
+    }
+
+    private static boolean direction(String direction) {
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        if (direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Sort direction must be asc or desc");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadInput(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.QuattroTech.shop.controller.rest;
 
+import com.example.QuattroTech.shop.controller.ConcurrencyLimited;
 import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemBatch;
+import com.example.QuattroTech.shop.model.ShopItemDelta;
+import com.example.QuattroTech.shop.service.QuantityOutOfRangeException;
 import com.example.QuattroTech.shop.service.ShopItemService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,11 +12,15 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
+@ConcurrencyLimited("api")
 @RestController
 @RequestMapping("/api/items")
 public class ShopItemRestController {
 
+    static final int MAX_BATCH_IDS = 1000;
+
     private final ShopItemService shopItemService;
 
     public ShopItemRestController(ShopItemService shopItemService) {
@@ -23,8 +31,31 @@ public class ShopItemRestController {
      * GET /api/items - Get all items
      */
     @GetMapping
-    public List<ShopItem> getAllItems() {
-        return shopItemService.getAllItems();
+    public ShopItemStream getAllItems() {
+        return new ShopItemStream(shopItemService::streamAllItems);
+    }
+
+    /**
+     * GET /api/items?ids={id1,id2,...} - Get many items in one query
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<ShopItemBatch> getItemsByIds(@RequestParam List<String> ids) {
+        return batchGet(ids);
+    }
+
+    /**
+     * POST /api/items/batch-get - Get many items in one query, ids in the body
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<ShopItemBatch> getItemsByIdsPost(@RequestBody List<String> ids) {
+        return batchGet(ids);
+    }
+
+    private ResponseEntity<ShopItemBatch> batchGet(List<String> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(shopItemService.getItemsByIds(ids));
     }
 
     /**
@@ -79,15 +110,45 @@ public class ShopItemRestController {
      * GET /api/items/search?name={name} - Search items by name
      */
     @GetMapping("/search")
-    public List<ShopItem> searchByName(@RequestParam String name) {
-        return shopItemService.searchByName(name);
+    public ShopItemStream searchByName(@RequestParam String name) {
+        return new ShopItemStream(() -> shopItemService.streamByName(name));
     }
 
     /**
      * GET /api/items/low-stock?threshold={threshold} - Get low stock items
      */
     @GetMapping("/low-stock")
-    public List<ShopItem> getLowStockItems(@RequestParam(defaultValue = "10") Integer threshold) {
-        return shopItemService.findLowStockItems(threshold);
+    public ShopItemStream getLowStockItems(@RequestParam(defaultValue = "10") Integer threshold) {
+        return new ShopItemStream(() -> shopItemService.streamLowStockItems(threshold));
+    }
+
+    /**
+     * GET /api/items/delta?since={token} - Get items changed and deleted since a token
+     * - since=0 (the default) returns the whole catalog and a token to continue from
+     */
+    @GetMapping("/delta")
+    public ShopItemDelta getDelta(@RequestParam(defaultValue = "0") long since) {
+        return shopItemService.getChangesSince(since);
+    }
+
+    /**
+     * PATCH /api/items/{id}/quantity?delta={delta} - Adjust stock by a relative amount
+     * - A delta that would take stock below zero answers 409 and changes nothing
+     * - With write-behind the stock is only checked at flush time, where such a delta is dropped,
+     *   and a full buffer answers 503
+     */
+    @PatchMapping("/{id}/quantity")
+    public ResponseEntity<Void> adjustQuantity(@PathVariable String id, @RequestParam int delta) {
+        if (!shopItemService.getItemById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        shopItemService.adjustQuantity(id, delta);
+        return ResponseEntity.accepted().build();
+    }
+
+    @ExceptionHandler(QuantityOutOfRangeException.class)
+    public ResponseEntity<Map<String, String>> handleQuantityOutOfRange(QuantityOutOfRangeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
     }
 }
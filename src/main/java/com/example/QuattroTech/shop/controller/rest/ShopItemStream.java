@@ -0,0 +1,18 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Response body for list endpoints that are written item by item.
+ * The source is only opened once the response is being written,
+ * so no cursor is left open when content negotiation fails.
+ */
+public record ShopItemStream(Supplier<Stream<ShopItem>> source) {
+
+    public Stream<ShopItem> open() {
+        return source.get();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes a ShopItemStream as an array, one item at a time, while the
+ * underlying cursor is iterated. Output is flushed every FLUSH_EVERY items,
+ * so memory use and time-to-first-byte do not grow with the result size.
+ * Supports every format that has an ObjectMapper registered (JSON, CBOR, Smile).
+ */
+public class ShopItemStreamHttpMessageConverter extends AbstractHttpMessageConverter<ShopItemStream> {
+
+    static final int FLUSH_EVERY = 100;
+
+    private final Map<MediaType, ObjectMapper> mappers;
+
+    public ShopItemStreamHttpMessageConverter(Map<MediaType, ObjectMapper> mappers) {
+        super(mappers.keySet().toArray(new MediaType[0]));
+        this.mappers = new LinkedHashMap<>(mappers);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ShopItemStream.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ShopItemStream readInternal(Class<? extends ShopItemStream> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ShopItemStream is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ShopItemStream itemStream, HttpOutputMessage outputMessage) throws IOException {
+        ObjectMapper mapper = mapperFor(outputMessage.getHeaders().getContentType());
+        ObjectWriter itemWriter = mapper.writerFor(ShopItem.class);
+
+        try (Stream<ShopItem> items = itemStream.open();
+             JsonGenerator generator = mapper.getFactory().createGenerator(outputMessage.getBody())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            int written = 0;
+            Iterator<ShopItem> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                itemWriter.writeValue(generator, iterator.next());
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private ObjectMapper mapperFor(MediaType contentType) {
+        if (contentType != null) {
+            for (Map.Entry<MediaType, ObjectMapper> entry : mappers.entrySet()) {
+                if (entry.getKey().isCompatibleWith(contentType)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        // Content type is always one of ours once negotiation succeeded; default to the first
+        return mappers.values().iterator().next();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.QuattroTech.shop.controller.web;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Iterator handed to a streaming view. Every chunkSize elements it flushes
+ * the response, so rows rendered so far are sent before the next ones are read.
+ */
+class ChunkFlushingIterator<T> implements Iterator<T> {
+
+    private final Iterator<T> delegate;
+    private final HttpServletResponse response;
+    private final int chunkSize;
+    private int served;
+
+    ChunkFlushingIterator(Iterator<T> delegate, HttpServletResponse response, int chunkSize) {
+        this.delegate = delegate;
+        this.response = response;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return delegate.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (served > 0 && served % chunkSize == 0) {
+            flush();
+        }
+        served++;
+        return delegate.next();
+    }
+
+    private void flush() {
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.QuattroTech.shop.controller.web;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.service.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches the rendered HTML of the items table (items/table :: itemsTable).
+ * Entries are keyed by the catalog version, so any write makes them unreachable;
+ * the TTL bounds staleness caused by writes on other instances.
+ * A hit skips both the Mongo query and template evaluation, and concurrent misses
+ * for the same entry share one render instead of each querying Mongo.
+ * With read routing, callers holding a causal token bypass the lookup:
+ * an entry rendered from a lagging secondary may predate their own write.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.table-cache", name = "enabled", havingValue = "true")
+public class ItemsTableCache implements MeterBinder {
+
+    static final String TEMPLATE = "items/table";
+    static final Set<String> FRAGMENT = Set.of("itemsTable");
+
+    private final ITemplateEngine templateEngine;
+    private final int maxChars;
+    private final long ttlNanos;
+    // Null unless shop.items.read-routing.enabled=true
+    private final CausalReadContext causalReads;
+
+    // Access-ordered, so the least recently used entry is evicted first
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final SingleFlight<Key, String> renders = new SingleFlight<>();
+
+    public ItemsTableCache(ITemplateEngine templateEngine, int maxEntries, int maxChars, long ttlMillis) {
+        this(templateEngine, maxEntries, maxChars, ttlMillis, null);
+    }
+
+    @Autowired
+    public ItemsTableCache(
+            ITemplateEngine templateEngine,
+            @Value("${shop.items.table-cache.max-entries:16}") int maxEntries,
+            @Value("${shop.items.table-cache.max-chars:4000000}") int maxChars,
+            @Value("${shop.items.table-cache.ttl-ms:5000}") long ttlMillis,
+            @Nullable CausalReadContext causalReads) {
+        this.templateEngine = templateEngine;
+        this.causalReads = causalReads;
+        this.maxChars = maxChars;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the table HTML for a view variant at the given catalog version.
+     * The version must be read before the items are loaded, so a concurrent
+     * write can only make the stored entry unreachable, never stale.
+     */
+    public String render(String variant, long catalogVersion, Supplier<List<ShopItem>> items,
+                         HttpServletRequest request, HttpServletResponse response) {
+        Locale locale = RequestContextUtils.getLocale(request);
+        Key key = new Key(variant, locale, catalogVersion);
+        long now = System.nanoTime();
+        boolean readsOwnWrite = causalReads != null && causalReads.current() != null;
+        synchronized (entries) {
+            Entry entry = readsOwnWrite ? null : entries.get(key);
+            if (entry != null && now - entry.renderedAt() < ttlNanos) {
+                hits.increment();
+                return entry.html();
+            }
+        }
+
+        misses.increment();
+        if (readsOwnWrite) {
+            // A render already in flight may have loaded the items before the caller's write
+            return renderAndStore(key, items, request, response, now);
+        }
+        return renders.execute(key, () -> renderAndStore(key, items, request, response, now));
+    }
+
+    private String renderAndStore(Key key, Supplier<List<ShopItem>> items,
+                                  HttpServletRequest request, HttpServletResponse response, long now) {
+        String html = renderTable(items.get(), key.locale(), request, response);
+        if (html.length() <= maxChars) {
+            synchronized (entries) {
+                entries.put(key, new Entry(html, now));
+            }
+        }
+        return html;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shop.items.table_cache.hits", hits, LongAdder::sum)
+                .description("Items table renders served from the cache")
+                .register(registry);
+        FunctionCounter.builder("shop.items.table_cache.misses", misses, LongAdder::sum)
+                .description("Items table renders that queried Mongo and evaluated the template")
+                .register(registry);
+        Gauge.builder("shop.items.table_cache.entries", this, ItemsTableCache::size)
+                .register(registry);
+        FunctionCounter.builder("shop.items.table_cache.collapsed", renders, SingleFlight::collapsedCount)
+                .description("Items table misses that shared a render already in flight")
+                .register(registry);
+    }
+
+    private String renderTable(List<ShopItem> items, Locale locale,
+                               HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext())
+                        .buildExchange(request, new NoUrlRewritingResponse(response)),
+                locale);
+        context.setVariable("items", items);
+        context.setVariable("itemsEmpty", items.isEmpty());
+        context.setVariable("message", items.isEmpty() ? "No items available" : "");
+        return templateEngine.process(TEMPLATE, FRAGMENT, context);
+    }
+
+    private record Key(String variant, Locale locale, long catalogVersion) {
+    }
+
+    private record Entry(String html, long renderedAt) {
+    }
+
+    /**
+     * Shared HTML must not carry one client's session id in its links.
+     */
+    private static final class NoUrlRewritingResponse extends HttpServletResponseWrapper {
+
+        NoUrlRewritingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public String encodeURL(String url) {
+            return url;
+        }
+    }
+}
@@ -1,41 +1,91 @@
 package com.example.QuattroTech.shop.controller.web;
 
+import com.example.QuattroTech.shop.controller.ConcurrencyLimited;
+import com.example.QuattroTech.shop.controller.Mutating;
 import com.example.QuattroTech.shop.model.ShopItem;
 import com.example.QuattroTech.shop.service.ShopItemService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Web controller for ShopItem.
  * Provides Thymeleaf HTML views for CRUD operations.
  */
+@ConcurrencyLimited("web")
 @Controller
 @RequestMapping("/items")
 public class ShopItemWebController {
 
+    static final String ITEMS_CURSOR_ATTRIBUTE = ShopItemWebController.class.getName() + ".itemsCursor";
+    static final int STREAM_FLUSH_EVERY = 200;
+
     private final ShopItemService shopItemService;
+    // Null when shop.items.table-cache.enabled=false; the page then renders the table itself
+    private final ItemsTableCache itemsTableCache;
 
     public ShopItemWebController(ShopItemService shopItemService) {
+        this(shopItemService, null);
+    }
+
+    @Autowired
+    public ShopItemWebController(ShopItemService shopItemService, @Nullable ItemsTableCache itemsTableCache) {
         this.shopItemService = shopItemService;
+        this.itemsTableCache = itemsTableCache;
     }
 
     /**
      * GET /items - Show list of all items
      */
     @GetMapping
-    public String listItems(Model model) {
-        model.addAttribute("items", shopItemService.getAllItems());
-        model.addAttribute("message", 
-            shopItemService.getAllItems().isEmpty() ? "No items available" : "");
+    public String listItems(Model model, HttpServletRequest request, HttpServletResponse response) {
+        if (itemsTableCache != null) {
+            model.addAttribute("itemsTable", itemsTableCache.render("all",
+                    shopItemService.getCatalogVersion(), shopItemService::getAllItems, request, response));
+            return "items/list";
+        }
+        List<ShopItem> items = shopItemService.getAllItems();
+        model.addAttribute("items", items);
+        model.addAttribute("itemsEmpty", items.isEmpty());
+        model.addAttribute("message", items.isEmpty() ? "No items available" : "");
+        return "items/list";
+    }
+
+    /**
+     * GET /items?all=true - Stream every item as HTML while the cursor is read.
+     * Rows reach the client in chunks, the full list is never held in memory.
+     */
+    @GetMapping(params = "all=true")
+    public String listAllItemsStreaming(Model model, HttpServletResponse response) {
+        Stream<ShopItem> stream = shopItemService.streamAllItems();
+        // Closes the cursor once the view is rendered, even if rendering fails
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                ITEMS_CURSOR_ATTRIBUTE, stream::close, RequestAttributes.SCOPE_REQUEST);
+
+        ChunkFlushingIterator<ShopItem> items =
+                new ChunkFlushingIterator<>(stream.iterator(), response, STREAM_FLUSH_EVERY);
+        boolean empty = !items.hasNext();
+        model.addAttribute("items", items);
+        model.addAttribute("itemsEmpty", empty);
+        model.addAttribute("message", empty ? "No items available" : "");
         return "items/list";
     }
 
@@ -84,6 +134,12 @@ public class ShopItemWebController {
                 });
     }
 
+    // The change sequence is assigned by the service, never bound from the form
+    @InitBinder("item")
+    public void initItemBinder(WebDataBinder binder) {
+        binder.setDisallowedFields("lastModified");
+    }
+
     /**
      * POST /items/save - Save new or updated item
      */
@@ -120,6 +176,7 @@ public class ShopItemWebController {
     /**
      * GET /items/delete/{id} - Delete item
      */
+    @Mutating
     @GetMapping("/delete/{id}")
     public String deleteItem(@PathVariable String id, RedirectAttributes redirectAttributes) {
         try {
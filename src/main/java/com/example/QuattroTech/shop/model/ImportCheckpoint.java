@@ -0,0 +1,135 @@
+package com.example.QuattroTech.shop.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Progress of a catalog import, saved after every committed chunk.
+ * A resumed import continues after committedRows / byteOffset.
+ * The checkpoint is also the import's lock: the run named by owner holds it
+ * until lockedUntil, and every save renews the lease.
+ */
+@Document(collection = "import_checkpoints")
+public class ImportCheckpoint {
+
+    @Id
+    private String importId;
+
+    // Data rows consumed by committed chunks, imported and rejected alike
+    private long committedRows;
+
+    private long importedRows;
+
+    private long rejectedRows;
+
+    // Position in the source just after the last committed row
+    private long byteOffset;
+
+    private boolean completed;
+
+    private Instant updatedAt;
+
+    // Run holding the lock, kept after release so a stale run cannot save over a newer one
+    private String owner;
+
+    // Lease of the lock, null when no run holds it
+    private Instant lockedUntil;
+
+    // Why the last run stopped, null while running and once completed
+    private String error;
+
+    public ImportCheckpoint() {
+        // For MongoDB / Spring Data
+    }
+
+    public ImportCheckpoint(String importId) {
+        this.importId = importId;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public long getCommittedRows() {
+        return committedRows;
+    }
+
+    public void setCommittedRows(long committedRows) {
+        this.committedRows = committedRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(long rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    public void setByteOffset(long byteOffset) {
+        this.byteOffset = byteOffset;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isRunning() {
+        return lockedUntil != null && lockedUntil.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.QuattroTech.shop.model;
+
+import java.util.List;
+
+/**
+ * Outcome of one catalog import run. Row counts cover this run only;
+ * resumedFromRow is the number of rows a previous run had already committed.
+ */
+public record ImportReport(String importId, long resumedFromRow, long importedRows, long rejectedRows,
+                           long bytesRead, long durationMillis, List<Rejection> rejections) {
+
+    /**
+     * A row that failed parsing or validation; row 1 is the first line after the header.
+     */
+    public record Rejection(long row, String reason) {
+    }
+}
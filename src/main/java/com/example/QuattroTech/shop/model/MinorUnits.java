@@ -0,0 +1,37 @@
+package com.example.QuattroTech.shop.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices as a long count of minor units, 1/10^SCALE of the currency unit,
+ * for hot paths that compare or sort prices. ShopItem keeps its exact BigDecimal,
+ * so the API and Mongo see the same values; minor units are derived keys,
+ * computed once per write or per sort, never per comparison.
+ */
+public final class MinorUnits {
+
+    // Cents and fractions of a cent down to 1/100
+    public static final int SCALE = 4;
+
+    private static final BigDecimal MIN = BigDecimal.valueOf(Long.MIN_VALUE, SCALE);
+    private static final BigDecimal MAX = BigDecimal.valueOf(Long.MAX_VALUE, SCALE);
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Minor units of the price, rounded down and clamped to the long range.
+     * Order preserving: a < b implies floor(a) <= floor(b), so a range over minor units
+     * finds every candidate and only prices sharing a key need an exact recheck.
+     */
+    public static long floor(BigDecimal price) {
+        if (price.compareTo(MIN) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        if (price.compareTo(MAX) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        return price.setScale(SCALE, RoundingMode.FLOOR).scaleByPowerOfTen(SCALE).longValue();
+    }
+}
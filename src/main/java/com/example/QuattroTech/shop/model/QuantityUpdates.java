@@ -0,0 +1,21 @@
+package com.example.QuattroTech.shop.model;
+
+import java.util.Set;
+
+/**
+ * Outcome of a batch of quantity deltas: the ids whose update failed and may be retried,
+ * and the ids whose delta was refused because it would take the quantity out of range.
+ * Every other delta was applied, or its item does not exist.
+ */
+public record QuantityUpdates(Set<String> failed, Set<String> refused) {
+
+    private static final QuantityUpdates APPLIED = new QuantityUpdates(Set.of(), Set.of());
+
+    public static QuantityUpdates applied() {
+        return APPLIED;
+    }
+
+    public boolean allApplied() {
+        return failed.isEmpty() && refused.isEmpty();
+    }
+}
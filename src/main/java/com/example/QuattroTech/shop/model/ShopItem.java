@@ -1,6 +1,8 @@
 package com.example.QuattroTech.shop.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.util.Objects;
@@ -13,6 +15,7 @@ public class ShopItem {
     private String id;
     
     @NotBlank(message = "Name is required")
+    @Indexed
     private String name;
 
     private String description;
@@ -25,8 +28,15 @@ public class ShopItem {
     
     @NotNull(message = "Quantity is required")
     @Min(value = 0, message = "Quantity cannot be negative")
+    @Indexed
     private int quantity;
 
+    // Change sequence the service assigns on every write, used by the delta sync API.
+    // Read-only in JSON, so a client cannot move an item in or out of a delta.
+    @Indexed
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long lastModified;
+
     public ShopItem() {
         // For MongoDB / Spring Data
     }
@@ -86,6 +96,14 @@ public class ShopItem {
         this.quantity = quantity;
     }
 
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
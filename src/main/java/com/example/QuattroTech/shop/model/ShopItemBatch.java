@@ -0,0 +1,10 @@
+package com.example.QuattroTech.shop.model;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: found items in request order,
+ * plus the requested ids that do not exist.
+ */
+public record ShopItemBatch(List<ShopItem> items, List<String> notFound) {
+}
@@ -0,0 +1,10 @@
+package com.example.QuattroTech.shop.model;
+
+import java.util.List;
+
+/**
+ * Result of a delta sync: items changed and ids deleted since a token,
+ * plus the token to pass on the next call.
+ */
+public record ShopItemDelta(List<ShopItem> changed, List<String> deleted, long token) {
+}
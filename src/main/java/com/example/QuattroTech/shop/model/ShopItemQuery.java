@@ -0,0 +1,79 @@
+package com.example.QuattroTech.shop.model;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Filters, sort and limit of a catalog query. Every filter is optional;
+ * ranges are inclusive, and a name prefix matches case-sensitively so an index can serve it.
+ */
+public record ShopItemQuery(@Nullable String namePrefix,
+                            @Nullable BigDecimal minPrice,
+                            @Nullable BigDecimal maxPrice,
+                            @Nullable Integer minQuantity,
+                            @Nullable Integer maxQuantity,
+                            @Nullable SortField sort,
+                            boolean descending,
+                            int limit) {
+
+    public static final int MAX_LIMIT = 1000;
+
+    public ShopItemQuery {
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        if (minQuantity != null && maxQuantity != null && minQuantity > maxQuantity) {
+            throw new IllegalArgumentException("minQuantity must not be greater than maxQuantity");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    public boolean filtersPrice() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean filtersQuantity() {
+        return minQuantity != null || maxQuantity != null;
+    }
+
+    public boolean hasFilters() {
+        return namePrefix != null || filtersPrice() || filtersQuantity();
+    }
+
+    /**
+     * Fields a query can sort on. Price is missing on purpose: Mongo stores it as a string,
+     * so no index orders it numerically and every price sort would run in memory.
+     */
+    public enum SortField {
+        NAME("name"),
+        QUANTITY("quantity");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public static SortField of(String property) {
+            for (SortField field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Cannot sort by " + property + ", no index covers it; sortable fields are "
+                    + Arrays.stream(values()).map(SortField::property).collect(Collectors.joining(", ")));
+        }
+    }
+}
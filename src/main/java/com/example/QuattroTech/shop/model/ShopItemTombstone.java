@@ -0,0 +1,44 @@
+package com.example.QuattroTech.shop.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Marker left behind when a ShopItem is deleted,
+ * so delta sync clients can learn about the removal.
+ */
+@Document(collection = "shop_item_tombstones")
+public class ShopItemTombstone {
+
+    @Id
+    private String itemId;
+
+    @Indexed
+    private long sequence;
+
+    public ShopItemTombstone() {
+        // For MongoDB / Spring Data
+    }
+
+    public ShopItemTombstone(String itemId, long sequence) {
+        this.itemId = itemId;
+        this.sequence = sequence;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Compact binary snapshot of shop_items, read through a memory mapping.
+ *
+ * Layout, big endian:
+ *   header   magic, version, written-at millis, item count, index offset,
+ *            change stream resume token (length-prefixed BSON, length 0 if none)
+ *   records  one per item, see ShopItemRecords
+ *   index    record offsets ordered by item id, searched with binary search
+ *
+ * Mapping only reads the header, so a snapshot serves lookups right away;
+ * records are decoded per read straight from the page cache.
+ * Offsets are ints: a snapshot is one mapping, at most 2 GiB.
+ */
+public final class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x5154534E; // "QTSN"
+    // 2: compact price form, see ShopItemRecords
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 28;
+
+    // Only absolute gets are used, so readers on any thread can share it
+    private final MappedByteBuffer buffer;
+    private final Instant writtenAt;
+    private final int size;
+    private final int indexOffset;
+    private final int recordsOffset;
+    private final BsonDocument resumeToken;
+
+    private CatalogSnapshotFile(MappedByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported catalog snapshot version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.writtenAt = Instant.ofEpochMilli(buffer.getLong(8));
+        this.size = buffer.getInt(16);
+        this.indexOffset = buffer.getInt(20);
+        int tokenLength = buffer.getInt(24);
+        this.resumeToken = tokenLength > 0 ? new RawBsonDocument(bytes(HEADER_SIZE, tokenLength)) : null;
+        this.recordsOffset = HEADER_SIZE + tokenLength;
+        if (indexOffset < recordsOffset || (long) indexOffset + 4L * size != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated catalog snapshot");
+        }
+    }
+
+    /**
+     * Maps an existing snapshot read-only.
+     *
+     * @throws IllegalArgumentException if the file is not a complete snapshot of this version
+     */
+    public static CatalogSnapshotFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new CatalogSnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the items to a temporary file next to the target, forces it to disk
+     * and moves it over the target, so a crash never leaves a partial snapshot behind.
+     *
+     * @return the number of items written
+     */
+    public static int write(Path path, @Nullable BsonDocument resumeToken, Iterator<ShopItem> items) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            int count;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                count = writeTo(channel, resumeToken, items);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int writeTo(FileChannel channel, @Nullable BsonDocument resumeToken,
+                               Iterator<ShopItem> items) throws IOException {
+        byte[] token = resumeToken != null ? toBytes(resumeToken) : new byte[0];
+        List<IndexEntry> index = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(1024);
+        // Not closed: that would close the channel before the header is patched
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        out.write(new byte[HEADER_SIZE]);
+        out.write(token);
+        while (items.hasNext()) {
+            ShopItem item = items.next();
+            index.add(new IndexEntry(item.getId(), checkedOffset(out.size())));
+            record = ShopItemRecords.encode(item, record);
+            out.write(record.array(), 0, record.limit());
+        }
+        int indexOffset = checkedOffset(out.size());
+        index.sort(Comparator.comparing(IndexEntry::id));
+        for (IndexEntry entry : index) {
+            out.writeInt(entry.offset());
+        }
+        checkedOffset(out.size());
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(System.currentTimeMillis())
+                .putInt(index.size())
+                .putInt(indexOffset)
+                .putInt(token.length)
+                .flip();
+        channel.write(header, 0);
+        return index.size();
+    }
+
+    private static int checkedOffset(long offset) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Catalog snapshot exceeds 2 GiB");
+        }
+        return (int) offset;
+    }
+
+    private static byte[] toBytes(BsonDocument document) {
+        ByteBuffer bytes = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        return copy;
+    }
+
+    public Optional<ShopItem> find(String id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(indexOffset + 4 * mid);
+            int comparison = readId(offset).compareTo(id);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return Optional.of(readRecord(offset));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Decodes the items lazily, in the order they were written.
+     */
+    public Iterator<ShopItem> iterator() {
+        return new Iterator<>() {
+            private int offset = recordsOffset;
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public ShopItem next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                ShopItem item = new ShopItem();
+                offset = readRecord(offset, item);
+                remaining--;
+                return item;
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instant writtenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Change stream position the snapshot is consistent with, null if it was written without one.
+     */
+    @Nullable
+    public BsonDocument resumeToken() {
+        return resumeToken;
+    }
+
+    private String readId(int offset) {
+        return ShopItemRecords.readId(buffer, offset);
+    }
+
+    private ShopItem readRecord(int offset) {
+        return ShopItemRecords.read(buffer, offset);
+    }
+
+    // Returns the offset of the next record
+    private int readRecord(int offset, ShopItem item) {
+        return ShopItemRecords.read(buffer, offset, item);
+    }
+
+    private byte[] bytes(int offset, int length) {
+        return ShopItemRecords.bytes(buffer, offset, length);
+    }
+
+    private record IndexEntry(String id, int offset) {
+    }
+}
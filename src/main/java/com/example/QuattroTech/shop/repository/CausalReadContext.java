@@ -0,0 +1,27 @@
+package com.example.QuattroTech.shop.repository;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Hands causal tokens between the current caller and the repository,
+ * so reads routed to secondaries still observe the caller's own writes.
+ */
+public interface CausalReadContext {
+
+    /**
+     * Token of the caller's latest write, or null when the caller has none
+     * that a secondary within the staleness bound could still be missing.
+     */
+    @Nullable
+    CausalToken current();
+
+    /**
+     * Whether there is a caller to hand a token back to; writes skip capturing one otherwise.
+     */
+    boolean isBound();
+
+    /**
+     * Records the token of a write the caller just made and returns it to the caller.
+     */
+    void advance(CausalToken token);
+}
@@ -0,0 +1,51 @@
+package com.example.QuattroTech.shop.repository;
+
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Point in the replica set's history that a client has observed through its own write.
+ * A causally consistent session advanced to this token only reads from a member
+ * that has applied everything up to it. Carried by clients as an opaque string;
+ * the cluster time keeps the server's signature, so it cannot be forged.
+ */
+public record CausalToken(BsonTimestamp operationTime, @Nullable BsonDocument clusterTime) {
+
+    private static final String OPERATION_TIME = "t";
+    private static final String CLUSTER_TIME = "c";
+
+    public Instant issuedAt() {
+        return Instant.ofEpochSecond(operationTime.getTime());
+    }
+
+    public String encode() {
+        BsonDocument document = new BsonDocument(OPERATION_TIME, operationTime);
+        if (clusterTime != null) {
+            document.put(CLUSTER_TIME, clusterTime);
+        }
+        ByteBuffer buffer = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not an encoded token
+     */
+    public static CausalToken decode(String value) {
+        try {
+            RawBsonDocument document = new RawBsonDocument(Base64.getUrlDecoder().decode(value));
+            BsonDocument clusterTime = document.containsKey(CLUSTER_TIME) ? document.getDocument(CLUSTER_TIME) : null;
+            return new CausalToken(document.getTimestamp(OPERATION_TIME), clusterTime);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed causal token", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.mongodb.WriteConcern;
+import org.springframework.lang.Nullable;
+
+/**
+ * How much acknowledgement a write waits for, traded against its latency.
+ */
+public enum DurabilityTier {
+
+    /** Acknowledged by the primary's memory only; survives neither a crash nor a failover. */
+    FAST(WriteConcern.W1.withJournal(false)),
+    /** The client's configured write concern (connection string or driver default). */
+    STANDARD(null),
+    /** Journaled on a majority of members; survives a failover. */
+    STRICT(WriteConcern.MAJORITY.withJournal(true));
+
+    private final WriteConcern writeConcern;
+
+    DurabilityTier(@Nullable WriteConcern writeConcern) {
+        this.writeConcern = writeConcern;
+    }
+
+    /**
+     * The write concern of this tier, or null to keep the default.
+     */
+    @Nullable
+    public WriteConcern writeConcern() {
+        return writeConcern;
+    }
+}
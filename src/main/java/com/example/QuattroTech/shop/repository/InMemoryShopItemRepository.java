@@ -0,0 +1,865 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.MinorUnits;
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ShopItemRepository held in memory, for dev runs, tests and load tests without MongoDB
+ * (--spring.profiles.active=inmemory, see application-inmemory.properties).
+ *
+ * Items live in a ConcurrentHashMap, or with shop.items.inmemory.off-heap=true in an
+ * OffHeapCatalogStore, which leaves only the indexed keys on the heap. Every write runs
+ * in a per-id compute, which keeps the sorted secondary indexes (id, name, price,
+ * quantity, lastModified) in step with the stored item.
+ * Index range reads re-check each item they find, so a concurrent write never leaks
+ * a non-matching item. Like Mongo, results are copies and reads are not isolated
+ * from concurrent writes. Unlike Mongo, which stores BigDecimal as a string,
+ * price comparisons are numeric. Query by example matches properties like Spring
+ * Data MongoDB does. Change streams are not available, so the profile refuses to
+ * start with shop.items.snapshot enabled.
+ */
+@Repository
+@Profile(InMemoryShopItemRepository.PROFILE)
+public class InMemoryShopItemRepository implements ShopItemRepository {
+
+    public static final String PROFILE = "inmemory";
+
+    // Properties a query by example matches on, by path
+    private static final Map<String, Function<ShopItem, Object>> EXAMPLE_PROPERTIES = Map.of(
+            "id", ShopItem::getId,
+            "name", ShopItem::getName,
+            "description", ShopItem::getDescription,
+            "price", ShopItem::getPrice,
+            "quantity", ShopItem::getQuantity,
+            "lastModified", ShopItem::getLastModified);
+
+    private static final Comparator<ShopItem> BY_PRICE =
+            Comparator.comparing(ShopItem::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ItemTable items;
+    // findAll order: by id, which for ObjectIds is creation order like Mongo's natural order
+    private final SortedIndex<String> byId = new SortedIndex<>(ShopItem::getId);
+    private final SortedIndex<String> byName = new SortedIndex<>(ShopItem::getName);
+    // Keyed by minor units, a long compare per probe; exact prices are rechecked on lookup
+    private final SortedIndex<Long> byPrice = new SortedIndex<>(
+            item -> item.getPrice() != null ? MinorUnits.floor(item.getPrice()) : null);
+    private final SortedIndex<Integer> byQuantity = new SortedIndex<>(ShopItem::getQuantity);
+    private final SortedIndex<Long> byLastModified = new SortedIndex<>(ShopItem::getLastModified);
+    private final List<SortedIndex<?>> indexes = List.of(byId, byName, byPrice, byQuantity, byLastModified);
+
+    private final Map<String, ShopItemTombstone> tombstones = new ConcurrentHashMap<>();
+    private final Map<String, ImportCheckpoint> importCheckpoints = new ConcurrentHashMap<>();
+    // Guarded by this, see writeInSequence
+    private long changeSequence;
+    private final NavigableSet<Long> openSequences = new TreeSet<>();
+
+    public InMemoryShopItemRepository() {
+        this(false);
+    }
+
+    public InMemoryShopItemRepository(boolean offHeap) {
+        this(offHeap, false);
+    }
+
+    @Autowired
+    public InMemoryShopItemRepository(
+            @Value("${shop.items.inmemory.off-heap:false}") boolean offHeap,
+            @Value("${shop.items.snapshot.enabled:false}") boolean snapshotEnabled) {
+        if (snapshotEnabled) {
+            throw new IllegalStateException("shop.items.snapshot follows a MongoDB change stream, "
+                    + "it cannot be enabled with the " + PROFILE + " profile");
+        }
+        this.items = offHeap ? new OffHeapItemTable(new OffHeapCatalogStore()) : new HeapItemTable();
+    }
+
+    // ========== Writes ==========
+
+    @Override
+    public <S extends ShopItem> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(new ObjectId().toHexString());
+        }
+        write(entity.getId(), current -> entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends ShopItem> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends ShopItem> S insert(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(new ObjectId().toHexString());
+        }
+        write(entity.getId(), current -> {
+            if (current != null) {
+                throw new DuplicateKeyException(
+                        "E11000 duplicate key error collection: shop_items _id: " + entity.getId());
+            }
+            return entity;
+        });
+        return entity;
+    }
+
+    /**
+     * Ordered like insertMany: items before a duplicate id stay inserted.
+     */
+    @Override
+    public <S extends ShopItem> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        write(id, current -> null);
+    }
+
+    @Override
+    public void delete(ShopItem entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ShopItem> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        byId.all().toList().forEach(this::deleteById);
+    }
+
+    @Override
+    public QuantityUpdates incrementQuantities(Map<String, Integer> deltas, long sequence) {
+        Set<String> refused = new HashSet<>();
+        deltas.forEach((id, delta) -> write(id, current -> {
+            if (current == null) {
+                return null;
+            }
+            long quantity = (long) current.getQuantity() + delta;
+            if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                refused.add(id);
+                return current;
+            }
+            ShopItem updated = copy(current);
+            updated.setQuantity((int) quantity);
+            updated.setLastModified(sequence);
+            return updated;
+        }));
+        return refused.isEmpty() ? QuantityUpdates.applied() : new QuantityUpdates(Set.of(), refused);
+    }
+
+    // Runs inside the table's compute for the id, so writes to one item are serialized
+    private void write(String id, UnaryOperator<ShopItem> change) {
+        items.compute(id, current -> {
+            ShopItem next = change.apply(current);
+            if (current != null) {
+                indexes.forEach(index -> index.remove(current));
+            }
+            if (next != null) {
+                indexes.forEach(index -> index.add(next));
+            }
+            return next;
+        });
+    }
+
+    // ========== Point reads ==========
+
+    @Override
+    public Optional<ShopItem> findById(String id) {
+        return Optional.ofNullable(items.get(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return items.contains(id);
+    }
+
+    @Override
+    public List<ShopItem> findAllById(Iterable<String> ids) {
+        List<ShopItem> found = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return items.size();
+    }
+
+    @Override
+    public ShopItem findByName(String name) {
+        List<ShopItem> matches = lookup(byName.range(name, true, name, true), item -> name.equals(item.getName()));
+        if (matches.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, matches.size());
+        }
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    // ========== List reads ==========
+
+    @Override
+    public List<ShopItem> findAll() {
+        return lookup(byId.all(), item -> true);
+    }
+
+    @Override
+    public List<ShopItem> findAll(Sort sort) {
+        List<ShopItem> all = findAll();
+        all.sort(comparator(sort));
+        return all;
+    }
+
+    @Override
+    public Page<ShopItem> findAll(Pageable pageable) {
+        return page(findAll(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public List<ShopItem> findByNameContainingIgnoreCase(String namePart) {
+        String part = namePart.toLowerCase(Locale.ROOT);
+        return lookup(byId.all(), item -> item.getName() != null
+                && item.getName().toLowerCase(Locale.ROOT).contains(part));
+    }
+
+    @Override
+    public List<ShopItem> findByPriceLessThanEqual(BigDecimal maxPrice) {
+        return lookup(byPrice.range(null, false, MinorUnits.floor(maxPrice), true),
+                item -> item.getPrice() != null && item.getPrice().compareTo(maxPrice) <= 0);
+    }
+
+    @Override
+    public List<ShopItem> findByQuantityGreaterThanOrderByPrice(Integer threshold) {
+        List<ShopItem> found = lookup(byQuantity.range(threshold, false, null, false),
+                item -> item.getQuantity() > threshold);
+        found.sort(BY_PRICE);
+        return found;
+    }
+
+    @Override
+    public List<ShopItem> findItemsWithLowStock(Integer threshold) {
+        return lookup(byQuantity.range(null, false, threshold, false), item -> item.getQuantity() < threshold);
+    }
+
+    @Override
+    public List<ShopItem> findByLastModifiedBetweenOrderByLastModified(Range<Long> sequences) {
+        Range.Bound<Long> lower = sequences.getLowerBound();
+        Range.Bound<Long> upper = sequences.getUpperBound();
+        return lookup(byLastModified.range(lower.getValue().orElse(null), lower.isInclusive(),
+                        upper.getValue().orElse(null), upper.isInclusive()),
+                item -> sequences.contains(item.getLastModified()));
+    }
+
+    @Override
+    public List<ShopItem> query(ShopItemQueryPlan plan) {
+        ShopItemQuery query = plan.query();
+        boolean descending = query.sort() != null && query.descending();
+        // Same index as the Mongo plan; the scan stops once limit items match
+        Stream<String> ids;
+        if ("name".equals(plan.index())) {
+            String prefix = query.namePrefix();
+            ids = prefix != null
+                    ? byName.range(prefix, true, prefix + Character.MAX_VALUE, true, descending)
+                    : byName.range(null, false, null, false, descending);
+        } else if ("quantity".equals(plan.index())) {
+            ids = byQuantity.range(query.minQuantity(), true, query.maxQuantity(), true, descending);
+        } else {
+            ids = byId.all();
+        }
+        List<ShopItem> found = new ArrayList<>();
+        Iterator<String> candidates = ids.iterator();
+        while (found.size() < query.limit() && candidates.hasNext()) {
+            ShopItem item = items.get(candidates.next());
+            if (item != null && matches(query, item)) {
+                found.add(item);
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(ShopItemQuery query, ShopItem item) {
+        if (query.namePrefix() != null && (item.getName() == null || !item.getName().startsWith(query.namePrefix()))) {
+            return false;
+        }
+        if (query.minQuantity() != null && item.getQuantity() < query.minQuantity()
+                || query.maxQuantity() != null && item.getQuantity() > query.maxQuantity()) {
+            return false;
+        }
+        if (query.filtersPrice() && item.getPrice() == null) {
+            return false;
+        }
+        return (query.minPrice() == null || item.getPrice().compareTo(query.minPrice()) >= 0)
+                && (query.maxPrice() == null || item.getPrice().compareTo(query.maxPrice()) <= 0);
+    }
+
+    @Override
+    public Stream<ShopItem> streamAll() {
+        return findAll().stream();
+    }
+
+    @Override
+    public Stream<ShopItem> streamByNameContainingIgnoreCase(String namePart) {
+        return findByNameContainingIgnoreCase(namePart).stream();
+    }
+
+    @Override
+    public Stream<ShopItem> streamItemsWithLowStock(Integer threshold) {
+        return findItemsWithLowStock(threshold).stream();
+    }
+
+    // Ids from an index, re-checked against the current item since the index may be ahead of the map
+    private List<ShopItem> lookup(Stream<String> ids, Predicate<ShopItem> matches) {
+        List<ShopItem> found = new ArrayList<>();
+        ids.forEach(id -> {
+            ShopItem item = items.get(id);
+            if (item != null && matches.test(item)) {
+                found.add(item);
+            }
+        });
+        return found;
+    }
+
+    private static Comparator<ShopItem> comparator(Sort sort) {
+        Comparator<ShopItem> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<ShopItem> byProperty = switch (order.getProperty()) {
+                case "id" -> Comparator.comparing(ShopItem::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "name" -> Comparator.comparing(ShopItem::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "description" -> Comparator.comparing(ShopItem::getDescription,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "price" -> BY_PRICE;
+                case "quantity" -> Comparator.comparingInt(ShopItem::getQuantity);
+                case "lastModified" -> Comparator.comparingLong(ShopItem::getLastModified);
+                default -> throw new IllegalArgumentException("Cannot sort ShopItem by " + order.getProperty());
+            };
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    // ========== Change tracking ==========
+
+    @Override
+    public void recordCausalWrite() {
+        // A single in-memory copy is always consistent with its own writes
+    }
+
+    /**
+     * Only allocation and release take the lock; readers stop below the oldest open sequence.
+     */
+    @Override
+    public <T> T writeInSequence(LongFunction<T> write) {
+        long sequence;
+        synchronized (this) {
+            sequence = ++changeSequence;
+            openSequences.add(sequence);
+        }
+        try {
+            return write.apply(sequence);
+        } finally {
+            synchronized (this) {
+                openSequences.remove(sequence);
+            }
+        }
+    }
+
+    @Override
+    public synchronized long currentChangeSequence() {
+        return openSequences.isEmpty() ? changeSequence : openSequences.first() - 1;
+    }
+
+    @Override
+    public void recordDeletion(String itemId, long sequence) {
+        tombstones.put(itemId, new ShopItemTombstone(itemId, sequence));
+    }
+
+    @Override
+    public List<ShopItemTombstone> findDeletionsSince(long sequence, long upTo) {
+        return tombstones.values().stream()
+                .filter(tombstone -> tombstone.getSequence() > sequence && tombstone.getSequence() <= upTo)
+                .sorted(Comparator.comparingLong(ShopItemTombstone::getSequence))
+                .map(tombstone -> new ShopItemTombstone(tombstone.getItemId(), tombstone.getSequence()))
+                .toList();
+    }
+
+    // Unreachable from the application: the constructor refuses shop.items.snapshot.enabled
+    @Override
+    public MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> watchItems(@Nullable BsonDocument resumeAfter) {
+        throw new UnsupportedOperationException("Change streams need MongoDB, disable shop.items.snapshot in memory");
+    }
+
+    // ========== Import checkpoints ==========
+
+    @Override
+    public Optional<ImportCheckpoint> lockImport(String importId, String owner, Instant now, Instant lockedUntil) {
+        ImportCheckpoint[] locked = new ImportCheckpoint[1];
+        importCheckpoints.compute(importId, (id, stored) -> {
+            if (stored != null && (stored.isCompleted()
+                    || (stored.getLockedUntil() != null && stored.getLockedUntil().isAfter(now)))) {
+                return stored;
+            }
+            ImportCheckpoint checkpoint = stored != null ? stored : new ImportCheckpoint(id);
+            checkpoint.setOwner(owner);
+            checkpoint.setLockedUntil(lockedUntil);
+            checkpoint.setUpdatedAt(now);
+            checkpoint.setError(null);
+            locked[0] = copy(checkpoint);
+            return checkpoint;
+        });
+        return Optional.ofNullable(locked[0]);
+    }
+
+    @Override
+    public boolean saveImportCheckpoint(ImportCheckpoint checkpoint) {
+        ImportCheckpoint saved = importCheckpoints.computeIfPresent(checkpoint.getImportId(),
+                (id, stored) -> Objects.equals(stored.getOwner(), checkpoint.getOwner()) ? copy(checkpoint) : stored);
+        return saved != null && Objects.equals(saved.getOwner(), checkpoint.getOwner());
+    }
+
+    @Override
+    public Optional<ImportCheckpoint> findImportCheckpoint(String importId) {
+        return Optional.ofNullable(importCheckpoints.get(importId)).map(InMemoryShopItemRepository::copy);
+    }
+
+    // ========== Query by example ==========
+
+    @Override
+    public <S extends ShopItem> Optional<S> findOne(Example<S> example) {
+        List<S> found = findAll(example);
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public <S extends ShopItem> List<S> findAll(Example<S> example) {
+        return lookup(byId.all(), matching(example)).stream().map(example.getProbeType()::cast).toList();
+    }
+
+    @Override
+    public <S extends ShopItem> List<S> findAll(Example<S> example, Sort sort) {
+        List<ShopItem> found = lookup(byId.all(), matching(example));
+        found.sort(comparator(sort));
+        return found.stream().map(example.getProbeType()::cast).toList();
+    }
+
+    @Override
+    public <S extends ShopItem> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(findAll(example, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends ShopItem> long count(Example<S> example) {
+        return lookup(byId.all(), matching(example)).size();
+    }
+
+    @Override
+    public <S extends ShopItem> boolean exists(Example<S> example) {
+        Predicate<ShopItem> matches = matching(example);
+        return byId.all().map(items::get).anyMatch(item -> item != null && matches.test(item));
+    }
+
+    @Override
+    public <S extends ShopItem, R> R findBy(Example<S> example,
+                                            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        Predicate<ShopItem> matches = matching(example);
+        return queryFunction.apply(new ExampleQuery<>(() -> lookup(byId.all(), matches),
+                example.getProbeType(), Sort.unsorted(), 0));
+    }
+
+    /**
+     * The probe's properties as MongoExampleMapper reads them: primitives always take part
+     * unless ignored, nulls only with NullHandler.INCLUDE, strings per the string matcher
+     * and case setting of their path.
+     */
+    private static Predicate<ShopItem> matching(Example<? extends ShopItem> example) {
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(example.getMatcher());
+        List<Predicate<ShopItem>> conditions = new ArrayList<>();
+        EXAMPLE_PROPERTIES.forEach((path, property) -> {
+            if (accessor.isIgnoredPath(path)) {
+                return;
+            }
+            Object expected = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(property.apply(example.getProbe())))
+                    .orElse(null);
+            if (expected != null) {
+                Predicate<Object> matches = valueMatcher(accessor, path, expected);
+                conditions.add(item -> matches.test(property.apply(item)));
+            } else if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                conditions.add(item -> property.apply(item) == null);
+            }
+        });
+        if (example.getMatcher().isAnyMatching() && !conditions.isEmpty()) {
+            return item -> conditions.stream().anyMatch(condition -> condition.test(item));
+        }
+        return item -> conditions.stream().allMatch(condition -> condition.test(item));
+    }
+
+    private static Predicate<Object> valueMatcher(ExampleMatcherAccessor accessor, String path, Object expected) {
+        if (expected instanceof BigDecimal price) {
+            return actual -> actual instanceof BigDecimal other && price.compareTo(other) == 0;
+        }
+        if (!(expected instanceof String text)) {
+            return expected::equals;
+        }
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+        return switch (accessor.getStringMatcherForPath(path)) {
+            case DEFAULT, EXACT -> actual -> actual instanceof String value
+                    && (ignoreCase ? value.equalsIgnoreCase(text) : value.equals(text));
+            case STARTING -> actual -> actual instanceof String value
+                    && value.regionMatches(ignoreCase, 0, text, 0, text.length());
+            case ENDING -> actual -> actual instanceof String value
+                    && value.regionMatches(ignoreCase, value.length() - text.length(), text, 0, text.length());
+            case CONTAINING -> {
+                String part = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+                yield actual -> actual instanceof String value
+                        && (ignoreCase ? value.toLowerCase(Locale.ROOT) : value).contains(part);
+            }
+            case REGEX -> {
+                Pattern pattern = Pattern.compile(text, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+                yield actual -> actual instanceof String value && pattern.matcher(value).find();
+            }
+        };
+    }
+
+    private static <T> Page<T> page(List<T> all, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(new ArrayList<>(all.subList(from, to)), pageable, all.size());
+    }
+
+    /**
+     * findBy over the items matching an example. Projections return whole items:
+     * as() accepts ShopItem and its supertypes only, project() does not trim fields.
+     */
+    private static final class ExampleQuery<T> implements FluentQuery.FetchableFluentQuery<T> {
+
+        private final Supplier<List<ShopItem>> matches;
+        private final Class<T> type;
+        private final Sort sort;
+        private final int limit;
+
+        ExampleQuery(Supplier<List<ShopItem>> matches, Class<T> type, Sort sort, int limit) {
+            this.matches = matches;
+            this.type = type;
+            this.sort = sort;
+            this.limit = limit;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> sortBy(Sort sort) {
+            return new ExampleQuery<>(matches, type, this.sort.and(sort), limit);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit must not be negative");
+            }
+            return new ExampleQuery<>(matches, type, sort, limit);
+        }
+
+        @Override
+        public <R> FluentQuery.FetchableFluentQuery<R> as(Class<R> resultType) {
+            if (!resultType.isAssignableFrom(ShopItem.class)) {
+                throw new IllegalArgumentException("The in-memory repository cannot project ShopItem to " + resultType.getName());
+            }
+            return new ExampleQuery<>(matches, resultType, sort, limit);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public T oneValue() {
+            List<T> found = all();
+            if (found.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, found.size());
+            }
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public T firstValue() {
+            List<T> found = all();
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public List<T> all() {
+            List<ShopItem> found = matches.get();
+            found.sort(comparator(sort));
+            Stream<ShopItem> limited = limit > 0 ? found.stream().limit(limit) : found.stream();
+            return limited.map(type::cast).toList();
+        }
+
+        @Override
+        public Page<T> page(Pageable pageable) {
+            return InMemoryShopItemRepository.page(
+                    new ExampleQuery<>(matches, type, sort.and(pageable.getSort()), limit).all(), pageable);
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return all().stream();
+        }
+
+        @Override
+        public long count() {
+            return all().size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !matches.get().isEmpty();
+        }
+    }
+
+    // ========== Copies ==========
+
+    private static ShopItem copy(ShopItem item) {
+        ShopItem copy = new ShopItem(item.getId(), item.getName(), item.getDescription(),
+                item.getPrice(), item.getQuantity());
+        copy.setLastModified(item.getLastModified());
+        return copy;
+    }
+
+    private static ImportCheckpoint copy(ImportCheckpoint checkpoint) {
+        ImportCheckpoint copy = new ImportCheckpoint(checkpoint.getImportId());
+        copy.setCommittedRows(checkpoint.getCommittedRows());
+        copy.setImportedRows(checkpoint.getImportedRows());
+        copy.setRejectedRows(checkpoint.getRejectedRows());
+        copy.setByteOffset(checkpoint.getByteOffset());
+        copy.setCompleted(checkpoint.isCompleted());
+        copy.setUpdatedAt(checkpoint.getUpdatedAt());
+        copy.setOwner(checkpoint.getOwner());
+        copy.setLockedUntil(checkpoint.getLockedUntil());
+        copy.setError(checkpoint.getError());
+        return copy;
+    }
+
+    /**
+     * Primary id to item storage. Items returned by get belong to the caller.
+     */
+    interface ItemTable {
+
+        @Nullable
+        ShopItem get(String id);
+
+        boolean contains(String id);
+
+        int size();
+
+        /**
+         * Stores the function's result for the id, or removes the item when it returns null;
+         * the function sees null for a missing item. Serialized with other writes to the id.
+         */
+        void compute(String id, UnaryOperator<ShopItem> remapping);
+    }
+
+    static final class HeapItemTable implements ItemTable {
+
+        private final Map<String, ShopItem> items = new ConcurrentHashMap<>();
+
+        @Override
+        public ShopItem get(String id) {
+            ShopItem item = items.get(id);
+            return item != null ? copy(item) : null;
+        }
+
+        @Override
+        public boolean contains(String id) {
+            return items.containsKey(id);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public void compute(String id, UnaryOperator<ShopItem> remapping) {
+            items.compute(id, (key, current) -> {
+                ShopItem next = remapping.apply(current);
+                return next != null ? copy(next) : null;
+            });
+        }
+    }
+
+    static final class OffHeapItemTable implements ItemTable {
+
+        private final OffHeapCatalogStore store;
+
+        OffHeapItemTable(OffHeapCatalogStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public ShopItem get(String id) {
+            return store.find(id).orElse(null);
+        }
+
+        @Override
+        public boolean contains(String id) {
+            return store.contains(id);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+
+        @Override
+        public void compute(String id, UnaryOperator<ShopItem> remapping) {
+            store.compute(id, remapping);
+        }
+    }
+
+    /**
+     * Concurrent sorted index of (key, id) pairs; items with a null key are not indexed,
+     * as a range query in Mongo would not match them either.
+     */
+    static final class SortedIndex<K extends Comparable<? super K>> {
+
+        private final Function<ShopItem, K> key;
+        private final ConcurrentSkipListSet<IndexEntry<K>> entries = new ConcurrentSkipListSet<>();
+
+        SortedIndex(Function<ShopItem, K> key) {
+            this.key = key;
+        }
+
+        void add(ShopItem item) {
+            K value = key.apply(item);
+            if (value != null) {
+                entries.add(new IndexEntry<>(value, IndexEntry.ENTRY, item.getId()));
+            }
+        }
+
+        void remove(ShopItem item) {
+            K value = key.apply(item);
+            if (value != null) {
+                entries.remove(new IndexEntry<>(value, IndexEntry.ENTRY, item.getId()));
+            }
+        }
+
+        Stream<String> all() {
+            return entries.stream().map(IndexEntry::id);
+        }
+
+        /**
+         * Ids in key order with keys between the bounds; a null bound is open.
+         */
+        Stream<String> range(@Nullable K from, boolean fromInclusive, @Nullable K to, boolean toInclusive) {
+            return range(from, fromInclusive, to, toInclusive, false);
+        }
+
+        // Same range, in reverse key order when descending
+        Stream<String> range(@Nullable K from, boolean fromInclusive, @Nullable K to, boolean toInclusive,
+                             boolean descending) {
+            NavigableSet<IndexEntry<K>> range = entries;
+            if (from != null) {
+                range = range.tailSet(new IndexEntry<>(from, fromInclusive ? IndexEntry.BEFORE : IndexEntry.AFTER, null), false);
+            }
+            if (to != null) {
+                range = range.headSet(new IndexEntry<>(to, toInclusive ? IndexEntry.AFTER : IndexEntry.BEFORE, null), false);
+            }
+            if (descending) {
+                range = range.descendingSet();
+            }
+            return StreamSupport.stream(range.spliterator(), false).map(IndexEntry::id);
+        }
+    }
+
+    /**
+     * Bound entries sort before or after every entry with the same key,
+     * so ranges can be taken without knowing any id.
+     */
+    record IndexEntry<K extends Comparable<? super K>>(K key, int position, @Nullable String id)
+            implements Comparable<IndexEntry<K>> {
+
+        static final int BEFORE = -1;
+        static final int ENTRY = 0;
+        static final int AFTER = 1;
+
+        @Override
+        public int compareTo(IndexEntry<K> other) {
+            int byKey = key.compareTo(other.key);
+            if (byKey != 0) {
+                return byKey;
+            }
+            if (position != ENTRY || other.position != ENTRY) {
+                return Integer.compare(position, other.position);
+            }
+            return Objects.compare(id, other.id, Comparator.naturalOrder());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * ShopItems kept outside the Java heap, for catalogs of millions of items
+ * whose objects would otherwise dominate heap occupancy and full GC pauses.
+ *
+ * Records use the ShopItemRecords layout, each prefixed with its length, and are
+ * appended to direct ByteBuffer chunks. An open-addressing table (linear probing,
+ * also direct) maps each id's hash to its record address; ids are matched on
+ * their encoded bytes, so a lookup decodes nothing but the item it returns.
+ * Items are decoded on every access and the caller owns the copy.
+ *
+ * Updates append a new record and leave the old one dead; once dead bytes
+ * outweigh live ones the records are compacted into fresh chunks.
+ * Direct memory is given back when the garbage collector clears the dropped
+ * buffers, and shows up in the jvm.buffer.memory.used{id=direct} gauge.
+ *
+ * Reads share a read lock, writes are serialized.
+ */
+public final class OffHeapCatalogStore {
+
+    public static final int DEFAULT_CHUNK_BYTES = 64 * 1024 * 1024;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 16;
+    // Keeps slot offsets within an int: a 1 GiB table, about 50 million items
+    private static final int MAX_CAPACITY = 1 << 26;
+    // Dead bytes below this are never worth a compaction
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private final int chunkBytes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private int writeOffset;
+
+    // Slot: id hash (long), record address + 1 (long, 0 when the slot is empty)
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+    private long liveBytes;
+    private long deadBytes;
+
+    public OffHeapCatalogStore() {
+        this(DEFAULT_CHUNK_BYTES, 1024);
+    }
+
+    /**
+     * @param chunkBytes    size of each record chunk, which bounds the size of one record
+     * @param expectedItems items the id table holds before its first resize
+     */
+    public OffHeapCatalogStore(int chunkBytes, int expectedItems) {
+        if (chunkBytes < 64) {
+            throw new IllegalArgumentException("chunkBytes must be at least 64");
+        }
+        this.chunkBytes = chunkBytes;
+        this.capacity = tableCapacity(expectedItems);
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        this.writeOffset = chunkBytes; // first put allocates the first chunk
+    }
+
+    public Optional<ShopItem> find(String id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id, ShopItemRecords.encodeId(id));
+            return slot < 0 ? Optional.empty() : Optional.of(decode(address(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return slotOf(id, ShopItemRecords.encodeId(id)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts or replaces the item with the same id.
+     */
+    public void put(ShopItem item) {
+        if (item.getId() == null) {
+            throw new IllegalArgumentException("Item id is required");
+        }
+        compute(item.getId(), current -> item);
+    }
+
+    /**
+     * @return whether an item was removed
+     */
+    public boolean remove(String id) {
+        boolean[] removed = new boolean[1];
+        compute(id, current -> {
+            removed[0] = current != null;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Replaces the item with the result of the function, atomically with respect to
+     * other writes; the function sees null for a missing item and returns null to remove it.
+     * It runs under the write lock, so it must not access the store.
+     *
+     * @return the item stored, null if there is none
+     */
+    @Nullable
+    public ShopItem compute(String id, UnaryOperator<ShopItem> remapping) {
+        lock.writeLock().lock();
+        try {
+            byte[] encodedId = ShopItemRecords.encodeId(id);
+            int slot = slotOf(id, encodedId);
+            ShopItem current = slot >= 0 ? decode(address(slot)) : null;
+            ShopItem next = remapping.apply(current);
+            if (next != null && !id.equals(next.getId())) {
+                throw new IllegalArgumentException("Item id " + next.getId() + " does not match " + id);
+            }
+            if (slot >= 0) {
+                int replaced = recordBytes(address(slot));
+                deadBytes += replaced;
+                liveBytes -= replaced;
+                if (next == null) {
+                    delete(slot);
+                    size--;
+                } else {
+                    setAddress(slot, append(next));
+                }
+            } else if (next != null) {
+                if (size + 1 > capacity * 3L / 4) {
+                    resize(capacity * 2);
+                }
+                int free = freeSlot(hash(id));
+                slots.putLong(free * SLOT_BYTES, hash(id));
+                setAddress(free, append(next));
+                size++;
+            }
+            if (deadBytes > liveBytes && deadBytes > MIN_COMPACTION_BYTES) {
+                compact();
+            }
+            return next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            chunks.clear();
+            writeOffset = chunkBytes;
+            capacity = MIN_CAPACITY;
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            size = 0;
+            liveBytes = 0;
+            deadBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Direct memory held by record chunks and the id table.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * chunkBytes + (long) capacity * SLOT_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes of the records currently stored, length prefixes included.
+     */
+    public long liveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Records ==========
+
+    private long append(ShopItem item) {
+        scratch = ShopItemRecords.encode(item, scratch);
+        int length = scratch.limit();
+        if (4 + length > chunkBytes) {
+            throw new IllegalArgumentException("Item " + item.getId() + " needs " + length
+                    + " bytes, more than a chunk of " + chunkBytes);
+        }
+        if (writeOffset + 4 + length > chunkBytes) {
+            chunks.add(ByteBuffer.allocateDirect(chunkBytes));
+            writeOffset = 0;
+        }
+        ByteBuffer chunk = chunks.get(chunks.size() - 1);
+        long address = ((long) (chunks.size() - 1) << 32) | writeOffset;
+        chunk.putInt(writeOffset, length);
+        chunk.put(writeOffset + 4, scratch, 0, length);
+        writeOffset += 4 + length;
+        liveBytes += 4 + length;
+        return address;
+    }
+
+    private ShopItem decode(long address) {
+        return ShopItemRecords.read(chunk(address), offset(address) + 4);
+    }
+
+    private int recordBytes(long address) {
+        return 4 + chunk(address).getInt(offset(address));
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    // Rewrites the live records back to back and drops the old chunks
+    private void compact() {
+        List<ByteBuffer> old = new ArrayList<>(chunks);
+        chunks.clear();
+        writeOffset = chunkBytes;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (isEmpty(slot)) {
+                continue;
+            }
+            long address = address(slot);
+            ByteBuffer from = old.get((int) (address >>> 32));
+            int length = from.getInt(offset(address));
+            if (writeOffset + 4 + length > chunkBytes) {
+                chunks.add(ByteBuffer.allocateDirect(chunkBytes));
+                writeOffset = 0;
+            }
+            chunks.get(chunks.size() - 1).put(writeOffset, from, offset(address), 4 + length);
+            setAddress(slot, ((long) (chunks.size() - 1) << 32) | writeOffset);
+            writeOffset += 4 + length;
+        }
+        deadBytes = 0;
+    }
+
+    // ========== Id table ==========
+
+    private int slotOf(String id, byte[] encodedId) {
+        long hash = hash(id);
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; !isEmpty(slot); slot = (slot + 1) & mask) {
+            if (slots.getLong(slot * SLOT_BYTES) == hash) {
+                long address = address(slot);
+                if (ShopItemRecords.idEquals(chunk(address), offset(address) + 4, encodedId)) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long hash) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (!isEmpty(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion: later entries of the probe run move up, so no tombstones are needed
+    private void delete(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; !isEmpty(next); next = (next + 1) & mask) {
+            int home = (int) slots.getLong(next * SLOT_BYTES) & mask;
+            // Move the entry unless its home lies cyclically in (hole, next]
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                slots.putLong(hole * SLOT_BYTES, slots.getLong(next * SLOT_BYTES));
+                slots.putLong(hole * SLOT_BYTES + 8, slots.getLong(next * SLOT_BYTES + 8));
+                hole = next;
+            }
+        }
+        slots.putLong(hole * SLOT_BYTES, 0);
+        slots.putLong(hole * SLOT_BYTES + 8, 0);
+    }
+
+    private void resize(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap catalog store is full at " + size + " items");
+        }
+        ByteBuffer old = slots;
+        int oldCapacity = capacity;
+        slots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long stored = old.getLong(slot * SLOT_BYTES + 8);
+            if (stored != 0) {
+                long hash = old.getLong(slot * SLOT_BYTES);
+                int free = freeSlot(hash);
+                slots.putLong(free * SLOT_BYTES, hash);
+                slots.putLong(free * SLOT_BYTES + 8, stored);
+            }
+        }
+    }
+
+    private boolean isEmpty(int slot) {
+        return slots.getLong(slot * SLOT_BYTES + 8) == 0;
+    }
+
+    private long address(int slot) {
+        return slots.getLong(slot * SLOT_BYTES + 8) - 1;
+    }
+
+    private void setAddress(int slot, long address) {
+        slots.putLong(slot * SLOT_BYTES + 8, address + 1);
+    }
+
+    // String.hashCode spread over 64 bits (murmur3 finalizer), so low bits pick good slots
+    private static long hash(String id) {
+        long h = id.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableCapacity(int expectedItems) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedItems * 4 / 3 + 1);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many expected items: " + expectedItems);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
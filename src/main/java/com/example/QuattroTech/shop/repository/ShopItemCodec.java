@@ -0,0 +1,104 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+
+/**
+ * Hand-written BSON codec for ShopItem.
+ * Produces the same document layout as Spring Data's MappingMongoConverter
+ * (ObjectId-shaped ids as ObjectId, price as string, _class type hint)
+ * but reads straight from the BSON stream without building a Document first.
+ */
+public class ShopItemCodec implements Codec<ShopItem> {
+
+    static final String TYPE_HINT = ShopItem.class.getName();
+
+    @Override
+    public void encode(BsonWriter writer, ShopItem item, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (item.getId() != null) {
+            writer.writeName("_id");
+            if (ObjectId.isValid(item.getId())) {
+                writer.writeObjectId(new ObjectId(item.getId()));
+            } else {
+                writer.writeString(item.getId());
+            }
+        }
+        if (item.getName() != null) {
+            writer.writeString("name", item.getName());
+        }
+        if (item.getDescription() != null) {
+            writer.writeString("description", item.getDescription());
+        }
+        if (item.getPrice() != null) {
+            writer.writeString("price", item.getPrice().toString());
+        }
+        writer.writeInt32("quantity", item.getQuantity());
+        writer.writeInt64("lastModified", item.getLastModified());
+        writer.writeString("_class", TYPE_HINT);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public ShopItem decode(BsonReader reader, DecoderContext decoderContext) {
+        ShopItem item = new ShopItem();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (field) {
+                case "_id" -> item.setId(readId(reader));
+                case "name" -> item.setName(reader.readString());
+                case "description" -> item.setDescription(reader.readString());
+                case "price" -> item.setPrice(readDecimal(reader));
+                case "quantity" -> item.setQuantity((int) readLong(reader));
+                case "lastModified" -> item.setLastModified(readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return item;
+    }
+
+    @Override
+    public Class<ShopItem> getEncoderClass() {
+        return ShopItem.class;
+    }
+
+    private static String readId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId().toHexString();
+        }
+        return reader.readString();
+    }
+
+    // Documents written outside Spring Data may hold the price as a number
+    private static BigDecimal readDecimal(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DECIMAL128 -> reader.readDecimal128().bigDecimalValue();
+            case DOUBLE -> BigDecimal.valueOf(reader.readDouble());
+            case INT32 -> BigDecimal.valueOf(reader.readInt32());
+            case INT64 -> BigDecimal.valueOf(reader.readInt64());
+            default -> new BigDecimal(reader.readString());
+        };
+    }
+
+    private static long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case DOUBLE -> (long) reader.readDouble();
+            default -> reader.readInt64();
+        };
+    }
+}
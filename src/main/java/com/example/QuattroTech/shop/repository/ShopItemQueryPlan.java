@@ -0,0 +1,146 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A ShopItemQuery checked against the index-hint allowlist, and the Mongo query it runs as.
+ *
+ * Only the single-field name and quantity indexes may be hinted. A sorted query hints the
+ * index on its sort field, so Mongo never sorts in memory; otherwise the query hints the
+ * first allowlisted index one of its filters bounds. Filters the hinted index does not
+ * bound are applied to the documents it selects.
+ *
+ * A sort is therefore only accepted when a filter bounds the sort field, or when there is
+ * nothing else to filter: a selective filter on another field would otherwise be checked
+ * against every entry of the sort index until the limit is reached.
+ * Only a quantity range with a maximum bounds the quantity index. Most items are in stock,
+ * so a minimum alone, even minQuantity=1, selects nearly the whole catalog; callers after
+ * high stock levels pass a maximum as well.
+ *
+ * Price is never indexed: Mongo stores BigDecimal as a string, so a price range is a
+ * $toDecimal comparison applied to the selected documents. A price filter therefore
+ * needs a name prefix or quantity maximum to bound the scan, and is rejected otherwise.
+ * An unfiltered, unsorted query scans in natural order and stops at the limit.
+ */
+public final class ShopItemQueryPlan {
+
+    // Fields with an ascending single-field index that queries may hint, in order of preference
+    static final List<String> INDEXED_FIELDS = List.of("name", "quantity");
+
+    private final ShopItemQuery query;
+    @Nullable
+    private final String index;
+
+    private ShopItemQueryPlan(ShopItemQuery query, @Nullable String index) {
+        this.query = query;
+        this.index = index;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no allowlisted index covers the filters and sort
+     */
+    public static ShopItemQueryPlan of(ShopItemQuery query) {
+        if (query.filtersPrice() && !bounds(query, "name") && !bounds(query, "quantity")) {
+            throw new IllegalArgumentException(
+                    "Price filters need a name prefix or a quantity maximum, no index covers price alone");
+        }
+        if (query.sort() != null) {
+            String field = query.sort().property();
+            if (!bounds(query, field) && filtersOtherThan(query, field)) {
+                throw new IllegalArgumentException("Sorting by " + field + " with other filters needs a "
+                        + field + " filter too, otherwise the whole " + field + " index is scanned");
+            }
+            return new ShopItemQueryPlan(query, field);
+        }
+        for (String field : INDEXED_FIELDS) {
+            if (bounds(query, field)) {
+                return new ShopItemQueryPlan(query, field);
+            }
+        }
+        return new ShopItemQueryPlan(query, null);
+    }
+
+    private static boolean bounds(ShopItemQuery query, String field) {
+        return switch (field) {
+            case "name" -> query.namePrefix() != null;
+            case "quantity" -> query.maxQuantity() != null;
+            default -> false;
+        };
+    }
+
+    private static boolean filtersOtherThan(ShopItemQuery query, String field) {
+        return query.filtersPrice()
+                || (!field.equals("name") && query.namePrefix() != null)
+                || (!field.equals("quantity") && query.filtersQuantity());
+    }
+
+    public ShopItemQuery query() {
+        return query;
+    }
+
+    /**
+     * The hinted index field, or null for a natural order scan.
+     */
+    @Nullable
+    public String index() {
+        return index;
+    }
+
+    public Query toQuery() {
+        Query mongoQuery = new Query();
+        for (Criteria criteria : criteria()) {
+            mongoQuery.addCriteria(criteria);
+        }
+        if (query.sort() != null) {
+            mongoQuery.with(Sort.by(query.descending() ? Sort.Direction.DESC : Sort.Direction.ASC,
+                    query.sort().property()));
+        }
+        if (index != null) {
+            mongoQuery.withHint(new Document(index, 1));
+        }
+        return mongoQuery.limit(query.limit());
+    }
+
+    private List<Criteria> criteria() {
+        List<Criteria> criteria = new ArrayList<>();
+        if (query.namePrefix() != null) {
+            // Anchored and quoted, so Mongo turns it into index bounds on the prefix
+            criteria.add(Criteria.where("name").regex("^" + Pattern.quote(query.namePrefix())));
+        }
+        if (query.filtersQuantity()) {
+            Criteria quantity = Criteria.where("quantity");
+            if (query.minQuantity() != null) {
+                quantity.gte(query.minQuantity());
+            }
+            if (query.maxQuantity() != null) {
+                quantity.lte(query.maxQuantity());
+            }
+            criteria.add(quantity);
+        }
+        if (query.filtersPrice()) {
+            // A raw document rather than an AggregationExpression, so the codec read path can encode it
+            Document price = new Document("$toDecimal", "$price");
+            List<Document> comparisons = new ArrayList<>(2);
+            if (query.minPrice() != null) {
+                comparisons.add(new Document("$gte", List.of(price, new Decimal128(query.minPrice()))));
+            }
+            if (query.maxPrice() != null) {
+                comparisons.add(new Document("$lte", List.of(price, new Decimal128(query.maxPrice()))));
+            }
+            criteria.add(Criteria.where("$expr").is(comparisons.size() == 1
+                    ? comparisons.get(0)
+                    : new Document("$and", comparisons)));
+        }
+        return criteria;
+    }
+}
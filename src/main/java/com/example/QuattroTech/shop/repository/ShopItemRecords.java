@@ -0,0 +1,185 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.bson.types.ObjectId;
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary ShopItem record shared by CatalogSnapshotFile and OffHeapCatalogStore.
+ *
+ * Record, big endian: id (kind byte, then 12 ObjectId bytes or a length-prefixed string),
+ * name, description (length-prefixed UTF-8, -1 for null),
+ * price (-1 for null; COMPACT_PRICE, then the unscaled long and the scale for any price
+ * of up to 18 digits; otherwise unscaled value length, unscaled bytes, scale),
+ * quantity, lastModified.
+ *
+ * The compact price form decodes straight to BigDecimal.valueOf(unscaled, scale),
+ * without the byte array and BigInteger the long form allocates on every read.
+ *
+ * Reads only use absolute gets, so readers on any thread can share a buffer.
+ */
+final class ShopItemRecords {
+
+    private static final byte OBJECT_ID = 0;
+    private static final byte STRING_ID = 1;
+    private static final int NULL_PRICE = -1;
+    private static final int COMPACT_PRICE = -2;
+    // Every unscaled value of up to 18 digits fits a long
+    private static final int COMPACT_PRECISION = 18;
+
+    private ShopItemRecords() {
+    }
+
+    /**
+     * Encodes the item into the scratch buffer, or into a larger one if it does not fit.
+     *
+     * @return the buffer holding the record, flipped for reading
+     */
+    static ByteBuffer encode(ShopItem item, ByteBuffer scratch) {
+        ByteBuffer out = scratch;
+        while (true) {
+            try {
+                out.clear();
+                write(out, item);
+                return out.flip();
+            } catch (BufferOverflowException e) {
+                out = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+    }
+
+    private static void write(ByteBuffer out, ShopItem item) {
+        writeId(out, item.getId());
+        writeString(out, item.getName());
+        writeString(out, item.getDescription());
+        BigDecimal price = item.getPrice();
+        if (price == null) {
+            out.putInt(NULL_PRICE);
+        } else if (price.precision() <= COMPACT_PRECISION) {
+            out.putInt(COMPACT_PRICE);
+            out.putLong(price.scaleByPowerOfTen(price.scale()).longValueExact());
+            out.putInt(price.scale());
+        } else {
+            byte[] unscaled = price.unscaledValue().toByteArray();
+            out.putInt(unscaled.length);
+            out.put(unscaled);
+            out.putInt(price.scale());
+        }
+        out.putInt(item.getQuantity());
+        out.putLong(item.getLastModified());
+    }
+
+    /**
+     * The id as it starts a record, so lookups can match ids without decoding them.
+     */
+    static byte[] encodeId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(5 + bytes.length);
+        writeId(out, id);
+        byte[] encoded = new byte[out.position()];
+        out.flip().get(encoded);
+        return encoded;
+    }
+
+    // Lowercase ObjectId hex takes 12 bytes; anything else round-trips as a string
+    private static void writeId(ByteBuffer out, String id) {
+        if (ObjectId.isValid(id) && id.equals(id.toLowerCase())) {
+            out.put(OBJECT_ID);
+            out.put(new ObjectId(id).toByteArray());
+        } else {
+            out.put(STRING_ID);
+            writeString(out, id);
+        }
+    }
+
+    private static void writeString(ByteBuffer out, @Nullable String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    static boolean idEquals(ByteBuffer in, int offset, byte[] encodedId) {
+        if (offset + encodedId.length > in.limit()) {
+            return false;
+        }
+        for (int i = 0; i < encodedId.length; i++) {
+            if (in.get(offset + i) != encodedId[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String readId(ByteBuffer in, int offset) {
+        if (in.get(offset) == OBJECT_ID) {
+            return new ObjectId(bytes(in, offset + 1, 12)).toHexString();
+        }
+        return readString(in, offset + 1);
+    }
+
+    static ShopItem read(ByteBuffer in, int offset) {
+        ShopItem item = new ShopItem();
+        read(in, offset, item);
+        return item;
+    }
+
+    /**
+     * Decodes the record at offset into item.
+     *
+     * @return the offset just past the record
+     */
+    static int read(ByteBuffer in, int offset, ShopItem item) {
+        int position;
+        if (in.get(offset) == OBJECT_ID) {
+            item.setId(new ObjectId(bytes(in, offset + 1, 12)).toHexString());
+            position = offset + 13;
+        } else {
+            item.setId(readString(in, offset + 1));
+            position = skipString(in, offset + 1);
+        }
+        item.setName(readString(in, position));
+        position = skipString(in, position);
+        item.setDescription(readString(in, position));
+        position = skipString(in, position);
+        int unscaledLength = in.getInt(position);
+        position += 4;
+        if (unscaledLength == COMPACT_PRICE) {
+            item.setPrice(BigDecimal.valueOf(in.getLong(position), in.getInt(position + 8)));
+            position += 12;
+        } else if (unscaledLength >= 0) {
+            BigInteger unscaled = new BigInteger(bytes(in, position, unscaledLength));
+            position += unscaledLength;
+            item.setPrice(new BigDecimal(unscaled, in.getInt(position)));
+            position += 4;
+        }
+        item.setQuantity(in.getInt(position));
+        item.setLastModified(in.getLong(position + 4));
+        return position + 12;
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer in, int offset) {
+        int length = in.getInt(offset);
+        return length < 0 ? null : new String(bytes(in, offset + 4, length), StandardCharsets.UTF_8);
+    }
+
+    private static int skipString(ByteBuffer in, int offset) {
+        return offset + 4 + Math.max(in.getInt(offset), 0);
+    }
+
+    static byte[] bytes(ByteBuffer in, int offset, int length) {
+        byte[] bytes = new byte[length];
+        in.get(offset, bytes);
+        return bytes;
+    }
+}
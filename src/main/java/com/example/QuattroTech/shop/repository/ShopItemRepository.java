@@ -4,22 +4,30 @@ import com.example.QuattroTech.shop.model.ShopItem;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Range;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ShopItemRepository extends MongoRepository<ShopItem, String> {
+public interface ShopItemRepository extends MongoRepository<ShopItem, String>, ShopItemRepositoryCustom {
 
 
     ShopItem findByName(String name);
-    List<ShopItem> findByNameContainingIgnoreCase(String namePart);
+    // Not index-covered, price is stored as a string (see QueryPlanIT); use query() with a name or quantity bound
     List<ShopItem> findByPriceLessThanEqual(BigDecimal maxPrice);
     List<ShopItem> findByQuantityGreaterThanOrderByPrice(Integer threshold);
-    
-    @Query("{ 'quantity': { $lt: ?0 } }")
-    List<ShopItem> findItemsWithLowStock(Integer threshold);
+
+    // findAll, findById, findByNameContainingIgnoreCase and findItemsWithLowStock
+    // are implemented in ShopItemRepositoryCustomImpl
+
+    // Redeclared so calls resolve to the fragment rather than CrudRepository
+    @Override
+    Optional<ShopItem> findById(String id);
+
+    // Changes within a sequence range, e.g. Range.leftOpen(token, currentChangeSequence())
+    List<ShopItem> findByLastModifiedBetweenOrderByLastModified(Range<Long> sequences);
 }
 
 
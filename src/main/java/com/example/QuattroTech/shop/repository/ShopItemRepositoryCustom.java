@@ -0,0 +1,108 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Custom ShopItem operations that need MongoTemplate
+ * and cannot be expressed as derived queries.
+ */
+public interface ShopItemRepositoryCustom {
+
+    // List queries implemented here so they can opt in to ShopItemCodec
+    List<ShopItem> findAll();
+    List<ShopItem> findByNameContainingIgnoreCase(String namePart);
+    List<ShopItem> findItemsWithLowStock(Integer threshold);
+
+    /**
+     * Filtered, sorted and limited read on the index the plan chose, routed like the list queries.
+     */
+    List<ShopItem> query(ShopItemQueryPlan plan);
+
+    /**
+     * Cursor-backed variants of the list queries.
+     * The returned stream holds an open cursor and must be closed.
+     */
+    Stream<ShopItem> streamAll();
+    Stream<ShopItem> streamByNameContainingIgnoreCase(String namePart);
+    Stream<ShopItem> streamItemsWithLowStock(Integer threshold);
+
+    /**
+     * Primary read, or a causally consistent read routed like the list queries
+     * when the caller carries a causal token.
+     */
+    Optional<ShopItem> findById(String id);
+
+    /**
+     * Captures a causal token after a write and hands it back to the current caller,
+     * so its next routed reads observe that write. No-op unless read routing is enabled.
+     */
+    void recordCausalWrite();
+
+    /**
+     * Allocates the next catalog change sequence and runs the write that stamps it.
+     * The sequence stays open until the write returns or fails, and delta readers do not pass
+     * an open sequence, so they never skip a change that commits later. Writers do not wait
+     * for each other; a failed write leaves a gap no item is stamped with.
+     * On a replica set the write runs in its own transaction.
+     */
+    <T> T writeInSequence(LongFunction<T> write);
+
+    /**
+     * The latest change sequence below the oldest open one. Every change up to it is visible.
+     */
+    long currentChangeSequence();
+
+    void recordDeletion(String itemId, long sequence);
+
+    /**
+     * Tombstones with a sequence after the first and up to the second, in sequence order.
+     */
+    List<ShopItemTombstone> findDeletionsSince(long sequence, long upTo);
+
+    /**
+     * Applies quantity deltas as one unordered bulk of $inc updates,
+     * stamping every touched item with the given change sequence.
+     * A delta that would take the quantity below zero or past Integer.MAX_VALUE is refused
+     * and leaves its item untouched.
+     * Failed ids are those whose update failed while the others were applied, which only happens
+     * outside a transaction; a write concern error leaves the updates applied, so it is not reported.
+     * An exception means none was applied, unless its commit outcome is unknown.
+     */
+    QuantityUpdates incrementQuantities(Map<String, Integer> deltas, long sequence);
+
+    /**
+     * Takes the lock of an import in one conditional upsert: creates its checkpoint, or claims
+     * the stored one unless it is completed or another run's lease lasts past now.
+     * Returns the checkpoint now owned by owner, empty when the lock was not taken.
+     */
+    Optional<ImportCheckpoint> lockImport(String importId, String owner, Instant now, Instant lockedUntil);
+
+    /**
+     * Saves the checkpoint only while its owner still owns the stored one.
+     * Returns false when another run has taken the import over.
+     */
+    boolean saveImportCheckpoint(ImportCheckpoint checkpoint);
+
+    Optional<ImportCheckpoint> findImportCheckpoint(String importId);
+
+    /**
+     * Opens a change stream on shop_items, after the resume token if given, otherwise from now.
+     * Updates carry the current document; getMore calls wait at most a second,
+     * so a follower polling tryNext notices when it should stop. Needs a replica set.
+     */
+    MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> watchItems(@Nullable BsonDocument resumeAfter);
+}
@@ -0,0 +1,544 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class ShopItemRepositoryCustomImpl implements ShopItemRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(ShopItemRepositoryCustomImpl.class);
+
+    static final String SEQUENCES_COLLECTION = "sequences";
+    static final String CHANGE_SEQUENCE_ID = "shop_items";
+    // Documents fetched per getMore while streaming, keeps memory flat for large results
+    static final int STREAM_BATCH_SIZE = 500;
+    static final long CHANGE_STREAM_MAX_AWAIT_MS = 1000;
+    // How long sequenced writes retry transactions aborted by transient errors
+    static final long TRANSACTION_RETRY_MS = 5000;
+    static final int COMMIT_ATTEMPTS = 3;
+    // How long an allocated sequence holds back delta readers, e.g. after its writer crashed.
+    // Matches the server's default transaction lifetime, so a sequenced transaction cannot outlive it.
+    static final long OPEN_WRITE_LEASE_MS = 60_000;
+
+    private final MongoTemplate mongoTemplate;
+    // Null unless shop.items.codec.enabled=true, in which case list reads bypass MappingMongoConverter
+    private final CodecRegistry codecRegistry;
+    // List, search and low-stock reads; secondaryPreferred when shop.items.read-routing.enabled=true
+    private final ReadPreference listReadPreference;
+    // Null unless read routing is enabled; reads carrying a token run in a causally consistent session
+    private final CausalReadContext causalReads;
+    // Null when shop.items.durability.enabled=false; bulk writes then use the template's write concern
+    private final TieredWriteConcernResolver writeConcernResolver;
+
+    // Null until the first sequenced write probes the deployment
+    private volatile Boolean transactions;
+    private final Map<DurabilityTier, TransactionTemplate> transactionTemplates = new ConcurrentHashMap<>();
+
+    public ShopItemRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, false);
+    }
+
+    public ShopItemRepositoryCustomImpl(MongoTemplate mongoTemplate, boolean codecEnabled) {
+        this(mongoTemplate, codecEnabled, false, 90, null, null);
+    }
+
+    @Autowired
+    public ShopItemRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                        @Value("${shop.items.codec.enabled:false}") boolean codecEnabled,
+                                        @Value("${shop.items.read-routing.enabled:false}") boolean readRouting,
+                                        @Value("${shop.items.read-routing.max-staleness-seconds:90}") long maxStalenessSeconds,
+                                        @Nullable CausalReadContext causalReads,
+                                        @Nullable TieredWriteConcernResolver writeConcernResolver) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernResolver = writeConcernResolver;
+        this.listReadPreference = readRouting
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary();
+        this.causalReads = causalReads;
+        this.codecRegistry = codecEnabled
+                ? CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(new ShopItemCodec()),
+                        mongoTemplate.getDb().getCodecRegistry())
+                : null;
+    }
+
+    @Override
+    public List<ShopItem> findAll() {
+        return find(new Query());
+    }
+
+    @Override
+    public List<ShopItem> findByNameContainingIgnoreCase(String namePart) {
+        return find(nameContainsQuery(namePart));
+    }
+
+    @Override
+    public List<ShopItem> findItemsWithLowStock(Integer threshold) {
+        return find(lowStockQuery(threshold));
+    }
+
+    @Override
+    public List<ShopItem> query(ShopItemQueryPlan plan) {
+        return find(plan.toQuery());
+    }
+
+    @Override
+    public Stream<ShopItem> streamAll() {
+        return stream(new Query());
+    }
+
+    @Override
+    public Stream<ShopItem> streamByNameContainingIgnoreCase(String namePart) {
+        return stream(nameContainsQuery(namePart));
+    }
+
+    @Override
+    public Stream<ShopItem> streamItemsWithLowStock(Integer threshold) {
+        return stream(lowStockQuery(threshold));
+    }
+
+    private static Query nameContainsQuery(String namePart) {
+        return Query.query(Criteria.where("name").regex(Pattern.quote(namePart), "i"));
+    }
+
+    private static Query lowStockQuery(Integer threshold) {
+        return Query.query(Criteria.where("quantity").lt(threshold));
+    }
+
+    /**
+     * Point reads stay on the primary, unless the caller carries a causal token:
+     * the causally consistent session then makes any secondary safe to read from.
+     */
+    @Override
+    public Optional<ShopItem> findById(String id) {
+        CausalToken token = currentToken();
+        if (token == null) {
+            return Optional.ofNullable(mongoTemplate.findById(id, ShopItem.class));
+        }
+        Query query = Query.query(Criteria.where("_id").is(id)).withReadPreference(listReadPreference);
+        try (ClientSession session = causalSession(token)) {
+            return Optional.ofNullable(mongoTemplate.withSession(session).findOne(query, ShopItem.class));
+        }
+    }
+
+    @Override
+    public void recordCausalWrite() {
+        if (causalReads == null || !causalReads.isBound()) {
+            return;
+        }
+        // The operation time of a primary read issued after the write was acknowledged covers that write
+        try (ClientSession session = causalSession(null)) {
+            mongoTemplate.withSession(session).execute(SEQUENCES_COLLECTION, collection -> collection
+                    .withReadPreference(ReadPreference.primary())
+                    .find(new Document("_id", CHANGE_SEQUENCE_ID))
+                    .first());
+            // Standalone servers have no operation time, and no secondaries to lag behind
+            if (session.getOperationTime() != null) {
+                causalReads.advance(new CausalToken(session.getOperationTime(), session.getClusterTime()));
+            }
+        }
+    }
+
+    private List<ShopItem> find(Query query) {
+        query.withReadPreference(listReadPreference);
+        CausalToken token = currentToken();
+        if (token == null) {
+            return find(mongoTemplate, query);
+        }
+        try (ClientSession session = causalSession(token)) {
+            return find(mongoTemplate.withSession(session), query);
+        }
+    }
+
+    private List<ShopItem> find(MongoTemplate template, Query query) {
+        if (codecRegistry == null) {
+            return template.find(query, ShopItem.class);
+        }
+        return template.execute(ShopItem.class, collection -> {
+            FindIterable<ShopItem> found = withCodec(collection)
+                    .find(query.getQueryObject())
+                    .limit(query.getLimit());
+            if (query.isSorted()) {
+                found.sort(query.getSortObject());
+            }
+            if (query.getHint() != null) {
+                found.hint(Document.parse(query.getHint()));
+            }
+            return found.into(new ArrayList<>());
+        });
+    }
+
+    private Stream<ShopItem> stream(Query query) {
+        query.cursorBatchSize(STREAM_BATCH_SIZE).withReadPreference(listReadPreference);
+        CausalToken token = currentToken();
+        if (token == null) {
+            return stream(mongoTemplate, query);
+        }
+        // The session must outlive the cursor, so it is closed with the stream
+        ClientSession session = causalSession(token);
+        try {
+            return stream(mongoTemplate.withSession(session), query).onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    private Stream<ShopItem> stream(MongoTemplate template, Query query) {
+        if (codecRegistry == null) {
+            return template.stream(query, ShopItem.class);
+        }
+        MongoCursor<ShopItem> cursor = template.execute(ShopItem.class, collection -> withCodec(collection)
+                .find(query.getQueryObject())
+                .batchSize(STREAM_BATCH_SIZE)
+                .cursor());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    private MongoCollection<ShopItem> withCodec(MongoCollection<Document> collection) {
+        return collection
+                .withDocumentClass(ShopItem.class)
+                .withCodecRegistry(codecRegistry)
+                .withReadPreference(listReadPreference);
+    }
+
+    private CausalToken currentToken() {
+        return causalReads != null ? causalReads.current() : null;
+    }
+
+    private ClientSession causalSession(@Nullable CausalToken token) {
+        ClientSession session = mongoTemplate.getMongoDatabaseFactory()
+                .getSession(ClientSessionOptions.builder().causallyConsistent(true).build());
+        if (token != null) {
+            if (token.clusterTime() != null) {
+                session.advanceClusterTime(token.clusterTime());
+            }
+            session.advanceOperationTime(token.operationTime());
+        }
+        return session;
+    }
+
+    @Override
+    public <T> T writeInSequence(LongFunction<T> write) {
+        long sequence = openChangeSequence();
+        try {
+            return supportsTransactions()
+                    ? inTransaction(() -> write.apply(sequence))
+                    : write.apply(sequence);
+        } finally {
+            closeChangeSequence(sequence);
+        }
+    }
+
+    @Override
+    public long currentChangeSequence() {
+        Document counter = mongoTemplate.execute(SEQUENCES_COLLECTION, collection -> collection
+                .find(Filters.eq("_id", CHANGE_SEQUENCE_ID))
+                .projection(new Document("value", 1).append("open", liveOpenWrites("$open")))
+                .first());
+        if (counter == null) {
+            return 0;
+        }
+        long sequence = ((Number) counter.get("value")).longValue();
+        List<Document> open = counter.getList("open", Document.class, List.of());
+        for (Document write : open) {
+            sequence = Math.min(sequence, ((Number) write.get("seq")).longValue() - 1);
+        }
+        return sequence;
+    }
+
+    /**
+     * Allocates the next sequence and records it as open in the same single-document update,
+     * dropping open entries whose lease has run out. Nothing is held while the write runs.
+     */
+    private long openChangeSequence() {
+        List<Document> pipeline = List.of(
+                new Document("$set", new Document("value",
+                        new Document("$add", List.of(new Document("$ifNull", List.of("$value", 0L)), 1L)))),
+                new Document("$set", new Document("open", new Document("$concatArrays", List.of(
+                        liveOpenWrites(new Document("$ifNull", List.of("$open", List.of()))),
+                        List.of(new Document("seq", "$value").append("at", "$$NOW")))))));
+        WriteConcern writeConcern = writeConcernResolver != null ? writeConcernResolver.currentWriteConcern() : null;
+        Document counter = mongoTemplate.execute(SEQUENCES_COLLECTION, collection ->
+                (writeConcern != null ? collection.withWriteConcern(writeConcern) : collection)
+                        .findOneAndUpdate(Filters.eq("_id", CHANGE_SEQUENCE_ID), pipeline,
+                                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)));
+        return ((Number) counter.get("value")).longValue();
+    }
+
+    // A lost release only delays readers until the lease runs out
+    private void closeChangeSequence(long sequence) {
+        try {
+            mongoTemplate.execute(SEQUENCES_COLLECTION, collection -> collection.updateOne(
+                    Filters.eq("_id", CHANGE_SEQUENCE_ID),
+                    Updates.pull("open", new Document("seq", sequence))));
+        } catch (RuntimeException e) {
+            log.warn("Could not release change sequence {}, readers wait for its lease to end", sequence, e);
+        }
+    }
+
+    // Open writes whose lease has not run out, by the server's clock
+    private static Document liveOpenWrites(Object open) {
+        return new Document("$filter", new Document("input", open)
+                .append("cond", new Document("$gt", List.of("$$this.at",
+                        new Document("$subtract", List.of("$$NOW", OPEN_WRITE_LEASE_MS))))));
+    }
+
+    // Probed once: transactions need a replica set member or a mongos
+    private boolean supportsTransactions() {
+        Boolean supported = transactions;
+        if (supported == null) {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            supported = hello.containsKey("setName") || "isdbgrid".equals(hello.get("msg"));
+            transactions = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * Runs the body in a transaction that commits with the current tier's write concern.
+     * Template and repository calls inside it join the transaction. A transient error,
+     * such as a write conflict with a concurrent write to the same item, aborts it and runs it again.
+     */
+    private <T> T inTransaction(Supplier<T> body) {
+        DurabilityTier tier = writeConcernResolver != null ? writeConcernResolver.currentTier() : null;
+        TransactionTemplate transaction = transactionTemplates.computeIfAbsent(
+                tier != null ? tier : DurabilityTier.STANDARD,
+                key -> new TransactionTemplate(new RetryingCommitTransactionManager(
+                        mongoTemplate.getMongoDatabaseFactory(),
+                        tier != null ? key.writeConcern() : null)));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TRANSACTION_RETRY_MS);
+        while (true) {
+            try {
+                return transaction.execute(status -> body.get());
+            } catch (RuntimeException e) {
+                if (!hasErrorLabel(e, MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                        || System.nanoTime() > deadline) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean hasErrorLabel(Throwable error, String label) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo && mongo.hasErrorLabel(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retries a commit whose outcome is unknown, e.g. after a failover, which is safe
+     * since the server commits a transaction at most once.
+     */
+    private static final class RetryingCommitTransactionManager extends MongoTransactionManager {
+
+        RetryingCommitTransactionManager(MongoDatabaseFactory databaseFactory, @Nullable WriteConcern writeConcern) {
+            super(databaseFactory, writeConcern != null
+                    ? TransactionOptions.builder().writeConcern(writeConcern).build()
+                    : TransactionOptions.builder().build());
+        }
+
+        @Override
+        protected void doCommit(MongoTransactionObject transactionObject) throws Exception {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transactionObject.commitTransaction();
+                    return;
+                } catch (MongoException e) {
+                    if (!e.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)
+                            || attempt == COMMIT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void recordDeletion(String itemId, long sequence) {
+        // Keyed by item id, so deleting the same id twice keeps a single tombstone
+        mongoTemplate.save(new ShopItemTombstone(itemId, sequence));
+    }
+
+    @Override
+    public List<ShopItemTombstone> findDeletionsSince(long sequence, long upTo) {
+        Query query = Query.query(Criteria.where("sequence").gt(sequence).lte(upTo))
+                .with(Sort.by("sequence"));
+        return mongoTemplate.find(query, ShopItemTombstone.class);
+    }
+
+    @Override
+    public Optional<ImportCheckpoint> lockImport(String importId, String owner, Instant now, Instant lockedUntil) {
+        Query query = Query.query(Criteria.where("_id").is(importId).and("completed").ne(true)
+                .orOperator(Criteria.where("lockedUntil").is(null), Criteria.where("lockedUntil").lte(now)));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("lockedUntil", lockedUntil)
+                .set("updatedAt", now)
+                .unset("error");
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), ImportCheckpoint.class));
+        } catch (DuplicateKeyException e) {
+            // The checkpoint exists but did not match: completed, or locked by another run
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean saveImportCheckpoint(ImportCheckpoint checkpoint) {
+        Query query = Query.query(Criteria.where("_id").is(checkpoint.getImportId())
+                .and("owner").is(checkpoint.getOwner()));
+        return mongoTemplate.findAndReplace(query, checkpoint) != null;
+    }
+
+    @Override
+    public Optional<ImportCheckpoint> findImportCheckpoint(String importId) {
+        return Optional.ofNullable(mongoTemplate.findById(importId, ImportCheckpoint.class));
+    }
+
+    @Override
+    public QuantityUpdates incrementQuantities(Map<String, Integer> deltas, long sequence) {
+        if (deltas.isEmpty()) {
+            return QuantityUpdates.applied();
+        }
+        List<String> ids = new ArrayList<>(deltas.keySet());
+        List<UpdateOneModel<Document>> updates = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            int delta = deltas.get(id);
+            // The range check is part of the filter, so a refused delta matches nothing
+            Bson inRange = delta < 0
+                    ? Filters.gte("quantity", -delta)
+                    : Filters.lte("quantity", Integer.MAX_VALUE - delta);
+            updates.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq("_id", ObjectId.isValid(id) ? new ObjectId(id) : id), inRange),
+                    Updates.combine(Updates.inc("quantity", delta), Updates.set("lastModified", sequence))));
+        }
+        // Driver-level bulk write, since template bulk operations ignore the write concern resolver
+        WriteConcern writeConcern = writeConcernResolver != null ? writeConcernResolver.currentWriteConcern() : null;
+        BulkWriteResult result;
+        Set<String> failed;
+        try {
+            result = mongoTemplate.execute(ShopItem.class, collection ->
+                    (writeConcern != null ? collection.withWriteConcern(writeConcern) : collection)
+                            .bulkWrite(updates, new BulkWriteOptions().ordered(false)));
+            failed = Set.of();
+        } catch (RuntimeException e) {
+            // In a transaction a write error aborts every update; outside one, only the failed ones are missing
+            MongoBulkWriteException bulk = findCause(e, MongoBulkWriteException.class);
+            if (bulk == null || supportsTransactions()) {
+                throw e;
+            }
+            result = bulk.getWriteResult();
+            failed = new HashSet<>();
+            for (BulkWriteError error : bulk.getWriteErrors()) {
+                failed.add(ids.get(error.getIndex()));
+            }
+        }
+        if (!result.wasAcknowledged() || result.getMatchedCount() + failed.size() >= ids.size()) {
+            return failed.isEmpty() ? QuantityUpdates.applied() : new QuantityUpdates(failed, Set.of());
+        }
+        return new QuantityUpdates(failed, findRefused(ids, failed, sequence));
+    }
+
+    // Items that exist but were not stamped with the sequence: their range check refused the delta.
+    // Exact inside the write's transaction; outside one, a concurrent write to the item can restamp it first.
+    private Set<String> findRefused(List<String> ids, Set<String> failed, long sequence) {
+        List<String> unstamped = new ArrayList<>(ids);
+        unstamped.removeAll(failed);
+        Query query = Query.query(Criteria.where("_id").in(unstamped).and("lastModified").ne(sequence));
+        query.fields().include("_id");
+        Set<String> refused = new HashSet<>();
+        mongoTemplate.find(query, ShopItem.class).forEach(item -> refused.add(item.getId()));
+        return refused;
+    }
+
+    @Nullable
+    private static <E extends Throwable> E findCause(Throwable error, Class<E> type) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> watchItems(@Nullable BsonDocument resumeAfter) {
+        CodecRegistry registry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new ShopItemCodec()),
+                mongoTemplate.getDb().getCodecRegistry());
+        return mongoTemplate.execute(ShopItem.class, collection -> {
+            ChangeStreamIterable<ShopItem> changes = collection.withCodecRegistry(registry)
+                    .watch(ShopItem.class)
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(CHANGE_STREAM_MAX_AWAIT_MS, TimeUnit.MILLISECONDS);
+            return (resumeAfter != null ? changes.resumeAfter(resumeAfter) : changes).cursor();
+        });
+    }
+}
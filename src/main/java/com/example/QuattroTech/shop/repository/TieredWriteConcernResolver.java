@@ -0,0 +1,101 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.WriteConcernResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Resolves MongoTemplate write concerns from the durability tier of the
+ * operation running on the current thread (see run), and records per tier
+ * how many Mongo writes were issued and how long the operations took.
+ * Writes outside run, e.g. from background flushers, count as STANDARD.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.durability", name = "enabled", havingValue = "true")
+public class TieredWriteConcernResolver implements WriteConcernResolver, MeterBinder {
+
+    private final ThreadLocal<DurabilityTier> currentTier = new ThreadLocal<>();
+    // Replaced as a whole once meters are bound; empty until then
+    private volatile Map<DurabilityTier, Counter> resolved = Map.of();
+    private volatile Map<DurabilityTier, Timer> operations = Map.of();
+
+    /**
+     * Runs a write operation with the given tier applied to all its Mongo writes.
+     * Nested calls keep the outer tier's setting once they return.
+     */
+    public <T> T run(DurabilityTier tier, Supplier<T> operation) {
+        DurabilityTier outer = currentTier.get();
+        currentTier.set(tier);
+        Timer timer = operations.get(tier);
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (outer != null) {
+                currentTier.set(outer);
+            } else {
+                currentTier.remove();
+            }
+        }
+    }
+
+    public DurabilityTier currentTier() {
+        DurabilityTier tier = currentTier.get();
+        return tier != null ? tier : DurabilityTier.STANDARD;
+    }
+
+    /**
+     * Write concern for writes that bypass the template's resolution, such as bulk writes.
+     */
+    @Nullable
+    public WriteConcern currentWriteConcern() {
+        DurabilityTier tier = currentTier();
+        Counter counter = resolved.get(tier);
+        if (counter != null) {
+            counter.increment();
+        }
+        return tier.writeConcern();
+    }
+
+    @Override
+    public WriteConcern resolve(MongoAction action) {
+        WriteConcern writeConcern = currentWriteConcern();
+        return writeConcern != null ? writeConcern : action.getDefaultWriteConcern();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<DurabilityTier, Counter> resolved = new EnumMap<>(DurabilityTier.class);
+        Map<DurabilityTier, Timer> operations = new EnumMap<>(DurabilityTier.class);
+        for (DurabilityTier tier : DurabilityTier.values()) {
+            String name = tier.name().toLowerCase(Locale.ROOT);
+            resolved.put(tier, Counter.builder("shop.items.durability.writes")
+                    .description("Mongo writes issued, by durability tier")
+                    .tag("tier", name)
+                    .register(registry));
+            operations.put(tier, Timer.builder("shop.items.durability.operation")
+                    .description("Latency of service write operations, by durability tier")
+                    .tag("tier", name)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.resolved = resolved;
+        this.operations = operations;
+    }
+}
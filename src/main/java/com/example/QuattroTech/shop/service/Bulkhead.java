@@ -0,0 +1,105 @@
+package com.example.QuattroTech.shop.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bounds how many calls of one workload run at once.
+ * Up to maxConcurrent calls run on the caller's thread; up to maxQueued more
+ * wait at most maxWait for a slot, anything beyond is rejected immediately.
+ * As every running call holds at most one Mongo connection, maxConcurrent
+ * is also the workload's share of the connection pool.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Opens a stream inside the bulkhead; the slot is held until the stream is closed.
+     */
+    public <T> Stream<T> stream(Supplier<Stream<T>> open) {
+        acquire();
+        try {
+            AtomicInteger held = new AtomicInteger(1);
+            return open.get().onClose(() -> {
+                if (held.getAndSet(0) == 1) {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new BulkheadFullException(name, "queue limit " + maxQueued + " reached");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new BulkheadFullException(name, "no slot within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new BulkheadFullException(name, "interrupted while waiting");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
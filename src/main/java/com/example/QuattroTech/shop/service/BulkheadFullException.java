@@ -0,0 +1,19 @@
+package com.example.QuattroTech.shop.service;
+
+/**
+ * Thrown when a bulkhead has no free slot and its wait queue is full,
+ * or a queued call waited longer than the bulkhead allows.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final String bulkhead;
+
+    public BulkheadFullException(String bulkhead, String reason) {
+        super("Bulkhead '" + bulkhead + "' is full: " + reason);
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
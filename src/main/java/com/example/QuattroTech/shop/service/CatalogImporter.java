@@ -0,0 +1,547 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.ImportReport;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams a supplier catalog CSV into the shop in chunks.
+ * The calling thread reads lines; chunks are parsed and validated on a
+ * parser pool (validateItem rules, bad rows are rejected and reported),
+ * and written back in file order, one insertMany per chunk, each followed
+ * by a checkpoint. Running the same import id again resumes after the last
+ * checkpoint. Item ids are derived from the import id and row number,
+ * so a chunk written just before a crash is not inserted twice.
+ * The checkpoint doubles as the import's lock across instances: a run takes
+ * it with a conditional upsert, renews its lease with every checkpoint and
+ * releases it when it stops, recording why.
+ *
+ * CSV format: a header row naming the columns name, price, quantity and
+ * optionally description (any order, other columns ignored); RFC 4180
+ * quoting within a line.
+ */
+@Component
+public class CatalogImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImporter.class);
+
+    static final int MAX_REPORTED_REJECTIONS = 100;
+    static final int DEFAULT_MAX_LINE_BYTES = 64 * 1024;
+    static final long DEFAULT_MAX_UPLOAD_BYTES = 1024L * 1024 * 1024;
+
+    private final ShopItemService shopItemService;
+    private final ShopItemRepository repository;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration lockLease;
+    private final int maxLineBytes;
+    private final long maxUploadBytes;
+    private final ExecutorService parsers;
+    private final ExecutorService runners;
+    // Imports this instance is running, the lock itself lives in the checkpoint
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Counter bytesRead;
+    private final Timer chunkTimer;
+
+    public CatalogImporter(ShopItemService shopItemService, ShopItemRepository repository,
+                           MeterRegistry meterRegistry, int chunkSize, int parallelism) {
+        this(shopItemService, repository, meterRegistry, chunkSize, parallelism, 60_000,
+                DEFAULT_MAX_LINE_BYTES, DEFAULT_MAX_UPLOAD_BYTES);
+    }
+
+    @Autowired
+    public CatalogImporter(
+            ShopItemService shopItemService,
+            ShopItemRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${shop.items.import.chunk-size:1000}") int chunkSize,
+            @Value("${shop.items.import.parallelism:0}") int parallelism,
+            @Value("${shop.items.import.lock-lease-ms:60000}") long lockLeaseMillis,
+            @Value("${shop.items.import.max-line-bytes:65536}") int maxLineBytes,
+            @Value("${shop.items.import.max-upload-bytes:1073741824}") long maxUploadBytes) {
+        this.shopItemService = shopItemService;
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.lockLease = Duration.ofMillis(lockLeaseMillis);
+        this.maxLineBytes = maxLineBytes;
+        this.maxUploadBytes = maxUploadBytes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.parsers = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread thread = new Thread(r, "catalog-import-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger runnerCount = new AtomicInteger();
+        this.runners = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "catalog-import-" + runnerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.importedRows = Counter.builder("shop.items.import.rows")
+                .description("Catalog import rows committed")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("shop.items.import.rows")
+                .description("Catalog import rows committed")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.bytesRead = Counter.builder("shop.items.import.bytes")
+                .description("Catalog import input committed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("shop.items.import.chunk")
+                .description("Latency of writing one import chunk and its checkpoint")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.import.active", running, Set::size)
+                .description("Catalog imports in progress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports a CSV stream. On resume the stream must be sent again from the start:
+     * rows committed by earlier runs are read but skipped.
+     */
+    public ImportReport importCsv(String importId, InputStream in) throws IOException {
+        ImportCheckpoint checkpoint = start(importId);
+        return whileLocked(checkpoint, () -> readCsv(checkpoint, in));
+    }
+
+    /**
+     * Imports a CSV file. On resume it seeks straight to the checkpoint's byte offset.
+     */
+    public ImportReport importFile(String importId, Path file) throws IOException {
+        ImportCheckpoint checkpoint = start(importId);
+        return whileLocked(checkpoint, () -> readFile(checkpoint, file));
+    }
+
+    /**
+     * Imports a CSV stream in the background, like importCsv. The stream is copied to a
+     * temporary file and the lock taken before returning, so a bad header or a held lock
+     * still fails the call; progress(importId) follows the run and the error it stopped on.
+     * An upload over the size limit is refused by its declared length (-1 if unknown)
+     * before anything is stored, otherwise once the copy passes the limit.
+     */
+    public void startCsvImport(String importId, InputStream in, long contentLength) throws IOException {
+        if (contentLength > maxUploadBytes) {
+            throw new ImportTooLargeException(maxUploadBytes);
+        }
+        Path file = Files.createTempFile("catalog-import-", ".csv");
+        try {
+            spool(in, file);
+            try (InputStream csv = Files.newInputStream(file)) {
+                Header.parse(new CsvLineReader(csv, 0, maxLineBytes).readLine());
+            }
+            ImportCheckpoint checkpoint = start(importId);
+            try {
+                runners.execute(() -> runInBackground(checkpoint, file));
+            } catch (RejectedExecutionException e) {
+                release(checkpoint, e);
+                running.remove(importId);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private void spool(InputStream in, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long copied = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxUploadBytes) {
+                    throw new ImportTooLargeException(maxUploadBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    public Optional<ImportCheckpoint> progress(String importId) {
+        return repository.findImportCheckpoint(importId);
+    }
+
+    private ImportCheckpoint start(String importId) {
+        Instant now = Instant.now();
+        ImportCheckpoint checkpoint = repository.lockImport(importId, UUID.randomUUID().toString(), now, now.plus(lockLease))
+                .orElseThrow(() -> new ImportConflictException(repository.findImportCheckpoint(importId)
+                        .filter(ImportCheckpoint::isCompleted).isPresent()
+                        ? "Import " + importId + " has already completed"
+                        : "Import " + importId + " is already running"));
+        running.add(importId);
+        return checkpoint;
+    }
+
+    private ImportReport whileLocked(ImportCheckpoint checkpoint, ImportRun run) throws IOException {
+        try {
+            return run.call();
+        } catch (IOException | RuntimeException e) {
+            release(checkpoint, e);
+            throw e;
+        } finally {
+            running.remove(checkpoint.getImportId());
+        }
+    }
+
+    // Hands the lock back early with the reason, rather than letting the lease run out
+    private void release(ImportCheckpoint checkpoint, Exception cause) {
+        checkpoint.setLockedUntil(null);
+        checkpoint.setError(cause instanceof IllegalArgumentException || cause instanceof IllegalStateException
+                || cause instanceof ImportConflictException
+                ? cause.getMessage()
+                : "Import failed, see the server log");
+        checkpoint.setUpdatedAt(Instant.now());
+        try {
+            repository.saveImportCheckpoint(checkpoint);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void runInBackground(ImportCheckpoint checkpoint, Path file) {
+        String importId = checkpoint.getImportId();
+        try (InputStream csv = Files.newInputStream(file)) {
+            ImportReport report = whileLocked(checkpoint, () -> readCsv(checkpoint, csv));
+            log.info("Import {} finished: {} rows imported, {} rejected, {} bytes in {} ms (resumed after row {})",
+                    importId, report.importedRows(), report.rejectedRows(), report.bytesRead(),
+                    report.durationMillis(), report.resumedFromRow());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Import {} failed", importId, e);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", file, e);
+            }
+        }
+    }
+
+    private ImportReport readCsv(ImportCheckpoint checkpoint, InputStream in) throws IOException {
+        CsvLineReader reader = new CsvLineReader(in, 0, maxLineBytes);
+        Header header = Header.parse(reader.readLine());
+        for (long row = 0; row < checkpoint.getCommittedRows(); row++) {
+            if (reader.readLine() == null) {
+                break;
+            }
+        }
+        if (checkpoint.getByteOffset() > 0 && reader.position() != checkpoint.getByteOffset()) {
+            throw new IllegalArgumentException("Input does not match the checkpoint of import " + checkpoint.getImportId()
+                    + ": expected row " + checkpoint.getCommittedRows() + " to end at byte " + checkpoint.getByteOffset());
+        }
+        return run(checkpoint, header, reader);
+    }
+
+    private ImportReport readFile(ImportCheckpoint checkpoint, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvLineReader headerReader = new CsvLineReader(Channels.newInputStream(channel), 0, maxLineBytes);
+            Header header = Header.parse(headerReader.readLine());
+            long offset = checkpoint.getByteOffset() > 0 ? checkpoint.getByteOffset() : headerReader.position();
+            channel.position(offset);
+            return run(checkpoint, header, new CsvLineReader(Channels.newInputStream(channel), offset, maxLineBytes));
+        }
+    }
+
+    private ImportReport run(ImportCheckpoint checkpoint, Header header, CsvLineReader reader) throws IOException {
+        long start = System.nanoTime();
+        long resumedFromRow = checkpoint.getCommittedRows();
+        long startOffset = reader.position();
+        RunTotals totals = new RunTotals();
+        // Parsed chunks waiting to be written, in file order
+        Deque<CompletableFuture<ParsedChunk>> pending = new ArrayDeque<>();
+
+        long nextRow = resumedFromRow + 1;
+        List<String> lines = new ArrayList<>(chunkSize);
+        boolean end = false;
+        while (!end) {
+            String line = reader.readLine();
+            if (line != null) {
+                lines.add(line);
+            } else {
+                end = true;
+            }
+            if (lines.size() == chunkSize || (end && !lines.isEmpty())) {
+                RawChunk raw = new RawChunk(nextRow, lines, reader.position());
+                nextRow += lines.size();
+                lines = new ArrayList<>(chunkSize);
+                pending.add(CompletableFuture.supplyAsync(
+                        () -> parse(checkpoint.getImportId(), header, raw), parsers));
+                // Bounds memory: reading pauses while the oldest chunk is written
+                if (pending.size() > parallelism) {
+                    commit(checkpoint, await(pending.poll()), totals);
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            commit(checkpoint, await(pending.poll()), totals);
+        }
+
+        checkpoint.setCompleted(true);
+        checkpoint.setLockedUntil(null);
+        save(checkpoint);
+        return new ImportReport(checkpoint.getImportId(), resumedFromRow, totals.imported, totals.rejected,
+                checkpoint.getByteOffset() - startOffset,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), totals.rejections);
+    }
+
+    private void commit(ImportCheckpoint checkpoint, ParsedChunk chunk, RunTotals totals) {
+        long start = System.nanoTime();
+        if (!chunk.items().isEmpty()) {
+            try {
+                shopItemService.insertItems(chunk.items());
+            } catch (DuplicateKeyException e) {
+                // Only after a resume: this chunk was written, its checkpoint was not
+                for (ShopItem item : chunk.items()) {
+                    try {
+                        shopItemService.insertItems(List.of(item));
+                    } catch (DuplicateKeyException alreadyImported) {
+                        // Written by the earlier run
+                    }
+                }
+            }
+        }
+        long bytes = chunk.endOffset() - checkpoint.getByteOffset();
+        checkpoint.setCommittedRows(checkpoint.getCommittedRows() + chunk.rows());
+        checkpoint.setImportedRows(checkpoint.getImportedRows() + chunk.items().size());
+        checkpoint.setRejectedRows(checkpoint.getRejectedRows() + chunk.rejections().size());
+        checkpoint.setByteOffset(chunk.endOffset());
+        checkpoint.setLockedUntil(Instant.now().plus(lockLease));
+        save(checkpoint);
+        chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        importedRows.increment(chunk.items().size());
+        rejectedRows.increment(chunk.rejections().size());
+        bytesRead.increment(bytes);
+        totals.imported += chunk.items().size();
+        totals.rejected += chunk.rejections().size();
+        for (ImportReport.Rejection rejection : chunk.rejections()) {
+            if (totals.rejections.size() < MAX_REPORTED_REJECTIONS) {
+                totals.rejections.add(rejection);
+            }
+        }
+    }
+
+    private void save(ImportCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(Instant.now());
+        if (!repository.saveImportCheckpoint(checkpoint)) {
+            throw new ImportConflictException("Import " + checkpoint.getImportId() + " was taken over by another run");
+        }
+    }
+
+    private static ParsedChunk parse(String importId, Header header, RawChunk raw) {
+        MessageDigest digest = sha256();
+        List<ShopItem> items = new ArrayList<>(raw.lines().size());
+        List<ImportReport.Rejection> rejections = new ArrayList<>();
+        for (int i = 0; i < raw.lines().size(); i++) {
+            String line = raw.lines().get(i);
+            long row = raw.firstRow() + i;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ShopItem item = header.toItem(splitCsv(line));
+                ShopItemServiceImpl.validateItem(item);
+                item.setId(itemId(digest, importId, row));
+                items.add(item);
+            } catch (IllegalArgumentException e) {
+                rejections.add(new ImportReport.Rejection(row, e.getMessage()));
+            }
+        }
+        return new ParsedChunk(items, rejections, raw.lines().size(), raw.endOffset());
+    }
+
+    // 24 hex digits, so the id is stored as an ObjectId like generated ones
+    static String itemId(MessageDigest digest, String importId, long row) {
+        digest.reset();
+        byte[] hash = digest.digest((importId + ':' + row).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 12);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Splits one CSV line; fields may be quoted, with "" for a literal quote.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static ParsedChunk await(CompletableFuture<ParsedChunk> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runners.shutdownNow();
+        parsers.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface ImportRun {
+        ImportReport call() throws IOException;
+    }
+
+    private record RawChunk(long firstRow, List<String> lines, long endOffset) {
+    }
+
+    private record ParsedChunk(List<ShopItem> items, List<ImportReport.Rejection> rejections,
+                               int rows, long endOffset) {
+    }
+
+    private static final class RunTotals {
+        long imported;
+        long rejected;
+        final List<ImportReport.Rejection> rejections = new ArrayList<>();
+    }
+
+    /**
+     * Column positions taken from the header row.
+     */
+    record Header(int columns, int name, int description, int price, int quantity) {
+
+        static Header parse(String line) {
+            if (line == null) {
+                throw new IllegalArgumentException("CSV input is empty, expected a header row");
+            }
+            List<String> names = splitCsv(line);
+            int name = -1;
+            int description = -1;
+            int price = -1;
+            int quantity = -1;
+            for (int i = 0; i < names.size(); i++) {
+                switch (names.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "name" -> name = i;
+                    case "description" -> description = i;
+                    case "price" -> price = i;
+                    case "quantity" -> quantity = i;
+                    default -> {
+                        // Extra supplier columns are ignored
+                    }
+                }
+            }
+            if (name < 0 || price < 0 || quantity < 0) {
+                throw new IllegalArgumentException("CSV header must name the columns name, price and quantity, got: " + line);
+            }
+            return new Header(names.size(), name, description, price, quantity);
+        }
+
+        ShopItem toItem(List<String> fields) {
+            if (fields.size() != columns) {
+                throw new IllegalArgumentException("Expected " + columns + " fields, got " + fields.size());
+            }
+            String text = description >= 0 ? fields.get(description) : null;
+            return new ShopItem(
+                    fields.get(name).trim(),
+                    text == null || text.isEmpty() ? null : text,
+                    parseDecimal(fields.get(price)),
+                    parseQuantity(fields.get(quantity)));
+        }
+
+        private static BigDecimal parseDecimal(String value) {
+            try {
+                return new BigDecimal(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Price is not a number: " + value);
+            }
+        }
+
+        private static int parseQuantity(String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Quantity is not an integer: " + value);
+            }
+        }
+    }
+}
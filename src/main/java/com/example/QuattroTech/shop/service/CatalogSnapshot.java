@@ -0,0 +1,366 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CatalogSnapshotFile;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Serves point reads and the full item list from a memory-mapped snapshot of shop_items,
+ * so a restarted instance answers without first reading the whole collection from Mongo.
+ *
+ * The snapshot file holds the change stream resume token it is consistent with.
+ * At startup the file is mapped and reads are served straight away; a follower thread
+ * then resumes the change stream from that token and applies events to an overlay
+ * of changed and deleted items. Every interval, and on shutdown, the follower writes
+ * the merged view as a new snapshot and drops the overlay entries it contains.
+ * Without a usable snapshot, or once the token has fallen off the oplog, the follower
+ * rebuilds the snapshot from a full scan; reads go to Mongo until that is done.
+ *
+ * Writes made through this instance are applied to the overlay right away.
+ * Change events arrive in commit order, so each one replaces the state the stream
+ * left before it. Sequences are allocated before commit and can commit out of order,
+ * so they are only compared against local writes: a change event replaces a local
+ * write once the stream has reached that write's sequence.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.snapshot", name = "enabled", havingValue = "true")
+public class CatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    // ChangeStreamHistoryLost, ChangeStreamFatalError: the resume token can no longer be used
+    static final Set<Integer> TOKEN_LOST_CODES = Set.of(286, 280);
+
+    private final ShopItemRepository repository;
+    private final Path path;
+    private final long intervalNanos;
+    private final long retryDelayMillis;
+
+    private final Timer writeTimer;
+    private final Timer rebuildTimer;
+    private final Counter changesApplied;
+
+    private final Map<String, Entry> overlay = new ConcurrentHashMap<>();
+    private volatile CatalogSnapshotFile base;
+    private volatile boolean serving;
+    private volatile boolean stopped;
+    // Only touched by the follower thread
+    private BsonDocument resumeToken;
+    private long lastWriteNanos = System.nanoTime();
+    private Thread follower;
+
+    public CatalogSnapshot(
+            ShopItemRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${shop.items.snapshot.path:data/catalog.snapshot}") String path,
+            @Value("${shop.items.snapshot.interval-ms:600000}") long intervalMillis,
+            @Value("${shop.items.snapshot.retry-delay-ms:5000}") long retryDelayMillis) {
+        this.repository = repository;
+        this.path = Path.of(path);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.retryDelayMillis = retryDelayMillis;
+
+        this.writeTimer = Timer.builder("shop.items.snapshot.write")
+                .description("Time to write the merged catalog snapshot to disk")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("shop.items.snapshot.rebuild")
+                .description("Time to rebuild the catalog snapshot from a full scan")
+                .register(meterRegistry);
+        this.changesApplied = Counter.builder("shop.items.snapshot.changes")
+                .description("Change stream events applied to the catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.snapshot.items", this, s -> s.base != null ? s.base.size() : 0)
+                .description("Items in the mapped snapshot file")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.snapshot.overlay", overlay, Map::size)
+                .description("Items changed or deleted since the snapshot was written")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.snapshot.serving", this, s -> s.serving ? 1 : 0)
+                .description("1 while reads are served from the snapshot")
+                .register(meterRegistry);
+
+        Timer loadTimer = Timer.builder("shop.items.snapshot.load")
+                .description("Time to map the catalog snapshot at startup")
+                .register(meterRegistry);
+        loadTimer.record(this::load);
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            log.info("No catalog snapshot at {}, it is built once the application is ready", path);
+            return;
+        }
+        try {
+            base = CatalogSnapshotFile.map(path);
+            resumeToken = base.resumeToken();
+            serving = true;
+            log.info("Mapped catalog snapshot {} with {} items written at {}", path, base.size(), base.writtenAt());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}, it is rebuilt", path, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        follower = new Thread(this::follow, "catalog-snapshot");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        if (follower != null) {
+            // The follower notices within one change stream await, then writes a final snapshot
+            follower.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public boolean isServing() {
+        return serving;
+    }
+
+    public Optional<ShopItem> find(String id) {
+        Entry entry = overlay.get(id);
+        if (entry != null) {
+            return Optional.ofNullable(entry.item()).map(CatalogSnapshot::copy);
+        }
+        CatalogSnapshotFile snapshot = base;
+        return snapshot != null ? snapshot.find(id) : Optional.empty();
+    }
+
+    public List<ShopItem> findAll() {
+        List<ShopItem> items = new ArrayList<>();
+        merged(base, new HashMap<>(overlay)).forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Same items as findAll, decoded from the mapping while the stream is consumed.
+     */
+    public Stream<ShopItem> streamAll() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                merged(base, new HashMap<>(overlay)), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Applies an item written through this instance.
+     */
+    public void put(ShopItem item) {
+        applyLocal(item.getId(), new Entry(copy(item), item.getLastModified(), true));
+    }
+
+    /**
+     * Applies a deletion made through this instance, sequence being its tombstone's.
+     */
+    public void remove(String id, long sequence) {
+        applyLocal(id, new Entry(null, sequence, true));
+    }
+
+    /**
+     * Applies a quantity delta written through this instance with the given change sequence.
+     * The delta goes on top of the current view of the item; a newer entry is kept as is,
+     * the change stream brings the item's committed state either way.
+     */
+    public void adjustQuantity(String id, int delta, long sequence) {
+        overlay.compute(id, (key, current) -> {
+            if (current != null && current.version() > sequence) {
+                return current;
+            }
+            ShopItem item = current != null
+                    ? Optional.ofNullable(current.item()).map(CatalogSnapshot::copy).orElse(null)
+                    : Optional.ofNullable(base).flatMap(snapshot -> snapshot.find(key)).orElse(null);
+            if (item == null) {
+                // Deleted or never seen: the increment matched nothing to apply it to
+                return current;
+            }
+            item.setQuantity(item.getQuantity() + delta);
+            item.setLastModified(sequence);
+            return new Entry(item, sequence, true);
+        });
+    }
+
+    private void applyLocal(String id, Entry entry) {
+        overlay.merge(id, entry, (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    private void applyFromStream(String id, Entry entry) {
+        overlay.merge(id, entry, (current, next) ->
+                !current.local() || next.version() >= current.version() ? next : current);
+    }
+
+    void follow() {
+        while (!stopped) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> changes = repository.watchItems(resumeToken)) {
+                if (resumeToken == null) {
+                    // The stream is open before the scan starts, so no change falls in between
+                    rebuild(changes.getResumeToken());
+                }
+                serving = true;
+                while (!stopped) {
+                    ChangeStreamDocument<ShopItem> event = changes.tryNext();
+                    if (event != null && !applyEvent(event)) {
+                        resumeToken = null;
+                        break;
+                    }
+                    if (changes.getResumeToken() != null) {
+                        resumeToken = changes.getResumeToken();
+                    }
+                    if (System.nanoTime() - lastWriteNanos >= intervalNanos) {
+                        writeSnapshot();
+                    }
+                }
+            } catch (MongoException e) {
+                // Without the stream the snapshot only gets staler, reads go to Mongo until it is back
+                serving = false;
+                if (TOKEN_LOST_CODES.contains(e.getCode())) {
+                    log.warn("Catalog snapshot fell behind the oplog, rebuilding it from a full scan");
+                    resumeToken = null;
+                } else {
+                    log.warn("Catalog change stream failed, retrying in {} ms", retryDelayMillis, e);
+                    pause();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Catalog snapshot update failed, retrying in {} ms", retryDelayMillis, e);
+                pause();
+            }
+        }
+        if (resumeToken != null && !overlay.isEmpty()) {
+            try {
+                writeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write the catalog snapshot on shutdown", e);
+            }
+        }
+    }
+
+    /**
+     * @return false if the event ends the stream (collection dropped or renamed)
+     */
+    boolean applyEvent(ChangeStreamDocument<ShopItem> event) {
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                ShopItem item = event.getFullDocument();
+                if (item != null) {
+                    applyFromStream(item.getId(), new Entry(item, item.getLastModified(), false));
+                } else {
+                    // Deleted before the update lookup ran; its delete event follows
+                    deleteFromStream(documentId(event));
+                }
+            }
+            case DELETE -> deleteFromStream(documentId(event));
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+        changesApplied.increment();
+        return true;
+    }
+
+    // A deleted item is gone whatever was written before, local writes included
+    private void deleteFromStream(String id) {
+        overlay.compute(id, (key, current) -> new Entry(null, current != null ? current.version() : 0, false));
+    }
+
+    private static String documentId(ChangeStreamDocument<ShopItem> event) {
+        BsonValue id = event.getDocumentKey().get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    void rebuild(@Nullable BsonDocument token) throws IOException {
+        serving = false;
+        long start = System.nanoTime();
+        int count;
+        try (Stream<ShopItem> items = repository.streamAll()) {
+            count = CatalogSnapshotFile.write(path, token, items.iterator());
+        }
+        base = CatalogSnapshotFile.map(path);
+        overlay.clear();
+        resumeToken = token;
+        lastWriteNanos = System.nanoTime();
+        rebuildTimer.record(lastWriteNanos - start, TimeUnit.NANOSECONDS);
+        log.info("Rebuilt catalog snapshot {} with {} items", path, count);
+    }
+
+    void writeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        Map<String, Entry> written = new HashMap<>(overlay);
+        CatalogSnapshotFile.write(path, resumeToken, merged(base, written));
+        base = CatalogSnapshotFile.map(path);
+        // Entries replaced while the file was written stay, they are newer than the file
+        written.forEach(overlay::remove);
+        lastWriteNanos = System.nanoTime();
+        writeTimer.record(lastWriteNanos - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Snapshot items not in the overlay, then copies of the overlay's live items
+    private static Iterator<ShopItem> merged(@Nullable CatalogSnapshotFile snapshot, Map<String, Entry> changes) {
+        Stream<ShopItem> unchanged = snapshot == null ? Stream.empty()
+                : StreamSupport.stream(Spliterators.spliterator(snapshot.iterator(), snapshot.size(), Spliterator.ORDERED), false)
+                        .filter(item -> !changes.containsKey(item.getId()));
+        Stream<ShopItem> changed = changes.values().stream()
+                .map(Entry::item)
+                .filter(Objects::nonNull)
+                .map(CatalogSnapshot::copy);
+        return Stream.concat(unchanged, changed).iterator();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
+    private static ShopItem copy(ShopItem item) {
+        ShopItem copy = new ShopItem(item.getId(), item.getName(), item.getDescription(),
+                item.getPrice(), item.getQuantity());
+        copy.setLastModified(item.getLastModified());
+        return copy;
+    }
+
+    // local: written through this instance and not yet seen on the change stream
+    private record Entry(@Nullable ShopItem item, long version, boolean local) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.QuattroTech.shop.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads UTF-8 lines from a stream while tracking the byte position,
+ * so an import checkpoint can point exactly past its last committed row.
+ * Accepts LF and CRLF line ends; a UTF-8 byte order mark is skipped.
+ * A line longer than the maximum fails the read instead of being buffered whole.
+ */
+class CsvLineReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private int position;
+    private int limit;
+    private long bytesRead;
+    private boolean atStart;
+
+    CsvLineReader(InputStream in, long startOffset, int maxLineBytes) {
+        this.in = in;
+        this.maxLineBytes = maxLineBytes;
+        this.bytesRead = startOffset;
+        this.atStart = startOffset == 0;
+    }
+
+    /**
+     * Next line without its line end, or null at the end of the stream.
+     * Throws IllegalArgumentException when the line, line end included, exceeds the maximum.
+     */
+    String readLine() throws IOException {
+        line.reset();
+        long lineStart = bytesRead;
+        boolean sawAny = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                return sawAny ? decode() : null;
+            }
+            sawAny = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (line.size() + position - start + (position < limit ? 1 : 0) > maxLineBytes) {
+                throw new IllegalArgumentException("Line at byte " + lineStart + " is longer than " + maxLineBytes + " bytes");
+            }
+            line.write(buffer, start, position - start);
+            if (position < limit) {
+                position++;
+                bytesRead += position - start;
+                return decode();
+            }
+            bytesRead += position - start;
+        }
+    }
+
+    /**
+     * Bytes consumed up to the end of the last returned line, including the start offset.
+     */
+    long position() {
+        return bytesRead;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private String decode() {
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        int offset = 0;
+        if (atStart && length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
+            offset = 3;
+        }
+        atStart = false;
+        return new String(bytes, offset, length - offset, StandardCharsets.UTF_8);
+    }
+}
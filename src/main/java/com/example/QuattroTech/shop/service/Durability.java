@@ -0,0 +1,21 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Durability tier of a service write operation.
+ * Every Mongo write the method issues on its calling thread uses the tier's write concern.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Durability {
+
+    DurabilityTier value();
+}
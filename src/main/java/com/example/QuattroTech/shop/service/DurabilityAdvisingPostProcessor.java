@@ -0,0 +1,42 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Proxies beans with @Durability methods so each such call runs
+ * in its tier on the TieredWriteConcernResolver.
+ * The resolver is looked up on first use, so registering this post-processor
+ * does not initialize it early.
+ */
+public class DurabilityAdvisingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public DurabilityAdvisingPostProcessor(ObjectProvider<TieredWriteConcernResolver> resolver) {
+        MethodInterceptor interceptor = invocation -> {
+            Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), invocation.getThis().getClass());
+            Durability durability = AnnotatedElementUtils.findMergedAnnotation(method, Durability.class);
+            if (durability == null) {
+                return invocation.proceed();
+            }
+            return resolver.getObject().run(durability.value(), () -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        };
+        this.advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Durability.class), interceptor);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.QuattroTech.shop.service;
+
+/**
+ * Thrown when an import cannot run because of another run: its lock is held,
+ * it was taken over mid-run, or it has already completed.
+ */
+public class ImportConflictException extends RuntimeException {
+
+    public ImportConflictException(String message) {
+        super(message);
+    }
+}
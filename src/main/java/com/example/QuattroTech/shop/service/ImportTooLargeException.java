@@ -0,0 +1,12 @@
+package com.example.QuattroTech.shop.service;
+
+/**
+ * Thrown when a catalog upload exceeds shop.items.import.max-upload-bytes.
+ * Still bad input, so an import stopped by it records the message like other rejected input.
+ */
+public class ImportTooLargeException extends IllegalArgumentException {
+
+    public ImportTooLargeException(long maxBytes) {
+        super("Catalog upload is larger than " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit for single-item inserts.
+ * Callers enqueue their item and block; one writer thread drains the queue
+ * into insertMany batches, closing a batch when it reaches the current batch
+ * size or the linger time since its first item has elapsed.
+ * The batch size adapts to the measured batch latency: it halves when a batch
+ * is slower than the target and grows by one after a full batch that was not.
+ * Ids are assigned before the batch is sent, so a failed batch can be retried
+ * item by item without inserting anything twice.
+ * A caller waits at most max-wait for its batch; an insert still queued by then
+ * is taken back, one already sent may still be written after the caller gave up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.group-commit", name = "enabled", havingValue = "true")
+public class InsertGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(InsertGroupCommitter.class);
+
+    private final ShopItemRepository repository;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long targetLatencyNanos;
+    private final long maxWaitMillis;
+
+    private final BlockingQueue<PendingInsert> queue;
+    private final AtomicInteger batchSize;
+    private final LongAdder overflows = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizes;
+
+    public InsertGroupCommitter(
+            ShopItemRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${shop.items.group-commit.max-batch-size:256}") int maxBatchSize,
+            @Value("${shop.items.group-commit.linger-us:500}") long lingerMicros,
+            @Value("${shop.items.group-commit.target-latency-ms:10}") long targetLatencyMillis,
+            @Value("${shop.items.group-commit.queue-capacity:4096}") int queueCapacity,
+            @Value("${shop.items.group-commit.max-wait-ms:10000}") long maxWaitMillis) {
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.maxWaitMillis = maxWaitMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = new AtomicInteger(Math.min(16, maxBatchSize));
+
+        Gauge.builder("shop.items.group_commit.queued", queue, BlockingQueue::size)
+                .description("Inserts waiting for the next batch")
+                .register(meterRegistry);
+        Gauge.builder("shop.items.group_commit.batch_limit", batchSize, AtomicInteger::get)
+                .description("Current adaptive batch size")
+                .register(meterRegistry);
+        FunctionCounter.builder("shop.items.group_commit.overflow", overflows, LongAdder::sum)
+                .description("Inserts written directly because the queue was full")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shop.items.group_commit.batch")
+                .description("Latency of insertMany batches")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("shop.items.group_commit.batch_size")
+                .description("Items per insertMany batch")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::drainLoop, "insert-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Inserts the item as part of the next batch and returns it with its id.
+     * When the queue is full the caller inserts it on its own instead of waiting.
+     */
+    public ShopItem insert(ShopItem item) {
+        item.setId(new ObjectId().toHexString());
+        PendingInsert pending = new PendingInsert(item, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            overflows.increment();
+            return insertAlone(item);
+        }
+        try {
+            return pending.result().get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Group insert failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw giveUp(pending, "Group insert did not finish within " + maxWaitMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw giveUp(pending, "Interrupted while waiting for the group insert");
+        }
+    }
+
+    // Only an insert the writer has not taken yet is known not to be written
+    private QueryTimeoutException giveUp(PendingInsert pending, String reason) {
+        if (queue.remove(pending)) {
+            return new QueryTimeoutException(reason + ", nothing was written");
+        }
+        return new QueryTimeoutException(reason + ", item " + pending.item().getId() + " may still be written");
+    }
+
+    public int batchLimit() {
+        return batchSize.get();
+    }
+
+    private void drainLoop() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    // Shutdown: stop lingering, the rest of the queue is still written
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+            }
+        } finally {
+            // Nothing completes these once the writer is gone, e.g. after an Error
+            running = false;
+            fail(batch, "Group commit writer stopped, the insert may not have been written");
+            failQueued();
+        }
+    }
+
+    // Adds items until the batch is full or the linger time since the first one has passed
+    private void collect(List<PendingInsert> batch) throws InterruptedException {
+        int limit = batchSize.get();
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < limit) {
+            queue.drainTo(batch, limit - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= limit || remaining <= 0) {
+                return;
+            }
+            PendingInsert next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingInsert> batch) {
+        List<ShopItem> items = new ArrayList<>(batch.size());
+        for (PendingInsert pending : batch) {
+            items.add(pending.item());
+        }
+        long start = System.nanoTime();
+        try {
+            repository.writeInSequence(sequence -> {
+                items.forEach(item -> item.setLastModified(sequence));
+                return repository.insert(items);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group insert of {} items failed, retrying them one by one", items.size(), e);
+            batchSize.set(1);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        batchTimer.record(latency, TimeUnit.NANOSECONDS);
+        batchSizes.record(items.size());
+        adapt(items.size(), latency);
+        batch.forEach(pending -> pending.result().complete(pending.item()));
+    }
+
+    private void adapt(int committed, long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            batchSize.updateAndGet(size -> Math.max(1, size / 2));
+        } else if (committed >= batchSize.get()) {
+            batchSize.updateAndGet(size -> Math.min(maxBatchSize, size + 1));
+        }
+    }
+
+    private void commitAlone(PendingInsert pending) {
+        try {
+            try {
+                insertAlone(pending.item());
+            } catch (DuplicateKeyException e) {
+                // The failed batch got as far as this item, its id is ours
+            }
+            pending.result().complete(pending.item());
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private ShopItem insertAlone(ShopItem item) {
+        return repository.writeInSequence(sequence -> {
+            item.setLastModified(sequence);
+            return repository.insert(item);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+
+    private void failQueued() {
+        List<PendingInsert> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        fail(queued, "Group commit stopped before the insert was written");
+    }
+
+    private static void fail(List<PendingInsert> inserts, String reason) {
+        IllegalStateException failure = new IllegalStateException(reason);
+        inserts.forEach(pending -> pending.result().completeExceptionally(failure));
+    }
+
+    private record PendingInsert(ShopItem item, CompletableFuture<ShopItem> result) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.QuattroTech.shop.service;
+
+/**
+ * Thrown when a quantity delta is refused because it would take the stock
+ * below zero or past the largest quantity an item can hold.
+ */
+public class QuantityOutOfRangeException extends RuntimeException {
+
+    public QuantityOutOfRangeException(String id, int delta) {
+        super("Adjusting item " + id + " by " + delta + " would take its quantity out of range");
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for quantity deltas.
+ * Deltas for the same item are merged in memory and flushed
+ * as batched $inc bulk writes when the buffer reaches the batch size
+ * or the flush interval elapses, whichever comes first.
+ * Flushes are stock updates, so they run in the STRICT durability tier. That tier only
+ * covers the flush: a buffered delta is acknowledged to its caller before it is written.
+ * A delta whose write keeps failing is dropped after maxRetries flushes, so it cannot
+ * hold its slot forever; failures that leave the database unreachable do not count.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.write-behind", name = "enabled", havingValue = "true")
+public class QuantityWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantityWriteBehindBuffer.class);
+
+    static final int DEFAULT_MAX_RETRIES = 5;
+
+    private final ShopItemRepository repository;
+    private final int batchSize;
+    private final int maxPendingItems;
+    private final int maxRetries;
+    // Null when shop.items.durability.enabled=false
+    private final TieredWriteConcernResolver writeConcernResolver;
+
+    // Per-bin locking inside ConcurrentHashMap keeps writers to different items apart
+    private final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+    // Failed writes per buffered item, only touched by flush
+    private final Map<String, Integer> retries = new HashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private volatile FlushListener flushListener = (deltas, sequence) -> { };
+
+    private final Timer flushTimer;
+    private final Counter flushedDeltas;
+    private final Counter refusedDeltas;
+    private final Counter droppedDeltas;
+
+    public QuantityWriteBehindBuffer(ShopItemRepository repository, MeterRegistry meterRegistry,
+                                     int batchSize, int maxPendingItems, long flushIntervalMillis) {
+        this(repository, meterRegistry, batchSize, maxPendingItems, flushIntervalMillis, DEFAULT_MAX_RETRIES, null);
+    }
+
+    @Autowired
+    public QuantityWriteBehindBuffer(
+            ShopItemRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${shop.items.write-behind.batch-size:500}") int batchSize,
+            @Value("${shop.items.write-behind.max-pending-items:10000}") int maxPendingItems,
+            @Value("${shop.items.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${shop.items.write-behind.max-retries:5}") int maxRetries,
+            @Nullable TieredWriteConcernResolver writeConcernResolver) {
+        this.repository = repository;
+        this.writeConcernResolver = writeConcernResolver;
+        this.batchSize = batchSize;
+        this.maxPendingItems = maxPendingItems;
+        this.maxRetries = maxRetries;
+
+        Gauge.builder("shop.items.write_behind.pending", pending, Map::size)
+                .description("Items with buffered quantity deltas")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("shop.items.write_behind.flush")
+                .description("Latency of write-behind bulk flushes")
+                .register(meterRegistry);
+        this.flushedDeltas = Counter.builder("shop.items.write_behind.flushed")
+                .description("Item updates written by write-behind flushes")
+                .register(meterRegistry);
+        this.refusedDeltas = Counter.builder("shop.items.write_behind.refused")
+                .description("Buffered deltas dropped because they would take a quantity out of range")
+                .register(meterRegistry);
+        this.droppedDeltas = Counter.builder("shop.items.write_behind.dropped")
+                .description("Buffered deltas dropped after failing maxRetries flushes")
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "quantity-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers a quantity delta for an item.
+     * When the buffer already holds the maximum number of items, a delta for another item
+     * is refused with WriteBehindFullException and a flush is requested; the caller never
+     * flushes itself, so its latency stays bounded while the database is slow.
+     * A delta whose sum with the buffered one overflows is refused; one that takes the stock
+     * out of range is only found at flush time, and is then dropped and logged.
+     */
+    public void add(String id, int delta) {
+        if (pending.size() >= maxPendingItems && !pending.containsKey(id)) {
+            requestFlush();
+            throw new WriteBehindFullException(maxPendingItems);
+        }
+        try {
+            pending.merge(id, delta, Math::addExact);
+        } catch (ArithmeticException e) {
+            throw new QuantityOutOfRangeException(id, delta);
+        }
+        if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Called after every successful bulk write, e.g. to invalidate cached views.
+     */
+    public void setFlushListener(FlushListener flushListener) {
+        this.flushListener = flushListener;
+    }
+
+    public int pendingItems() {
+        return pending.size();
+    }
+
+    /**
+     * Drains the buffer into bulk writes of at most batchSize items.
+     * Deltas whose update failed are merged back, up to maxRetries times. A batch whose
+     * commit outcome is unknown, e.g. after a write concern timeout, is counted as
+     * applied instead, since merging it back could apply it twice.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        Map<String, Integer> batch = new HashMap<>();
+        for (String id : pending.keySet()) {
+            Integer delta = pending.remove(id);
+            if (delta != null && delta != 0) {
+                batch.put(id, delta);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new HashMap<>();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(Map<String, Integer> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long[] sequence = new long[1];
+        QuantityUpdates updates;
+        try {
+            updates = flushTimer.record(() -> writeConcernResolver != null
+                    ? writeConcernResolver.run(DurabilityTier.STRICT, () -> increment(batch, sequence))
+                    : increment(batch, sequence));
+        } catch (RuntimeException e) {
+            if (!mayHaveCommitted(e)) {
+                boolean unavailable = isUnavailable(e);
+                if (batch.size() > 1 && !unavailable) {
+                    // In a transaction one bad delta fails the whole batch; writing them alone isolates it
+                    log.warn("Write-behind update of {} items failed, writing them one at a time", batch.size(), e);
+                    writeOneByOne(batch);
+                    return;
+                }
+                batch.forEach((id, delta) -> retry(id, delta, !unavailable));
+                throw e;
+            }
+            log.error("Write-behind commit of {} items has an unknown outcome, counting it as applied",
+                    batch.size(), e);
+            updates = QuantityUpdates.applied();
+        }
+        Map<String, Integer> applied = batch;
+        if (!updates.allApplied()) {
+            applied = new HashMap<>(batch);
+            applied.keySet().removeAll(updates.failed());
+            applied.keySet().removeAll(updates.refused());
+        }
+        if (!updates.failed().isEmpty()) {
+            // The rest of the bulk write was applied, so only these are written again
+            log.warn("Write-behind update of {} of {} items failed, they remain buffered",
+                    updates.failed().size(), batch.size());
+            updates.failed().forEach(id -> retry(id, batch.get(id), true));
+        }
+        if (!updates.refused().isEmpty()) {
+            // Retrying would be refused again, since the delta was acknowledged long before
+            log.warn("Write-behind dropped deltas of items {}, they would take the quantity out of range",
+                    updates.refused());
+            refusedDeltas.increment(updates.refused().size());
+        }
+        retries.keySet().removeAll(applied.keySet());
+        retries.keySet().removeAll(updates.refused());
+        flushedDeltas.increment(applied.size());
+        flushListener.flushed(applied, sequence[0]);
+    }
+
+    private void writeOneByOne(Map<String, Integer> batch) {
+        Iterator<Map.Entry<String, Integer>> entries = batch.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Integer> entry = entries.next();
+            try {
+                write(Map.of(entry.getKey(), entry.getValue()));
+            } catch (RuntimeException e) {
+                if (isUnavailable(e)) {
+                    entries.forEachRemaining(rest -> retry(rest.getKey(), rest.getValue(), false));
+                    throw e;
+                }
+                log.warn("Write-behind update of item {} failed, it remains buffered", entry.getKey(), e);
+            }
+        }
+    }
+
+    private QuantityUpdates increment(Map<String, Integer> batch, long[] sequence) {
+        return repository.writeInSequence(allocated -> {
+            sequence[0] = allocated;
+            return repository.incrementQuantities(batch, allocated);
+        });
+    }
+
+    private void retry(String id, int delta, boolean countFailure) {
+        if (countFailure && retries.merge(id, 1, Integer::sum) > maxRetries) {
+            retries.remove(id);
+            log.error("Write-behind dropped a delta of {} for item {} after {} failed flushes", delta, id, maxRetries);
+            droppedDeltas.increment();
+            return;
+        }
+        try {
+            pending.merge(id, delta, Math::addExact);
+        } catch (ArithmeticException e) {
+            log.error("Write-behind dropped a delta of {} for item {}, its sum with newer deltas overflows", delta, id);
+            refusedDeltas.increment();
+        }
+    }
+
+    // Nothing about the deltas themselves, so such failures are retried without limit
+    private static boolean isUnavailable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayHaveCommitted(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush failed, {} items remain buffered", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush on shutdown failed, {} items were not written", pending.size(), e);
+        }
+    }
+
+    /**
+     * Notified of the deltas a bulk write applied and the change sequence it stamped them with.
+     */
+    @FunctionalInterface
+    public interface FlushListener {
+
+        void flushed(Map<String, Integer> deltas, long sequence);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.QuattroTech.shop.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The three workloads of ShopItemService, each with its own bulkhead:
+ * list (getAllItems, search, low-stock and their streams), point reads (by id) and writes.
+ * The sum of the concurrency limits should stay below the Mongo pool's maxPoolSize,
+ * so a storm in one workload cannot take the connections of the others.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shop.items.bulkhead", name = "enabled", havingValue = "true")
+public class ShopItemBulkheads implements MeterBinder {
+
+    private final Bulkhead list;
+    private final Bulkhead pointRead;
+    private final Bulkhead write;
+
+    public ShopItemBulkheads(
+            @Value("${shop.items.bulkhead.list.max-concurrent:20}") int listConcurrent,
+            @Value("${shop.items.bulkhead.list.max-queued:20}") int listQueued,
+            @Value("${shop.items.bulkhead.list.max-wait-ms:1000}") long listWaitMillis,
+            @Value("${shop.items.bulkhead.point-read.max-concurrent:50}") int pointReadConcurrent,
+            @Value("${shop.items.bulkhead.point-read.max-queued:200}") int pointReadQueued,
+            @Value("${shop.items.bulkhead.point-read.max-wait-ms:200}") long pointReadWaitMillis,
+            @Value("${shop.items.bulkhead.write.max-concurrent:20}") int writeConcurrent,
+            @Value("${shop.items.bulkhead.write.max-queued:50}") int writeQueued,
+            @Value("${shop.items.bulkhead.write.max-wait-ms:1000}") long writeWaitMillis) {
+        this.list = new Bulkhead("list", listConcurrent, listQueued, listWaitMillis);
+        this.pointRead = new Bulkhead("point-read", pointReadConcurrent, pointReadQueued, pointReadWaitMillis);
+        this.write = new Bulkhead("write", writeConcurrent, writeQueued, writeWaitMillis);
+    }
+
+    public Bulkhead list() {
+        return list;
+    }
+
+    public Bulkhead pointRead() {
+        return pointRead;
+    }
+
+    public Bulkhead write() {
+        return write;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Bulkhead bulkhead : List.of(list, pointRead, write)) {
+            Gauge.builder("shop.items.bulkhead.max_concurrent", bulkhead, Bulkhead::maxConcurrent)
+                    .tag("bulkhead", bulkhead.name())
+                    .register(registry);
+            Gauge.builder("shop.items.bulkhead.active", bulkhead, Bulkhead::active)
+                    .description("Calls currently running in the bulkhead")
+                    .tag("bulkhead", bulkhead.name())
+                    .register(registry);
+            Gauge.builder("shop.items.bulkhead.queued", bulkhead, Bulkhead::queued)
+                    .description("Calls waiting for a bulkhead slot")
+                    .tag("bulkhead", bulkhead.name())
+                    .register(registry);
+            FunctionCounter.builder("shop.items.bulkhead.rejected", bulkhead, Bulkhead::rejectedCount)
+                    .description("Calls rejected because the bulkhead and its queue were full")
+                    .tag("bulkhead", bulkhead.name())
+                    .register(registry);
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.example.QuattroTech.shop.service;
 
 import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemBatch;
+import com.example.QuattroTech.shop.model.ShopItemDelta;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ShopItemService {
     List<ShopItem> getAllItems();
     Optional<ShopItem> getItemById(String id);
+    ShopItemBatch getItemsByIds(List<String> ids);
     ShopItem insertNewItem(ShopItem item);
+    // One ordered insertMany; ids already set are kept, so re-sending a batch fails instead of duplicating it
+    List<ShopItem> insertItems(List<ShopItem> items);
     ShopItem updateItem(String id, ShopItem item);
     void deleteItem(String id);
     List<ShopItem> searchByName(String namePart);
     List<ShopItem> findLowStockItems(Integer threshold);
+    // Rejects, with IllegalArgumentException, queries no allowlisted index covers
+    List<ShopItem> queryItems(ShopItemQuery query);
+    // Cursor-backed streams for large results; callers must close them
+    Stream<ShopItem> streamAllItems();
+    Stream<ShopItem> streamByName(String namePart);
+    Stream<ShopItem> streamLowStockItems(Integer threshold);
+    ShopItemDelta getChangesSince(long token);
+    void adjustQuantity(String id, int delta);
+    // Local counter bumped after every write, used to key rendered-view caches
+    long getCatalogVersion();
 }
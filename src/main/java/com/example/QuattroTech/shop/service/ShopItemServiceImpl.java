@@ -1,71 +1,345 @@
 package com.example.QuattroTech.shop.service;
 
+import com.example.QuattroTech.shop.model.QuantityUpdates;
 import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemBatch;
+import com.example.QuattroTech.shop.model.ShopItemDelta;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+import com.example.QuattroTech.shop.repository.ShopItemQueryPlan;
 import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.data.domain.Range;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
-public class ShopItemServiceImpl implements ShopItemService {
+public class ShopItemServiceImpl implements ShopItemService, MeterBinder {
     
     private final ShopItemRepository repository;
+    // Null unless shop.items.write-behind.enabled=true
+    private final QuantityWriteBehindBuffer quantityBuffer;
+    // Null unless shop.items.bulkhead.enabled=true; calls then run unbounded
+    private final ShopItemBulkheads bulkheads;
+    // Null unless shop.items.group-commit.enabled=true
+    private final InsertGroupCommitter insertCommitter;
+    // Null unless shop.items.snapshot.enabled=true; point and full-list reads are then served from it
+    private final CatalogSnapshot catalogSnapshot;
+    // Null unless shop.items.read-routing.enabled=true
+    private final CausalReadContext causalReads;
+    // Null when shop.items.durability.enabled=false
+    private final TieredWriteConcernResolver writeConcernResolver;
 
-    public ShopItemServiceImpl(ShopItemRepository repository) {
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    // Concurrent identical reads share one in-flight Mongo query, unless the caller reads its own write
+    private final SingleFlight<String, Optional<ShopItem>> byIdFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<ShopItem>> searchFlights = new SingleFlight<>();
+    private final SingleFlight<Integer, List<ShopItem>> lowStockFlights = new SingleFlight<>();
+
+    // Every collaborator but the repository is optional: Spring passes null for features that are switched off
+    public ShopItemServiceImpl(ShopItemRepository repository,
+                               @Nullable QuantityWriteBehindBuffer quantityBuffer,
+                               @Nullable ShopItemBulkheads bulkheads,
+                               @Nullable InsertGroupCommitter insertCommitter,
+                               @Nullable CatalogSnapshot catalogSnapshot,
+                               @Nullable CausalReadContext causalReads,
+                               @Nullable TieredWriteConcernResolver writeConcernResolver) {
         this.repository = repository;
+        this.quantityBuffer = quantityBuffer;
+        this.bulkheads = bulkheads;
+        this.insertCommitter = insertCommitter;
+        this.catalogSnapshot = catalogSnapshot;
+        this.causalReads = causalReads;
+        this.writeConcernResolver = writeConcernResolver;
+        if (quantityBuffer != null) {
+            quantityBuffer.setFlushListener(this::quantitiesFlushed);
+        }
     }
 
     @Override
     public List<ShopItem> getAllItems() {
-        return repository.findAll();
+        if (servesFromSnapshot()) {
+            return catalogSnapshot.findAll();
+        }
+        return list(repository::findAll);
     }
 
     @Override
     public Optional<ShopItem> getItemById(String id) {
-        return repository.findById(id);
+        if (servesFromSnapshot()) {
+            return catalogSnapshot.find(id);
+        }
+        return shared(byIdFlights, id, () -> pointRead(() -> repository.findById(id)));
+    }
+
+    @Override
+    public ShopItemBatch getItemsByIds(List<String> ids) {
+        // One $in query for all distinct ids, results re-ordered to match the request
+        LinkedHashSet<String> distinctIds = new LinkedHashSet<>(ids);
+        Map<String, ShopItem> found = new HashMap<>();
+        if (servesFromSnapshot()) {
+            distinctIds.forEach(id -> catalogSnapshot.find(id).ifPresent(item -> found.put(id, item)));
+        } else {
+            for (ShopItem item : pointRead(() -> repository.findAllById(distinctIds))) {
+                found.put(item.getId(), item);
+            }
+        }
+
+        List<ShopItem> items = new ArrayList<>(found.size());
+        List<String> notFound = new ArrayList<>();
+        for (String id : distinctIds) {
+            ShopItem item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new ShopItemBatch(items, notFound);
     }
 
     @Override
+    @Durability(DurabilityTier.STANDARD)
     public ShopItem insertNewItem(ShopItem item) {
         // Force ID to null to ensure new insert
         item.setId(null);
         // Validate before saving
         validateItem(item);
-        return repository.save(item);
+        ShopItem saved;
+        if (insertCommitter != null) {
+            // Not bulkheaded: the committer's single writer and bounded queue already cap its Mongo usage
+            saved = insertCommitter.insert(item);
+            repository.recordCausalWrite();
+        } else {
+            saved = write(() -> repository.writeInSequence(sequence -> {
+                item.setLastModified(sequence);
+                return repository.save(item);
+            }));
+        }
+        if (catalogSnapshot != null) {
+            catalogSnapshot.put(saved);
+        }
+        catalogVersion.incrementAndGet();
+        return saved;
     }
 
     @Override
+    @Durability(DurabilityTier.FAST)
+    public List<ShopItem> insertItems(List<ShopItem> items) {
+        items.forEach(ShopItemServiceImpl::validateItem);
+        List<ShopItem> saved = write(() -> repository.writeInSequence(sequence -> {
+            items.forEach(item -> item.setLastModified(sequence));
+            return repository.insert(items);
+        }));
+        if (catalogSnapshot != null) {
+            saved.forEach(catalogSnapshot::put);
+        }
+        catalogVersion.incrementAndGet();
+        return saved;
+    }
+
+    @Override
+    @Durability(DurabilityTier.STANDARD)
     public ShopItem updateItem(String id, ShopItem item) {
         // Force ID from parameter to ensure correct update
         item.setId(id);
         // Validate before saving
         validateItem(item);
-        return repository.save(item);
+        ShopItem saved = write(() -> repository.writeInSequence(sequence -> {
+            item.setLastModified(sequence);
+            return repository.save(item);
+        }));
+        if (catalogSnapshot != null) {
+            catalogSnapshot.put(saved);
+        }
+        catalogVersion.incrementAndGet();
+        return saved;
     }
 
     @Override
+    @Durability(DurabilityTier.STANDARD)
     public void deleteItem(String id) {
-        repository.deleteById(id);
+        long sequence = write(() -> repository.writeInSequence(tombstone -> {
+            repository.deleteById(id);
+            repository.recordDeletion(id, tombstone);
+            return tombstone;
+        }));
+        if (catalogSnapshot != null) {
+            catalogSnapshot.remove(id, sequence);
+        }
+        catalogVersion.incrementAndGet();
     }
 
     @Override
     public List<ShopItem> searchByName(String namePart) {
-        return repository.findByNameContainingIgnoreCase(namePart);
+        return shared(searchFlights, namePart, () -> list(() -> repository.findByNameContainingIgnoreCase(namePart)));
     }
 
     @Override
     public List<ShopItem> findLowStockItems(Integer threshold) {
-        return repository.findItemsWithLowStock(threshold);
+        return shared(lowStockFlights, threshold, () -> list(() -> repository.findItemsWithLowStock(threshold)));
+    }
+
+    @Override
+    public List<ShopItem> queryItems(ShopItemQuery query) {
+        // Planned before taking a bulkhead permit, so rejected queries never wait for one
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(query);
+        return list(() -> repository.query(plan));
+    }
+
+    @Override
+    public Stream<ShopItem> streamAllItems() {
+        if (servesFromSnapshot()) {
+            return catalogSnapshot.streamAll();
+        }
+        return listStream(repository::streamAll);
+    }
+
+    @Override
+    public Stream<ShopItem> streamByName(String namePart) {
+        return listStream(() -> repository.streamByNameContainingIgnoreCase(namePart));
+    }
+
+    @Override
+    public Stream<ShopItem> streamLowStockItems(Integer threshold) {
+        return listStream(() -> repository.streamItemsWithLowStock(threshold));
+    }
+
+    @Override
+    public ShopItemDelta getChangesSince(long token) {
+        // Read first: every change up to it is visible, so it is safe to hand out as the next token
+        long upTo = repository.currentChangeSequence();
+        if (token == 0) {
+            // Full sync, which also returns items saved before writes stamped a change sequence
+            return new ShopItemDelta(list(repository::findAll), List.of(), upTo);
+        }
+        List<ShopItem> changed = list(() ->
+                repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(token, upTo)));
+        List<ShopItemTombstone> tombstones = list(() -> repository.findDeletionsSince(token, upTo));
+
+        List<String> deleted = new ArrayList<>(tombstones.size());
+        for (ShopItemTombstone tombstone : tombstones) {
+            deleted.add(tombstone.getItemId());
+        }
+        return new ShopItemDelta(changed, deleted, Math.max(token, upTo));
+    }
+
+    // No @Durability: with write-behind the call returns before anything is written, so a tier
+    // here would not cover the delta; the buffer flushes in the STRICT tier on its own.
+    // The direct increment is a stock update too and runs in STRICT itself.
+    @Override
+    public void adjustQuantity(String id, int delta) {
+        if (quantityBuffer != null) {
+            quantityBuffer.add(id, delta);
+            return;
+        }
+        long sequence = writeConcernResolver != null
+                ? writeConcernResolver.run(DurabilityTier.STRICT, () -> incrementQuantity(id, delta))
+                : incrementQuantity(id, delta);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.adjustQuantity(id, delta, sequence);
+        }
+        catalogVersion.incrementAndGet();
+    }
+
+    private long incrementQuantity(String id, int delta) {
+        return write(() -> repository.writeInSequence(sequence -> {
+            QuantityUpdates updates = repository.incrementQuantities(Map.of(id, delta), sequence);
+            if (!updates.refused().isEmpty()) {
+                throw new QuantityOutOfRangeException(id, delta);
+            }
+            if (!updates.failed().isEmpty()) {
+                throw new IllegalStateException("Quantity of item " + id + " could not be updated");
+            }
+            return sequence;
+        }));
+    }
+
+    private void quantitiesFlushed(Map<String, Integer> deltas, long sequence) {
+        if (catalogSnapshot != null) {
+            deltas.forEach((id, delta) -> catalogSnapshot.adjustQuantity(id, delta, sequence));
+        }
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindSingleFlight(registry, "getItemById", byIdFlights);
+        bindSingleFlight(registry, "searchByName", searchFlights);
+        bindSingleFlight(registry, "findLowStockItems", lowStockFlights);
+    }
+
+    private static void bindSingleFlight(MeterRegistry registry, String operation, SingleFlight<?, ?> flights) {
+        FunctionCounter.builder("shop.items.singleflight.executed", flights, SingleFlight::executedCount)
+                .description("Reads that ran their own Mongo query")
+                .tag("operation", operation)
+                .register(registry);
+        FunctionCounter.builder("shop.items.singleflight.collapsed", flights, SingleFlight::collapsedCount)
+                .description("Reads that shared the result of an in-flight query")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    // A flight started before the caller's write may not observe it, so such callers read alone
+    private <K, V> V shared(SingleFlight<K, V> flights, K key, Supplier<V> call) {
+        return readsOwnWrite() ? call.get() : flights.execute(key, call);
+    }
+
+    private boolean readsOwnWrite() {
+        return causalReads != null && causalReads.current() != null;
+    }
+
+    // Searches and low-stock queries stay on Mongo, where they have indexes.
+    // A caller with a causal token reads Mongo too: the snapshot may lag its write.
+    private boolean servesFromSnapshot() {
+        return catalogSnapshot != null && catalogSnapshot.isServing() && !readsOwnWrite();
+    }
+
+    private <T> T list(Supplier<T> call) {
+        return bulkheads != null ? bulkheads.list().execute(call) : call.get();
+    }
+
+    private Stream<ShopItem> listStream(Supplier<Stream<ShopItem>> open) {
+        return bulkheads != null ? bulkheads.list().stream(open) : open.get();
+    }
+
+    private <T> T pointRead(Supplier<T> call) {
+        return bulkheads != null ? bulkheads.pointRead().execute(call) : call.get();
+    }
+
+    private <T> T write(Supplier<T> call) {
+        T result = bulkheads != null ? bulkheads.write().execute(call) : call.get();
+        repository.recordCausalWrite();
+        return result;
     }
 
-    // Private validation method (keep from QuattroTech)
-    private void validateItem(ShopItem item) {
+    // Shared with CatalogImporter, which rejects rows by the same rules
+    static void validateItem(ShopItem item) {
         if (item.getName() == null || item.getName().isBlank()) {
             throw new IllegalArgumentException("Name must not be blank");
         }
-        if (item.getPrice() == null || item.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+        if (item.getPrice() == null || item.getPrice().signum() < 0) {
             throw new IllegalArgumentException("Price must be >= 0");
         }
         if (item.getQuantity() < 0) {
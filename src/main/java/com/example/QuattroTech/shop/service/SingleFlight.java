@@ -0,0 +1,66 @@
+package com.example.QuattroTech.shop.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution.
+ * The first caller runs the loader; callers arriving while it is
+ * in flight wait for and share its result (or its exception).
+ * Nothing is cached once the call completes.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        if (key == null) {
+            executed.increment();
+            return loader.get();
+        }
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            collapsed.increment();
+            return await(leader);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    public long collapsedCount() {
+        return collapsed.sum();
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            // The loader is a Supplier, so the cause is unchecked
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+}
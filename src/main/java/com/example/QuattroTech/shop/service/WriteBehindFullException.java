@@ -0,0 +1,12 @@
+package com.example.QuattroTech.shop.service;
+
+/**
+ * Thrown when the write-behind buffer already holds its maximum number of items
+ * and the delta is for an item not buffered yet.
+ */
+public class WriteBehindFullException extends RuntimeException {
+
+    public WriteBehindFullException(int maxPendingItems) {
+        super("Write-behind buffer is full: " + maxPendingItems + " items are waiting to be flushed");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.QuattroTech.shop;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.InMemoryShopItemRepository;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the real application with the 'inmemory' profile: no Mongo beans,
+ * and the service works end to end against InMemoryShopItemRepository.
+ */
+class InMemoryProfileTest {
+
+    @Test
+    void inMemoryProfile_servesCatalogWithoutMongo() {
+        // Given
+        SpringApplication application = QuattroTechApplication.application();
+        application.setAdditionalProfiles(InMemoryShopItemRepository.PROFILE);
+
+        try (ConfigurableApplicationContext context = application.run("--server.port=0")) {
+            ShopItemService service = context.getBean(ShopItemService.class);
+
+            // When
+            ShopItem saved = service.insertNewItem(
+                    new ShopItem(null, "Keyboard", "Mechanical", new BigDecimal("49.90"), 3));
+            service.adjustQuantity(saved.getId(), 2);
+
+            // Then
+            assertThat(context.getBean(ShopItemRepository.class)).isInstanceOf(InMemoryShopItemRepository.class);
+            assertThat(context.getBeanNamesForType(MongoTemplate.class)).isEmpty();
+            assertThat(service.getItemById(saved.getId())).get()
+                    .extracting(ShopItem::getQuantity).isEqualTo(5);
+            assertThat(service.searchByName("key")).extracting(ShopItem::getId).containsExactly(saved.getId());
+        }
+    }
+}
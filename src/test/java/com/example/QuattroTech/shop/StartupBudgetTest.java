@@ -0,0 +1,49 @@
+package com.example.QuattroTech.shop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.actuate.startup.StartupEndpoint;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the real application with the 'lazy' profile and no reachable Mongo.
+ * The default budget is the ~11 s a cold surefire fork measured on a slow CI runner plus
+ * a few seconds of headroom; it can be tuned per machine with -Dstartup.budget.ms.
+ */
+class StartupBudgetTest {
+
+    private static final long BUDGET_MILLIS = Long.getLong("startup.budget.ms", 15_000);
+
+    @Test
+    void lazyProfile_startsWithinBudgetWithoutWaitingForMongo() {
+        // Given
+        SpringApplication application = QuattroTechApplication.application();
+        application.setAdditionalProfiles("lazy");
+
+        // When
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.docker.compose.enabled=false",
+                "--spring.data.mongodb.uri=mongodb://localhost:1/quattrotech?serverSelectionTimeoutMS=200",
+                "--shop.items.deferred-init.retry-delay-ms=60000")) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then
+            assertThat(elapsedMillis).as("startup time in ms").isLessThan(BUDGET_MILLIS);
+            assertThat(context.getApplicationStartup()).isInstanceOf(BufferingApplicationStartup.class);
+            assertThat(context.getBean(StartupEndpoint.class).startupSnapshot().getTimeline().getEvents())
+                    .isNotEmpty();
+            // Mongo is unreachable, so the readiness probe must not report UP
+            assertThat(context.getBean(HealthEndpoint.class).healthForPath("readiness").getStatus())
+                    .isNotEqualTo(Status.UP);
+        }
+    }
+}
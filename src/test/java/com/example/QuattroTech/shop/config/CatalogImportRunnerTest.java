@@ -0,0 +1,51 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.model.ImportReport;
+import com.example.QuattroTech.shop.service.CatalogImporter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for CatalogImportRunner
+ */
+class CatalogImportRunnerTest {
+
+    private final CatalogImporter catalogImporter = Mockito.mock(CatalogImporter.class);
+
+    @Test
+    void run_importsConfiguredFileUnderConfiguredId() throws Exception {
+        // Given
+        given(catalogImporter.importFile(anyString(), any())).willReturn(new ImportReport(
+                "supplier-1", 0, 1, 1, 10, 1, List.of(new ImportReport.Rejection(2, "Name must not be blank"))));
+        CatalogImportRunner runner = new CatalogImportRunner(catalogImporter, "/data/catalog.csv", "supplier-1");
+
+        // When
+        runner.run(new DefaultApplicationArguments());
+
+        // Then
+        verify(catalogImporter).importFile("supplier-1", Path.of("/data/catalog.csv"));
+    }
+
+    @Test
+    void run_withoutId_usesFileName() throws Exception {
+        // Given
+        given(catalogImporter.importFile(anyString(), any()))
+                .willReturn(new ImportReport("catalog.csv", 0, 0, 0, 0, 0, List.of()));
+        CatalogImportRunner runner = new CatalogImportRunner(catalogImporter, "/data/catalog.csv", "");
+
+        // When
+        runner.run(new DefaultApplicationArguments());
+
+        // Then
+        verify(catalogImporter).importFile("catalog.csv", Path.of("/data/catalog.csv"));
+    }
+}
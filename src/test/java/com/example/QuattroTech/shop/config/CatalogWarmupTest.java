@@ -0,0 +1,153 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.ExpectedCount.manyTimes;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for CatalogWarmup
+ * Synthetic requests go to a MockRestServiceServer instead of a running server
+ */
+class CatalogWarmupTest {
+
+    private static final ShopItemQuery HOT_ITEMS =
+            new ShopItemQuery(null, null, null, null, null, ShopItemQuery.SortField.QUANTITY, true, 2);
+
+    private ShopItemService shopItemService;
+    private RestClient.Builder restClientBuilder;
+    private MockRestServiceServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        shopItemService = Mockito.mock(ShopItemService.class);
+        restClientBuilder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(restClientBuilder).ignoreExpectOrder(true).build();
+        meterRegistry = new SimpleMeterRegistry();
+        environment = new MockEnvironment().withProperty("local.server.port", "9999");
+        given(shopItemService.queryItems(HOT_ITEMS)).willReturn(List.of(
+                new ShopItem("a", "Laptop", "Gaming", new BigDecimal("10.00"), 3),
+                new ShopItem("b", "Mouse", "Wireless", new BigDecimal("5.00"), 2)));
+    }
+
+    private CatalogWarmup warmup(int stableRounds, long settleThresholdMillis, boolean deferred) {
+        return new CatalogWarmup(shopItemService, restClientBuilder, environment, meterRegistry,
+                2, 20, 10_000, settleThresholdMillis, stableRounds, deferred);
+    }
+
+    @Test
+    void warmUp_preloadsHotItemsAndSendsSyntheticRequests() {
+        // Given - 20 requests per round: 2 bounded list requests, 2 rendered pages, 18 point reads
+        server.expect(times(2), requestTo("http://localhost:9999/api/items/query?sort=quantity,desc&limit=2"))
+                .andRespond(withSuccess());
+        server.expect(times(2), requestTo("http://localhost:9999/items/a")).andRespond(withSuccess());
+        server.expect(times(8), requestTo("http://localhost:9999/api/items/a")).andRespond(withSuccess());
+        server.expect(times(10), requestTo("http://localhost:9999/api/items/b")).andRespond(withSuccess());
+        CatalogWarmup warmup = warmup(1, Long.MAX_VALUE, false);
+
+        // When
+        warmup.warmUp();
+
+        // Then - only the bounded query's items are preloaded, the full catalog is never read
+        server.verify();
+        verify(shopItemService).getItemById("a");
+        verify(shopItemService).getItemById("b");
+        verify(shopItemService, never()).getAllItems();
+        assertThat(warmup.lastRequestCount()).isEqualTo(22);
+        assertThat(meterRegistry.get("shop.items.warmup.requests").gauge().value()).isEqualTo(22);
+        assertThat(meterRegistry.get("shop.items.warmup.duration").timeGauge().value(TimeUnit.NANOSECONDS))
+                .isPositive();
+    }
+
+    @Test
+    void warmUp_untilCompilationSettles_runsSeveralRounds() {
+        // Given
+        server.expect(manyTimes(), requestTo(startsWith("http://localhost:9999/")))
+                .andRespond(withSuccess());
+        CatalogWarmup warmup = warmup(3, Long.MAX_VALUE, false);
+
+        // When
+        warmup.warmUp();
+
+        // Then
+        assertThat(warmup.lastRequestCount()).isEqualTo(3 * 22);
+    }
+
+    @Test
+    void warmUp_errorResponses_areIgnored() {
+        // Given
+        server.expect(manyTimes(), requestTo(startsWith("http://localhost:9999/")))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        CatalogWarmup warmup = warmup(1, Long.MAX_VALUE, false);
+
+        // When
+        warmup.warmUp();
+
+        // Then
+        assertThat(warmup.lastRequestCount()).isEqualTo(22);
+    }
+
+    @Test
+    void warmUp_serviceFails_finishesWithoutThrowing() {
+        // Given
+        given(shopItemService.queryItems(HOT_ITEMS)).willThrow(new IllegalStateException("mongo down"));
+        CatalogWarmup warmup = warmup(1, Long.MAX_VALUE, false);
+
+        // When
+        long millis = warmup.warmUp();
+
+        // Then
+        assertThat(millis).isEqualTo(warmup.lastDurationMillis());
+        assertThat(warmup.lastRequestCount()).isZero();
+    }
+
+    @Test
+    void run_deferredInit_leavesWarmupToInitializer() {
+        // Given
+        CatalogWarmup warmup = warmup(1, Long.MAX_VALUE, true);
+
+        // When
+        warmup.run(null);
+
+        // Then
+        verifyNoInteractions(shopItemService);
+    }
+
+    @Test
+    void run_notDeferred_warmsUpBeforeReadiness() {
+        // Given
+        server.expect(manyTimes(), requestTo(startsWith("http://localhost:9999/")))
+                .andRespond(withSuccess());
+        CatalogWarmup warmup = warmup(1, Long.MAX_VALUE, false);
+
+        // When
+        warmup.run(null);
+
+        // Then
+        verify(shopItemService).queryItems(HOT_ITEMS);
+        assertThat(warmup.lastRequestCount()).isEqualTo(22);
+    }
+}
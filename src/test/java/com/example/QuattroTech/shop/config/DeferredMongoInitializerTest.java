@@ -0,0 +1,138 @@
+package com.example.QuattroTech.shop.config;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DeferredMongoInitializer
+ */
+class DeferredMongoInitializerTest {
+
+    private MongoTemplate mongoTemplate;
+    private IndexOperations indexOps;
+    private ApplicationContext applicationContext;
+    private ObjectProvider<CatalogWarmup> warmup;
+    private DeferredMongoInitializer initializer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(ShopItem.class, ShopItemTombstone.class, Object.class));
+        mappingContext.afterPropertiesSet();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        indexOps = mock(IndexOperations.class);
+        given(mongoTemplate.getConverter())
+                .willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        given(mongoTemplate.indexOps(any(Class.class))).willReturn(indexOps);
+
+        applicationContext = mock(ApplicationContext.class);
+        given(applicationContext.getBeansWithAnnotation(any())).willReturn(Map.of("controller", new Object()));
+
+        ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+        given(provider.getObject()).willReturn(mongoTemplate);
+        warmup = mock(ObjectProvider.class);
+        initializer = new DeferredMongoInitializer(applicationContext, provider, warmup, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        initializer.shutdown();
+    }
+
+    @Test
+    void health_beforeInitialization_isOutOfService() {
+        assertThat(initializer.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void initialize_pingsAndEnsuresDeclaredIndexes() {
+        // When
+        initializer.initialize();
+
+        // Then - name, quantity and lastModified on ShopItem, sequence on ShopItemTombstone
+        verify(mongoTemplate).executeCommand(new Document("ping", 1));
+        verify(indexOps, times(4)).ensureIndex(any(IndexDefinition.class));
+        verify(applicationContext).getBeansWithAnnotation(any());
+        assertThat(initializer.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(initializer.health().getDetails()).containsEntry("indexes", 4).containsEntry("controllers", 1);
+    }
+
+    @Test
+    void initialize_warmupEnabled_runsWarmupBeforeReportingUp() {
+        // Given
+        CatalogWarmup catalogWarmup = mock(CatalogWarmup.class);
+        given(catalogWarmup.warmUp()).willReturn(42L);
+        given(warmup.getIfAvailable()).willReturn(catalogWarmup);
+
+        // When
+        initializer.initialize();
+
+        // Then
+        verify(catalogWarmup).warmUp();
+        assertThat(initializer.health().getDetails()).containsEntry("warmupMs", 42L);
+    }
+
+    @Test
+    void onApplicationReady_mongoUnavailable_staysOutOfServiceAndRetries() throws Exception {
+        // Given
+        given(mongoTemplate.executeCommand(any(Document.class)))
+                .willThrow(new IllegalStateException("no server"))
+                .willReturn(new Document("ok", 1));
+
+        // When
+        initializer.onApplicationReady();
+
+        // Then
+        verify(mongoTemplate, timeout(2000).times(2)).executeCommand(any(Document.class));
+        awaitStatus(Status.UP);
+        verify(indexOps, times(4)).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void initialize_failure_reportsError() {
+        // Given
+        given(mongoTemplate.executeCommand(any(Document.class))).willThrow(new IllegalStateException("no server"));
+        initializer.shutdown();
+
+        // When
+        initializer.initialize();
+
+        // Then
+        assertThat(initializer.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(initializer.health().getDetails().get("error").toString()).contains("no server");
+    }
+
+    private void awaitStatus(Status status) throws InterruptedException {
+        for (int i = 0; i < 200 && !status.equals(initializer.health().getStatus()); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(initializer.health().getStatus()).isEqualTo(status);
+    }
+}
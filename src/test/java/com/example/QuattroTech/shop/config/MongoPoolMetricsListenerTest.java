@@ -0,0 +1,100 @@
+package com.example.QuattroTech.shop.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for MongoPoolMetricsListener
+ */
+class MongoPoolMetricsListenerTest {
+
+    private final ServerId serverId = new ServerId(new ClusterId(), new ServerAddress("db1", 27017));
+    private SimpleMeterRegistry registry;
+    private MongoPoolMetricsListener listener;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        listener = new MongoPoolMetricsListener(registry);
+        listener.connectionPoolCreated(new ConnectionPoolCreatedEvent(serverId, ConnectionPoolSettings.builder().build()));
+    }
+
+    @Test
+    void checkoutLifecycle_updatesGaugesAndSuccessTimer() {
+        // Given
+        ConnectionId connectionId = new ConnectionId(serverId);
+        listener.connectionCreated(new ConnectionCreatedEvent(connectionId));
+        listener.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId, 1));
+        listener.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId, 2));
+
+        // When
+        listener.connectionCheckedOut(new ConnectionCheckedOutEvent(connectionId, 1, TimeUnit.MILLISECONDS.toNanos(3)));
+
+        // Then
+        assertThat(gauge("shop.items.mongo.pool.size")).isEqualTo(1);
+        assertThat(gauge("shop.items.mongo.pool.checked_out")).isEqualTo(1);
+        assertThat(gauge("shop.items.mongo.pool.wait_queue")).isEqualTo(1);
+        assertThat(registry.get("shop.items.mongo.pool.checkout").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+
+        // When
+        listener.connectionCheckedIn(new ConnectionCheckedInEvent(connectionId, 1));
+        listener.connectionClosed(new ConnectionClosedEvent(connectionId, ConnectionClosedEvent.Reason.IDLE));
+
+        // Then
+        assertThat(gauge("shop.items.mongo.pool.checked_out")).isZero();
+        assertThat(gauge("shop.items.mongo.pool.size")).isZero();
+    }
+
+    @Test
+    void checkoutTimeout_recordsFailureByReason() {
+        // Given
+        listener.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId, 1));
+
+        // When
+        listener.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(serverId, 1,
+                ConnectionCheckOutFailedEvent.Reason.TIMEOUT, TimeUnit.MILLISECONDS.toNanos(500)));
+
+        // Then
+        assertThat(gauge("shop.items.mongo.pool.wait_queue")).isZero();
+        assertThat(registry.get("shop.items.mongo.pool.checkout.failed").tag("reason", "timeout").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("shop.items.mongo.pool.checkout").tag("outcome", "timeout").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(500);
+    }
+
+    @Test
+    void poolClosed_removesItsMeters() {
+        // Given
+        listener.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(serverId, 1,
+                ConnectionCheckOutFailedEvent.Reason.TIMEOUT, 0));
+
+        // When
+        listener.connectionPoolClosed(new ConnectionPoolClosedEvent(serverId));
+
+        // Then
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).tag("server", "db1:27017").gauge().value();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.QuattroTech.shop.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final String ROUTE = "ShopItemRestController#getItemById";
+
+    // Simulated System.nanoTime; sequential requests start when the previous one ended
+    private long now;
+
+    @Test
+    void tryAcquire_overLimit_rejectsWithoutBlocking() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.5);
+
+        // When
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+        assertThat(limiter.rejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void release_fastRequestsWithLimitInUse_increaseLimitByOne() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.5);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        // When
+        release(limiter, FAST, false);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(3);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void release_limitMostlyIdle_keepsLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 2.0, 0.5);
+        limiter.tryAcquire();
+
+        // When
+        release(limiter, FAST, false);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void release_slowerThanToleratedBaseline_backsOff() {
+        // Given - baseline established by a fast request
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 2.0, 0.5);
+        limiter.tryAcquire();
+        release(limiter, FAST, false);
+        limiter.tryAcquire();
+
+        // When
+        release(limiter, SLOW, false);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void release_failedRequest_backsOffDownToMinimum() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 3, 10, 2.0, 0.5);
+
+        // When
+        limiter.tryAcquire();
+        release(limiter, FAST, true);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void release_manyFastRequests_capsAtMaximum() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 3, 2.0, 0.5);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            release(limiter, FAST, false);
+        }
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void release_sustainedSlowness_baselineDriftsUpAndLimitRecovers() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2, 2.0, 0.5);
+        limiter.tryAcquire();
+        release(limiter, FAST, false);
+
+        // When - the slow latency becomes the new normal
+        for (int i = 0; i < 2 * AdaptiveConcurrencyLimiter.BASELINE_DRIFT; i++) {
+            limiter.tryAcquire();
+            release(limiter, SLOW, false);
+        }
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void release_slowRouteWithOwnBaseline_doesNotBackOff() {
+        // Given - point reads are fast, streams are slow but steady
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 2.0, 0.5);
+        limiter.tryAcquire();
+        release(limiter, FAST, false);
+        limiter.tryAcquire();
+        limiter.release("ShopItemRestController#streamAll", now, now + SLOW, false);
+
+        // When
+        limiter.tryAcquire();
+        limiter.release("ShopItemRestController#streamAll", now, now + SLOW, false);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(8);
+    }
+
+    @Test
+    void release_slowRequestsOfOneRoundTrip_backOffOnce() {
+        // Given - three requests admitted together
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 2.0, 0.5);
+        limiter.tryAcquire();
+        release(limiter, FAST, false);
+        long start = now;
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        // When
+        limiter.release(ROUTE, start, start + SLOW, false);
+        limiter.release(ROUTE, start, start + SLOW + 1, false);
+
+        // Then - the second started before the first decrease
+        assertThat(limiter.limit()).isEqualTo(4);
+
+        // When - a request admitted after the decrease is slow too
+        limiter.release(ROUTE, start + SLOW + 2, start + 2 * SLOW + 2, true);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void constructor_invalidLimits_throws() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(5, 6, 10, 2.0, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(5, 0, 10, 2.0, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(11, 1, 10, 2.0, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tryAcquire_concurrentCallers_neverExceedLimit() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 5, 5, 2.0, 0.5);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger maxSeen = new AtomicInteger();
+
+        // When
+        for (int t = 0; t < 16; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire()) {
+                        maxSeen.accumulateAndGet(limiter.inFlight(), Math::max);
+                        limiter.release(ROUTE, 0, FAST, false);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        // Then
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxSeen.get()).isLessThanOrEqualTo(5);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    private void release(AdaptiveConcurrencyLimiter limiter, long latencyNanos, boolean failed) {
+        long start = now;
+        now += latencyNanos;
+        limiter.release(ROUTE, start, now, failed);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.QuattroTech.shop.controller;
+
+import com.example.QuattroTech.shop.controller.rest.CatalogImportController;
+import com.example.QuattroTech.shop.controller.rest.ShopItemQueryController;
+import com.example.QuattroTech.shop.controller.rest.ShopItemRestController;
+import com.example.QuattroTech.shop.controller.web.HomeController;
+import com.example.QuattroTech.shop.controller.web.ShopItemWebController;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.service.CatalogImporter;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.ui.Model;
+import org.springframework.web.method.HandlerMethod;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for ConcurrencyLimitInterceptor
+ */
+class ConcurrencyLimitInterceptorTest {
+
+    private ShopItemService shopItemService;
+    private CatalogImporter catalogImporter;
+    private ConcurrencyLimitInterceptor interceptor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        shopItemService = Mockito.mock(ShopItemService.class);
+        catalogImporter = Mockito.mock(CatalogImporter.class);
+        interceptor = new ConcurrencyLimitInterceptor(1, 1, 4, 2.0, 0.5, 3);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ShopItemRestController(shopItemService), new ShopItemWebController(shopItemService),
+                        new ShopItemQueryController(shopItemService), new CatalogImportController(catalogImporter))
+                .addInterceptors(interceptor)
+                .build();
+    }
+
+    @Test
+    void request_underLimit_passesAndReleasesSlot() throws Exception {
+        // Given
+        given(shopItemService.getItemById("1"))
+                .willReturn(Optional.of(new ShopItem("1", "Laptop", "Gaming", new BigDecimal("10.00"), 1)));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/1")).andExpect(status().isOk());
+        assertThat(interceptor.limiter("api.read").inFlight()).isZero();
+    }
+
+    @Test
+    void request_groupAtLimit_gets503WithRetryAfter() throws Exception {
+        // Given - the only api.read slot is taken
+        interceptor.limiter("api.read").tryAcquire();
+
+        // When & Then
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+        assertThat(interceptor.limiter("api.read").rejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void request_otherGroupsHaveTheirOwnLimit() throws Exception {
+        // Given
+        interceptor.limiter("api.read").tryAcquire();
+
+        // When & Then - writes and web pages are not affected by saturated API reads
+        mockMvc.perform(delete("/api/items/1")).andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/items/new")).andExpect(status().isOk());
+        assertThat(interceptor.limiter("api.write").inFlight()).isZero();
+        assertThat(interceptor.limiter("web.read").inFlight()).isZero();
+    }
+
+    @Test
+    void request_queryAndImportEndpoints_areLimitedInTheApiGroups() throws Exception {
+        // Given
+        interceptor.limiter("api.read").tryAcquire();
+        interceptor.limiter("api.write").tryAcquire();
+
+        // When & Then
+        mockMvc.perform(get("/api/items/query").param("name", "Lap"))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/api/items/import/daily")).andExpect(status().isServiceUnavailable());
+        mockMvc.perform(post("/api/items/import").contentType("text/csv").content("name,price,quantity\n"))
+                .andExpect(status().isServiceUnavailable());
+        assertThat(interceptor.limiter("api.read").rejectedCount()).isEqualTo(2);
+        assertThat(interceptor.limiter("api.write").rejectedCount()).isEqualTo(1);
+        verifyNoInteractions(shopItemService, catalogImporter);
+    }
+
+    @Test
+    void afterCompletion_serverError_countsAsFailure() throws Exception {
+        // Given
+        ConcurrencyLimitInterceptor limited = new ConcurrencyLimitInterceptor(4, 1, 4, 2.0, 0.5, 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = new HandlerMethod(new ShopItemWebController(shopItemService), "newItemForm",
+                Model.class);
+
+        // When
+        assertThat(limited.preHandle(request, response, handler)).isTrue();
+        response.setStatus(500);
+        limited.afterCompletion(request, response, handler, null);
+
+        // Then
+        assertThat(limited.limiter("web.read").limit()).isEqualTo(2);
+        assertThat(limited.limiter("web.read").inFlight()).isZero();
+    }
+
+    @Test
+    void preHandle_unguardedHandler_isNotLimited() throws Exception {
+        // Given
+        HandlerMethod handler = new HandlerMethod(new HomeController(), "home");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Then
+        assertThat(proceed).isTrue();
+        assertThat(interceptor.preHandle(request, response, new Object())).isTrue();
+        assertThat(interceptor.limiter("web.read").inFlight()).isZero();
+    }
+
+    @Test
+    void bindTo_exposesLimitInFlightAndRejections() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        interceptor.bindTo(registry);
+        interceptor.limiter("web.write").tryAcquire();
+
+        // When - the link-driven delete is a GET but counts as a write
+        mockMvc.perform(get("/items/delete/1")).andExpect(status().isServiceUnavailable());
+
+        // Then
+        assertThat(registry.get("shop.items.concurrency.limit").tag("group", "web.write").gauge().value())
+                .isEqualTo(1);
+        assertThat(registry.get("shop.items.concurrency.in_flight").tag("group", "web.write").gauge().value())
+                .isEqualTo(1);
+        assertThat(registry.get("shop.items.concurrency.rejected").tag("group", "web.write")
+                .functionCounter().count()).isEqualTo(1);
+    }
+}
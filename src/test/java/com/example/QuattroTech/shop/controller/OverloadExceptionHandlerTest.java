@@ -0,0 +1,81 @@
+package com.example.QuattroTech.shop.controller;
+
+import com.example.QuattroTech.shop.controller.rest.ShopItemRestController;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.service.BulkheadFullException;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import com.example.QuattroTech.shop.service.WriteBehindFullException;
+import com.mongodb.MongoTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for OverloadExceptionHandler
+ */
+class OverloadExceptionHandlerTest {
+
+    private ShopItemService shopItemService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        shopItemService = Mockito.mock(ShopItemService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ShopItemRestController(shopItemService))
+                .setControllerAdvice(new OverloadExceptionHandler(2))
+                .build();
+    }
+
+    @Test
+    void bulkheadFull_returns503WithRetryAfter() throws Exception {
+        // Given
+        given(shopItemService.getItemById("1")).willThrow(new BulkheadFullException("point-read", "queue limit 0 reached"));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(content().string(containsString("point-read")));
+    }
+
+    @Test
+    void writeBehindFull_returns503WithRetryAfter() throws Exception {
+        // Given
+        given(shopItemService.getItemById("1"))
+                .willReturn(Optional.of(new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5)));
+        willThrow(new WriteBehindFullException(10_000)).given(shopItemService).adjustQuantity("1", -1);
+
+        // When & Then
+        mockMvc.perform(patch("/api/items/1/quantity").param("delta", "-1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(content().string(containsString("Write-behind buffer is full")));
+    }
+
+    @Test
+    void poolCheckoutTimeout_returns503WithRetryAfter() throws Exception {
+        // Given
+        given(shopItemService.getItemById("1")).willThrow(new DataAccessResourceFailureException("timeout",
+                new MongoTimeoutException("Timed out after 500 ms while waiting for a connection")));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(content().string("Database unavailable"));
+    }
+}
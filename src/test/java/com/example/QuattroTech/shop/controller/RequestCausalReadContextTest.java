@@ -0,0 +1,111 @@
+package com.example.QuattroTech.shop.controller;
+
+import com.example.QuattroTech.shop.repository.CausalToken;
+import jakarta.servlet.http.Cookie;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RequestCausalReadContext
+ */
+class RequestCausalReadContextTest {
+
+    private final RequestCausalReadContext context = new RequestCausalReadContext(180);
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/items");
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void current_withoutToken_returnsNull() {
+        assertThat(context.current()).isNull();
+        assertThat(context.isBound()).isTrue();
+    }
+
+    @Test
+    void current_readsHeaderOrCookie() {
+        // Given
+        CausalToken token = freshToken();
+        request.addHeader(RequestCausalReadContext.HEADER, token.encode());
+
+        // When & Then
+        assertThat(context.current()).isEqualTo(token);
+
+        // Given
+        setUp();
+        request.setCookies(new Cookie(RequestCausalReadContext.COOKIE, token.encode()));
+
+        // When & Then
+        assertThat(context.current()).isEqualTo(token);
+    }
+
+    @Test
+    void current_expiredOrMalformedToken_isIgnored() {
+        // Given
+        CausalToken expired = new CausalToken(
+                new BsonTimestamp((int) (System.currentTimeMillis() / 1000) - 600, 1), null);
+        request.addHeader(RequestCausalReadContext.HEADER, expired.encode());
+
+        // When & Then
+        assertThat(context.current()).isNull();
+
+        // Given
+        setUp();
+        request.addHeader(RequestCausalReadContext.HEADER, "garbage");
+
+        // When & Then
+        assertThat(context.current()).isNull();
+    }
+
+    @Test
+    void advance_returnsTokenToCallerAndAppliesToLaterReadsInTheRequest() {
+        // Given
+        CausalToken token = freshToken();
+
+        // When
+        context.advance(token);
+
+        // Then
+        assertThat(context.current()).isEqualTo(token);
+        assertThat(response.getHeader(RequestCausalReadContext.HEADER)).isEqualTo(token.encode());
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(RequestCausalReadContext.COOKIE + "=" + token.encode())
+                .contains("HttpOnly", "Max-Age=180");
+    }
+
+    @Test
+    void outsideRequest_isUnboundAndIgnoresTokens() {
+        // Given
+        RequestContextHolder.resetRequestAttributes();
+
+        // When
+        context.advance(freshToken());
+
+        // Then
+        assertThat(context.isBound()).isFalse();
+        assertThat(context.current()).isNull();
+    }
+
+    private static CausalToken freshToken() {
+        return new CausalToken(new BsonTimestamp((int) (System.currentTimeMillis() / 1000), 3), null);
+    }
+}
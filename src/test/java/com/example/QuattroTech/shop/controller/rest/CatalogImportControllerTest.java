@@ -0,0 +1,156 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.service.CatalogImporter;
+import com.example.QuattroTech.shop.service.ImportConflictException;
+import com.example.QuattroTech.shop.service.ImportTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for CatalogImportController
+ */
+class CatalogImportControllerTest {
+
+    private MockMvc mockMvc;
+    private CatalogImporter catalogImporter;
+
+    @BeforeEach
+    void setUp() {
+        catalogImporter = Mockito.mock(CatalogImporter.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new CatalogImportController(catalogImporter))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter())
+                .build();
+    }
+
+    @Test
+    void importCsv_startsImportAndPointsAtProgress() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/items/import").param("importId", "supplier-1")
+                        .contentType("text/csv").content("name,price,quantity\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/items/import/supplier-1"))
+                .andExpect(jsonPath("$.importId").value("supplier-1"));
+        verify(catalogImporter).startCsvImport(eq("supplier-1"), any(InputStream.class), anyLong());
+    }
+
+    @Test
+    void importCsv_withoutImportId_generatesOne() throws Exception {
+        // When
+        mockMvc.perform(post("/api/items/import").contentType("text/csv").content("name,price,quantity\n"))
+                .andExpect(status().isAccepted());
+
+        // Then
+        ArgumentCaptor<String> importId = ArgumentCaptor.forClass(String.class);
+        verify(catalogImporter).startCsvImport(importId.capture(), any(InputStream.class), anyLong());
+        assertThat(importId.getValue()).hasSize(36);
+    }
+
+    @Test
+    void importCsv_alreadyRunning_returnsConflict() throws Exception {
+        // Given
+        willThrow(new ImportConflictException("Import supplier-1 is already running"))
+                .given(catalogImporter).startCsvImport(eq("supplier-1"), any(InputStream.class), anyLong());
+
+        // When & Then
+        mockMvc.perform(post("/api/items/import").param("importId", "supplier-1")
+                        .contentType("text/csv").content("name,price,quantity\n"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Import supplier-1 is already running"));
+    }
+
+    @Test
+    void importCsv_ioFailure_isNotReportedAsConflict() throws Exception {
+        // Given - a wrapped I/O failure is a server error, not a lock conflict
+        willThrow(new IllegalStateException(new IOException("disk full")))
+                .given(catalogImporter).startCsvImport(eq("supplier-1"), any(InputStream.class), anyLong());
+
+        // When & Then - left to the default error handling, which answers 500
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/items/import").param("importId", "supplier-1")
+                        .contentType("text/csv").content("name,price,quantity\n")))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void importCsv_badHeader_returnsBadRequest() throws Exception {
+        // Given
+        willThrow(new IllegalArgumentException("CSV input is empty, expected a header row"))
+                .given(catalogImporter).startCsvImport(eq("supplier-1"), any(InputStream.class), anyLong());
+
+        // When & Then
+        mockMvc.perform(post("/api/items/import").param("importId", "supplier-1")
+                        .contentType("text/csv").content(""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importCsv_uploadTooLarge_returnsPayloadTooLarge() throws Exception {
+        // Given
+        willThrow(new ImportTooLargeException(10))
+                .given(catalogImporter).startCsvImport(eq("supplier-1"), any(InputStream.class), eq(20L));
+
+        // When & Then - the declared length is passed on so the importer can refuse before reading
+        mockMvc.perform(post("/api/items/import").param("importId", "supplier-1")
+                        .contentType("text/csv").content("name,price,quantity\n"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("Catalog upload is larger than 10 bytes"));
+    }
+
+    @Test
+    void importCsv_otherContentType_isUnsupported() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/items/import").contentType("application/json").content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void getProgress_knownImport_returnsCheckpoint() throws Exception {
+        // Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setCommittedRows(4000);
+        checkpoint.setError("mongo down");
+        given(catalogImporter.progress("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/import/supplier-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committedRows").value(4000))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.running").value(false))
+                .andExpect(jsonPath("$.error").value("mongo down"));
+    }
+
+    @Test
+    void getProgress_unknownImport_returnsNotFound() throws Exception {
+        // Given
+        given(catalogImporter.progress("missing")).willReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/items/import/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
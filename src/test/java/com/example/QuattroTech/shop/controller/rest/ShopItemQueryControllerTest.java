@@ -0,0 +1,100 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.service.ShopItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for ShopItemQueryController
+ */
+class ShopItemQueryControllerTest {
+
+    private MockMvc mockMvc;
+    private ShopItemService shopItemService;
+
+    @BeforeEach
+    void setUp() {
+        shopItemService = Mockito.mock(ShopItemService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ShopItemQueryController(shopItemService))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter())
+                .build();
+    }
+
+    @Test
+    void query_passesFiltersSortAndLimit() throws Exception {
+        // Given
+        ShopItemQuery expected = new ShopItemQuery("Lap", new BigDecimal("10.5"), new BigDecimal("2000"), 1, 9,
+                ShopItemQuery.SortField.QUANTITY, true, 20);
+        given(shopItemService.queryItems(expected))
+                .willReturn(List.of(new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5)));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/query")
+                        .param("name", "Lap")
+                        .param("minPrice", "10.5").param("maxPrice", "2000")
+                        .param("minQuantity", "1").param("maxQuantity", "9")
+                        .param("sort", "quantity,desc")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Laptop"));
+    }
+
+    @Test
+    void query_withoutParams_usesDefaultLimit() throws Exception {
+        // Given
+        ShopItemQuery expected = new ShopItemQuery(null, null, null, null, null, null, false,
+                ShopItemQueryController.DEFAULT_LIMIT);
+        given(shopItemService.queryItems(expected)).willReturn(List.of());
+
+        // When & Then
+        mockMvc.perform(get("/api/items/query"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void query_sortWithoutIndex_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/items/query").param("name", "Lap").param("sort", "price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Cannot sort by price, no index covers it; sortable fields are name, quantity"));
+        verify(shopItemService, never()).queryItems(any());
+    }
+
+    @Test
+    void query_invalidDirectionOrLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/items/query").param("sort", "name,sideways"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/items/query").param("limit", "5000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("limit must be between 1 and 1000"));
+    }
+
+    @Test
+    void query_rejectedByPlan_returnsBadRequest() throws Exception {
+        // Given
+        given(shopItemService.queryItems(any()))
+                .willThrow(new IllegalArgumentException("Price filters need a name prefix or a quantity maximum"));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/query").param("maxPrice", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Price filters need a name prefix or a quantity maximum"));
+    }
+}
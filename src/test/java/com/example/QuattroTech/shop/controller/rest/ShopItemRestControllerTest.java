@@ -1,23 +1,44 @@
 package com.example.QuattroTech.shop.controller.rest;
 
 import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemBatch;
+import com.example.QuattroTech.shop.model.ShopItemDelta;
+import com.example.QuattroTech.shop.service.QuantityOutOfRangeException;
 import com.example.QuattroTech.shop.service.ShopItemService;
+import com.example.QuattroTech.shop.config.JacksonDataFormatConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,8 +57,12 @@ class ShopItemRestControllerTest {
     void setUp() {
         shopItemService = Mockito.mock(ShopItemService.class);
         ShopItemRestController controller = new ShopItemRestController(shopItemService);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
         objectMapper = new ObjectMapper();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(
+                        new ShopItemStreamHttpMessageConverter(Map.of(MediaType.APPLICATION_JSON, objectMapper)),
+                        new MappingJackson2HttpMessageConverter())
+                .build();
     }
 
     // ============ TEST 1: GET /api/items - Get all items ============
@@ -45,7 +70,7 @@ class ShopItemRestControllerTest {
     void getAllItems_returnsOkWithItems() throws Exception {
         // Given
         ShopItem item = new ShopItem("id1", "item1", "desc", new BigDecimal("10.00"), 5);
-        given(shopItemService.getAllItems()).willReturn(Arrays.asList(item));
+        given(shopItemService.streamAllItems()).willReturn(Stream.of(item));
 
         // When & Then
         mockMvc.perform(get("/api/items"))
@@ -114,6 +139,23 @@ class ShopItemRestControllerTest {
         verify(shopItemService).insertNewItem(any(ShopItem.class));
     }
 
+    @Test
+    void createItem_lastModifiedInBody_isIgnoredButReturned() throws Exception {
+        // Given
+        ShopItem savedItem = new ShopItem("new-id", "Mouse", "Wireless mouse", new BigDecimal("25.00"), 10);
+        savedItem.setLastModified(42L);
+        given(shopItemService.insertNewItem(any(ShopItem.class))).willReturn(savedItem);
+
+        // When & Then
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Mouse\",\"price\":25.00,\"quantity\":10,\"lastModified\":999}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.lastModified").value(42));
+
+        verify(shopItemService).insertNewItem(Mockito.argThat(item -> item.getLastModified() == 0));
+    }
+
     // ============ TEST 5: POST /api/items - Invalid data (validation) ============
     @Test
     void createItem_invalidData_returns400() throws Exception {
@@ -206,7 +248,7 @@ class ShopItemRestControllerTest {
         // Given
         ShopItem item1 = new ShopItem("1", "Laptop", "desc", new BigDecimal("100"), 1);
         ShopItem item2 = new ShopItem("2", "Laptop Pro", "desc", new BigDecimal("200"), 2);
-        given(shopItemService.searchByName("Laptop")).willReturn(Arrays.asList(item1, item2));
+        given(shopItemService.streamByName("Laptop")).willReturn(Stream.of(item1, item2));
 
         // When & Then
         mockMvc.perform(get("/api/items/search").param("name", "Laptop"))
@@ -214,7 +256,7 @@ class ShopItemRestControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Laptop"))
                 .andExpect(jsonPath("$[1].name").value("Laptop Pro"));
 
-        verify(shopItemService).searchByName("Laptop");
+        verify(shopItemService).streamByName("Laptop");
     }
 
     // ============ BONUS TEST 11: GET /api/items/low-stock ============
@@ -223,7 +265,7 @@ class ShopItemRestControllerTest {
         // Given
         ShopItem item1 = new ShopItem("1", "Item1", "desc", new BigDecimal("10"), 2);
         ShopItem item2 = new ShopItem("2", "Item2", "desc", new BigDecimal("20"), 3);
-        given(shopItemService.findLowStockItems(5)).willReturn(Arrays.asList(item1, item2));
+        given(shopItemService.streamLowStockItems(5)).willReturn(Stream.of(item1, item2));
 
         // When & Then
         mockMvc.perform(get("/api/items/low-stock").param("threshold", "5"))
@@ -231,6 +273,233 @@ class ShopItemRestControllerTest {
                 .andExpect(jsonPath("$[0].quantity").value(2))
                 .andExpect(jsonPath("$[1].quantity").value(3));
 
-        verify(shopItemService).findLowStockItems(5);
+        verify(shopItemService).streamLowStockItems(5);
+    }
+
+    // ============ GET /api/items/delta?since={token} ============
+    @Test
+    void getDelta_returnsChangedDeletedAndToken() throws Exception {
+        // Given
+        ShopItem item = new ShopItem("1", "Item1", "desc", new BigDecimal("10"), 2);
+        given(shopItemService.getChangesSince(5L))
+                .willReturn(new ShopItemDelta(List.of(item), List.of("2"), 9L));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/delta").param("since", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].id").value("1"))
+                .andExpect(jsonPath("$.deleted[0]").value("2"))
+                .andExpect(jsonPath("$.token").value(9));
+
+        verify(shopItemService).getChangesSince(5L);
+    }
+
+    @Test
+    void getDelta_withoutToken_startsFromZero() throws Exception {
+        // Given
+        given(shopItemService.getChangesSince(0L))
+                .willReturn(new ShopItemDelta(List.of(), List.of(), 0L));
+
+        // When & Then
+        mockMvc.perform(get("/api/items/delta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value(0));
+
+        verify(shopItemService).getChangesSince(0L);
+    }
+
+    // ============ PATCH /api/items/{id}/quantity?delta={delta} ============
+    @Test
+    void adjustQuantity_returnsAccepted() throws Exception {
+        // Given
+        given(shopItemService.getItemById("123"))
+                .willReturn(Optional.of(new ShopItem("123", "Laptop", "Gaming", new BigDecimal("1500"), 5)));
+
+        // When & Then
+        mockMvc.perform(patch("/api/items/123/quantity").param("delta", "-2"))
+                .andExpect(status().isAccepted());
+
+        verify(shopItemService).adjustQuantity("123", -2);
+    }
+
+    @Test
+    void adjustQuantity_outOfRange_returnsConflict() throws Exception {
+        // Given
+        given(shopItemService.getItemById("123"))
+                .willReturn(Optional.of(new ShopItem("123", "Laptop", "Gaming", new BigDecimal("1500"), 5)));
+        Mockito.doThrow(new QuantityOutOfRangeException("123", -6)).when(shopItemService).adjustQuantity("123", -6);
+
+        // When & Then
+        mockMvc.perform(patch("/api/items/123/quantity").param("delta", "-6"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Adjusting item 123 by -6 would take its quantity out of range"));
+    }
+
+    @Test
+    void adjustQuantity_unknownId_returnsNotFound() throws Exception {
+        // Given
+        given(shopItemService.getItemById("999")).willReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(patch("/api/items/999/quantity").param("delta", "1"))
+                .andExpect(status().isNotFound());
+
+        verify(shopItemService, never()).adjustQuantity(anyString(), anyInt());
+    }
+
+    // ============ GET /api/items?ids={ids} ============
+    @Test
+    void getItemsByIds_returnsItemsAndNotFound() throws Exception {
+        // Given
+        ShopItem item = new ShopItem("1", "Item1", "desc", new BigDecimal("10"), 2);
+        given(shopItemService.getItemsByIds(List.of("1", "2")))
+                .willReturn(new ShopItemBatch(List.of(item), List.of("2")));
+
+        // When & Then
+        mockMvc.perform(get("/api/items").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("1"))
+                .andExpect(jsonPath("$.notFound[0]").value("2"));
+
+        verify(shopItemService).getItemsByIds(List.of("1", "2"));
+    }
+
+    // ============ POST /api/items/batch-get ============
+    @Test
+    void getItemsByIdsPost_readsIdsFromBody() throws Exception {
+        // Given
+        given(shopItemService.getItemsByIds(List.of("1", "2")))
+                .willReturn(new ShopItemBatch(List.of(), List.of("1", "2")));
+
+        // When & Then
+        mockMvc.perform(post("/api/items/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1\",\"2\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notFound.length()").value(2));
+
+        verify(shopItemService).getItemsByIds(List.of("1", "2"));
+    }
+
+    @Test
+    void getItemsByIdsPost_tooManyIds_returns400() throws Exception {
+        // Given
+        List<String> ids = Collections.nCopies(ShopItemRestController.MAX_BATCH_IDS + 1, "x");
+
+        // When & Then
+        mockMvc.perform(post("/api/items/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ============ Binary content negotiation (CBOR / Smile) ============
+    private MockMvc binaryMockMvc() {
+        JacksonDataFormatConfiguration formats = new JacksonDataFormatConfiguration();
+        MappingJackson2CborHttpMessageConverter cbor = formats.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        MappingJackson2SmileHttpMessageConverter smile = formats.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        return MockMvcBuilders.standaloneSetup(new ShopItemRestController(shopItemService))
+                .setMessageConverters(
+                        formats.shopItemStreamHttpMessageConverter(objectMapper, cbor, smile),
+                        new MappingJackson2HttpMessageConverter(),
+                        cbor,
+                        smile)
+                .build();
+    }
+
+    @Test
+    void getAllItems_acceptCbor_returnsCborPayload() throws Exception {
+        // Given
+        ShopItem item = new ShopItem("id1", "item1", "desc", new BigDecimal("10.50"), 5);
+        given(shopItemService.streamAllItems()).willReturn(Stream.of(item));
+
+        // When
+        byte[] body = binaryMockMvc().perform(get("/api/items").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        List<ShopItem> decoded = new ObjectMapper(new CBORFactory())
+                .readValue(body, new TypeReference<List<ShopItem>>() { });
+        assertThat(decoded).containsExactly(item);
+    }
+
+    @Test
+    void createItem_smileBody_acceptSmile_roundTrips() throws Exception {
+        // Given
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        ShopItem newItem = new ShopItem(null, "Mouse", "Wireless", new BigDecimal("25.00"), 10);
+        ShopItem savedItem = new ShopItem("new-id", "Mouse", "Wireless", new BigDecimal("25.00"), 10);
+        given(shopItemService.insertNewItem(any(ShopItem.class))).willReturn(savedItem);
+
+        // When
+        byte[] body = binaryMockMvc().perform(post("/api/items")
+                        .contentType("application/x-jackson-smile")
+                        .accept("application/x-jackson-smile")
+                        .content(smile.writeValueAsBytes(newItem)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        assertThat(smile.readValue(body, ShopItem.class)).isEqualTo(savedItem);
+    }
+
+    // ============ Streaming list responses ============
+    @Test
+    void getAllItems_largeResult_streamsEveryItemAndClosesCursor() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        given(shopItemService.streamAllItems()).willReturn(IntStream.range(0, 250)
+                .mapToObj(i -> new ShopItem("id" + i, "item" + i, "desc", new BigDecimal("1.00"), i))
+                .onClose(() -> closed.set(true)));
+
+        // When & Then
+        mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(250))
+                .andExpect(jsonPath("$[249].id").value("id249"));
+
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void getAllItems_emptyResult_returnsEmptyArray() throws Exception {
+        // Given
+        given(shopItemService.streamAllItems()).willReturn(Stream.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void getAllItems_unsupportedAccept_doesNotOpenCursor() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/items").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+
+        verify(shopItemService, Mockito.never()).streamAllItems();
+    }
+
+    @Test
+    void searchByName_acceptSmile_streamsSmile() throws Exception {
+        // Given
+        ShopItem item = new ShopItem("1", "Laptop", "desc", new BigDecimal("100"), 1);
+        given(shopItemService.streamByName("Lap")).willReturn(Stream.of(item));
+
+        // When
+        byte[] body = binaryMockMvc().perform(get("/api/items/search")
+                        .param("name", "Lap")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        List<ShopItem> decoded = new ObjectMapper(new SmileFactory())
+                .readValue(body, new TypeReference<List<ShopItem>>() { });
+        assertThat(decoded).containsExactly(item);
     }
 }
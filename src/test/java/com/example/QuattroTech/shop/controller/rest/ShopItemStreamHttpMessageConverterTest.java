@@ -0,0 +1,67 @@
+package com.example.QuattroTech.shop.controller.rest;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ShopItemStreamHttpMessageConverter
+ */
+class ShopItemStreamHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ShopItemStreamHttpMessageConverter converter =
+            new ShopItemStreamHttpMessageConverter(Map.of(MediaType.APPLICATION_JSON, objectMapper));
+
+    @Test
+    void write_producesSameJsonAsListSerialization() throws Exception {
+        // Given
+        ShopItem item1 = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500.00"), 5);
+        ShopItem item2 = new ShopItem("2", "Mouse", null, new BigDecimal("25.5"), 0);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        // When
+        converter.write(new ShopItemStream(() -> Stream.of(item1, item2)), MediaType.APPLICATION_JSON, output);
+
+        // Then
+        assertThat(output.getBodyAsString())
+                .isEqualTo(objectMapper.writeValueAsString(List.of(item1, item2)));
+    }
+
+    @Test
+    void write_withoutContentType_usesFirstMapper() throws Exception {
+        // Given
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        // When
+        converter.write(new ShopItemStream(Stream::empty), null, output);
+
+        // Then
+        assertThat(output.getBodyAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    void supports_onlyShopItemStream() {
+        assertThat(converter.canWrite(ShopItemStream.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(ShopItem.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(ShopItemStream.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    void read_isNotSupported() {
+        assertThatThrownBy(() -> converter.read(ShopItemStream.class, new MockHttpInputMessage(new byte[0])))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+}
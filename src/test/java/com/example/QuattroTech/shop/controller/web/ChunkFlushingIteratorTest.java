@@ -0,0 +1,114 @@
+package com.example.QuattroTech.shop.controller.web;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ChunkFlushingIterator
+ */
+class ChunkFlushingIteratorTest {
+
+    @Test
+    void next_flushesBeforeEveryFullChunk() throws Exception {
+        // Given
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ChunkFlushingIterator<Integer> iterator =
+                new ChunkFlushingIterator<>(List.of(1, 2, 3, 4, 5).iterator(), response, 2);
+
+        // When
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+
+        // Then - flushed before the 3rd and 5th element
+        verify(response, times(2)).flushBuffer();
+    }
+
+    @Test
+    void next_flushFails_throwsUncheckedIOException() throws Exception {
+        // Given
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        doThrow(new IOException("client gone")).when(response).flushBuffer();
+        ChunkFlushingIterator<Integer> iterator =
+                new ChunkFlushingIterator<>(List.of(1, 2).iterator(), response, 1);
+        iterator.next();
+
+        // When & Then
+        assertThatThrownBy(iterator::next)
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("client gone");
+    }
+
+    @Test
+    void listTemplate_streamsRowsBeforeLastItemIsRead() {
+        // Given
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> writtenBeforeLast = new AtomicReference<>();
+        Iterator<ShopItem> cursor = IntStream.range(0, 1000)
+                .mapToObj(i -> {
+                    if (i == 999) {
+                        writtenBeforeLast.set(contentOf(response));
+                    }
+                    return new ShopItem(String.valueOf(i), "Item-" + i, "d", BigDecimal.ONE, i);
+                })
+                .iterator();
+
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext())
+                        .buildExchange(request, response));
+        context.setVariable("items", new ChunkFlushingIterator<>(cursor, response, 100));
+        context.setVariable("itemsEmpty", false);
+
+        // When
+        templateEngine.process("items/list", context, writerOf(response));
+
+        // Then
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(writtenBeforeLast.get()).contains("Item-0", "Item-899").doesNotContain("Item-999");
+        assertThat(contentOf(response)).contains("Item-999");
+    }
+
+    private static java.io.PrintWriter writerOf(MockHttpServletResponse response) {
+        try {
+            return response.getWriter();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String contentOf(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
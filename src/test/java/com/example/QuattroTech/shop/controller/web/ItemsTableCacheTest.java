@@ -0,0 +1,239 @@
+package com.example.QuattroTech.shop.controller.web;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.CausalToken;
+import org.bson.BsonTimestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for ItemsTableCache, rendering the real templates
+ */
+class ItemsTableCacheTest {
+
+    private SpringTemplateEngine templateEngine;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private AtomicInteger loads;
+    private Supplier<List<ShopItem>> items;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        request = new MockHttpServletRequest("GET", "/items");
+        response = new MockHttpServletResponse();
+        loads = new AtomicInteger();
+        items = () -> {
+            loads.incrementAndGet();
+            return List.of(new ShopItem("1", "Laptop", "Gaming", new BigDecimal("10.5"), 3));
+        };
+    }
+
+    @Test
+    void render_sameVersion_servesCachedHtmlWithoutLoading() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000);
+
+        // When
+        String first = cache.render("all", 1, items, request, response);
+        String second = cache.render("all", 1, items, request, response);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(first).contains("Laptop", "$10.50", "href=\"/items/1\"", "id=\"items-table\"");
+    }
+
+    @Test
+    void render_concurrentMissesForSameVersion_shareOneRender() throws Exception {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<ShopItem>> slowItems = () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return items.get();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        Future<String> first = executor.submit(() -> cache.render("all", 1, slowItems, request, response));
+        Future<String> second = executor.submit(() -> cache.render("all", 1, slowItems, request, response));
+        awaitCondition(() -> registry.get("shop.items.table_cache.collapsed").functionCounter().count() == 1);
+        release.countDown();
+
+        // Then
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(first.get(10, TimeUnit.SECONDS));
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("shop.items.table_cache.misses").functionCounter().count()).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void render_newVersion_rendersAgain() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000);
+
+        // When
+        cache.render("all", 1, items, request, response);
+        cache.render("all", 2, items, request, response);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void render_callerWithCausalToken_bypassesLookupButRefreshesEntry() {
+        // Given
+        CausalReadContext causalReads = mock(CausalReadContext.class);
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000, causalReads);
+        cache.render("all", 1, items, request, response);
+        given(causalReads.current()).willReturn(new CausalToken(new BsonTimestamp(1, 1), null));
+
+        // When
+        cache.render("all", 1, items, request, response);
+        given(causalReads.current()).willReturn(null);
+        cache.render("all", 1, items, request, response);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void render_expiredEntry_rendersAgain() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 0);
+
+        // When
+        cache.render("all", 1, items, request, response);
+        cache.render("all", 1, items, request, response);
+
+        // Then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void render_htmlLargerThanLimit_isNotStored() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 10, 60_000);
+
+        // When
+        cache.render("all", 1, items, request, response);
+
+        // Then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void render_moreVariantsThanEntries_evictsLeastRecentlyUsed() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 1, 1_000_000, 60_000);
+
+        // When
+        cache.render("a", 1, items, request, response);
+        cache.render("b", 1, items, request, response);
+        cache.render("a", 1, items, request, response);
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void render_emptyCatalog_rendersEmptyState() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000);
+
+        // When
+        String html = cache.render("all", 1, List::of, request, response);
+
+        // Then
+        assertThat(html).contains("No items available").doesNotContain("items-table");
+    }
+
+    @Test
+    void bindTo_exposesHitsMissesAndEntries() {
+        // Given
+        ItemsTableCache cache = new ItemsTableCache(templateEngine, 16, 1_000_000, 60_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        // When
+        cache.render("all", 1, items, request, response);
+        cache.render("all", 1, items, request, response);
+
+        // Then
+        assertThat(registry.get("shop.items.table_cache.hits").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("shop.items.table_cache.misses").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("shop.items.table_cache.entries").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void listTemplate_insertsCachedTableUnescaped() {
+        // When
+        String page = renderListPage("itemsTable", "<table id=\"cached\"></table>");
+
+        // Then
+        assertThat(page).contains("<table id=\"cached\"></table>").doesNotContain("No items available");
+    }
+
+    @Test
+    void listTemplate_withoutCachedTable_rendersTableInline() {
+        // When
+        String page = renderListPage("items", items.get());
+
+        // Then
+        assertThat(page).contains("id=\"items-table\"", "Laptop");
+    }
+
+    private String renderListPage(String name, Object value) {
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext())
+                        .buildExchange(request, response));
+        context.setVariable(name, value);
+        return templateEngine.process("items/list", context);
+    }
+}
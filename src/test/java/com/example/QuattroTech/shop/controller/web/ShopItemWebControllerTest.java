@@ -12,7 +12,11 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
@@ -67,11 +71,68 @@ class ShopItemWebControllerTest {
         mockMvc.perform(get("/items"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("items/list"))
-                .andExpect(model().attribute("message", "No items available"));
+                .andExpect(model().attribute("message", "No items available"))
+                .andExpect(model().attribute("itemsEmpty", true));
 
         verify(shopItemService, atLeastOnce()).getAllItems();
     }
 
+    // ============ TEST 1C: GET /items - Served through the table cache ============
+    @Test
+    void listItems_withTableCache_addsRenderedTable() throws Exception {
+        // Given
+        ItemsTableCache cache = mock(ItemsTableCache.class);
+        given(shopItemService.getCatalogVersion()).willReturn(3L);
+        given(cache.render(eq("all"), eq(3L), any(), any(), any())).willReturn("<table></table>");
+        MockMvc cachedMockMvc = MockMvcBuilders
+                .standaloneSetup(new ShopItemWebController(shopItemService, cache))
+                .build();
+
+        // When & Then
+        cachedMockMvc.perform(get("/items"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("items/list"))
+                .andExpect(model().attribute("itemsTable", "<table></table>"))
+                .andExpect(model().attributeDoesNotExist("items"));
+
+        verify(shopItemService, never()).getAllItems();
+    }
+
+    // ============ TEST 1D: GET /items?all=true - Streams from the cursor ============
+    @Test
+    void listAllItemsStreaming_exposesIteratorAndClosesCursor() throws Exception {
+        // Given
+        ShopItem item = new ShopItem("1", "Laptop", "Gaming laptop",
+                                      new BigDecimal("1500.00"), 5);
+        AtomicBoolean closed = new AtomicBoolean();
+        given(shopItemService.streamAllItems())
+                .willReturn(Stream.of(item).onClose(() -> closed.set(true)));
+
+        // When & Then
+        mockMvc.perform(get("/items").param("all", "true"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("items/list"))
+                .andExpect(model().attribute("items", instanceOf(ChunkFlushingIterator.class)))
+                .andExpect(model().attribute("itemsEmpty", false))
+                .andExpect(model().attribute("message", ""));
+
+        assertThat(closed).isTrue();
+        verify(shopItemService, never()).getAllItems();
+    }
+
+    // ============ TEST 1E: GET /items?all=true - Empty cursor shows message ============
+    @Test
+    void listAllItemsStreaming_emptyCursor_showsNoItemsMessage() throws Exception {
+        // Given
+        given(shopItemService.streamAllItems()).willReturn(Stream.empty());
+
+        // When & Then
+        mockMvc.perform(get("/items").param("all", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("itemsEmpty", true))
+                .andExpect(model().attribute("message", "No items available"));
+    }
+
     // ============ TEST 2: GET /items/new - Show create form ============
     @Test
     void newItemForm_returnsFormView() throws Exception {
@@ -175,6 +236,19 @@ class ShopItemWebControllerTest {
         verify(shopItemService).insertNewItem(any(ShopItem.class));
     }
 
+    @Test
+    void saveItem_lastModifiedParam_isNotBound() throws Exception {
+        // When & Then - the change sequence is the service's to assign
+        mockMvc.perform(post("/items/save")
+                        .param("name", "Mouse")
+                        .param("price", "25.00")
+                        .param("quantity", "10")
+                        .param("lastModified", "999"))
+                .andExpect(status().is3xxRedirection());
+
+        verify(shopItemService).insertNewItem(argThat(item -> item.getLastModified() == 0));
+    }
+
     // ============ TEST 7B: POST /items/save - Create new item with EMPTY ID ============
     @Test
     void saveItem_newItemWithEmptyId_redirectsToList() throws Exception {
@@ -0,0 +1,43 @@
+package com.example.QuattroTech.shop.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for MinorUnits
+ */
+class MinorUnitsTest {
+
+    @Test
+    void floor_convertsExactPricesExactly() {
+        assertThat(MinorUnits.floor(new BigDecimal("49.90"))).isEqualTo(499_000L);
+        assertThat(MinorUnits.floor(new BigDecimal("49.9"))).isEqualTo(499_000L);
+        assertThat(MinorUnits.floor(new BigDecimal("0.0001"))).isEqualTo(1L);
+        assertThat(MinorUnits.floor(new BigDecimal("1E+3"))).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void floor_roundsExtraDecimalsDown() {
+        assertThat(MinorUnits.floor(new BigDecimal("0.12349"))).isEqualTo(1234L);
+        assertThat(MinorUnits.floor(new BigDecimal("-0.00001"))).isEqualTo(-1L);
+    }
+
+    @Test
+    void floor_clampsToLongRange() {
+        assertThat(MinorUnits.floor(new BigDecimal("1E+20"))).isEqualTo(Long.MAX_VALUE);
+        assertThat(MinorUnits.floor(new BigDecimal("-1E+20"))).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void floor_preservesOrder() {
+        BigDecimal[] ascending = {new BigDecimal("-1E+20"), new BigDecimal("-0.5"), BigDecimal.ZERO,
+                new BigDecimal("0.00001"), new BigDecimal("0.0001"), new BigDecimal("19.99"),
+                new BigDecimal("19.990000001"), new BigDecimal("1E+20")};
+        for (int i = 1; i < ascending.length; i++) {
+            assertThat(MinorUnits.floor(ascending[i - 1])).isLessThanOrEqualTo(MinorUnits.floor(ascending[i]));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CatalogSnapshotFile
+ */
+class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static ShopItem item(String id, String name, String description, String price, int quantity, long lastModified) {
+        ShopItem item = new ShopItem(id, name, description, price != null ? new BigDecimal(price) : null, quantity);
+        item.setLastModified(lastModified);
+        return item;
+    }
+
+    @Test
+    void writeAndMap_roundTripsItemsAndResumeToken() throws IOException {
+        // Given
+        Path path = dir.resolve("catalog.snapshot");
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263A1"));
+        List<ShopItem> items = List.of(
+                item("65a000000000000000000002", "Laptop", "Gaming, 16\"", "1299.90", 5, 7),
+                item("custom-id", "Mouse", null, null, 0, 8),
+                item("65a000000000000000000001", "Câble", "USB-C", "-0.001", 12, 9));
+
+        // When
+        int written = CatalogSnapshotFile.write(path, token, items.iterator());
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(path);
+
+        // Then
+        assertThat(written).isEqualTo(3);
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.resumeToken()).isEqualTo(token);
+        List<ShopItem> read = new ArrayList<>();
+        snapshot.iterator().forEachRemaining(read::add);
+        assertThat(read).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(items);
+        assertThat(read.get(2).getPrice()).isEqualTo(new BigDecimal("-0.001"));
+    }
+
+    @Test
+    void find_binarySearchesEveryId() throws IOException {
+        // Given - written out of id order
+        Path path = dir.resolve("catalog.snapshot");
+        List<ShopItem> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(item(String.format("%024x", i * 7919L % 1000), "Item " + i, null, "1.00", i, i));
+        }
+        items.add(item("ZZ-upper", "String id", null, "2", 1, 1));
+        Collections.shuffle(items);
+        CatalogSnapshotFile.write(path, null, items.iterator());
+
+        // When
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(path);
+
+        // Then
+        for (ShopItem item : items) {
+            assertThat(snapshot.find(item.getId())).get().usingRecursiveComparison().isEqualTo(item);
+        }
+        assertThat(snapshot.find("65a0000000000000000000ff")).isEmpty();
+        assertThat(snapshot.find("")).isEmpty();
+        assertThat(snapshot.resumeToken()).isNull();
+    }
+
+    @Test
+    void find_emptySnapshot_findsNothing() throws IOException {
+        // Given
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(path, null, Collections.emptyIterator());
+
+        // When
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(path);
+
+        // Then
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.find("a")).isEmpty();
+        assertThat(snapshot.iterator().hasNext()).isFalse();
+    }
+
+    @Test
+    void write_replacesExistingSnapshotWithoutLeavingTempFiles() throws IOException {
+        // Given
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(path, null, List.of(item("a", "Old", null, "1", 1, 1)).iterator());
+        CatalogSnapshotFile old = CatalogSnapshotFile.map(path);
+
+        // When
+        CatalogSnapshotFile.write(path, null, List.of(item("b", "New", null, "1", 1, 2)).iterator());
+
+        // Then - the old mapping still reads the replaced file
+        assertThat(CatalogSnapshotFile.map(path).find("b")).isPresent();
+        assertThat(old.find("a")).isPresent();
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    @Test
+    void map_truncatedFile_isRejected() throws IOException {
+        // Given
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(path, null, List.of(item("a", "Laptop", null, "1", 1, 1)).iterator());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+
+        // When & Then
+        assertThatThrownBy(() -> CatalogSnapshotFile.map(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void map_otherFile_isRejected() throws IOException {
+        // Given
+        Path path = dir.resolve("catalog.snapshot");
+        Files.writeString(path, "name,price,quantity\nLaptop,1,1\n");
+
+        // When & Then
+        assertThatThrownBy(() -> CatalogSnapshotFile.map(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a catalog snapshot");
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.QuattroTech.shop.repository;
+
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CausalToken
+ */
+class CausalTokenTest {
+
+    @Test
+    void encode_decode_roundTripsOperationAndSignedClusterTime() {
+        // Given
+        BsonTimestamp time = new BsonTimestamp(1_700_000_000, 7);
+        BsonDocument clusterTime = new BsonDocument("clusterTime", time)
+                .append("signature", new BsonDocument("hash", new BsonBinary(new byte[20]))
+                        .append("keyId", new BsonInt64(42)));
+        CausalToken token = new CausalToken(time, clusterTime);
+
+        // When
+        CausalToken decoded = CausalToken.decode(token.encode());
+
+        // Then
+        assertThat(decoded.operationTime()).isEqualTo(time);
+        assertThat(decoded.clusterTime()).isEqualTo(clusterTime);
+        assertThat(decoded.issuedAt()).isEqualTo(Instant.ofEpochSecond(1_700_000_000));
+        assertThat(token.encode()).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void decode_withoutClusterTime_returnsNullClusterTime() {
+        // Given
+        String encoded = new CausalToken(new BsonTimestamp(5, 1), null).encode();
+
+        // When & Then
+        assertThat(CausalToken.decode(encoded).clusterTime()).isNull();
+    }
+
+    @Test
+    void decode_garbage_throwsIllegalArgument() {
+        assertThatThrownBy(() -> CausalToken.decode("not-a-token"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,517 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit tests for InMemoryShopItemRepository
+ */
+class InMemoryShopItemRepositoryTest {
+
+    private InMemoryShopItemRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryShopItemRepository();
+        repository.save(item("a1", "Keyboard", "49.90", 12));
+        repository.save(item("a2", "Mouse", "19.90", 3));
+        repository.save(item("a3", "Monitor", "199.00", 7));
+        repository.save(item("a4", "Mouse Pad", "9.90", 40));
+    }
+
+    // ============================================================
+    // WRITES
+    // ============================================================
+
+    @Test
+    void save_withoutId_assignsObjectIdAndStoresCopy() {
+        // Given
+        ShopItem item = new ShopItem(null, "Webcam", "HD", new BigDecimal("59.00"), 5);
+
+        // When
+        ShopItem saved = repository.save(item);
+        item.setName("Changed after save");
+
+        // Then
+        assertThat(saved.getId()).matches("[0-9a-f]{24}");
+        assertThat(repository.findById(saved.getId())).get()
+                .extracting(ShopItem::getName).isEqualTo("Webcam");
+    }
+
+    @Test
+    void save_existingId_replacesItemAndReindexes() {
+        // When
+        repository.save(item("a2", "Mouse", "99.00", 50));
+
+        // Then
+        assertThat(repository.findByPriceLessThanEqual(new BigDecimal("20")))
+                .extracting(ShopItem::getId).containsExactly("a4");
+        assertThat(repository.findItemsWithLowStock(5)).isEmpty();
+        assertThat(repository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void insert_duplicateId_throwsAndKeepsOriginal() {
+        // When & Then
+        assertThatThrownBy(() -> repository.insert(item("a1", "Other", "1.00", 1)))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(repository.findById("a1")).get().extracting(ShopItem::getName).isEqualTo("Keyboard");
+    }
+
+    @Test
+    void insertAll_stopsAtFirstDuplicateLikeOrderedInsertMany() {
+        // Given
+        List<ShopItem> items = List.of(item("b1", "Cable", "5.00", 1), item("a1", "Dup", "1.00", 1),
+                item("b2", "Hub", "25.00", 2));
+
+        // When & Then
+        assertThatThrownBy(() -> repository.insert(items)).isInstanceOf(DuplicateKeyException.class);
+        assertThat(repository.existsById("b1")).isTrue();
+        assertThat(repository.existsById("b2")).isFalse();
+    }
+
+    @Test
+    void deleteById_removesItemFromAllIndexes() {
+        // When
+        repository.deleteById("a2");
+
+        // Then
+        assertThat(repository.findById("a2")).isEmpty();
+        assertThat(repository.findByName("Mouse")).isNull();
+        assertThat(repository.findItemsWithLowStock(5)).isEmpty();
+        assertThat(repository.findAll()).extracting(ShopItem::getId).containsExactly("a1", "a3", "a4");
+    }
+
+    @Test
+    void incrementQuantities_updatesQuantityAndStampsSequence() {
+        // When
+        repository.incrementQuantities(Map.of("a1", -10, "a3", 5, "missing", 1), 42L);
+
+        // Then
+        assertThat(repository.findById("a1")).get().satisfies(item -> {
+            assertThat(item.getQuantity()).isEqualTo(2);
+            assertThat(item.getLastModified()).isEqualTo(42L);
+        });
+        assertThat(repository.findItemsWithLowStock(5)).extracting(ShopItem::getId).containsExactly("a1", "a2");
+        assertThat(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(0L, 42L)))
+                .extracting(ShopItem::getId).containsExactlyInAnyOrder("a1", "a3");
+        assertThat(repository.existsById("missing")).isFalse();
+    }
+
+    @Test
+    void incrementQuantities_outOfRange_isRefusedAndLeavesItemUntouched() {
+        // When
+        QuantityUpdates updates = repository.incrementQuantities(Map.of("a1", -13, "a3", 5), 42L);
+
+        // Then
+        assertThat(updates.refused()).containsExactly("a1");
+        assertThat(updates.failed()).isEmpty();
+        assertThat(repository.findById("a1")).get().extracting(ShopItem::getQuantity).isEqualTo(12);
+        assertThat(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(0L, 42L)))
+                .extracting(ShopItem::getId).containsExactly("a3");
+        assertThat(repository.incrementQuantities(Map.of("a3", Integer.MAX_VALUE), 43L).refused())
+                .containsExactly("a3");
+    }
+
+    // ============================================================
+    // DERIVED QUERIES
+    // ============================================================
+
+    @Test
+    void findByName_returnsExactMatchOrNull() {
+        assertThat(repository.findByName("Mouse").getId()).isEqualTo("a2");
+        assertThat(repository.findByName("mouse")).isNull();
+    }
+
+    @Test
+    void findByName_withSeveralMatches_throwsLikeMongo() {
+        // Given
+        repository.save(item("a5", "Mouse", "29.90", 1));
+
+        // When & Then
+        assertThatThrownBy(() -> repository.findByName("Mouse"))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+    }
+
+    @Test
+    void findByNameContainingIgnoreCase_matchesAnyCase() {
+        assertThat(repository.findByNameContainingIgnoreCase("MOUSE"))
+                .extracting(ShopItem::getId).containsExactly("a2", "a4");
+    }
+
+    @Test
+    void findByPriceLessThanEqual_comparesNumericallyAndIncludesBound() {
+        // 9.90 sorts after 49.90 as a string, but not as a number
+        assertThat(repository.findByPriceLessThanEqual(new BigDecimal("49.9")))
+                .extracting(ShopItem::getId).containsExactly("a4", "a2", "a1");
+    }
+
+    @Test
+    void findByPriceLessThanEqual_rechecksPricesSharingMinorUnits() {
+        // Given: both round down to the same minor units
+        repository.save(item("c1", "Screw", "0.12341", 1));
+        repository.save(item("c2", "Nut", "0.12349", 1));
+
+        // When & Then
+        assertThat(repository.findByPriceLessThanEqual(new BigDecimal("0.12345")))
+                .extracting(ShopItem::getId).containsExactly("c1");
+    }
+
+    @Test
+    void findByQuantityGreaterThanOrderByPrice_excludesThresholdAndSortsByPrice() {
+        assertThat(repository.findByQuantityGreaterThanOrderByPrice(7))
+                .extracting(ShopItem::getId).containsExactly("a4", "a1");
+    }
+
+    @Test
+    void findItemsWithLowStock_excludesThreshold() {
+        assertThat(repository.findItemsWithLowStock(7)).extracting(ShopItem::getId).containsExactly("a2");
+    }
+
+    @Test
+    void findByLastModifiedBetween_ordersBySequenceWithinRange() {
+        // Given
+        ShopItem late = item("a1", "Keyboard", "49.90", 12);
+        late.setLastModified(9);
+        ShopItem early = item("a3", "Monitor", "199.00", 7);
+        early.setLastModified(4);
+        repository.saveAll(List.of(late, early));
+
+        // When & Then
+        assertThat(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(4L, 9L)))
+                .extracting(ShopItem::getId).containsExactly("a1");
+        assertThat(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(0L, 8L)))
+                .extracting(ShopItem::getId).containsExactly("a3");
+        assertThat(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(0L, 9L)))
+                .extracting(ShopItem::getId).containsExactly("a3", "a1");
+    }
+
+    @Test
+    void query_namePrefixAndNumericPriceRange_onNameIndex() {
+        // Given: Mouse 19.90, Mouse Pad 9.90; 9.90 is below 10 numerically, not as a string
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(new ShopItemQuery(
+                "Mouse", new BigDecimal("10"), new BigDecimal("20"), null, null, null, false, 10));
+
+        // When & Then
+        assertThat(repository.query(plan)).extracting(ShopItem::getId).containsExactly("a2");
+    }
+
+    @Test
+    void query_sortedDescendingWithResidualFilterAndLimit() {
+        // Given: sorted on the quantity range, the name prefix filters what it finds
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(new ShopItemQuery(
+                "M", null, null, null, 39, ShopItemQuery.SortField.QUANTITY, true, 2));
+
+        // When & Then
+        assertThat(repository.query(plan)).extracting(ShopItem::getId).containsExactly("a3", "a2");
+    }
+
+    @Test
+    void query_quantityRangeAndUnfiltered() {
+        assertThat(repository.query(ShopItemQueryPlan.of(
+                new ShopItemQuery(null, null, null, 3, 12, null, false, 10))))
+                .extracting(ShopItem::getId).containsExactly("a2", "a3", "a1");
+        assertThat(repository.query(ShopItemQueryPlan.of(
+                new ShopItemQuery(null, null, null, null, null, null, false, 3))))
+                .extracting(ShopItem::getId).containsExactly("a1", "a2", "a3");
+    }
+
+    @Test
+    void findAll_sortedAndPaged() {
+        // When
+        List<ShopItem> byQuantityDesc = repository.findAll(Sort.by(Sort.Direction.DESC, "quantity"));
+        Page<ShopItem> page = repository.findAll(PageRequest.of(1, 3, Sort.by("price")));
+
+        // Then
+        assertThat(byQuantityDesc).extracting(ShopItem::getId).containsExactly("a4", "a1", "a3", "a2");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(ShopItem::getId).containsExactly("a3");
+        assertThatThrownBy(() -> repository.findAll(Sort.by("color")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void streamsAndIdLookups_matchListQueries() {
+        // When
+        List<ShopItem> streamed;
+        try (Stream<ShopItem> stream = repository.streamAll()) {
+            streamed = stream.toList();
+        }
+
+        // Then
+        assertThat(streamed).extracting(ShopItem::getId).containsExactly("a1", "a2", "a3", "a4");
+        assertThat(repository.streamByNameContainingIgnoreCase("mo")).hasSize(3);
+        assertThat(repository.streamItemsWithLowStock(10)).hasSize(2);
+        assertThat(repository.findAllById(List.of("a4", "missing", "a1")))
+                .extracting(ShopItem::getId).containsExactly("a4", "a1");
+    }
+
+    @Test
+    void findByExample_matchesProbePropertiesLikeMongo() {
+        // Given - primitives take part unless ignored, like in MongoExampleMapper
+        ExampleMatcher byText = ExampleMatcher.matching().withIgnorePaths("quantity", "lastModified");
+        ShopItem mouse = new ShopItem(null, "mouse", null, null, 0);
+
+        // When & Then
+        assertThat(repository.findAll(Example.of(mouse))).isEmpty();
+        assertThat(repository.findAll(Example.of(mouse, byText.withIgnoreCase())))
+                .extracting(ShopItem::getId).containsExactly("a2");
+        assertThat(repository.findAll(Example.of(mouse, byText.withIgnoreCase()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.STARTING)), Sort.by("price")))
+                .extracting(ShopItem::getId).containsExactly("a4", "a2");
+        assertThat(repository.count(Example.of(new ShopItem(null, null, null, new BigDecimal("19.9"), 3))))
+                .as("numeric price match").isEqualTo(1);
+        assertThat(repository.exists(Example.of(new ShopItem(null, "Mouse", null, null, 7),
+                ExampleMatcher.matchingAny().withIgnorePaths("lastModified")))).isTrue();
+        assertThat(repository.findAll(Example.of(new ShopItem(null, "Keyboard", null, null, 0),
+                byText.withIncludeNullValues()))).isEmpty();
+        assertThatThrownBy(() -> repository.findOne(Example.of(new ShopItem(null, "o", null, null, 0),
+                byText.withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING))))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+    }
+
+    @Test
+    void findByExample_fluentQuerySortsLimitsAndPages() {
+        // Given
+        Example<ShopItem> mo = Example.of(new ShopItem(null, "Mo", null, null, 0), ExampleMatcher.matching()
+                .withIgnorePaths("quantity", "lastModified")
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING));
+
+        // When
+        List<ShopItem> byQuantity = repository.findBy(mo, query -> query.sortBy(Sort.by("quantity")).all());
+        ShopItem mostStocked = repository.findBy(mo,
+                query -> query.sortBy(Sort.by("quantity").descending()).limit(1).oneValue());
+        Page<ShopItem> secondPage = repository.findBy(mo, query -> query.page(PageRequest.of(1, 2, Sort.by("name"))));
+        long count = repository.findBy(mo, FluentQuery.FetchableFluentQuery::count);
+
+        // Then
+        assertThat(byQuantity).extracting(ShopItem::getId).containsExactly("a2", "a3", "a4");
+        assertThat(mostStocked.getId()).isEqualTo("a4");
+        assertThat(secondPage.getContent()).extracting(ShopItem::getId).containsExactly("a4");
+        assertThat(secondPage.getTotalElements()).isEqualTo(3);
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void constructor_snapshotEnabled_refusesToStart() {
+        assertThatThrownBy(() -> new InMemoryShopItemRepository(false, true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("shop.items.snapshot");
+    }
+
+    @Test
+    void offHeapTable_servesQueriesAndWritesLikeHeapTable() {
+        // Given
+        InMemoryShopItemRepository offHeap = new InMemoryShopItemRepository(true);
+        offHeap.saveAll(repository.findAll());
+
+        // When
+        offHeap.save(item("a2", "Mouse", "99.00", 50));
+        offHeap.incrementQuantities(Map.of("a3", -5), 3L);
+        offHeap.deleteById("a4");
+
+        // Then
+        assertThat(offHeap.count()).isEqualTo(3);
+        assertThat(offHeap.findById("a2")).get().extracting(ShopItem::getPrice).isEqualTo(new BigDecimal("99.00"));
+        assertThat(offHeap.findItemsWithLowStock(5)).extracting(ShopItem::getId).containsExactly("a3");
+        assertThat(offHeap.findByQuantityGreaterThanOrderByPrice(10))
+                .extracting(ShopItem::getId).containsExactly("a1", "a2");
+        assertThat(offHeap.findByNameContainingIgnoreCase("mo")).extracting(ShopItem::getDescription)
+                .containsExactly("Mouse description", "Monitor description");
+        assertThatThrownBy(() -> offHeap.insert(item("a1", "Dup", "1.00", 1)))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    // ============================================================
+    // CHANGE TRACKING AND CHECKPOINTS
+    // ============================================================
+
+    @Test
+    void tombstonesAndSequences_behaveLikeMongoCollections() {
+        // When
+        long first = repository.writeInSequence(sequence -> sequence);
+        long second = repository.writeInSequence(sequence -> sequence);
+        repository.recordDeletion("a1", second);
+        repository.recordDeletion("a1", 7);
+        repository.recordDeletion("a2", first);
+        repository.recordDeletion("a3", 9);
+
+        // Then
+        assertThat(second).isEqualTo(first + 1);
+        assertThat(repository.currentChangeSequence()).isEqualTo(second);
+        assertThat(repository.findDeletionsSince(first, 8))
+                .extracting(ShopItemTombstone::getItemId, ShopItemTombstone::getSequence)
+                .containsExactly(tuple("a1", 7L));
+    }
+
+    @Test
+    void currentChangeSequence_stopsBelowTheOldestOpenWrite() throws Exception {
+        // Given
+        CountDownLatch opened = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> slow = executor.submit(() -> repository.writeInSequence(sequence -> {
+            opened.countDown();
+            await(release);
+            return sequence;
+        }));
+        assertThat(opened.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When: a later write completes without waiting for the open one
+        long later = repository.writeInSequence(sequence -> sequence);
+
+        // Then
+        assertThat(repository.currentChangeSequence()).isEqualTo(later - 2);
+        release.countDown();
+        assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo(later - 1);
+        assertThat(repository.currentChangeSequence()).isEqualTo(later);
+        executor.shutdown();
+    }
+
+    @Test
+    void writeInSequence_failedWrite_leavesAGapReadersPass() {
+        // Given
+        long before = repository.writeInSequence(sequence -> sequence);
+
+        // When
+        assertThatThrownBy(() -> repository.writeInSequence(sequence -> {
+            throw new IllegalStateException("write failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(repository.currentChangeSequence()).isEqualTo(before + 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void importCheckpoint_roundTripsAsCopy() {
+        // Given
+        Instant now = Instant.now();
+        ImportCheckpoint checkpoint = repository.lockImport("daily", "run-1", now, now.plusSeconds(60)).orElseThrow();
+        checkpoint.setCommittedRows(100);
+        checkpoint.setByteOffset(2048);
+
+        // When
+        repository.saveImportCheckpoint(checkpoint);
+        checkpoint.setCommittedRows(200);
+
+        // Then
+        assertThat(repository.findImportCheckpoint("daily")).get()
+                .satisfies(saved -> {
+                    assertThat(saved.getCommittedRows()).isEqualTo(100);
+                    assertThat(saved.getByteOffset()).isEqualTo(2048);
+                });
+        assertThat(repository.findImportCheckpoint("other")).isEmpty();
+    }
+
+    @Test
+    void lockImport_heldOrCompleted_isRefusedUntilLeaseEnds() {
+        // Given
+        Instant now = Instant.now();
+        ImportCheckpoint first = repository.lockImport("daily", "run-1", now, now.plusSeconds(60)).orElseThrow();
+
+        // When & Then - held by run-1 until its lease ends
+        assertThat(repository.lockImport("daily", "run-2", now, now.plusSeconds(60))).isEmpty();
+        ImportCheckpoint second = repository.lockImport("daily", "run-2", now.plusSeconds(61), now.plusSeconds(120))
+                .orElseThrow();
+        assertThat(second.getOwner()).isEqualTo("run-2");
+
+        // A run that lost the lock cannot save over the new owner
+        first.setCommittedRows(500);
+        assertThat(repository.saveImportCheckpoint(first)).isFalse();
+        second.setCompleted(true);
+        second.setLockedUntil(null);
+        assertThat(repository.saveImportCheckpoint(second)).isTrue();
+        assertThat(repository.findImportCheckpoint("daily").orElseThrow().getCommittedRows()).isZero();
+
+        // Completed imports are never locked again
+        assertThat(repository.lockImport("daily", "run-3", now.plusSeconds(200), now.plusSeconds(260))).isEmpty();
+    }
+
+    // ============================================================
+    // CONCURRENCY
+    // ============================================================
+
+    @Test
+    void concurrentWrites_leaveIndexesConsistentWithItems() throws Exception {
+        // Given
+        int threads = 8;
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        String id = "a" + (1 + (thread + i) % 4);
+                        repository.save(item(id, "Item " + id, String.valueOf(i % 50), i % 20));
+                        repository.findItemsWithLowStock(10);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        List<ShopItem> all = repository.findAll();
+        assertThat(all).hasSize(4);
+        assertThat(repository.findItemsWithLowStock(Integer.MAX_VALUE)).hasSize(4);
+        assertThat(repository.findByPriceLessThanEqual(new BigDecimal("1000"))).hasSize(4);
+        for (ShopItem item : all) {
+            assertThat(repository.findByQuantityGreaterThanOrderByPrice(item.getQuantity() - 1))
+                    .extracting(ShopItem::getId).contains(item.getId());
+        }
+    }
+
+    private static ShopItem item(String id, String name, String price, int quantity) {
+        return new ShopItem(id, name, name + " description", new BigDecimal(price), quantity);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for OffHeapCatalogStore
+ */
+class OffHeapCatalogStoreTest {
+
+    @Test
+    void putAndFind_roundTripAllFields() {
+        // Given
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        ShopItem objectIdItem = item("65f1c0ffee00000000000001", "Keyboard", "49.90", 12);
+        objectIdItem.setLastModified(7);
+        ShopItem stringIdItem = new ShopItem("sku-é-42", "Mug", null, null, 0);
+
+        // When
+        store.put(objectIdItem);
+        store.put(stringIdItem);
+
+        // Then
+        assertThat(store.find("65f1c0ffee00000000000001")).get().usingRecursiveComparison().isEqualTo(objectIdItem);
+        assertThat(store.find("sku-é-42")).get().usingRecursiveComparison().isEqualTo(stringIdItem);
+        assertThat(store.find("65F1C0FFEE00000000000001")).isEmpty();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void put_roundTripsCompactAndLongPriceForms() {
+        // Given: up to 18 digits are stored as a long, wider prices as unscaled bytes
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        String[] prices = {"0", "49.90", "-0.001", "1E+3", "999999999999999999", "12345678901234567890.12"};
+
+        // When
+        for (int i = 0; i < prices.length; i++) {
+            store.put(item("p" + i, "Item", prices[i], 1));
+        }
+
+        // Then
+        for (int i = 0; i < prices.length; i++) {
+            assertThat(store.find("p" + i)).get().extracting(ShopItem::getPrice).isEqualTo(new BigDecimal(prices[i]));
+        }
+    }
+
+    @Test
+    void find_decodesAFreshCopyEachTime() {
+        // Given
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        store.put(item("a1", "Keyboard", "49.90", 12));
+
+        // When
+        store.find("a1").orElseThrow().setQuantity(0);
+
+        // Then
+        assertThat(store.find("a1")).get().extracting(ShopItem::getQuantity).isEqualTo(12);
+    }
+
+    @Test
+    void compute_seesCurrentItemAndRemovesOnNull() {
+        // Given
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        store.put(item("a1", "Keyboard", "49.90", 12));
+
+        // When
+        ShopItem updated = store.compute("a1", current -> {
+            current.setQuantity(current.getQuantity() + 3);
+            return current;
+        });
+        ShopItem missing = store.compute("a2", current -> current);
+
+        // Then
+        assertThat(updated.getQuantity()).isEqualTo(15);
+        assertThat(store.find("a1")).get().extracting(ShopItem::getQuantity).isEqualTo(15);
+        assertThat(missing).isNull();
+        assertThat(store.remove("a1")).isTrue();
+        assertThat(store.remove("a1")).isFalse();
+        assertThat(store.contains("a1")).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void compute_rejectsItemWithAnotherId() {
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        assertThatThrownBy(() -> store.compute("a1", current -> item("a2", "Mouse", "1.00", 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void put_recordLargerThanChunk_isRejected() {
+        OffHeapCatalogStore store = new OffHeapCatalogStore(64, 16);
+        assertThatThrownBy(() -> store.put(item("a1", "x".repeat(100), "1.00", 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void randomWorkload_matchesHashMapThroughResizesDeletesAndCompaction() {
+        // Given: small chunks and table, so the workload resizes, spans chunks and compacts
+        OffHeapCatalogStore store = new OffHeapCatalogStore(4096, 16);
+        Map<String, ShopItem> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            String id = String.format("%024x", random.nextInt(5_000));
+            if (random.nextInt(4) == 0) {
+                assertThat(store.remove(id)).isEqualTo(expected.remove(id) != null);
+            } else {
+                ShopItem item = item(id, "Item " + i, BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString(),
+                        random.nextInt(500));
+                store.put(item);
+                expected.put(id, item);
+            }
+        }
+
+        // Then
+        assertThat(store.size()).isEqualTo(expected.size());
+        for (int i = 0; i < 5_000; i++) {
+            String id = String.format("%024x", i);
+            ShopItem item = expected.get(id);
+            if (item == null) {
+                assertThat(store.find(id)).isEmpty();
+            } else {
+                assertThat(store.find(id)).get().usingRecursiveComparison().isEqualTo(item);
+            }
+        }
+        // Compaction keeps chunks close to the live records
+        assertThat(store.offHeapBytes()).isLessThan(4 * store.liveBytes() + 1024 * 1024);
+    }
+
+    @Test
+    void clear_dropsEverything() {
+        // Given
+        OffHeapCatalogStore store = new OffHeapCatalogStore();
+        store.put(item("a1", "Keyboard", "49.90", 12));
+
+        // When
+        store.clear();
+
+        // Then
+        assertThat(store.size()).isZero();
+        assertThat(store.liveBytes()).isZero();
+        assertThat(store.find("a1")).isEmpty();
+    }
+
+    private static ShopItem item(String id, String name, String price, int quantity) {
+        return new ShopItem(id, name, name + " description", new BigDecimal(price), quantity);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round-trip equivalence of ShopItemCodec with Spring Data's MappingMongoConverter
+ * (configured like Spring Boot does by default)
+ */
+class ShopItemCodecTest {
+
+    private final ShopItemCodec codec = new ShopItemCodec();
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    static Stream<ShopItem> items() {
+        ShopItem withSequence = new ShopItem("65a1b2c3d4e5f60718293a4b", "Laptop", "Gaming",
+                new BigDecimal("1500.00"), 5);
+        withSequence.setLastModified(42L);
+        return Stream.of(
+                withSequence,
+                new ShopItem("not-an-object-id", "Mouse", "Wireless", new BigDecimal("25.5"), 0),
+                new ShopItem("65a1b2c3d4e5f60718293a4c", "Cable", null, new BigDecimal("0"), 100),
+                new ShopItem(null, "Unsaved", "No id yet", new BigDecimal("1E+3"), 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void encode_producesSameDocumentAsConverter(ShopItem item) {
+        assertThat(encodeWithCodec(item)).isEqualTo(encodeWithConverter(item));
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void decode_readsConverterDocumentIntoEqualItem(ShopItem item) {
+        ShopItem decoded = decodeWithCodec(encodeWithConverter(item));
+
+        assertThat(decoded).isEqualTo(converter.read(ShopItem.class, toDocument(encodeWithConverter(item))));
+        assertThat(decoded.getLastModified()).isEqualTo(item.getLastModified());
+    }
+
+    @ParameterizedTest
+    @MethodSource("items")
+    void converter_readsCodecDocumentIntoEqualItem(ShopItem item) {
+        ShopItem read = converter.read(ShopItem.class, toDocument(encodeWithCodec(item)));
+
+        assertThat(read).isEqualTo(item);
+        assertThat(read.getLastModified()).isEqualTo(item.getLastModified());
+    }
+
+    @Test
+    void decode_numericPriceAndQuantity_fromDocumentsWrittenByDriver() {
+        BsonDocument document = BsonDocument.parse(
+                "{ _id: 'x', name: 'n', description: null, price: 1.5, quantity: { $numberLong: '3' }, lastModified: 7, extra: [1, 2] }");
+
+        ShopItem decoded = decodeWithCodec(document);
+
+        assertThat(decoded).isEqualTo(new ShopItem("x", "n", null, new BigDecimal("1.5"), 3));
+        assertThat(decoded.getLastModified()).isEqualTo(7L);
+    }
+
+    @Test
+    void decode_decimalAndIntegerPrices() {
+        BsonDocument decimal = new BsonDocument("price",
+                new BsonDecimal128(new Decimal128(new BigDecimal("9.99"))));
+        BsonDocument int32 = BsonDocument.parse("{ price: 4, quantity: 2.0 }");
+        BsonDocument int64 = BsonDocument.parse("{ price: { $numberLong: '5' } }");
+
+        assertThat(decodeWithCodec(decimal).getPrice()).isEqualByComparingTo("9.99");
+        assertThat(decodeWithCodec(int32).getPrice()).isEqualByComparingTo("4");
+        assertThat(decodeWithCodec(int32).getQuantity()).isEqualTo(2);
+        assertThat(decodeWithCodec(int64).getPrice()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void decode_nullFields_leftUnset() {
+        BsonDocument document = new BsonDocument("name", BsonNull.VALUE)
+                .append("_class", new BsonString(ShopItemCodec.TYPE_HINT));
+
+        ShopItem decoded = decodeWithCodec(document);
+
+        assertThat(decoded.getName()).isNull();
+        assertThat(codec.getEncoderClass()).isEqualTo(ShopItem.class);
+    }
+
+    private BsonDocument encodeWithCodec(ShopItem item) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), item, EncoderContext.builder().build());
+        return document;
+    }
+
+    private BsonDocument encodeWithConverter(ShopItem item) {
+        Document document = new Document();
+        converter.write(item, document);
+        return document.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private ShopItem decodeWithCodec(BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    private static Document toDocument(BsonDocument document) {
+        return MongoClientSettings.getDefaultCodecRegistry().get(Document.class)
+                .decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
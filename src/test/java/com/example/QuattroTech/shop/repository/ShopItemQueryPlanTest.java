@@ -0,0 +1,179 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemQuery.SortField;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ShopItemQueryPlan
+ */
+class ShopItemQueryPlanTest {
+
+    // ========================================
+    // INDEX CHOICE
+    // ========================================
+
+    @Test
+    void of_sortedWithSortFieldBound_hintsSortIndex() {
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(
+                query("Key", null, null, 1, 10, SortField.QUANTITY, true));
+        assertThat(plan.index()).isEqualTo("quantity");
+        // With nothing else to filter, the sort index alone serves the query
+        assertThat(ShopItemQueryPlan.of(query(null, null, null, null, null, SortField.QUANTITY, true)).index())
+                .isEqualTo("quantity");
+        assertThat(ShopItemQueryPlan.of(query(null, null, null, 0, null, SortField.QUANTITY, false)).index())
+                .isEqualTo("quantity");
+    }
+
+    @Test
+    void of_sortedWithUnboundSortFieldAndOtherFilters_isRejected() {
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query("Zz", null, null, null, null, SortField.QUANTITY, false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Sorting by quantity with other filters needs a quantity filter");
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(
+                query(null, null, new BigDecimal("5"), 490, 499, SortField.NAME, false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("whole name index");
+        // A quantity minimum alone does not count as one, however small
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query("Zz", null, null, 0, null, SortField.QUANTITY, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query("Zz", null, null, 1, null, SortField.QUANTITY, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void of_unsorted_prefersNameThenQuantity() {
+        assertThat(ShopItemQueryPlan.of(query("Key", null, null, 1, null, null, false)).index()).isEqualTo("name");
+        assertThat(ShopItemQueryPlan.of(query(null, null, null, 1, 9, null, false)).index()).isEqualTo("quantity");
+    }
+
+    @Test
+    void of_quantityMinimumAlone_boundsNothing() {
+        // In-stock items are most of the catalog, so quantity >= 1 would walk nearly all the index
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(query(null, null, null, 1, null, null, false));
+
+        assertThat(plan.index()).isNull();
+        assertThat(plan.toQuery().getHint()).isNull();
+        assertThat(ShopItemQueryPlan.of(query(null, null, null, 1, null, SortField.QUANTITY, false)).index())
+                .isEqualTo("quantity");
+    }
+
+    @Test
+    void of_priceBoundedByAnotherIndex_isAccepted() {
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(
+                query(null, new BigDecimal("10"), new BigDecimal("20"), null, 5, null, false));
+        assertThat(plan.index()).isEqualTo("quantity");
+    }
+
+    @Test
+    void of_priceAlone_isRejected() {
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query(null, new BigDecimal("10"), null, null, null, null, false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no index covers price");
+        // Sorting on an index does not bound a price scan either
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(
+                query(null, null, new BigDecimal("10"), null, null, SortField.NAME, false)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Nor does a quantity minimum without a maximum
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query(null, new BigDecimal("10"), null, 0, null, null, false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no index covers price");
+        assertThatThrownBy(() -> ShopItemQueryPlan.of(query(null, new BigDecimal("10"), null, 1, null, null, false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no index covers price");
+    }
+
+    @Test
+    void of_noFiltersNoSort_scansNaturalOrderWithoutHint() {
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(query(null, null, null, null, null, null, false));
+
+        assertThat(plan.index()).isNull();
+        assertThat(plan.toQuery().getHint()).isNull();
+        assertThat(plan.toQuery().getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void sortField_priceOrUnknown_isRejected() {
+        assertThatThrownBy(() -> SortField.of("price"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name, quantity");
+        assertThat(SortField.of("quantity")).isEqualTo(SortField.QUANTITY);
+    }
+
+    @Test
+    void query_invalidRangesOrLimit_areRejected() {
+        assertThatThrownBy(() -> query(null, new BigDecimal("2"), new BigDecimal("1"), null, null, null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> query(null, null, null, 5, 4, null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShopItemQuery(null, null, null, null, null, null, false, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShopItemQuery(null, null, null, null, null, null, false, ShopItemQuery.MAX_LIMIT + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ========================================
+    // MONGO QUERY
+    // ========================================
+
+    @Test
+    void toQuery_buildsCriteriaSortHintAndLimit() {
+        // Given
+        ShopItemQueryPlan plan = ShopItemQueryPlan.of(
+                query("Key.", new BigDecimal("10.50"), new BigDecimal("20"), 1, 10, SortField.NAME, true));
+
+        // When
+        Query query = plan.toQuery();
+
+        // Then
+        Document filter = query.getQueryObject();
+        assertThat(((Pattern) filter.get("name")).pattern()).isEqualTo("^\\QKey.\\E");
+        assertThat(filter.get("quantity", Document.class)).isEqualTo(new Document("$gte", 1).append("$lte", 10));
+        Document price = new Document("$toDecimal", "$price");
+        assertThat(filter.get("$expr", Document.class)).isEqualTo(new Document("$and", List.of(
+                new Document("$gte", List.of(price, new Decimal128(new BigDecimal("10.50")))),
+                new Document("$lte", List.of(price, new Decimal128(new BigDecimal("20")))))));
+        assertThat(query.getSortObject()).isEqualTo(new Document("name", -1));
+        assertThat(Document.parse(query.getHint())).isEqualTo(new Document("name", 1));
+        assertThat(query.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void toQuery_priceExpressionSurvivesQueryMapping() {
+        // Given: what MongoTemplate sends when the codec read path is off
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(MongoCustomConversions.create(config -> {}).getSimpleTypeHolder());
+        QueryMapper mapper = new QueryMapper(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        Query query = ShopItemQueryPlan.of(query(null, null, new BigDecimal("9.99"), 1, 100, null, false)).toQuery();
+
+        // When
+        Document mapped = mapper.getMappedObject(query.getQueryObject(),
+                mappingContext.getPersistentEntity(ShopItem.class));
+
+        // Then
+        assertThat(mapped.get("$expr")).isEqualTo(new Document("$lte", List.of(
+                new Document("$toDecimal", "$price"), new Decimal128(new BigDecimal("9.99")))));
+        assertThat(mapped.get("quantity")).isEqualTo(new Document("$gte", 1).append("$lte", 100));
+    }
+
+    private static ShopItemQuery query(String namePrefix, BigDecimal minPrice, BigDecimal maxPrice,
+                                       Integer minQuantity, Integer maxQuantity, SortField sort, boolean descending) {
+        return new ShopItemQuery(namePrefix, minPrice, maxPrice, minQuantity, maxQuantity, sort, descending, 50);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.QuattroTech.shop.repository;
+
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.MongoActionOperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TieredWriteConcernResolver
+ */
+class TieredWriteConcernResolverTest {
+
+    private final MongoAction insert = new MongoAction(WriteConcern.W2, MongoActionOperation.INSERT,
+            "shopItems", Object.class, new Document(), null);
+
+    private SimpleMeterRegistry registry;
+    private TieredWriteConcernResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        resolver = new TieredWriteConcernResolver();
+        resolver.bindTo(registry);
+    }
+
+    @Test
+    void resolve_outsideOperation_keepsDefaultAndCountsAsStandard() {
+        // When
+        WriteConcern resolved = resolver.resolve(insert);
+
+        // Then
+        assertThat(resolved).isEqualTo(WriteConcern.W2);
+        assertThat(writes("standard")).isEqualTo(1);
+    }
+
+    @Test
+    void resolve_insideOperation_usesTierWriteConcern() {
+        // When
+        WriteConcern strict = resolver.run(DurabilityTier.STRICT, () -> resolver.resolve(insert));
+        WriteConcern fast = resolver.run(DurabilityTier.FAST, () -> resolver.resolve(insert));
+
+        // Then
+        assertThat(strict).isEqualTo(WriteConcern.MAJORITY.withJournal(true));
+        assertThat(fast).isEqualTo(WriteConcern.W1.withJournal(false));
+        assertThat(writes("strict")).isEqualTo(1);
+        assertThat(writes("fast")).isEqualTo(1);
+        assertThat(registry.get("shop.items.durability.operation").tag("tier", "strict").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void run_nested_restoresOuterTierAndClearsAfterwards() {
+        // When
+        DurabilityTier afterInner = resolver.run(DurabilityTier.STRICT, () -> {
+            resolver.run(DurabilityTier.FAST, resolver::currentTier);
+            return resolver.currentTier();
+        });
+
+        // Then
+        assertThat(afterInner).isEqualTo(DurabilityTier.STRICT);
+        assertThat(resolver.currentTier()).isEqualTo(DurabilityTier.STANDARD);
+        assertThat(resolver.currentWriteConcern()).isNull();
+    }
+
+    private double writes(String tier) {
+        return registry.get("shop.items.durability.writes").tag("tier", tier).counter().count();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.example.QuattroTech.shop.service.ShopItemServiceBuilder.serviceFor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Load test for the bulkheads: a storm of searches that never finish on their own
+ * runs against a simulated Mongo pool of POOL_SIZE connections.
+ * Without bulkheads the searches take every connection and a point read finds none;
+ * with bulkheads the searches hold only the list share, the rest of the storm is
+ * queued or shed, and point reads still get a connection.
+ * Everything is checked on permits and queue sizes, nothing on timing.
+ */
+class BulkheadLoadTest {
+
+    private static final int POOL_SIZE = 10;
+    private static final int SEARCH_THREADS = 32;
+    private static final int LIST_CONCURRENT = 4;
+    private static final int LIST_QUEUED = 8;
+
+    private final Semaphore pool = new Semaphore(POOL_SIZE, true);
+    private final CountDownLatch searchesDone = new CountDownLatch(1);
+
+    @Test
+    void searchStorm_withoutBulkheads_takesEveryConnection() throws Exception {
+        // Given
+        ShopItemServiceImpl service = service(null);
+        ExecutorService threads = Executors.newFixedThreadPool(SEARCH_THREADS);
+
+        // When
+        List<Future<?>> searches = startSearches(service, threads);
+        awaitCondition(() -> pool.availablePermits() == 0);
+
+        // Then - a point read has no connection left
+        assertThatThrownBy(() -> service.getItemById("1")).hasMessageContaining("no connection");
+
+        searchesDone.countDown();
+        for (Future<?> search : searches) {
+            search.get(10, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+    }
+
+    @Test
+    void searchStorm_withBulkheads_leavesConnectionsForPointReads() throws Exception {
+        // Given
+        ShopItemBulkheads bulkheads = new ShopItemBulkheads(
+                LIST_CONCURRENT, LIST_QUEUED, 60_000, 4, 50, 200, 2, 10, 1_000);
+        ShopItemServiceImpl service = service(bulkheads);
+        ExecutorService threads = Executors.newFixedThreadPool(SEARCH_THREADS);
+
+        // When
+        List<Future<?>> searches = startSearches(service, threads);
+        int shed = SEARCH_THREADS - LIST_CONCURRENT - LIST_QUEUED;
+        awaitCondition(() -> bulkheads.list().rejectedCount() == shed
+                && bulkheads.list().active() == LIST_CONCURRENT
+                && bulkheads.list().queued() == LIST_QUEUED);
+
+        // Then - searches hold only the list share, the rest of the pool serves point reads
+        assertThat(pool.availablePermits()).isEqualTo(POOL_SIZE - LIST_CONCURRENT);
+        assertThat(service.getItemById("1")).isPresent();
+        assertThat(bulkheads.pointRead().rejectedCount()).isZero();
+
+        searchesDone.countDown();
+        int rejected = 0;
+        for (Future<?> search : searches) {
+            try {
+                search.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BulkheadFullException.class);
+                rejected++;
+            }
+        }
+        assertThat(rejected).isEqualTo(shed);
+        assertThat(bulkheads.list().active()).isZero();
+        assertThat(pool.availablePermits()).isEqualTo(POOL_SIZE);
+        threads.shutdown();
+    }
+
+    private ShopItemServiceImpl service(ShopItemBulkheads bulkheads) {
+        ShopItemRepository repository = Mockito.mock(ShopItemRepository.class);
+        // Like the driver, a search waits for a pooled connection and holds it while Mongo works
+        given(repository.findByNameContainingIgnoreCase(anyString())).willAnswer(inv -> {
+            pool.acquire();
+            try {
+                searchesDone.await();
+                return List.<ShopItem>of();
+            } finally {
+                pool.release();
+            }
+        });
+        // A point read that finds no free connection fails instead of waiting
+        given(repository.findById(anyString())).willAnswer(inv -> {
+            if (!pool.tryAcquire()) {
+                throw new IllegalStateException("no connection");
+            }
+            pool.release();
+            return Optional.of(new ShopItem(inv.getArgument(0), "Item", "d", BigDecimal.ONE, 1));
+        });
+        return serviceFor(repository).bulkheads(bulkheads).build();
+    }
+
+    private List<Future<?>> startSearches(ShopItemServiceImpl service, ExecutorService threads) {
+        List<Future<?>> searches = new ArrayList<>();
+        for (int i = 0; i < SEARCH_THREADS; i++) {
+            // Distinct names, so single-flight cannot collapse the storm
+            String name = "name-" + i;
+            searches.add(threads.submit(() -> service.searchByName(name)));
+        }
+        return searches;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition reached in time").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
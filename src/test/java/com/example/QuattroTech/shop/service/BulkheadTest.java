@@ -0,0 +1,183 @@
+package com.example.QuattroTech.shop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for Bulkhead and ShopItemBulkheads
+ */
+class BulkheadTest {
+
+    @Test
+    void execute_freeSlot_runsOnCallerThread() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("list", 1, 0, 0);
+        Thread caller = Thread.currentThread();
+
+        // When
+        Thread runner = bulkhead.execute(Thread::currentThread);
+
+        // Then
+        assertThat(runner).isSameAs(caller);
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void execute_callThrows_releasesSlot() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("list", 1, 0, 0);
+
+        // When & Then
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void execute_queueFull_rejectsImmediately() throws Exception {
+        // Given - the only slot is held, nothing may queue
+        Bulkhead bulkhead = new Bulkhead("list", 1, 0, 10_000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> holder = pool.submit(() -> bulkhead.execute(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holding.await();
+
+        // When & Then
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> bulkhead.execute(() -> "x"))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("queue limit 0");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(bulkhead.rejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        holder.get();
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_queuedCallWaitsForSlot() throws Exception {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("write", 1, 1, 10_000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        pool.submit(() -> bulkhead.execute(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holding.await();
+
+        // When
+        Future<String> queued = pool.submit(() -> bulkhead.execute(() -> "done"));
+        while (bulkhead.queued() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        // Then
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(bulkhead.queued()).isZero();
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_waitLongerThanMaxWait_rejects() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("point-read", 0, 1, 20);
+
+        // When & Then
+        assertThatThrownBy(() -> bulkhead.execute(() -> "x"))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("no slot within 20 ms");
+        assertThat(bulkhead.queued()).isZero();
+        assertThat(bulkhead.rejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_interruptedWhileQueued_rejectsAndKeepsInterruptFlag() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("point-read", 0, 1, 10_000);
+        Thread.currentThread().interrupt();
+
+        // When & Then
+        assertThatThrownBy(() -> bulkhead.execute(() -> "x"))
+                .isInstanceOf(BulkheadFullException.class)
+                .satisfies(e -> assertThat(((BulkheadFullException) e).getBulkhead()).isEqualTo("point-read"));
+        assertThat(Thread.interrupted()).isTrue();
+    }
+
+    @Test
+    void stream_closedTwice_releasesOnce() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("list", 2, 0, 0);
+        Stream<String> stream = bulkhead.stream(() -> Stream.of("a"));
+        bulkhead.stream(Stream::empty);
+
+        // When
+        stream.close();
+        stream.close();
+
+        // Then - the unclosed second stream still holds its slot
+        assertThat(bulkhead.active()).isEqualTo(1);
+    }
+
+    @Test
+    void stream_openFails_releasesSlot() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("list", 1, 0, 0);
+
+        // When & Then
+        assertThatThrownBy(() -> bulkhead.stream(() -> {
+            throw new IllegalStateException("cursor");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void bindTo_exposesPerBulkheadMetrics() {
+        // Given
+        ShopItemBulkheads bulkheads = new ShopItemBulkheads(2, 0, 0, 5, 0, 0, 3, 0, 0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkheads.bindTo(registry);
+
+        // When
+        Stream<Object> open = bulkheads.list().stream(Stream::empty);
+        bulkheads.list().stream(Stream::empty);
+        assertThatThrownBy(() -> bulkheads.list().execute(() -> "x")).isInstanceOf(BulkheadFullException.class);
+
+        // Then
+        assertThat(registry.get("shop.items.bulkhead.max_concurrent").tag("bulkhead", "point-read").gauge().value())
+                .isEqualTo(5);
+        assertThat(registry.get("shop.items.bulkhead.active").tag("bulkhead", "list").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("shop.items.bulkhead.queued").tag("bulkhead", "write").gauge().value()).isZero();
+        assertThat(registry.get("shop.items.bulkhead.rejected").tag("bulkhead", "list").functionCounter().count())
+                .isEqualTo(1);
+        open.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
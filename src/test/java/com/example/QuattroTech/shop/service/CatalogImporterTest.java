@@ -0,0 +1,474 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ImportCheckpoint;
+import com.example.QuattroTech.shop.model.ImportReport;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogImporter
+ * Chunks of two rows and two parser threads, so ordering and resume cross chunk boundaries
+ */
+class CatalogImporterTest {
+
+    private static final String HEADER = "sku,Name,Price,Quantity,Description\n";
+
+    private ShopItemService shopItemService;
+    private ShopItemRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogImporter importer;
+
+    // Copies of every saved checkpoint, the importer keeps mutating its own instance
+    private final List<ImportCheckpoint> savedCheckpoints = Collections.synchronizedList(new ArrayList<>());
+    private final List<ShopItem> inserted = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        shopItemService = Mockito.mock(ShopItemService.class);
+        repository = Mockito.mock(ShopItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        given(repository.findImportCheckpoint(anyString())).willReturn(Optional.empty());
+        // Like the repository: no lock on a completed import or while another lease lasts
+        given(repository.lockImport(anyString(), anyString(), any(), any())).willAnswer(inv -> {
+            String importId = inv.getArgument(0);
+            Instant now = inv.getArgument(2);
+            ImportCheckpoint checkpoint = repository.findImportCheckpoint(importId)
+                    .orElseGet(() -> new ImportCheckpoint(importId));
+            if (checkpoint.isCompleted()
+                    || (checkpoint.getLockedUntil() != null && checkpoint.getLockedUntil().isAfter(now))) {
+                return Optional.empty();
+            }
+            checkpoint.setOwner(inv.getArgument(1));
+            checkpoint.setLockedUntil(inv.getArgument(3));
+            return Optional.of(checkpoint);
+        });
+        given(repository.saveImportCheckpoint(any())).willAnswer(inv -> {
+            savedCheckpoints.add(copy(inv.getArgument(0)));
+            return true;
+        });
+        given(shopItemService.insertItems(anyList())).willAnswer(inv -> {
+            List<ShopItem> items = inv.getArgument(0);
+            inserted.addAll(items);
+            return items;
+        });
+        importer = new CatalogImporter(shopItemService, repository, meterRegistry, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importer.shutdown();
+    }
+
+    private static ImportCheckpoint copy(ImportCheckpoint source) {
+        ImportCheckpoint copy = new ImportCheckpoint(source.getImportId());
+        copy.setCommittedRows(source.getCommittedRows());
+        copy.setImportedRows(source.getImportedRows());
+        copy.setRejectedRows(source.getRejectedRows());
+        copy.setByteOffset(source.getByteOffset());
+        copy.setCompleted(source.isCompleted());
+        copy.setOwner(source.getOwner());
+        copy.setLockedUntil(source.getLockedUntil());
+        copy.setError(source.getError());
+        return copy;
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importCsv_writesChunksInFileOrderAndRejectsInvalidRows() throws IOException {
+        // Given
+        String content = HEADER
+                + "A1,Laptop,999.99,5,\"Gaming, 16\"\"\"\n"
+                + "A2,Mouse,not-a-price,3,\n"
+                + "A3,Cable,1.50,10,\n"
+                + "A4,,5.00,1,\n"
+                + "A5,Desk,120,-1,\n"
+                + "A6,Chair,80,2\n"
+                + "A7,Monitor,250.00,4,\n";
+
+        // When
+        ImportReport report = importer.importCsv("supplier-1", csv(content));
+
+        // Then
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Laptop", "Cable", "Monitor");
+        assertThat(inserted.get(0).getDescription()).isEqualTo("Gaming, 16\"");
+        assertThat(inserted.get(1).getPrice()).isEqualByComparingTo(new BigDecimal("1.50"));
+        assertThat(inserted.get(1).getDescription()).isNull();
+        assertThat(report.importedRows()).isEqualTo(3);
+        assertThat(report.rejectedRows()).isEqualTo(4);
+        assertThat(report.rejections()).extracting(ImportReport.Rejection::row).containsExactly(2L, 4L, 5L, 6L);
+        assertThat(report.rejections().get(0).reason()).contains("Price is not a number");
+        assertThat(report.rejections().get(1).reason()).isEqualTo("Name must not be blank");
+        assertThat(report.rejections().get(2).reason()).isEqualTo("Quantity must be >= 0");
+        assertThat(report.rejections().get(3).reason()).isEqualTo("Expected 5 fields, got 4");
+        assertThat(report.bytesRead()).isEqualTo(content.getBytes(StandardCharsets.UTF_8).length - HEADER.length());
+        assertThat(meterRegistry.get("shop.items.import.rows").tag("outcome", "imported").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("shop.items.import.rows").tag("outcome", "rejected").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("shop.items.import.chunk").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void importCsv_checkpointsEveryChunkAndCompletes() throws IOException {
+        // Given
+        String content = HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\nA3,Cable,1,1,\n";
+
+        // When
+        importer.importCsv("supplier-1", csv(content));
+
+        // Then
+        assertThat(savedCheckpoints).extracting(ImportCheckpoint::getCommittedRows).containsExactly(2L, 3L, 3L);
+        assertThat(savedCheckpoints.get(0).getByteOffset()).isEqualTo(HEADER.length() + 29);
+        assertThat(savedCheckpoints).extracting(ImportCheckpoint::isCompleted).containsExactly(false, false, true);
+        // Every chunk renews the lease, completing releases it
+        assertThat(savedCheckpoints.get(0).getLockedUntil()).isAfter(Instant.now());
+        assertThat(savedCheckpoints.get(2).getLockedUntil()).isNull();
+        assertThat(savedCheckpoints).extracting(ImportCheckpoint::getOwner).doesNotContainNull().hasSize(3);
+    }
+
+    @Test
+    void importCsv_sameImportAndRow_derivesSameId() throws IOException {
+        // Given
+        String content = HEADER + "A1,Laptop,1,1,\n";
+
+        // When
+        importer.importCsv("supplier-1", csv(content));
+        importer.importCsv("supplier-2", csv(content));
+        importer.importCsv("supplier-1", csv(content));
+
+        // Then
+        assertThat(inserted.get(0).getId()).hasSize(24).isNotEqualTo(inserted.get(1).getId());
+        assertThat(inserted.get(2).getId()).isEqualTo(inserted.get(0).getId());
+    }
+
+    @Test
+    void importCsv_resume_skipsCommittedRows() throws IOException {
+        // Given - the first two rows were committed by an earlier run
+        String content = HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\nA3,Cable,1,1,\n";
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setCommittedRows(2);
+        checkpoint.setImportedRows(2);
+        checkpoint.setByteOffset(HEADER.length() + 29);
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When
+        ImportReport report = importer.importCsv("supplier-1", csv(content));
+
+        // Then
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Cable");
+        assertThat(report.resumedFromRow()).isEqualTo(2);
+        assertThat(report.importedRows()).isEqualTo(1);
+        assertThat(savedCheckpoints.get(savedCheckpoints.size() - 1).getImportedRows()).isEqualTo(3);
+    }
+
+    @Test
+    void importCsv_resumeWithDifferentInput_isRejected() {
+        // Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setCommittedRows(1);
+        checkpoint.setByteOffset(999);
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not match the checkpoint");
+        verifyNoInteractions(shopItemService);
+    }
+
+    @Test
+    void importCsv_chunkAlreadyWritten_insertsRemainingItemsOneByOne() throws IOException {
+        // Given - a crash between insertMany and the checkpoint left the first item behind
+        String content = HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\n";
+        given(shopItemService.insertItems(anyList()))
+                .willThrow(new DuplicateKeyException("E11000"))
+                .willThrow(new DuplicateKeyException("E11000"))
+                .willAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ImportReport report = importer.importCsv("supplier-1", csv(content));
+
+        // Then
+        verify(shopItemService, times(3)).insertItems(anyList());
+        assertThat(report.importedRows()).isEqualTo(2);
+    }
+
+    @Test
+    void importCsv_completedImport_isRejected() {
+        // Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setCompleted(true);
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv(HEADER)))
+                .isInstanceOf(ImportConflictException.class)
+                .hasMessageContaining("already completed");
+    }
+
+    @Test
+    void importCsv_lockedByAnotherRun_isRejected() {
+        // Given - another instance holds the lease
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setOwner("other-instance");
+        checkpoint.setLockedUntil(Instant.now().plusSeconds(60));
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n")))
+                .isInstanceOf(ImportConflictException.class)
+                .hasMessageContaining("already running");
+        verifyNoInteractions(shopItemService);
+        assertThat(savedCheckpoints).isEmpty();
+    }
+
+    @Test
+    void importCsv_expiredLease_isTakenOver() throws IOException {
+        // Given - the run holding the lock died without releasing it
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setOwner("dead-instance");
+        checkpoint.setLockedUntil(Instant.now().minusSeconds(1));
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When
+        ImportReport report = importer.importCsv("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n"));
+
+        // Then
+        assertThat(report.importedRows()).isEqualTo(1);
+        assertThat(savedCheckpoints).extracting(ImportCheckpoint::getOwner).doesNotContain("dead-instance");
+    }
+
+    @Test
+    void importCsv_takenOverMidRun_stopsWithoutCompleting() {
+        // Given - another run took the lock, so the owner-conditional save fails
+        willReturn(false).given(repository).saveImportCheckpoint(any());
+
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n")))
+                .isInstanceOf(ImportConflictException.class)
+                .hasMessageContaining("taken over by another run");
+        assertThat(meterRegistry.get("shop.items.import.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void importCsv_headerMissingRequiredColumn_isRejected() {
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv("name,price\nLaptop,1\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name, price and quantity");
+        assertThatThrownBy(() -> importer.importCsv("supplier-2", csv("")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("empty");
+    }
+
+    @Test
+    void importCsv_unterminatedQuote_rejectsRow() throws IOException {
+        // When
+        ImportReport report = importer.importCsv("supplier-1",
+                csv("name,price,quantity\n\"Laptop,1,1\n\nMouse,2,2\n"));
+
+        // Then - the blank line counts as a row but is neither imported nor rejected
+        assertThat(report.rejections()).containsExactly(new ImportReport.Rejection(1, "Unterminated quoted field"));
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Mouse");
+    }
+
+    @Test
+    void importCsv_lineLongerThanLimit_stopsTheImport() {
+        // Given
+        CatalogImporter limited = new CatalogImporter(shopItemService, repository, meterRegistry, 2, 2,
+                60_000, 40, CatalogImporter.DEFAULT_MAX_UPLOAD_BYTES);
+
+        // When & Then - the long line is never buffered whole
+        try {
+            assertThatThrownBy(() -> limited.importCsv("supplier-1",
+                    csv(HEADER + "A1,Laptop,1,1,\nA2," + "x".repeat(100) + ",1,1,\n")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("longer than 40 bytes");
+        } finally {
+            limited.shutdown();
+        }
+        assertThat(savedCheckpoints.get(savedCheckpoints.size() - 1).getError()).contains("longer than 40 bytes");
+    }
+
+    @Test
+    void importFile_resume_seeksToCheckpointOffset(@TempDir Path dir) throws IOException {
+        // Given
+        Path file = dir.resolve("catalog.csv");
+        Files.writeString(file, HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\nA3,Cable,1,1,\n");
+        ImportCheckpoint checkpoint = new ImportCheckpoint("catalog");
+        checkpoint.setCommittedRows(1);
+        checkpoint.setByteOffset(HEADER.length() + 15);
+        given(repository.findImportCheckpoint("catalog")).willReturn(Optional.of(checkpoint));
+
+        // When
+        ImportReport report = importer.importFile("catalog", file);
+
+        // Then
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Mouse", "Cable");
+        assertThat(report.bytesRead()).isEqualTo(28);
+        assertThat(savedCheckpoints.get(0).getCommittedRows()).isEqualTo(3);
+    }
+
+    @Test
+    void importFile_newImport_startsAfterHeader(@TempDir Path dir) throws IOException {
+        // Given
+        Path file = dir.resolve("catalog.csv");
+        Files.writeString(file, HEADER + "A1,Laptop,1,1,\n");
+
+        // When
+        ImportReport report = importer.importFile("catalog", file);
+
+        // Then
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Laptop");
+        assertThat(report.bytesRead()).isEqualTo(15);
+    }
+
+    @Test
+    void importCsv_writeFails_keepsLastCheckpointAndReleasesImport() {
+        // Given
+        given(shopItemService.insertItems(anyList())).willThrow(new IllegalStateException("mongo down"));
+
+        // When & Then
+        assertThatThrownBy(() -> importer.importCsv("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("mongo down");
+        // Only the release: no progress, the lock handed back with the reason
+        assertThat(savedCheckpoints).singleElement().satisfies(released -> {
+            assertThat(released.getCommittedRows()).isZero();
+            assertThat(released.getLockedUntil()).isNull();
+            assertThat(released.getError()).isEqualTo("mongo down");
+        });
+        assertThat(meterRegistry.get("shop.items.import.active").gauge().value()).isZero();
+    }
+
+    // ========================================
+    // BACKGROUND IMPORT
+    // ========================================
+
+    @Test
+    void startCsvImport_importsInBackground() throws Exception {
+        // Given - the write waits until the call has returned
+        CountDownLatch returned = new CountDownLatch(1);
+        given(shopItemService.insertItems(anyList())).willAnswer(inv -> {
+            assertThat(returned.await(5, TimeUnit.SECONDS)).isTrue();
+            inserted.addAll(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+
+        // When
+        importer.startCsvImport("supplier-1", csv(HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\nA3,Cable,1,1,\n"), -1);
+        returned.countDown();
+
+        // Then
+        awaitCondition(() -> meterRegistry.get("shop.items.import.active").gauge().value() == 0);
+        assertThat(inserted).extracting(ShopItem::getName).containsExactly("Laptop", "Mouse", "Cable");
+        assertThat(savedCheckpoints.get(savedCheckpoints.size() - 1).isCompleted()).isTrue();
+    }
+
+    @Test
+    void startCsvImport_badHeaderOrHeldLock_failsTheCall() {
+        // Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-2");
+        checkpoint.setLockedUntil(Instant.now().plusSeconds(60));
+        given(repository.findImportCheckpoint("supplier-2")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        assertThatThrownBy(() -> importer.startCsvImport("supplier-1", csv("name,price\nLaptop,1\n"), -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name, price and quantity");
+        verify(repository, never()).lockImport(eq("supplier-1"), anyString(), any(), any());
+        assertThatThrownBy(() -> importer.startCsvImport("supplier-2", csv(HEADER + "A1,Laptop,1,1,\n"), -1))
+                .isInstanceOf(ImportConflictException.class)
+                .hasMessageContaining("already running");
+        verifyNoInteractions(shopItemService);
+    }
+
+    @Test
+    void startCsvImport_failsInBackground_recordsError() throws Exception {
+        // Given - the upload does not match the stored checkpoint
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        checkpoint.setCommittedRows(1);
+        checkpoint.setByteOffset(999);
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When
+        importer.startCsvImport("supplier-1", csv(HEADER + "A1,Laptop,1,1,\n"), -1);
+
+        // Then
+        awaitCondition(() -> !savedCheckpoints.isEmpty());
+        assertThat(savedCheckpoints.get(0).getError()).contains("does not match the checkpoint");
+        assertThat(savedCheckpoints.get(0).getLockedUntil()).isNull();
+        verifyNoInteractions(shopItemService);
+    }
+
+    @Test
+    void startCsvImport_uploadOverLimit_isRefusedBeforeLocking() {
+        // Given
+        CatalogImporter limited = new CatalogImporter(shopItemService, repository, meterRegistry, 2, 2,
+                60_000, CatalogImporter.DEFAULT_MAX_LINE_BYTES, 40);
+        String content = HEADER + "A1,Laptop,1,1,\nA2,Mouse,1,1,\n";
+
+        // When & Then - by declared length, and while copying when no length is declared
+        try {
+            assertThatThrownBy(() -> limited.startCsvImport("supplier-1", csv(content), content.length()))
+                    .isInstanceOf(ImportTooLargeException.class);
+            assertThatThrownBy(() -> limited.startCsvImport("supplier-1", csv(content), -1))
+                    .isInstanceOf(ImportTooLargeException.class)
+                    .hasMessageContaining("40 bytes");
+        } finally {
+            limited.shutdown();
+        }
+        verify(repository, never()).lockImport(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void progress_returnsStoredCheckpoint() {
+        // Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint("supplier-1");
+        given(repository.findImportCheckpoint("supplier-1")).willReturn(Optional.of(checkpoint));
+
+        // When & Then
+        assertThat(importer.progress("supplier-1")).containsSame(checkpoint);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition reached in time").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
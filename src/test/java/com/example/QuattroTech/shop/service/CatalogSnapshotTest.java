@@ -0,0 +1,409 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.CatalogSnapshotFile;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogSnapshot
+ * The follower runs on the test thread against a scripted change stream cursor
+ */
+class CatalogSnapshotTest {
+
+    private static final String LAPTOP_ID = "65a000000000000000000001";
+    private static final String MOUSE_ID = "65a000000000000000000002";
+    private static final BsonDocument SNAPSHOT_TOKEN = token("snapshot");
+
+    @TempDir
+    Path dir;
+
+    private Path path;
+    private ShopItemRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        path = dir.resolve("catalog.snapshot");
+        repository = Mockito.mock(ShopItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private static BsonDocument token(String value) {
+        return new BsonDocument("_data", new BsonString(value));
+    }
+
+    private static ShopItem item(String id, String name, int quantity, long lastModified) {
+        ShopItem item = new ShopItem(id, name, null, new BigDecimal("9.99"), quantity);
+        item.setLastModified(lastModified);
+        return item;
+    }
+
+    private static ChangeStreamDocument<ShopItem> event(OperationType type, String id, ShopItem fullDocument) {
+        return new ChangeStreamDocument<>(type.getValue(), token(id + type.getValue()), null, null, fullDocument, null,
+                new BsonDocument("_id", new BsonObjectId(new ObjectId(id))), null, null, null, null, null, null, null);
+    }
+
+    private CatalogSnapshot snapshot(long intervalMillis) {
+        return new CatalogSnapshot(repository, meterRegistry, path.toString(), intervalMillis, 1);
+    }
+
+    private void writeSnapshotFile(ShopItem... items) throws IOException {
+        CatalogSnapshotFile.write(path, SNAPSHOT_TOKEN, List.of(items).iterator());
+    }
+
+    /**
+     * A cursor returning the events in order, then stopping the follower.
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> cursor(
+            CatalogSnapshot snapshot, BsonDocument position, ChangeStreamDocument<ShopItem>... events) throws Exception {
+        MongoChangeStreamCursor<ChangeStreamDocument<ShopItem>> cursor = mock(MongoChangeStreamCursor.class);
+        Deque<ChangeStreamDocument<ShopItem>> remaining = new ArrayDeque<>(List.of(events));
+        given(cursor.tryNext()).willAnswer(inv -> {
+            if (remaining.isEmpty()) {
+                snapshot.stop();
+                return null;
+            }
+            return remaining.poll();
+        });
+        given(cursor.getResumeToken()).willReturn(position);
+        return cursor;
+    }
+
+    @Test
+    void constructor_mapsExistingSnapshotAndServesRightAway() throws IOException {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+
+        // When
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // Then
+        assertThat(snapshot.isServing()).isTrue();
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getName).isEqualTo("Laptop");
+        assertThat(snapshot.find(MOUSE_ID)).isEmpty();
+        assertThat(meterRegistry.get("shop.items.snapshot.load").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("shop.items.snapshot.items").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_withoutSnapshot_doesNotServe() {
+        // When
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // Then
+        assertThat(snapshot.isServing()).isFalse();
+        assertThat(snapshot.findAll()).isEmpty();
+    }
+
+    @Test
+    void constructor_unreadableSnapshot_isIgnored() throws IOException {
+        // Given
+        Files.writeString(path, "garbage");
+
+        // When
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // Then
+        assertThat(snapshot.isServing()).isFalse();
+    }
+
+    @Test
+    void follow_resumesFromSnapshotTokenAndAppliesChanges() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1), item(MOUSE_ID, "Mouse", 2, 2));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        String cableId = new ObjectId().toHexString();
+        var cursor = cursor(snapshot, token("after"),
+                event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 4, 3)),
+                event(OperationType.DELETE, MOUSE_ID, null),
+                event(OperationType.INSERT, cableId, item(cableId, "Cable", 9, 4)));
+        given(repository.watchItems(SNAPSHOT_TOKEN)).willReturn(cursor);
+
+        // When
+        snapshot.follow();
+
+        // Then
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(4);
+        assertThat(snapshot.find(MOUSE_ID)).isEmpty();
+        assertThat(snapshot.findAll()).extracting(ShopItem::getName).containsExactlyInAnyOrder("Laptop", "Cable");
+        assertThat(meterRegistry.get("shop.items.snapshot.changes").counter().count()).isEqualTo(3);
+        verify(cursor).close();
+        verify(repository, never()).streamAll();
+    }
+
+    @Test
+    void follow_onStop_writesMergedSnapshotWithLatestToken() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1), item(MOUSE_ID, "Mouse", 2, 2));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        var cursor = cursor(snapshot, token("after"), event(OperationType.DELETE, MOUSE_ID, null));
+        given(repository.watchItems(SNAPSHOT_TOKEN)).willReturn(cursor);
+
+        // When
+        snapshot.follow();
+
+        // Then - a restart resumes from the new token with the merged items
+        CatalogSnapshotFile written = CatalogSnapshotFile.map(path);
+        assertThat(written.resumeToken()).isEqualTo(token("after"));
+        assertThat(written.size()).isEqualTo(1);
+        assertThat(written.find(LAPTOP_ID)).isPresent();
+        assertThat(meterRegistry.get("shop.items.snapshot.overlay").gauge().value()).isZero();
+        assertThat(meterRegistry.get("shop.items.snapshot.write").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void follow_intervalElapsed_writesSnapshotWhileFollowing() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(0);
+        var cursor = cursor(snapshot, token("after"), event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 1, 2)));
+        given(repository.watchItems(SNAPSHOT_TOKEN)).willReturn(cursor);
+
+        // When
+        snapshot.follow();
+
+        // Then
+        assertThat(meterRegistry.get("shop.items.snapshot.write").timer().count()).isGreaterThanOrEqualTo(1);
+        assertThat(CatalogSnapshotFile.map(path).find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(1);
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(1);
+    }
+
+    @Test
+    void follow_withoutSnapshot_rebuildsFromFullScanThenServes() throws Exception {
+        // Given
+        CatalogSnapshot snapshot = snapshot(60_000);
+        var cursor = cursor(snapshot, token("start"));
+        given(repository.watchItems(isNull())).willReturn(cursor);
+        given(repository.streamAll()).willReturn(Stream.of(item(LAPTOP_ID, "Laptop", 5, 1)));
+
+        // When
+        snapshot.follow();
+
+        // Then
+        assertThat(snapshot.isServing()).isTrue();
+        assertThat(snapshot.find(LAPTOP_ID)).isPresent();
+        assertThat(CatalogSnapshotFile.map(path).resumeToken()).isEqualTo(token("start"));
+        assertThat(meterRegistry.get("shop.items.snapshot.rebuild").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void follow_historyLost_rebuildsFromFullScan() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Stale", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        snapshot.put(item(MOUSE_ID, "Stale overlay", 1, 2));
+        var cursor = cursor(snapshot, token("start"));
+        given(repository.watchItems(SNAPSHOT_TOKEN)).willThrow(mongoError(286));
+        given(repository.watchItems(isNull())).willAnswer(inv -> {
+            assertThat(snapshot.isServing()).isFalse();
+            return cursor;
+        });
+        given(repository.streamAll()).willReturn(Stream.of(item(LAPTOP_ID, "Fresh", 5, 9)));
+
+        // When
+        snapshot.follow();
+
+        // Then
+        assertThat(snapshot.findAll()).extracting(ShopItem::getName).containsExactly("Fresh");
+        assertThat(snapshot.isServing()).isTrue();
+    }
+
+    private static MongoCommandException mongoError(int code) {
+        return new MongoCommandException(
+                new BsonDocument("code", new BsonInt32(code)).append("errmsg", new BsonString("failed")),
+                new ServerAddress());
+    }
+
+    @Test
+    void follow_streamFails_stopsServingAndRetries() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        var cursor = cursor(snapshot, token("after"));
+        given(repository.watchItems(SNAPSHOT_TOKEN))
+                .willThrow(mongoError(6))
+                .willAnswer(inv -> {
+                    assertThat(snapshot.isServing()).isFalse();
+                    return cursor;
+                });
+
+        // When
+        snapshot.follow();
+
+        // Then
+        verify(repository, times(2)).watchItems(SNAPSHOT_TOKEN);
+        assertThat(snapshot.isServing()).isTrue();
+    }
+
+    @Test
+    void follow_collectionDropped_rebuilds() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        var dropped = cursor(snapshot, token("dropped"), event(OperationType.DROP, LAPTOP_ID, null));
+        var fresh = cursor(snapshot, token("fresh"));
+        given(repository.watchItems(SNAPSHOT_TOKEN)).willReturn(dropped);
+        given(repository.watchItems(isNull())).willReturn(fresh);
+        given(repository.streamAll()).willReturn(Stream.empty());
+
+        // When
+        snapshot.follow();
+
+        // Then
+        assertThat(snapshot.findAll()).isEmpty();
+        verify(repository).streamAll();
+        verify(dropped).close();
+    }
+
+    @Test
+    void put_olderChangeEvent_doesNotReplaceLocalWrite() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        snapshot.put(item(LAPTOP_ID, "Laptop", 3, 10));
+
+        // When
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 4, 9)));
+
+        // Then
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(3);
+    }
+
+    @Test
+    void put_streamReachesLocalWrite_laterEventsReplaceIt() throws Exception {
+        // Given - sequence 9 was allocated first but committed after the local write's 10
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        snapshot.put(item(LAPTOP_ID, "Laptop", 3, 10));
+
+        // When
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 3, 10)));
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 4, 9)));
+
+        // Then - the stream's last event is what Mongo holds
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(4);
+    }
+
+    @Test
+    void applyEvent_lowerSequenceAfterHigher_replacesIt() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // When - events come in commit order, whatever their sequences
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 7, 12)));
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 6, 11)));
+
+        // Then
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(6);
+    }
+
+    @Test
+    void adjustQuantity_appliesDeltaToCurrentView() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // When
+        snapshot.adjustQuantity(LAPTOP_ID, -2, 10);
+        snapshot.adjustQuantity(LAPTOP_ID, -1, 11);
+        snapshot.adjustQuantity(MOUSE_ID, 4, 12);
+
+        // Then - the mouse was never seen, so there is nothing to apply the delta to
+        assertThat(snapshot.find(LAPTOP_ID)).get()
+                .extracting(ShopItem::getQuantity, ShopItem::getLastModified)
+                .containsExactly(2, 11L);
+        assertThat(snapshot.find(MOUSE_ID)).isEmpty();
+    }
+
+    @Test
+    void adjustQuantity_olderThanLocalWrite_keepsTheWrite() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+        snapshot.put(item(LAPTOP_ID, "Laptop", 8, 12));
+
+        // When
+        snapshot.adjustQuantity(LAPTOP_ID, -2, 10);
+
+        // Then - the event of sequence 12 carries Mongo's state once it arrives
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getQuantity).isEqualTo(8);
+    }
+
+    @Test
+    void remove_localDelete_hidesItemUntilNewerWrite() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // When
+        snapshot.remove(LAPTOP_ID, 10);
+        snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, item(LAPTOP_ID, "Laptop", 4, 9)));
+
+        // Then
+        assertThat(snapshot.find(LAPTOP_ID)).isEmpty();
+        assertThat(snapshot.findAll()).isEmpty();
+    }
+
+    @Test
+    void applyEvent_updateOfDeletedItem_removesIt() throws Exception {
+        // Given
+        writeSnapshotFile(item(LAPTOP_ID, "Laptop", 5, 1));
+        CatalogSnapshot snapshot = snapshot(60_000);
+
+        // When
+        boolean open = snapshot.applyEvent(event(OperationType.UPDATE, LAPTOP_ID, null));
+
+        // Then
+        assertThat(open).isTrue();
+        assertThat(snapshot.find(LAPTOP_ID)).isEmpty();
+    }
+
+    @Test
+    void find_returnsCopies() throws Exception {
+        // Given
+        CatalogSnapshot snapshot = snapshot(60_000);
+        ShopItem written = item(LAPTOP_ID, "Laptop", 5, 1);
+        snapshot.put(written);
+
+        // When
+        written.setName("Changed by caller");
+        snapshot.find(LAPTOP_ID).orElseThrow().setName("Changed by reader");
+
+        // Then
+        assertThat(snapshot.find(LAPTOP_ID)).get().extracting(ShopItem::getName).isEqualTo("Laptop");
+        assertThat(snapshot.streamAll()).extracting(ShopItem::getName).containsExactly("Laptop");
+    }
+}
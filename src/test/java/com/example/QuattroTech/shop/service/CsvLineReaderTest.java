@@ -0,0 +1,94 @@
+package com.example.QuattroTech.shop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CsvLineReader
+ */
+class CsvLineReaderTest {
+
+    // Above the 64 KiB read buffer, so lines can span refills
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private static CsvLineReader reader(byte[] bytes, long startOffset) {
+        return new CsvLineReader(new ByteArrayInputStream(bytes), startOffset, MAX_LINE_BYTES);
+    }
+
+    @Test
+    void readLine_mixedLineEnds_tracksBytePosition() throws IOException {
+        // Given
+        CsvLineReader reader = reader("a,b\r\nc\nlast".getBytes(StandardCharsets.UTF_8), 0);
+
+        // When & Then
+        assertThat(reader.readLine()).isEqualTo("a,b");
+        assertThat(reader.position()).isEqualTo(5);
+        assertThat(reader.readLine()).isEqualTo("c");
+        assertThat(reader.position()).isEqualTo(7);
+        assertThat(reader.readLine()).isEqualTo("last");
+        assertThat(reader.position()).isEqualTo(11);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void readLine_byteOrderMark_skippedOnlyAtStreamStart() throws IOException {
+        // Given
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] bytes = new byte[bom.length + 5];
+        System.arraycopy(bom, 0, bytes, 0, bom.length);
+        System.arraycopy("name\n".getBytes(StandardCharsets.UTF_8), 0, bytes, bom.length, 5);
+
+        // When
+        CsvLineReader reader = reader(bytes, 0);
+
+        // Then - the mark still counts towards the byte position
+        assertThat(reader.readLine()).isEqualTo("name");
+        assertThat(reader.position()).isEqualTo(8);
+    }
+
+    @Test
+    void readLine_multiByteCharactersAcrossBufferRefills_decodesWholeLine() throws IOException {
+        // Given - a line longer than the 64 KiB read buffer
+        String longLine = "é".repeat(40_000);
+        byte[] bytes = (longLine + "\nnext\n").getBytes(StandardCharsets.UTF_8);
+
+        // When
+        CsvLineReader reader = reader(bytes, 0);
+
+        // Then
+        assertThat(reader.readLine()).isEqualTo(longLine);
+        assertThat(reader.readLine()).isEqualTo("next");
+        assertThat(reader.position()).isEqualTo(bytes.length);
+    }
+
+    @Test
+    void position_startOffset_isAddedToBytesRead() throws IOException {
+        // Given
+        CsvLineReader reader = reader("row\n".getBytes(StandardCharsets.UTF_8), 100);
+
+        // When
+        reader.readLine();
+
+        // Then
+        assertThat(reader.position()).isEqualTo(104);
+    }
+
+    @Test
+    void readLine_lineOverLimit_failsWithItsPosition() throws IOException {
+        // Given - 16 bytes fit, line end included
+        CsvLineReader reader = new CsvLineReader(new ByteArrayInputStream(
+                "exactly-15-byte\n0123456789abcdefX\n".getBytes(StandardCharsets.UTF_8)), 0, 16);
+
+        // When & Then
+        assertThat(reader.readLine()).isEqualTo("exactly-15-byte");
+        assertThatThrownBy(reader::readLine)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Line at byte 16 is longer than 16 bytes");
+    }
+}
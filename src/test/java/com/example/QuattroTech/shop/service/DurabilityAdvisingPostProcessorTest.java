@@ -0,0 +1,115 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static com.example.QuattroTech.shop.service.ShopItemServiceBuilder.serviceFor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for DurabilityAdvisingPostProcessor, proxying the real ShopItemServiceImpl
+ */
+class DurabilityAdvisingPostProcessorTest {
+
+    private ShopItemRepository repository;
+    private TieredWriteConcernResolver resolver;
+    private ShopItemService service;
+    private final List<DurabilityTier> observedTiers = new ArrayList<>();
+    private final List<WriteConcern> observedWriteConcerns = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(ShopItemRepository.class);
+        resolver = new TieredWriteConcernResolver();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("resolver", resolver));
+        DurabilityAdvisingPostProcessor postProcessor =
+                new DurabilityAdvisingPostProcessor(beanFactory.getBeanProvider(TieredWriteConcernResolver.class));
+        service = (ShopItemService) postProcessor.postProcessAfterInitialization(
+                serviceFor(repository).writeConcernResolver(resolver).build(), "shopItemService");
+
+        given(repository.writeInSequence(any())).willAnswer(inv -> inv.<LongFunction<?>>getArgument(0).apply(1L));
+        given(repository.save(any(ShopItem.class))).willAnswer(inv -> {
+            observedTiers.add(resolver.currentTier());
+            return inv.getArgument(0);
+        });
+        given(repository.insert(Mockito.<ShopItem>anyList())).willAnswer(inv -> {
+            observedTiers.add(resolver.currentTier());
+            return inv.getArgument(0);
+        });
+        given(repository.incrementQuantities(any(), Mockito.anyLong())).willAnswer(inv -> {
+            observedTiers.add(resolver.currentTier());
+            observedWriteConcerns.add(resolver.currentWriteConcern());
+            return QuantityUpdates.applied();
+        });
+        given(repository.findAll()).willAnswer(inv -> {
+            observedTiers.add(resolver.currentTier());
+            return List.of();
+        });
+    }
+
+    @Test
+    void annotatedOperations_runInTheirTier() {
+        // When
+        service.insertNewItem(new ShopItem("Laptop", null, new BigDecimal("10"), 1));
+        service.insertItems(List.of(new ShopItem("Mouse", null, new BigDecimal("5"), 1)));
+
+        // Then
+        assertThat(AopUtils.isAopProxy(service)).isTrue();
+        assertThat(observedTiers).containsExactly(DurabilityTier.STANDARD, DurabilityTier.FAST);
+        assertThat(resolver.currentTier()).isEqualTo(DurabilityTier.STANDARD);
+    }
+
+    @Test
+    void unannotatedOperations_passThrough() {
+        // When
+        service.getAllItems();
+
+        // Then
+        assertThat(observedTiers).containsExactly(DurabilityTier.STANDARD);
+    }
+
+    @Test
+    void adjustQuantity_withoutWriteBehind_incrementsWithMajorityWriteConcern() {
+        // When
+        service.adjustQuantity("1", -1);
+
+        // Then
+        assertThat(observedTiers).containsExactly(DurabilityTier.STRICT);
+        assertThat(observedWriteConcerns).singleElement().satisfies(writeConcern -> {
+            assertThat(writeConcern.getWString()).isEqualTo("majority");
+            assertThat(writeConcern.getJournal()).isTrue();
+        });
+        assertThat(resolver.currentTier()).isEqualTo(DurabilityTier.STANDARD);
+    }
+
+    @Test
+    void adjustQuantity_withWriteBehind_onlyBuffersOnTheCallingThread() {
+        // Given
+        QuantityWriteBehindBuffer buffer = Mockito.mock(QuantityWriteBehindBuffer.class);
+        ShopItemService buffered = serviceFor(repository).quantityBuffer(buffer).writeConcernResolver(resolver).build();
+
+        // When
+        buffered.adjustQuantity("1", -1);
+
+        // Then
+        Mockito.verify(buffer).add("1", -1);
+        assertThat(observedTiers).isEmpty();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InsertGroupCommitter
+ * The first batch is held on a latch so the following inserts pile up in the queue
+ */
+class InsertGroupCommitterTest {
+
+    private ShopItemRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private InsertGroupCommitter committer;
+    private ExecutorService callers;
+
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(ShopItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+        given(repository.writeInSequence(any())).willAnswer(inv -> inv.<LongFunction<?>>getArgument(0).apply(7L));
+        given(repository.insert(anyList())).willAnswer(inv -> {
+            List<ShopItem> items = inv.getArgument(0);
+            batchSizes.add(items.size());
+            firstBatchStarted.countDown();
+            releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            return items;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstBatch.countDown();
+        committer.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void insert_concurrentCallers_shareOneInsertManyAndGetTheirOwnIds() throws Exception {
+        // Given
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 50_000, 60_000, 100, 10_000);
+        Future<ShopItem> first = callers.submit(() -> committer.insert(item("first")));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        List<Future<ShopItem>> queued = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String name = "queued-" + i;
+            queued.add(callers.submit(() -> committer.insert(item(name))));
+        }
+        awaitQueued(16);
+        releaseFirstBatch.countDown();
+
+        // Then
+        List<String> ids = new ArrayList<>();
+        ids.add(first.get(5, TimeUnit.SECONDS).getId());
+        for (Future<ShopItem> result : queued) {
+            ShopItem saved = result.get(5, TimeUnit.SECONDS);
+            assertThat(saved.getLastModified()).isEqualTo(7L);
+            ids.add(saved.getId());
+        }
+        assertThat(ids).doesNotHaveDuplicates().doesNotContainNull();
+        assertThat(batchSizes).containsExactly(1, 16);
+        // A full batch within the latency target grows the limit
+        assertThat(committer.batchLimit()).isEqualTo(17);
+        assertThat(meterRegistry.get("shop.items.group_commit.batch_size").summary().totalAmount()).isEqualTo(17);
+        verify(repository, never()).insert(any(ShopItem.class));
+    }
+
+    @Test
+    void insert_slowBatch_halvesBatchLimit() {
+        // Given - any batch is slower than a zero latency target
+        releaseFirstBatch.countDown();
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 100, 0, 100, 10_000);
+
+        // When
+        committer.insert(item("slow"));
+
+        // Then
+        assertThat(committer.batchLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void insert_failedBatch_retriesItemAlone() {
+        // Given
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 100, 60_000, 100, 10_000);
+        doThrow(new DataAccessResourceFailureException("network")).when(repository).insert(anyList());
+        given(repository.insert(any(ShopItem.class)))
+                .willThrow(new DuplicateKeyException("already written by the batch"))
+                .willThrow(new DataAccessResourceFailureException("still down"));
+
+        // When
+        ShopItem saved = committer.insert(item("retried"));
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThatThrownBy(() -> committer.insert(item("lost")))
+                .isInstanceOf(DataAccessResourceFailureException.class)
+                .hasMessage("still down");
+        assertThat(committer.batchLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void insert_queueFull_writesDirectly() throws Exception {
+        // Given
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 100, 60_000, 1, 10_000);
+        given(repository.insert(any(ShopItem.class))).willAnswer(inv -> inv.getArgument(0));
+        callers.submit(() -> committer.insert(item("first")));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        callers.submit(() -> committer.insert(item("queued")));
+        awaitQueued(1);
+
+        // When
+        ShopItem saved = committer.insert(item("overflow"));
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getLastModified()).isEqualTo(7L);
+        verify(repository).insert(saved);
+        assertThat(meterRegistry.get("shop.items.group_commit.overflow").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void insert_stillQueuedAfterMaxWait_givesUpWithoutWriting() throws Exception {
+        // Given
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 100, 60_000, 100, 100);
+        callers.submit(() -> committer.insert(item("first")));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When & Then
+        assertThatThrownBy(() -> committer.insert(item("queued")))
+                .isInstanceOf(QueryTimeoutException.class)
+                .hasMessageContaining("nothing was written");
+        releaseFirstBatch.countDown();
+        committer.shutdown();
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void insert_batchInFlightAfterMaxWait_mayStillBeWritten() {
+        // Given
+        committer = new InsertGroupCommitter(repository, meterRegistry, 64, 100, 60_000, 100, 100);
+
+        // When & Then
+        assertThatThrownBy(() -> committer.insert(item("first")))
+                .isInstanceOf(QueryTimeoutException.class)
+                .hasMessageContaining("may still be written");
+    }
+
+    @Test
+    void shutdown_writerStopsMidBatch_failsInFlightAndQueuedInserts() throws Exception {
+        // Given - the held batch is interrupted by the shutdown and never completes
+        committer = new InsertGroupCommitter(repository, meterRegistry, 1, 100, 60_000, 100, 60_000);
+        Future<ShopItem> first = callers.submit(() -> committer.insert(item("first")));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<ShopItem> queued = callers.submit(() -> committer.insert(item("queued")));
+        awaitQueued(1);
+
+        // When
+        committer.shutdown();
+
+        // Then - neither caller is left waiting
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("shop.items.group_commit.queued").gauge().value() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static ShopItem item(String name) {
+        return new ShopItem(name, null, new BigDecimal("1.00"), 1);
+    }
+}
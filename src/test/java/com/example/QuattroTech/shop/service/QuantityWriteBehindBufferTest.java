@@ -0,0 +1,390 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.model.QuantityUpdates;
+import com.example.QuattroTech.shop.repository.DurabilityTier;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for QuantityWriteBehindBuffer
+ * The time trigger is set far in the future so flushes are driven by the tests
+ */
+class QuantityWriteBehindBufferTest {
+
+    private ShopItemRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private QuantityWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(ShopItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        given(repository.writeInSequence(any())).willAnswer(inv -> inv.<LongFunction<?>>getArgument(0).apply(7L));
+        given(repository.incrementQuantities(anyMap(), anyLong())).willReturn(QuantityUpdates.applied());
+        buffer = new QuantityWriteBehindBuffer(repository, meterRegistry, 100, 3, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void add_sameItem_mergesDeltasIntoSingleUpdate() {
+        // When
+        buffer.add("a", 5);
+        buffer.add("a", -2);
+        buffer.add("b", 1);
+        buffer.flush();
+
+        // Then
+        ArgumentCaptor<Map<String, Integer>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(repository).incrementQuantities(captor.capture(), eq(7L));
+        assertThat(captor.getValue()).containsOnly(Map.entry("a", 3), Map.entry("b", 1));
+        assertThat(buffer.pendingItems()).isZero();
+        assertThat(meterRegistry.get("shop.items.write_behind.flushed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("shop.items.write_behind.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_withResolver_writesInStrictTier() {
+        // Given
+        TieredWriteConcernResolver resolver = new TieredWriteConcernResolver();
+        QuantityWriteBehindBuffer strictBuffer = new QuantityWriteBehindBuffer(repository, meterRegistry,
+                100, 3, 60_000, QuantityWriteBehindBuffer.DEFAULT_MAX_RETRIES, resolver);
+        DurabilityTier[] observed = new DurabilityTier[1];
+        given(repository.incrementQuantities(anyMap(), anyLong())).willAnswer(inv -> {
+            observed[0] = resolver.currentTier();
+            return QuantityUpdates.applied();
+        });
+        strictBuffer.add("a", -1);
+
+        // When
+        strictBuffer.flush();
+        strictBuffer.shutdown();
+
+        // Then
+        assertThat(observed[0]).isEqualTo(DurabilityTier.STRICT);
+    }
+
+    @Test
+    void flush_notifiesListenerAfterWrite() {
+        // Given
+        QuantityWriteBehindBuffer.FlushListener listener = mock(QuantityWriteBehindBuffer.FlushListener.class);
+        buffer.setFlushListener(listener);
+        buffer.add("a", 1);
+        buffer.add("b", 2);
+        given(repository.incrementQuantities(anyMap(), anyLong())).willReturn(new QuantityUpdates(Set.of("b"), Set.of()));
+
+        // When
+        buffer.flush();
+
+        // Then - only the applied delta is reported, with the sequence it was stamped with
+        verify(listener).flushed(Map.of("a", 1), 7L);
+    }
+
+    @Test
+    void flush_deltasCancelOut_skipsWrite() {
+        // When
+        buffer.add("a", 5);
+        buffer.add("a", -5);
+        buffer.flush();
+
+        // Then
+        verify(repository, never()).incrementQuantities(anyMap(), anyLong());
+    }
+
+    @Test
+    void add_bufferFull_refusesNewItemAndFlushesOnFlusher() throws InterruptedException {
+        // Given
+        buffer.add("a", 1);
+        buffer.add("b", 1);
+        buffer.add("c", 1);
+
+        // When & Then - the caller is turned away instead of writing the buffer itself
+        assertThatThrownBy(() -> buffer.add("d", 1))
+                .isInstanceOf(WriteBehindFullException.class)
+                .hasMessage("Write-behind buffer is full: 3 items are waiting to be flushed");
+        verify(repository, timeout(2000)).incrementQuantities(Map.of("a", 1, "b", 1, "c", 1), 7L);
+        awaitCondition(() -> buffer.pendingItems() == 0);
+        buffer.add("d", 1);
+        assertThat(meterRegistry.get("shop.items.write_behind.pending").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void add_bufferFull_acceptsItemsAlreadyBuffered() {
+        // Given
+        buffer.add("a", 1);
+        buffer.add("b", 1);
+        buffer.add("c", 1);
+
+        // When
+        buffer.add("a", 1);
+
+        // Then
+        assertThat(buffer.pendingItems()).isEqualTo(3);
+    }
+
+    @Test
+    void add_existingItemInFullBuffer_mergesWithoutFlush() {
+        // Given
+        buffer.add("a", 1);
+        buffer.add("b", 1);
+        buffer.add("c", 1);
+
+        // When
+        buffer.add("a", 1);
+
+        // Then
+        verify(repository, never()).incrementQuantities(anyMap(), anyLong());
+        assertThat(buffer.pendingItems()).isEqualTo(3);
+    }
+
+    @Test
+    void add_batchSizeReached_flushesInBackground() {
+        // Given
+        buffer.shutdown();
+        buffer = new QuantityWriteBehindBuffer(repository, meterRegistry, 2, 100, 60_000);
+
+        // When
+        buffer.add("a", 1);
+        buffer.add("b", 1);
+
+        // Then
+        verify(repository, timeout(2000)).incrementQuantities(anyMap(), eq(7L));
+    }
+
+    @Test
+    void flush_largerThanBatchSize_writesSeveralBatches() {
+        // Given
+        buffer.shutdown();
+        buffer = new QuantityWriteBehindBuffer(repository, meterRegistry, 2, 100, 60_000);
+        buffer.add("a", 1);
+        buffer.add("b", 1);
+        buffer.add("c", 1);
+        buffer.add("d", 1);
+
+        // When
+        buffer.flush();
+
+        // Then - every write holds at most two items, whoever triggered it
+        verify(repository, atLeast(2)).incrementQuantities(anyMap(), anyLong());
+        assertThat(buffer.pendingItems()).isZero();
+    }
+
+    @Test
+    void flush_writeFails_keepsDeltasBuffered() {
+        // Given
+        doThrow(new IllegalStateException("mongo down"))
+                .when(repository).incrementQuantities(anyMap(), anyLong());
+        buffer.add("a", 4);
+
+        // When & Then
+        assertThatThrownBy(() -> buffer.flush()).isInstanceOf(IllegalStateException.class);
+        assertThat(buffer.pendingItems()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_someUpdatesFail_keepsOnlyThoseBuffered() {
+        // Given: outside a transaction the other updates of the bulk write were applied
+        given(repository.incrementQuantities(anyMap(), anyLong()))
+                .willReturn(new QuantityUpdates(Set.of("b"), Set.of()))
+                .willReturn(QuantityUpdates.applied());
+        buffer.add("a", 4);
+        buffer.add("b", -2);
+
+        // When
+        buffer.flush();
+
+        // Then
+        assertThat(buffer.pendingItems()).isEqualTo(1);
+        buffer.flush();
+        verify(repository).incrementQuantities(Map.of("b", -2), 7L);
+    }
+
+    @Test
+    void flush_refusedDelta_isDroppedAndNotReported() {
+        // Given - the repository refused "b", it would take the stock below zero
+        QuantityWriteBehindBuffer.FlushListener listener = mock(QuantityWriteBehindBuffer.FlushListener.class);
+        buffer.setFlushListener(listener);
+        given(repository.incrementQuantities(anyMap(), anyLong())).willReturn(new QuantityUpdates(Set.of(), Set.of("b")));
+        buffer.add("a", 4);
+        buffer.add("b", -2);
+
+        // When
+        buffer.flush();
+
+        // Then - retrying would be refused again
+        assertThat(buffer.pendingItems()).isZero();
+        verify(listener).flushed(Map.of("a", 4), 7L);
+        assertThat(meterRegistry.get("shop.items.write_behind.refused").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void add_bufferedSumOverflows_isRefused() {
+        // Given
+        buffer.add("a", Integer.MAX_VALUE);
+
+        // When & Then
+        assertThatThrownBy(() -> buffer.add("a", 1)).isInstanceOf(QuantityOutOfRangeException.class);
+        buffer.flush();
+        verify(repository).incrementQuantities(Map.of("a", Integer.MAX_VALUE), 7L);
+    }
+
+    @Test
+    void flush_updateKeepsFailing_dropsDeltaAfterMaxRetries() {
+        // Given
+        given(repository.incrementQuantities(anyMap(), anyLong())).willReturn(new QuantityUpdates(Set.of("b"), Set.of()));
+        buffer.add("b", -2);
+
+        // When
+        for (int i = 0; i <= QuantityWriteBehindBuffer.DEFAULT_MAX_RETRIES; i++) {
+            buffer.flush();
+        }
+
+        // Then - the poison delta no longer holds a slot
+        assertThat(buffer.pendingItems()).isZero();
+        assertThat(meterRegistry.get("shop.items.write_behind.dropped").counter().count()).isEqualTo(1);
+        verify(repository, times(QuantityWriteBehindBuffer.DEFAULT_MAX_RETRIES + 1)).incrementQuantities(anyMap(), anyLong());
+    }
+
+    @Test
+    void flush_batchFails_writesDeltasAloneToIsolateTheBadOne() {
+        // Given - in a transaction the bad delta fails the whole batch
+        given(repository.incrementQuantities(anyMap(), anyLong())).willAnswer(inv -> {
+            if (inv.<Map<String, Integer>>getArgument(0).containsKey("b")) {
+                throw new IllegalStateException("write error");
+            }
+            return QuantityUpdates.applied();
+        });
+        buffer.add("a", 4);
+        buffer.add("b", -2);
+
+        // When
+        buffer.flush();
+
+        // Then
+        verify(repository).incrementQuantities(Map.of("a", 4), 7L);
+        verify(repository).incrementQuantities(Map.of("b", -2), 7L);
+        assertThat(buffer.pendingItems()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_databaseUnavailable_retriesWithoutLimit() {
+        // Given
+        doThrow(new DataAccessResourceFailureException("no server"))
+                .when(repository).incrementQuantities(anyMap(), anyLong());
+        buffer.add("a", 4);
+        buffer.add("b", -2);
+
+        // When
+        for (int i = 0; i <= QuantityWriteBehindBuffer.DEFAULT_MAX_RETRIES; i++) {
+            assertThatThrownBy(() -> buffer.flush()).isInstanceOf(DataAccessResourceFailureException.class);
+        }
+
+        // Then - an outage says nothing about the deltas, so none is dropped
+        assertThat(buffer.pendingItems()).isEqualTo(2);
+        assertThat(meterRegistry.get("shop.items.write_behind.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void flush_commitOutcomeUnknown_doesNotMergeBack() {
+        // Given: a write concern timeout on commit, the batch may have been applied
+        MongoException unknown = new MongoException("waiting for replication timed out");
+        unknown.addLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL);
+        doThrow(new DataAccessResourceFailureException("commit failed", unknown))
+                .when(repository).incrementQuantities(anyMap(), anyLong());
+        buffer.add("a", 4);
+
+        // When
+        buffer.flush();
+
+        // Then - merging it back would apply the delta twice once the commit turns out to have succeeded
+        assertThat(buffer.pendingItems()).isZero();
+    }
+
+    @Test
+    void shutdown_flushesRemainingDeltas() {
+        // Given
+        buffer.add("a", 4);
+
+        // When
+        buffer.shutdown();
+
+        // Then
+        verify(repository).incrementQuantities(Map.of("a", 4), 7L);
+    }
+
+    @Test
+    void shutdown_writeFails_doesNotThrow() {
+        // Given
+        doThrow(new IllegalStateException("mongo down"))
+                .when(repository).incrementQuantities(anyMap(), anyLong());
+        buffer.add("a", 4);
+
+        // When
+        buffer.shutdown();
+
+        // Then
+        assertThat(buffer.pendingItems()).isEqualTo(1);
+    }
+
+    @Test
+    void scheduledFlush_writesAfterInterval() {
+        // Given
+        buffer.shutdown();
+        buffer = new QuantityWriteBehindBuffer(repository, meterRegistry, 100, 100, 10);
+
+        // When
+        buffer.add("a", 4);
+
+        // Then
+        verify(repository, timeout(2000)).incrementQuantities(Map.of("a", 4), 7L);
+    }
+
+    @Test
+    void scheduledFlush_writeFails_doesNotStopFlusher() {
+        // Given
+        buffer.shutdown();
+        doThrow(new IllegalStateException("mongo down"))
+                .doReturn(QuantityUpdates.applied())
+                .when(repository).incrementQuantities(anyMap(), anyLong());
+        buffer = new QuantityWriteBehindBuffer(repository, meterRegistry, 100, 100, 10);
+
+        // When
+        buffer.add("a", 4);
+
+        // Then
+        verify(repository, timeout(2000).times(2)).incrementQuantities(Map.of("a", 4), 7L);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition reached in time").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
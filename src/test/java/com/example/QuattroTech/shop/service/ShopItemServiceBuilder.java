@@ -0,0 +1,63 @@
+package com.example.QuattroTech.shop.service;
+
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import com.example.QuattroTech.shop.repository.TieredWriteConcernResolver;
+
+/**
+ * Builds ShopItemServiceImpl for tests, with every optional collaborator switched off
+ * unless set, the way Spring wires it when the feature's property is false
+ */
+final class ShopItemServiceBuilder {
+
+    private final ShopItemRepository repository;
+    private QuantityWriteBehindBuffer quantityBuffer;
+    private ShopItemBulkheads bulkheads;
+    private InsertGroupCommitter insertCommitter;
+    private CatalogSnapshot catalogSnapshot;
+    private CausalReadContext causalReads;
+    private TieredWriteConcernResolver writeConcernResolver;
+
+    private ShopItemServiceBuilder(ShopItemRepository repository) {
+        this.repository = repository;
+    }
+
+    static ShopItemServiceBuilder serviceFor(ShopItemRepository repository) {
+        return new ShopItemServiceBuilder(repository);
+    }
+
+    ShopItemServiceBuilder quantityBuffer(QuantityWriteBehindBuffer quantityBuffer) {
+        this.quantityBuffer = quantityBuffer;
+        return this;
+    }
+
+    ShopItemServiceBuilder bulkheads(ShopItemBulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+        return this;
+    }
+
+    ShopItemServiceBuilder insertCommitter(InsertGroupCommitter insertCommitter) {
+        this.insertCommitter = insertCommitter;
+        return this;
+    }
+
+    ShopItemServiceBuilder catalogSnapshot(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+        return this;
+    }
+
+    ShopItemServiceBuilder causalReads(CausalReadContext causalReads) {
+        this.causalReads = causalReads;
+        return this;
+    }
+
+    ShopItemServiceBuilder writeConcernResolver(TieredWriteConcernResolver writeConcernResolver) {
+        this.writeConcernResolver = writeConcernResolver;
+        return this;
+    }
+
+    ShopItemServiceImpl build() {
+        return new ShopItemServiceImpl(repository, quantityBuffer, bulkheads, insertCommitter,
+                catalogSnapshot, causalReads, writeConcernResolver);
+    }
+}
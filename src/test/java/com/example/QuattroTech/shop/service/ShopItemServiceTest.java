@@ -1,24 +1,44 @@
 package com.example.QuattroTech.shop.service;
 
+import com.example.QuattroTech.shop.model.QuantityUpdates;
 import com.example.QuattroTech.shop.model.ShopItem;
+import com.example.QuattroTech.shop.model.ShopItemBatch;
+import com.example.QuattroTech.shop.model.ShopItemDelta;
+import com.example.QuattroTech.shop.model.ShopItemQuery;
+import com.example.QuattroTech.shop.model.ShopItemTombstone;
+import com.example.QuattroTech.shop.repository.CausalReadContext;
+import com.example.QuattroTech.shop.repository.CausalToken;
+import com.example.QuattroTech.shop.repository.ShopItemQueryPlan;
 import com.example.QuattroTech.shop.repository.ShopItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonTimestamp;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Range;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
 
+import static com.example.QuattroTech.shop.service.ShopItemServiceBuilder.serviceFor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.*;
 
 /**
@@ -31,12 +51,22 @@ class ShopItemServiceTest {
     @Mock
     private ShopItemRepository repository;
 
-    @InjectMocks
     private ShopItemServiceImpl service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        service = serviceFor(repository).build();
+        givenSequences(0L);
+        given(repository.incrementQuantities(any(), anyLong())).willReturn(QuantityUpdates.applied());
+    }
+
+    // Sequenced writes run with these sequences in turn, the last one repeats
+    private void givenSequences(long... sequences) {
+        AtomicInteger calls = new AtomicInteger();
+        willAnswer(inv -> inv.<LongFunction<?>>getArgument(0)
+                .apply(sequences[Math.min(calls.getAndIncrement(), sequences.length - 1)]))
+                .given(repository).writeInSequence(any());
     }
 
     // ========================================
@@ -567,4 +597,648 @@ class ShopItemServiceTest {
         assertThat(capturedItem.getId()).isEqualTo("correct-id-123");  // ← This kills the mutant
     }
 
+    // ========================================
+    // DELTA SYNC
+    // ========================================
+
+    @Test
+    void insertNewItem_overwritesChangeSequence() {
+        // Given
+        ShopItem item = new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5);
+        item.setLastModified(Long.MAX_VALUE);
+        givenSequences(42L);
+        given(repository.save(any(ShopItem.class))).willAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ShopItem result = service.insertNewItem(item);
+
+        // Then
+        assertThat(result.getLastModified()).isEqualTo(42L);
+    }
+
+    @Test
+    void updateItem_overwritesChangeSequence() {
+        // Given
+        ShopItem item = new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5);
+        item.setLastModified(Long.MAX_VALUE);
+        givenSequences(43L);
+        given(repository.save(any(ShopItem.class))).willAnswer(inv -> inv.getArgument(0));
+
+        // When
+        ShopItem result = service.updateItem("123", item);
+
+        // Then
+        assertThat(result.getLastModified()).isEqualTo(43L);
+    }
+
+    @Test
+    void deleteItem_recordsTombstone() {
+        // Given
+        givenSequences(44L);
+
+        // When
+        service.deleteItem("123");
+
+        // Then
+        verify(repository).recordDeletion("123", 44L);
+    }
+
+    @Test
+    void getChangesSince_returnsChangesUpToCurrentSequenceAsNewToken() {
+        // Given
+        ShopItem changed = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        changed.setLastModified(12L);
+        given(repository.currentChangeSequence()).willReturn(13L);
+        given(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(10L, 13L)))
+                .willReturn(List.of(changed));
+        given(repository.findDeletionsSince(10L, 13L))
+                .willReturn(List.of(new ShopItemTombstone("2", 11L)));
+
+        // When
+        ShopItemDelta delta = service.getChangesSince(10L);
+
+        // Then
+        assertThat(delta.changed()).containsExactly(changed);
+        assertThat(delta.deleted()).containsExactly("2");
+        assertThat(delta.token()).isEqualTo(13L);
+    }
+
+    @Test
+    void getChangesSince_readsCurrentSequenceBeforeChanges() {
+        // Given
+        given(repository.currentChangeSequence()).willReturn(15L);
+
+        // When
+        service.getChangesSince(10L);
+
+        // Then - a change committing between the reads is above the token and comes next time
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).currentChangeSequence();
+        inOrder.verify(repository).findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(10L, 15L));
+        inOrder.verify(repository).findDeletionsSince(10L, 15L);
+    }
+
+    @Test
+    void getChangesSince_zero_returnsEveryItemIncludingUnsequenced() {
+        // Given
+        ShopItem legacy = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.currentChangeSequence()).willReturn(20L);
+        given(repository.findAll()).willReturn(List.of(legacy));
+
+        // When
+        ShopItemDelta delta = service.getChangesSince(0L);
+
+        // Then
+        assertThat(delta.changed()).containsExactly(legacy);
+        assertThat(delta.deleted()).isEmpty();
+        assertThat(delta.token()).isEqualTo(20L);
+        verify(repository, never()).findDeletionsSince(anyLong(), anyLong());
+    }
+
+    @Test
+    void getChangesSince_noChanges_keepsToken() {
+        // Given
+        given(repository.currentChangeSequence()).willReturn(7L);
+        given(repository.findByLastModifiedBetweenOrderByLastModified(Range.leftOpen(7L, 7L)))
+                .willReturn(Collections.emptyList());
+        given(repository.findDeletionsSince(7L, 7L)).willReturn(Collections.emptyList());
+
+        // When
+        ShopItemDelta delta = service.getChangesSince(7L);
+
+        // Then
+        assertThat(delta.changed()).isEmpty();
+        assertThat(delta.deleted()).isEmpty();
+        assertThat(delta.token()).isEqualTo(7L);
+    }
+
+    // ========================================
+    // QUANTITY ADJUSTMENTS
+    // ========================================
+
+    @Test
+    void adjustQuantity_withoutBuffer_incrementsImmediately() {
+        // Given
+        givenSequences(50L);
+
+        // When
+        service.adjustQuantity("123", -3);
+
+        // Then
+        verify(repository).incrementQuantities(Map.of("123", -3), 50L);
+    }
+
+    @Test
+    void adjustQuantity_updateFailed_throws() {
+        // Given
+        given(repository.incrementQuantities(Map.of("123", -3), 0L))
+                .willReturn(new QuantityUpdates(Set.of("123"), Set.of()));
+
+        // When & Then
+        assertThatThrownBy(() -> service.adjustQuantity("123", -3))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(service.getCatalogVersion()).isZero();
+    }
+
+    @Test
+    void adjustQuantity_outOfRange_throwsWithoutBumpingVersion() {
+        // Given - the repository refused the delta, it would take the stock below zero
+        given(repository.incrementQuantities(Map.of("123", -3), 0L))
+                .willReturn(new QuantityUpdates(Set.of(), Set.of("123")));
+
+        // When & Then
+        assertThatThrownBy(() -> service.adjustQuantity("123", -3))
+                .isInstanceOf(QuantityOutOfRangeException.class)
+                .hasMessage("Adjusting item 123 by -3 would take its quantity out of range");
+        assertThat(service.getCatalogVersion()).isZero();
+    }
+
+    @Test
+    void adjustQuantity_withBuffer_defersWrite() {
+        // Given
+        QuantityWriteBehindBuffer buffer = mock(QuantityWriteBehindBuffer.class);
+        ShopItemServiceImpl bufferedService = serviceFor(repository).quantityBuffer(buffer).build();
+
+        // When
+        bufferedService.adjustQuantity("123", -3);
+
+        // Then
+        verify(buffer).add("123", -3);
+        verify(repository, never()).incrementQuantities(any(), anyLong());
+    }
+
+    // ========================================
+    // SINGLE-FLIGHT METRICS
+    // ========================================
+
+    @Test
+    void bindTo_registersSingleFlightCounters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        given(repository.findById("123")).willReturn(Optional.empty());
+        given(repository.findByNameContainingIgnoreCase("lap")).willReturn(Collections.emptyList());
+        given(repository.findItemsWithLowStock(5)).willReturn(Collections.emptyList());
+
+        // When
+        service.bindTo(registry);
+        service.getItemById("123");
+        service.searchByName("lap");
+        service.findLowStockItems(5);
+
+        // Then
+        for (String operation : List.of("getItemById", "searchByName", "findLowStockItems")) {
+            assertThat(registry.get("shop.items.singleflight.executed")
+                    .tag("operation", operation).functionCounter().count()).isEqualTo(1);
+            assertThat(registry.get("shop.items.singleflight.collapsed")
+                    .tag("operation", operation).functionCounter().count()).isZero();
+        }
+    }
+
+    // ========================================
+    // MULTI-GET
+    // ========================================
+
+    @Test
+    void getItemsByIds_preservesRequestOrderAndReportsMissing() {
+        // Given - repository returns items in storage order
+        ShopItem item1 = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        ShopItem item3 = new ShopItem("3", "Mouse", "Wireless", new BigDecimal("25"), 10);
+        given(repository.findAllById(any())).willReturn(List.of(item1, item3));
+
+        // When
+        ShopItemBatch batch = service.getItemsByIds(List.of("3", "2", "1", "3"));
+
+        // Then
+        assertThat(batch.items()).containsExactly(item3, item1);
+        assertThat(batch.notFound()).containsExactly("2");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void getItemsByIds_queriesDistinctIdsOnce() {
+        // Given
+        given(repository.findAllById(any())).willReturn(Collections.emptyList());
+        ArgumentCaptor<Iterable<String>> captor = ArgumentCaptor.forClass(Iterable.class);
+
+        // When
+        service.getItemsByIds(List.of("a", "b", "a"));
+
+        // Then
+        verify(repository).findAllById(captor.capture());
+        assertThat(captor.getValue()).containsExactly("a", "b");
+    }
+
+    // ========================================
+    // STREAMING READS
+    // ========================================
+
+    @Test
+    void streamMethods_delegateToCursorBackedQueries() {
+        // Given
+        ShopItem item = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.streamAll()).willReturn(Stream.of(item));
+        given(repository.streamByNameContainingIgnoreCase("lap")).willReturn(Stream.of(item));
+        given(repository.streamItemsWithLowStock(10)).willReturn(Stream.of(item));
+
+        // When & Then
+        assertThat(service.streamAllItems()).containsExactly(item);
+        assertThat(service.streamByName("lap")).containsExactly(item);
+        assertThat(service.streamLowStockItems(10)).containsExactly(item);
+    }
+
+    // ========================================
+    // CATALOG VERSION
+    // ========================================
+
+    @Test
+    void writes_bumpCatalogVersion() {
+        // Given
+        given(repository.save(any(ShopItem.class))).willAnswer(inv -> inv.getArgument(0));
+        long before = service.getCatalogVersion();
+
+        // When
+        service.insertNewItem(new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5));
+        service.updateItem("1", new ShopItem("Laptop", "Gaming", new BigDecimal("1400"), 5));
+        service.deleteItem("1");
+        service.adjustQuantity("2", 1);
+
+        // Then
+        assertThat(service.getCatalogVersion()).isEqualTo(before + 4);
+    }
+
+    @Test
+    void writeBehindFlush_bumpsCatalogVersion() {
+        // Given
+        QuantityWriteBehindBuffer buffer = mock(QuantityWriteBehindBuffer.class);
+        ArgumentCaptor<QuantityWriteBehindBuffer.FlushListener> listener =
+                ArgumentCaptor.forClass(QuantityWriteBehindBuffer.FlushListener.class);
+        ShopItemServiceImpl bufferedService = serviceFor(repository).quantityBuffer(buffer).build();
+        verify(buffer).setFlushListener(listener.capture());
+
+        // When
+        bufferedService.adjustQuantity("1", 1);
+        long beforeFlush = bufferedService.getCatalogVersion();
+        listener.getValue().flushed(Map.of("1", 1), 7L);
+
+        // Then
+        assertThat(beforeFlush).isZero();
+        assertThat(bufferedService.getCatalogVersion()).isEqualTo(1);
+    }
+
+    // ========================================
+    // BULKHEADS
+    // ========================================
+
+    // No list slots and no queue, one slot each for point reads and writes
+    private ShopItemServiceImpl serviceWithSaturatedListBulkhead() {
+        ShopItemBulkheads bulkheads = new ShopItemBulkheads(0, 0, 0, 1, 0, 0, 1, 0, 0);
+        return serviceFor(repository).bulkheads(bulkheads).build();
+    }
+
+    @Test
+    void bulkheads_listWorkloadFull_rejectsListReadsOnly() {
+        // Given
+        ShopItemServiceImpl bulkheaded = serviceWithSaturatedListBulkhead();
+        ShopItem item = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.findById("1")).willReturn(Optional.of(item));
+        given(repository.save(any(ShopItem.class))).willAnswer(inv -> inv.getArgument(0));
+
+        // When & Then
+        assertThatThrownBy(bulkheaded::getAllItems).isInstanceOf(BulkheadFullException.class);
+        assertThatThrownBy(() -> bulkheaded.searchByName("lap")).isInstanceOf(BulkheadFullException.class);
+        assertThatThrownBy(() -> bulkheaded.findLowStockItems(5)).isInstanceOf(BulkheadFullException.class);
+        assertThatThrownBy(bulkheaded::streamAllItems).isInstanceOf(BulkheadFullException.class);
+        assertThatThrownBy(() -> bulkheaded.getChangesSince(0)).isInstanceOf(BulkheadFullException.class);
+        assertThat(bulkheaded.getItemById("1")).contains(item);
+        assertThat(bulkheaded.insertNewItem(new ShopItem("Mouse", "Wireless", new BigDecimal("25"), 1)))
+                .isNotNull();
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void bulkheads_writesAndPointReads_runInTheirOwnBulkhead() {
+        // Given
+        ShopItemBulkheads bulkheads = new ShopItemBulkheads(1, 0, 0, 1, 0, 0, 1, 0, 0);
+        ShopItemServiceImpl bulkheaded = serviceFor(repository).bulkheads(bulkheads).build();
+        given(repository.findAllById(any())).willAnswer(inv -> {
+            assertThat(bulkheads.pointRead().active()).isEqualTo(1);
+            return List.of();
+        });
+        doAnswer(inv -> {
+            assertThat(bulkheads.write().active()).isEqualTo(1);
+            return null;
+        }).when(repository).deleteById("1");
+
+        // When
+        bulkheaded.getItemsByIds(List.of("1"));
+        bulkheaded.deleteItem("1");
+        bulkheaded.updateItem("1", new ShopItem("Laptop", "Gaming", new BigDecimal("1400"), 5));
+        bulkheaded.adjustQuantity("1", 2);
+
+        // Then - all slots are free again
+        assertThat(bulkheads.pointRead().active()).isZero();
+        assertThat(bulkheads.write().active()).isZero();
+        verify(repository).incrementQuantities(Map.of("1", 2), 0L);
+    }
+
+    @Test
+    void bulkheads_streams_holdListSlotUntilClosed() {
+        // Given
+        ShopItemBulkheads bulkheads = new ShopItemBulkheads(1, 0, 0, 1, 0, 0, 1, 0, 0);
+        ShopItemServiceImpl bulkheaded = serviceFor(repository).bulkheads(bulkheads).build();
+        given(repository.streamByNameContainingIgnoreCase("lap")).willReturn(Stream.empty());
+        given(repository.streamItemsWithLowStock(5)).willReturn(Stream.empty());
+
+        // When
+        Stream<ShopItem> stream = bulkheaded.streamByName("lap");
+
+        // Then
+        assertThat(bulkheads.list().active()).isEqualTo(1);
+        assertThatThrownBy(() -> bulkheaded.streamLowStockItems(5)).isInstanceOf(BulkheadFullException.class);
+        stream.close();
+        assertThat(bulkheads.list().active()).isZero();
+        bulkheaded.streamLowStockItems(5).close();
+    }
+
+    // ========================================
+    // READ ROUTING
+    // ========================================
+
+    @Test
+    void writes_recordCausalTokenAfterEachWrite_readsDoNot() {
+        // Given
+        ShopItem item = new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.save(any(ShopItem.class))).willReturn(item);
+        given(repository.findAll()).willReturn(List.of(item));
+
+        // When
+        service.insertNewItem(item);
+        service.deleteItem("1");
+        service.getAllItems();
+
+        // Then
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).save(item);
+        inOrder.verify(repository).recordCausalWrite();
+        inOrder.verify(repository).deleteById("1");
+        inOrder.verify(repository).recordCausalWrite();
+        verify(repository, times(2)).recordCausalWrite();
+    }
+
+    @Test
+    void reads_withCausalToken_bypassSingleFlight() {
+        // Given
+        CausalReadContext causalReads = mock(CausalReadContext.class);
+        given(causalReads.current()).willReturn(new CausalToken(new BsonTimestamp(1, 1), null));
+        ShopItemServiceImpl routed = serviceFor(repository).causalReads(causalReads).build();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        routed.bindTo(registry);
+        given(repository.findById("1")).willReturn(Optional.empty());
+        given(repository.findByNameContainingIgnoreCase("lap")).willReturn(List.of());
+        given(repository.findItemsWithLowStock(5)).willReturn(List.of());
+
+        // When
+        routed.getItemById("1");
+        routed.searchByName("lap");
+        routed.findLowStockItems(5);
+
+        // Then - a flight started before the caller's write could return what it read before it
+        verify(repository).findById("1");
+        verify(repository).findByNameContainingIgnoreCase("lap");
+        verify(repository).findItemsWithLowStock(5);
+        assertThat(registry.get("shop.items.singleflight.executed").functionCounters())
+                .allSatisfy(counter -> assertThat(counter.count()).isZero());
+    }
+
+    // ========================================
+    // GROUP COMMIT
+    // ========================================
+
+    @Test
+    void insertNewItem_withGroupCommitter_enqueuesInsteadOfSaving() {
+        // Given
+        InsertGroupCommitter committer = mock(InsertGroupCommitter.class);
+        ShopItemServiceImpl grouped = serviceFor(repository).insertCommitter(committer).build();
+        ShopItem item = new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5);
+        ShopItem saved = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(committer.insert(item)).willReturn(saved);
+
+        // When
+        ShopItem result = grouped.insertNewItem(item);
+
+        // Then
+        assertThat(result).isSameAs(saved);
+        assertThat(grouped.getCatalogVersion()).isEqualTo(1);
+        verify(repository, never()).save(any());
+        verify(repository).recordCausalWrite();
+    }
+
+    @Test
+    void insertNewItem_withGroupCommitter_stillValidatesFirst() {
+        // Given
+        InsertGroupCommitter committer = mock(InsertGroupCommitter.class);
+        ShopItemServiceImpl grouped = serviceFor(repository).insertCommitter(committer).build();
+
+        // When & Then
+        assertThatThrownBy(() -> grouped.insertNewItem(new ShopItem("", null, BigDecimal.ONE, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(committer);
+    }
+
+    // ============================================
+    // BULK INSERT
+    // ============================================
+
+    @Test
+    void insertItems_keepsIdsAndStampsOneSequence() {
+        // Given
+        List<ShopItem> items = List.of(
+                new ShopItem("aaaaaaaaaaaaaaaaaaaaaaaa", "Laptop", null, BigDecimal.TEN, 1),
+                new ShopItem("bbbbbbbbbbbbbbbbbbbbbbbb", "Mouse", null, BigDecimal.ONE, 2));
+        givenSequences(9L);
+        given(repository.insert(items)).willReturn(items);
+        long versionBefore = service.getCatalogVersion();
+
+        // When
+        List<ShopItem> result = service.insertItems(items);
+
+        // Then
+        assertThat(result).extracting(ShopItem::getId)
+                .containsExactly("aaaaaaaaaaaaaaaaaaaaaaaa", "bbbbbbbbbbbbbbbbbbbbbbbb");
+        assertThat(result).extracting(ShopItem::getLastModified).containsOnly(9L);
+        verify(repository, times(1)).writeInSequence(any());
+        assertThat(service.getCatalogVersion()).isEqualTo(versionBefore + 1);
+    }
+
+    @Test
+    void insertItems_oneInvalidItem_writesNothing() {
+        // Given
+        List<ShopItem> items = List.of(
+                new ShopItem("Laptop", null, BigDecimal.TEN, 1),
+                new ShopItem("Mouse", null, BigDecimal.ONE, -1));
+
+        // When & Then
+        assertThatThrownBy(() -> service.insertItems(items))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantity must be >= 0");
+        verify(repository, never()).insert(anyList());
+    }
+
+    // ============================================
+    // CATALOG SNAPSHOT
+    // ============================================
+
+    @Test
+    void reads_whileSnapshotServes_skipMongo() {
+        // Given
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        ShopItemServiceImpl snapshotted = serviceFor(repository).catalogSnapshot(snapshot).build();
+        ShopItem laptop = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(snapshot.isServing()).willReturn(true);
+        given(snapshot.find("1")).willReturn(Optional.of(laptop));
+        given(snapshot.find("2")).willReturn(Optional.empty());
+        given(snapshot.findAll()).willReturn(List.of(laptop));
+        given(snapshot.streamAll()).willReturn(Stream.of(laptop));
+
+        // When & Then
+        assertThat(snapshotted.getItemById("1")).contains(laptop);
+        assertThat(snapshotted.getAllItems()).containsExactly(laptop);
+        assertThat(snapshotted.streamAllItems()).containsExactly(laptop);
+        ShopItemBatch batch = snapshotted.getItemsByIds(List.of("1", "2"));
+        assertThat(batch.items()).containsExactly(laptop);
+        assertThat(batch.notFound()).containsExactly("2");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void reads_snapshotNotServing_goToMongo() {
+        // Given
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        ShopItemServiceImpl snapshotted = serviceFor(repository).catalogSnapshot(snapshot).build();
+        given(repository.findById("1")).willReturn(Optional.empty());
+        given(repository.findAll()).willReturn(List.of());
+
+        // When
+        snapshotted.getItemById("1");
+        snapshotted.getAllItems();
+
+        // Then
+        verify(snapshot, never()).find(any());
+        verify(repository).findById("1");
+        verify(repository).findAll();
+    }
+
+    @Test
+    void reads_withCausalToken_skipSnapshot() {
+        // Given - the snapshot serves, but may not have caught up with the caller's write
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        CausalReadContext causalReads = mock(CausalReadContext.class);
+        given(causalReads.current()).willReturn(new CausalToken(new BsonTimestamp(1, 1), null));
+        ShopItemServiceImpl snapshotted = serviceFor(repository).catalogSnapshot(snapshot).causalReads(causalReads).build();
+        given(snapshot.isServing()).willReturn(true);
+        given(repository.findById("1")).willReturn(Optional.empty());
+        given(repository.findAllById(any())).willReturn(List.of());
+        given(repository.findAll()).willReturn(List.of());
+
+        // When
+        snapshotted.getItemById("1");
+        snapshotted.getItemsByIds(List.of("1", "2"));
+        snapshotted.getAllItems();
+
+        // Then
+        verify(snapshot, never()).find(any());
+        verify(snapshot, never()).findAll();
+        verify(repository).findById("1");
+        verify(repository).findAllById(any());
+        verify(repository).findAll();
+    }
+
+    @Test
+    void writes_areAppliedToSnapshot() {
+        // Given
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        ShopItemServiceImpl snapshotted = serviceFor(repository).catalogSnapshot(snapshot).build();
+        ShopItem saved = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.save(any(ShopItem.class))).willReturn(saved);
+        given(repository.insert(anyList())).willReturn(List.of(saved));
+        givenSequences(41L, 42L, 43L, 44L);
+
+        // When
+        snapshotted.insertNewItem(new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5));
+        snapshotted.updateItem("1", new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5));
+        snapshotted.insertItems(List.of(new ShopItem("Laptop", "Gaming", new BigDecimal("1500"), 5)));
+        snapshotted.deleteItem("1");
+
+        // Then
+        verify(snapshot, times(3)).put(saved);
+        verify(snapshot).remove("1", 44L);
+    }
+
+    @Test
+    void adjustQuantity_isAppliedToSnapshot() {
+        // Given
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        ShopItemServiceImpl snapshotted = serviceFor(repository).catalogSnapshot(snapshot).build();
+        givenSequences(41L);
+
+        // When
+        snapshotted.adjustQuantity("1", -2);
+
+        // Then
+        verify(snapshot).adjustQuantity("1", -2, 41L);
+    }
+
+    @Test
+    void adjustQuantity_writeBehindFlush_isAppliedToSnapshot() {
+        // Given
+        CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+        QuantityWriteBehindBuffer buffer = mock(QuantityWriteBehindBuffer.class);
+        ArgumentCaptor<QuantityWriteBehindBuffer.FlushListener> listener =
+                ArgumentCaptor.forClass(QuantityWriteBehindBuffer.FlushListener.class);
+        ShopItemServiceImpl buffered = serviceFor(repository).quantityBuffer(buffer).catalogSnapshot(snapshot).build();
+        verify(buffer).setFlushListener(listener.capture());
+
+        // When
+        buffered.adjustQuantity("1", -2);
+        listener.getValue().flushed(Map.of("1", -2, "2", 3), 41L);
+
+        // Then
+        verify(snapshot).adjustQuantity("1", -2, 41L);
+        verify(snapshot).adjustQuantity("2", 3, 41L);
+    }
+
+    // ========================================
+    // QUERY
+    // ========================================
+
+    @Test
+    void queryItems_runsPlannedQueryOnRepository() {
+        // Given
+        ShopItem item = new ShopItem("1", "Laptop", "Gaming", new BigDecimal("1500"), 5);
+        given(repository.query(any(ShopItemQueryPlan.class))).willReturn(List.of(item));
+
+        // When
+        List<ShopItem> result = service.queryItems(
+                new ShopItemQuery("Lap", null, null, 1, 9, ShopItemQuery.SortField.QUANTITY, false, 10));
+
+        // Then
+        ArgumentCaptor<ShopItemQueryPlan> plan = ArgumentCaptor.forClass(ShopItemQueryPlan.class);
+        verify(repository).query(plan.capture());
+        assertThat(plan.getValue().index()).isEqualTo("quantity");
+        assertThat(result).containsExactly(item);
+    }
+
+    @Test
+    void queryItems_uncoveredQuery_isRejectedBeforeTakingListSlot() {
+        // Given
+        ShopItemServiceImpl bulkheaded = serviceWithSaturatedListBulkhead();
+        ShopItemQuery priceOnly = new ShopItemQuery(null, BigDecimal.ONE, null, null, null, null, false, 10);
+
+        // When & Then
+        assertThatThrownBy(() -> bulkheaded.queryItems(priceOnly)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkheaded.queryItems(
+                new ShopItemQuery("Lap", null, null, null, null, null, false, 10)))
+                .isInstanceOf(BulkheadFullException.class);
+        verify(repository, never()).query(any());
+    }
 }
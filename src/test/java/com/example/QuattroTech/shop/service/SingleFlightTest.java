@@ -0,0 +1,156 @@
+package com.example.QuattroTech.shop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SingleFlight
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+
+    @Test
+    void execute_concurrentCallsForSameKey_runLoaderOnce() throws Exception {
+        // Given - the leader blocks until every follower has joined
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flights.execute("k", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "value";
+            })));
+            waitUntil(() -> flights.executedCount() == 1);
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> flights.execute("k", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            waitUntil(() -> flights.collapsedCount() == callers - 1);
+
+            // When
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_sequentialCalls_runLoaderEachTime() {
+        // When
+        flights.execute("k", () -> "first");
+        String second = flights.execute("k", () -> "second");
+
+        // Then
+        assertThat(second).isEqualTo("second");
+        assertThat(flights.executedCount()).isEqualTo(2);
+        assertThat(flights.collapsedCount()).isZero();
+    }
+
+    @Test
+    void execute_nullKey_bypassesCoalescing() {
+        // When
+        String result = flights.execute(null, () -> "value");
+
+        // Then
+        assertThat(result).isEqualTo("value");
+        assertThat(flights.executedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_loaderFails_exceptionIsSharedAndKeyReleased() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flights.execute("k", () -> {
+                await(release);
+                throw new IllegalStateException("boom");
+            }));
+            waitUntil(() -> flights.executedCount() == 1);
+            Future<String> follower = pool.submit(() -> flights.execute("k", () -> "unused"));
+            waitUntil(() -> flights.collapsedCount() == 1);
+
+            // When
+            release.countDown();
+
+            // Then
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(flights.execute("k", () -> "recovered")).isEqualTo("recovered");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_loaderThrowsError_errorIsSharedWithFollowers() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            pool.submit(() -> {
+                try {
+                    flights.execute("k", () -> {
+                        await(release);
+                        throw new AssertionError("fatal");
+                    });
+                } catch (AssertionError expected) {
+                    // leader rethrows the same error
+                }
+            });
+            waitUntil(() -> flights.executedCount() == 1);
+            Future<String> follower = pool.submit(() -> flights.execute("k", () -> "unused"));
+            waitUntil(() -> flights.collapsedCount() == 1);
+
+            // When
+            release.countDown();
+
+            // Then
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(AssertionError.class);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}